@@ -1,48 +1,313 @@
 package com.example.autoclicker;
 
 import android.accessibilityservice.AccessibilityService;
+import android.accessibilityservice.AccessibilityServiceInfo;
 import android.accessibilityservice.GestureDescription;
+import android.content.Intent;
 import android.graphics.Path;
+import android.graphics.Rect;
+import android.os.BatteryManager;
 import android.os.Handler;
+import android.os.HandlerThread;
 import android.os.Looper;
+import android.os.PowerManager;
+import android.os.Process;
+import android.os.SystemClock;
+import android.util.Log;
 import android.view.accessibility.AccessibilityEvent;
-import android.content.Intent;
-import androidx.localbroadcastmanager.content.LocalBroadcastManager;
+import android.view.accessibility.AccessibilityNodeInfo;
+
+import com.example.autoclicker.bus.ChoreographerPoster;
+import com.example.autoclicker.bus.ClickerEvents;
+import com.example.autoclicker.control.LocalControlServer;
+import com.example.autoclicker.control.ServiceControlHandler;
+import com.example.autoclicker.core.ClickRun;
+import com.example.autoclicker.core.GestureSink;
+import com.example.autoclicker.events.EventRateCounter;
+import com.example.autoclicker.events.EventSubscriptions;
+import com.example.autoclicker.gesture.DispatchPipeline;
+import com.example.autoclicker.gesture.GesturePool;
+import com.example.autoclicker.gesture.StrokeSetPool;
+import com.example.autoclicker.gesture.TapEmitter;
+import com.example.autoclicker.journal.JournalFormatException;
+import com.example.autoclicker.journal.RunCheckpoint;
+import com.example.autoclicker.journal.RunJournal;
+import com.example.autoclicker.jobs.ClickJob;
+import com.example.autoclicker.jobs.JobEngine;
+import com.example.autoclicker.macro.MacroCursor;
+import com.example.autoclicker.macro.MacroFile;
+import com.example.autoclicker.macro.MacroPlayback;
+import com.example.autoclicker.macro.MacroStore;
+import com.example.autoclicker.nodes.AccessibilityNodeAdapter;
+import com.example.autoclicker.nodes.NodeIndex;
+import com.example.autoclicker.nodes.NodeTarget;
+import com.example.autoclicker.jitter.IntervalJitter;
+import com.example.autoclicker.jitter.JitterSpec;
+import com.example.autoclicker.jitter.PositionJitter;
+import com.example.autoclicker.power.AdaptiveRateController;
+import com.example.autoclicker.profiles.ClickProfile;
+import com.example.autoclicker.profiles.ProfileFormatException;
+import com.example.autoclicker.profiles.ProfileStore;
+import com.example.autoclicker.power.PowerPolicy;
+import com.example.autoclicker.scheduler.CatchUpPolicy;
+import com.example.autoclicker.script.ScriptCompiler;
+import com.example.autoclicker.script.ScriptException;
+import com.example.autoclicker.script.ScriptProgram;
+import com.example.autoclicker.script.ScriptVm;
+import com.example.autoclicker.sequence.ClickSequence;
+import com.example.autoclicker.sequence.SequenceCompiler;
+import com.example.autoclicker.sequence.SequenceRunner;
+import com.example.autoclicker.state.ClickConfig;
+import com.example.autoclicker.state.EngineState;
+import com.example.autoclicker.state.RunState;
+import com.example.autoclicker.telemetry.ClickTelemetry;
+import com.example.autoclicker.vision.ScreenTrigger;
+import com.example.autoclicker.scheduler.ClickScheduler;
+import com.example.autoclicker.scheduler.JitterStats;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.UnaryOperator;
 
 public class AutoClickerService extends AccessibilityService {
 
+    private static final String TAG = "AutoClickerService";
+
+    // Below this interval the start button requires high-rate mode
+    public static final long MIN_INTERVAL_MS = 100;
+    public static final long MIN_HIGH_RATE_INTERVAL_MS = 20;
+    private static final String PROFILE_FILE = "profiles.bin";
+    private static final String JOURNAL_FILE = "run.journal";
+    // A killed run loses at most this many clicks or this much time
+    private static final int JOURNAL_SYNC_CLICKS = 500;
+    private static final long JOURNAL_SYNC_INTERVAL_MS = 2000;
+    // Log-normal gaps around the interval and taps within a few pixels of the target
+    public static final JitterSpec HUMANIZED_JITTER =
+            new JitterSpec(JitterSpec.IntervalMode.LOG_NORMAL, 0.2, 6, 6);
+    // One gesture running plus one queued behind it; more only gets cancelled by the system
+    private static final int HIGH_RATE_MAX_IN_FLIGHT = 2;
+    private static final int GESTURE_POOL_SIZE = 16;
+    private static final int JOB_GESTURE_POOL_SIZE = 32;
+    // The system refuses screenshots more often than about three per second
+    private static final long TRIGGER_FRAME_INTERVAL_MS = 500;
+    private static final int TRIGGER_TEMPLATE_SIZE = 96;
+    private static final int TRIGGER_SEARCH_MARGIN = 64;
+    // Lets the window transition to the target app finish before the screenshot
+    private static final long TRIGGER_CAPTURE_SETTLE_MS = 300;
+    private static final long TRIGGER_CAPTURE_TIMEOUT_MS = 5000;
+    // Jobs due within the same slot are tapped by one gesture
+    private static final long JOB_SLOT_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final long POWER_CHECK_INTERVAL_MS = 10_000;
+
     private static AutoClickerService instance;
-    private Handler handler;
-    private Runnable clickRunnable;
-    private boolean isClicking = false;
+    private ClickScheduler scheduler;
+    private HandlerThread callbackThread;
+    private Handler callbackHandler;
+    private final DispatchPipeline pipeline = new DispatchPipeline(1);
+    private TapEmitter<GestureDescription> tapEmitter;
+    private volatile SequenceRunner sequenceRunner;
+    // Source of sequenceRunner, kept for drawing its targets
+    private volatile ClickSequence clickSequence;
+    private volatile boolean finishAfterCycle;
+    private MacroStore macroStore;
+    private volatile MacroPlayback macroPlayback;
+    private ScreenTrigger screenTrigger;
+    private volatile long triggerSkips;
+    // Target of a capture waiting for our own screen to leave the display; main thread only
+    private boolean triggerCapturePending;
+    private int triggerCaptureX;
+    private int triggerCaptureY;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private NodeIndex<AccessibilityNodeInfo> nodeIndex;
+    // Set while a node-targeted run or a script with node lookups is using nodeIndex
+    private volatile boolean watchingNodes;
+    // The current or last fixed-target run
+    private volatile ClickRun clickRun;
+    // Set while clickRun is the active run, rather than a sequence, macro, script or jobs
+    private volatile boolean fixedRunActive;
+    // Lets test rigs drive the service over a local socket
+    private final LocalControlServer controlServer =
+            new LocalControlServer(new ServiceControlHandler(this));
+    // Config and run state are shared by the UI, scheduler and callback threads
+    private final EngineState state = new EngineState();
+    private volatile int currentClickCount = 0;
+    private JobEngine jobEngine;
+    // Job batches keep repeating the same coordinate sets, so their gestures are built once
+    private StrokeSetPool<GestureDescription> jobGesturePool;
+    // Scheduler thread only
+    private int[] jobBatchX;
+    private int[] jobBatchY;
+    // Set while the scheduler is running jobEngine rather than a single loop
+    private volatile boolean jobMode;
+    private final AdaptiveRateController powerController = new AdaptiveRateController(PowerPolicy.DEFAULT);
+    // Set when the power controller, not the user, paused the run
+    private volatile boolean pausedForPower;
 
-    private int clickX = -1;
-    private int clickY = -1;
-    private long clickInterval = 1000;
-    private int repeatCount = 0;
-    private int currentClickCount = 0;
+    private ProfileStore profileStore;
+    // Checkpoints fixed-target runs so one cut short by the system can resume
+    private RunJournal runJournal;
+    // Journal writes and fsyncs, kept off the scheduler and main threads
+    private HandlerThread journalThread;
+    private Handler journalHandler;
+    // Cleared when the journal fails mid-run; the run goes on unlogged
+    private volatile boolean journaling;
+    // Last foreground package seen, so repeated window changes inside one app are ignored
+    private String foregroundPackage;
+    private volatile String activeProfile;
+    private volatile long lastProfileSwitchNanos;
+
+    private final EventSubscriptions eventSubscriptions = new EventSubscriptions();
+    private final EventRateCounter eventRate = new EventRateCounter();
+    private final ClickTelemetry telemetry = new ClickTelemetry();
+    // Deadline of the tick being handled, stamped onto the gestures it dispatches
+    private volatile long tickDeadline;
+
+    private final GestureResultCallback gestureCallback = new GestureResultCallback() {
+        @Override
+        public void onCompleted(GestureDescription gestureDescription) {
+            pipeline.onCompleted();
+            telemetry.onCompleted(SystemClock.uptimeNanos());
+            onGestureFinished(gestureDescription);
+        }
+
+        @Override
+        public void onCancelled(GestureDescription gestureDescription) {
+            pipeline.onCancelled();
+            telemetry.onCancelled(SystemClock.uptimeNanos());
+            onGestureFinished(gestureDescription);
+        }
+    };
 
     @Override
     public void onCreate() {
         super.onCreate();
         instance = this;
-        handler = new Handler(Looper.getMainLooper());
+        scheduler = new ClickScheduler(SystemClock::uptimeNanos, r -> new Thread(() -> {
+            Process.setThreadPriority(Process.THREAD_PRIORITY_URGENT_DISPLAY);
+            r.run();
+        }, "ClickScheduler"));
+        macroStore = new MacroStore(new File(getFilesDir(), MacroStore.DIRECTORY));
+        try {
+            // Reads only the index; each profile is decoded when its app first comes up
+            profileStore = ProfileStore.open(new File(getFilesDir(), PROFILE_FILE));
+        } catch (IOException e) {
+            Log.w(TAG, "Could not open profiles", e);
+        }
+        updateProfileSubscription();
+        runJournal = openJournal(new File(getFilesDir(), JOURNAL_FILE));
+
+        // Gesture callbacks are the pipeline's backpressure, so keep them off the main thread
+        callbackThread = new HandlerThread("GestureCallbacks");
+        callbackThread.start();
+        callbackHandler = new Handler(callbackThread.getLooper());
+        journalThread = new HandlerThread("RunJournal", Process.THREAD_PRIORITY_BACKGROUND);
+        journalThread.start();
+        journalHandler = new Handler(journalThread.getLooper());
+
+        nodeIndex = new NodeIndex<>(new AccessibilityNodeAdapter(this));
+        jobEngine = new JobEngine(JOB_SLOT_NANOS, GestureDescription.getMaxStrokeCount());
+        jobBatchX = new int[GestureDescription.getMaxStrokeCount()];
+        jobBatchY = new int[GestureDescription.getMaxStrokeCount()];
+        jobGesturePool = new StrokeSetPool<>(JOB_GESTURE_POOL_SIZE,
+                new StrokeSetPool.Factory<GestureDescription>() {
+                    @Override
+                    public GestureDescription create(int[] xs, int[] ys, int count) {
+                        GestureDescription.Builder builder = new GestureDescription.Builder();
+                        for (int i = 0; i < count; i++) {
+                            Path path = new Path();
+                            path.moveTo(xs[i], ys[i]);
+                            builder.addStroke(new GestureDescription.StrokeDescription(path, 0, 1));
+                        }
+                        return builder.build();
+                    }
+                });
+        screenTrigger = new ScreenTrigger(this, callbackHandler, TRIGGER_FRAME_INTERVAL_MS);
+
+        GesturePool<GestureDescription> pool = new GesturePool<>(GESTURE_POOL_SIZE,
+                new GesturePool.Factory<GestureDescription>() {
+                    @Override
+                    public GestureDescription create(int x, int y) {
+                        return buildTap(x, y);
+                    }
+                });
+        tapEmitter = new TapEmitter<>(pipeline, pool, new TapEmitter.Sink<GestureDescription>() {
+            @Override
+            public boolean dispatch(GestureDescription gesture) {
+                return dispatchTracked(gesture);
+            }
+        });
+    }
+
+    @Override
+    protected void onServiceConnected() {
+        super.onServiceConnected();
+        applyEventMask();
+        try {
+            controlServer.start();
+        } catch (IOException e) {
+            // Another instance still holds the socket name; test rigs just cannot connect
+            Log.w(TAG, "Control socket unavailable", e);
+        }
+        resumeInterruptedRun();
     }
 
     @Override
     public void onAccessibilityEvent(AccessibilityEvent event) {
-        // We don't need to handle accessibility events for auto-clicking
+        eventRate.record(SystemClock.uptimeMillis());
+
+        if (triggerCapturePending
+                && event.getEventType() == AccessibilityEvent.TYPE_WINDOW_STATE_CHANGED
+                && event.getPackageName() != null
+                && !getPackageName().contentEquals(event.getPackageName())) {
+            onCaptureTargetShown();
+        }
+
+        if (event.getEventType() == AccessibilityEvent.TYPE_WINDOW_STATE_CHANGED
+                && profileStore != null) {
+            onForegroundChanged(event.getPackageName());
+        }
+
+        if (watchingNodes) {
+            switch (event.getEventType()) {
+                case AccessibilityEvent.TYPE_WINDOW_STATE_CHANGED:
+                    nodeIndex.invalidateAll();
+                    break;
+                case AccessibilityEvent.TYPE_WINDOW_CONTENT_CHANGED:
+                    // Only the changed subtree is re-walked, on the next lookup
+                    nodeIndex.invalidate(event.getSource());
+                    break;
+            }
+        }
     }
 
     @Override
     public void onInterrupt() {
+        stopClicking(true);
+    }
+
+    // The user turned the service off in Settings; that ends the run for good
+    @Override
+    public boolean onUnbind(Intent intent) {
         stopClicking();
+        return super.onUnbind(intent);
     }
 
     @Override
     public void onDestroy() {
         super.onDestroy();
-        stopClicking();
+        controlServer.stop();
+        // After onUnbind this is a no-op; otherwise the system is tearing the service down
+        // on its own and the run keeps its checkpoint
+        stopClicking(true);
+        closeJournal();
+        mainHandler.removeCallbacksAndMessages(null);
+        screenTrigger.release();
+        callbackThread.quitSafely();
+        // Runs the final sync or end record and the close before the thread goes
+        journalThread.quitSafely();
         instance = null;
     }
 
@@ -54,89 +319,1029 @@ public class AutoClickerService extends AccessibilityService {
         return instance != null;
     }
 
-    public void setClickPosition(int x, int y) {
-        this.clickX = x;
-        this.clickY = y;
+    public ClickConfig getConfig() {
+        return state.getConfig();
     }
 
-    public void setClickInterval(long interval) {
-        this.clickInterval = interval;
+    /**
+     * Atomically replaces the click config. Safe mid-run: the next tick reads the new
+     * values, and a changed interval retimes the running schedule.
+     */
+    public void updateConfig(UnaryOperator<ClickConfig> update) {
+        state.updateConfig(update);
+        if (state.isActive()) {
+            applyInterval();
+        }
     }
 
-    public void setRepeatCount(int count) {
-        this.repeatCount = count;
+    public EngineState getState() {
+        return state;
     }
 
-    public void startClicking() {
-        if (clickX < 0 || clickY < 0) {
-            sendStatusUpdate("Please set a click position first");
+    public void setClickPosition(final int x, final int y) {
+        state.updateConfig(c -> c.withPosition(x, y));
+    }
+
+    public void setClickInterval(final long interval) {
+        updateConfig(c -> c.withInterval(interval));
+    }
+
+    public void setRepeatCount(final int count) {
+        state.updateConfig(c -> c.withRepeatCount(count));
+    }
+
+    /**
+     * Replaces the single click position with a multi-step sequence, or goes back to the
+     * single position when {@code sequence} is null. The click interval becomes the pause
+     * between cycles and the repeat count counts cycles.
+     */
+    public void setClickSequence(ClickSequence sequence) {
+        if (state.isActive()) {
             return;
         }
+        clickSequence = sequence;
+        if (sequence == null) {
+            sequenceRunner = null;
+            return;
+        }
+        SequenceCompiler compiler = new SequenceCompiler(
+                GestureDescription.getMaxStrokeCount(), GestureDescription.getMaxGestureDuration());
+        sequenceRunner = new SequenceRunner(compiler.compile(sequence), callbackHandler, pipeline,
+                new SequenceRunner.Dispatcher() {
+                    @Override
+                    public boolean dispatch(GestureDescription gesture) {
+                        return dispatchTracked(gesture);
+                    }
+                },
+                new SequenceRunner.Listener() {
+                    @Override
+                    public void onCycleFinished(boolean complete) {
+                        if (finishAfterCycle) {
+                            stopClicking();
+                            sendStatusUpdate("Sequence completed: " + currentClickCount + " cycles"
+                                    + (complete ? "" : " (last cycle cut short)"));
+                        }
+                    }
+                });
+    }
+
+    public ClickSequence getClickSequence() {
+        return clickSequence;
+    }
+
+    /**
+     * Declares the accessibility event types {@code feature} needs (0 when it needs none).
+     * Only the union of all features' types is delivered to the service.
+     */
+    public void setEventSubscription(String feature, int eventTypes) {
+        if (eventSubscriptions.set(feature, eventTypes)) {
+            applyEventMask();
+        }
+    }
+
+    public long getEventsPerMinute() {
+        return eventRate.getLastMinute(SystemClock.uptimeMillis());
+    }
 
-        if (isClicking) {
+    public MacroStore getMacroStore() {
+        return macroStore;
+    }
+
+    /**
+     * Replays a saved macro at its recorded timing. The file is memory-mapped, so playback
+     * starts without decoding the whole macro first.
+     */
+    public void playMacro(String name) {
+        if (state.getRunState() != RunState.IDLE) {
+            return;
+        }
+
+        MacroFile file;
+        try {
+            file = macroStore.open(name);
+        } catch (IOException e) {
+            sendStatusUpdate("Could not open macro: " + e.getMessage());
             return;
         }
 
-        isClicking = true;
+        if (!state.start()) {
+            try {
+                file.close();
+            } catch (IOException ignored) {
+            }
+            return;
+        }
+        final MacroPlayback playback = new MacroPlayback(file);
+        macroPlayback = playback;
         currentClickCount = 0;
+        ClickerEvents.CLICK_COUNT.set(0);
+        pipeline.reset(HIGH_RATE_MAX_IN_FLIGHT);
+        telemetry.reset();
 
-        clickRunnable = new Runnable() {
+        scheduler.start(playback, new ClickScheduler.Listener() {
             @Override
-            public void run() {
-                if (isClicking) {
-                    performClick(clickX, clickY);
-                    currentClickCount++;
+            public boolean onTick(long deadlineNanos) {
+                RunState run = state.getRunState();
+                if (run != RunState.RUNNING) {
+                    return run == RunState.PAUSED;
+                }
+                onTickDue(deadlineNanos);
+                MacroCursor event = playback.getCursor();
+                boolean dispatched = event.isSwipe()
+                        ? dispatchSwipe(event)
+                        : tapEmitter.emit(event.getX(0), event.getY(0));
+                if (!dispatched) {
+                    // The pipeline is full; the event is dropped and not counted
+                    return true;
+                }
+                currentClickCount++;
+                ClickerEvents.CLICK_COUNT.set(currentClickCount);
+                return true;
+            }
 
-                    // Check if we should continue clicking
-                    if (repeatCount == 0 || currentClickCount < repeatCount) {
-                        handler.postDelayed(this, clickInterval);
-                    } else {
-                        stopClicking();
-                        sendStatusUpdate("Clicking completed: " + currentClickCount + " clicks");
-                    }
+            @Override
+            public void onFinished() {
+                stopClicking();
+                if (playback.getError() != null) {
+                    sendStatusUpdate("Macro stopped after " + currentClickCount + " events: "
+                            + playback.getError().getMessage());
+                } else {
+                    sendStatusUpdate("Macro completed: " + currentClickCount + " events");
                 }
             }
+        });
+        sendStatusUpdate("Playing macro " + name + " (" + file.getEventCount() + " events)");
+    }
+
+    /**
+     * Compiles and runs a click script. The script runs on the scheduler thread; each tap or
+     * swipe it reaches becomes the next tick.
+     */
+    public void runScript(String source) {
+        if (state.getRunState() != RunState.IDLE) {
+            return;
+        }
+        try {
+            runScript(ScriptCompiler.compile(source));
+        } catch (ScriptException e) {
+            sendStatusUpdate("Script error: " + e.getMessage());
+        }
+    }
+
+    public void runScript(ScriptProgram program) {
+        if (state.getRunState() != RunState.IDLE) {
+            return;
+        }
+
+        // Node lookups are resolved once, so the host does no work beyond the index query
+        List<String> texts = program.getStrings();
+        final NodeTarget[] targets = new NodeTarget[texts.size()];
+        for (int i = 0; i < targets.length; i++) {
+            targets[i] = NodeTarget.text(texts.get(i));
+        }
+        ScriptVm.Host host = new ScriptVm.Host() {
+            @Override
+            public boolean screenMatches() {
+                if (!screenTrigger.hasTemplate()) {
+                    return false;
+                }
+                screenTrigger.requestFrame();
+                return screenTrigger.isMatched(SystemClock.uptimeMillis());
+            }
+
+            @Override
+            public boolean findNode(int stringId, int[] outCenter) {
+                return nodeIndex.find(targets[stringId], outCenter);
+            }
         };
 
-        handler.post(clickRunnable);
-        sendStatusUpdate("Clicking started");
+        if (!state.start()) {
+            return;
+        }
+        if (targets.length > 0) {
+            watchNodes(true);
+        }
+        final ScriptVm vm = new ScriptVm(program, host,
+                TimeUnit.MILLISECONDS.toNanos(MIN_HIGH_RATE_INTERVAL_MS));
+        currentClickCount = 0;
+        ClickerEvents.CLICK_COUNT.set(0);
+        pipeline.reset(HIGH_RATE_MAX_IN_FLIGHT);
+        telemetry.reset();
+
+        scheduler.start(vm, new ClickScheduler.Listener() {
+            @Override
+            public boolean onTick(long deadlineNanos) {
+                RunState run = state.getRunState();
+                if (run != RunState.RUNNING) {
+                    return run == RunState.PAUSED;
+                }
+                onTickDue(deadlineNanos);
+                boolean dispatched = vm.getAction() == ScriptVm.ACTION_SWIPE
+                        ? dispatchSwipe(vm.getX(), vm.getY(), vm.getEndX(), vm.getEndY(), vm.getDurationMs())
+                        : tapEmitter.emit(Math.max(0, vm.getX()), Math.max(0, vm.getY()));
+                if (!dispatched) {
+                    // The pipeline is full; the action is dropped and not counted
+                    return true;
+                }
+                currentClickCount++;
+                ClickerEvents.CLICK_COUNT.set(currentClickCount);
+                return true;
+            }
+
+            @Override
+            public void onFinished() {
+                stopClicking();
+                if (vm.getError() != null) {
+                    sendStatusUpdate("Script stopped after " + currentClickCount + " actions: "
+                            + vm.getError().getMessage());
+                } else {
+                    sendStatusUpdate("Script completed: " + currentClickCount + " actions");
+                }
+            }
+        });
+        sendStatusUpdate("Script started (" + program.size() + " instructions)");
+    }
+
+    /**
+     * Captures the screen around (x, y) as the trigger template. With the trigger enabled,
+     * ticks only click while that area still looks the same.
+     */
+    public void captureTriggerTemplate(int x, int y) {
+        int half = TRIGGER_TEMPLATE_SIZE / 2;
+        Rect template = new Rect(x - half, y - half, x + half, y + half);
+        Rect search = new Rect(template);
+        search.inset(-TRIGGER_SEARCH_MARGIN, -TRIGGER_SEARCH_MARGIN);
+        screenTrigger.captureTemplate(template, search, new ScreenTrigger.CaptureCallback() {
+            @Override
+            public void onCaptured(boolean success, String message) {
+                sendStatusUpdate(message);
+            }
+        });
+    }
+
+    /**
+     * Captures the trigger template around (x, y) once another app's window has come to the
+     * front, so the template shows the target rather than the clicker's own screen. The
+     * caller moves its activity to the back right after this.
+     */
+    public void captureTriggerTemplateWhenHidden(int x, int y) {
+        triggerCaptureX = x;
+        triggerCaptureY = y;
+        triggerCapturePending = true;
+        setEventSubscription("trigger", AccessibilityEvent.TYPE_WINDOW_STATE_CHANGED);
+        mainHandler.removeCallbacks(triggerCaptureTimeout);
+        mainHandler.postDelayed(triggerCaptureTimeout, TRIGGER_CAPTURE_TIMEOUT_MS);
+    }
+
+    private void onCaptureTargetShown() {
+        triggerCapturePending = false;
+        setEventSubscription("trigger", 0);
+        mainHandler.removeCallbacks(triggerCaptureTimeout);
+        // Capture after the next frame, once the transition has settled
+        new ChoreographerPoster().post(new Runnable() {
+            @Override
+            public void run() {
+                mainHandler.postDelayed(triggerCapture, TRIGGER_CAPTURE_SETTLE_MS);
+            }
+        });
+    }
+
+    private final Runnable triggerCapture = new Runnable() {
+        @Override
+        public void run() {
+            captureTriggerTemplate(triggerCaptureX, triggerCaptureY);
+        }
+    };
+
+    private final Runnable triggerCaptureTimeout = new Runnable() {
+        @Override
+        public void run() {
+            if (triggerCapturePending) {
+                triggerCapturePending = false;
+                setEventSubscription("trigger", 0);
+                sendStatusUpdate("Trigger not captured: no other app came to the front");
+            }
+        }
+    };
+
+    public void setTriggerEnabled(final boolean enabled) {
+        state.updateConfig(c -> c.withTrigger(enabled));
+    }
+
+    public long getTriggerSkips() {
+        return triggerSkips;
+    }
+
+    /**
+     * Clicks the view matching {@code target} instead of the fixed position, following it
+     * when the layout moves. Pass null to go back to coordinates.
+     */
+    public void setNodeTarget(final NodeTarget target) {
+        state.updateConfig(c -> c.withNodeTarget(target));
+        if (fixedRunActive) {
+            watchNodes(target != null);
+        }
+    }
+
+    // Window changes are only delivered while a run looks nodes up; the index is rebuilt
+    // from scratch afterwards, since it missed everything in between
+    private void watchNodes(boolean watch) {
+        watchingNodes = watch;
+        nodeIndex.invalidateAll();
+        setEventSubscription("nodes", watch
+                ? AccessibilityEvent.TYPE_WINDOW_CONTENT_CHANGED | AccessibilityEvent.TYPE_WINDOW_STATE_CHANGED
+                : 0);
+    }
+
+    private void onForegroundChanged(CharSequence packageName) {
+        if (packageName == null) {
+            return;
+        }
+        String name = packageName.toString();
+        if (name.equals(foregroundPackage)) {
+            return;
+        }
+        foregroundPackage = name;
+        long start = System.nanoTime();
+        final ClickProfile profile;
+        try {
+            profile = profileStore.get(name);
+        } catch (ProfileFormatException e) {
+            Log.w(TAG, "Bad profile for " + name, e);
+            return;
+        }
+        if (profile == null || name.equals(activeProfile)) {
+            return;
+        }
+        updateConfig(c -> profile.applyTo(c));
+        activeProfile = name;
+        lastProfileSwitchNanos = System.nanoTime() - start;
+        sendStatusUpdate("Profile: " + name);
+    }
+
+    /**
+     * Saves {@code profile} and switches to it automatically whenever its app comes to the
+     * foreground.
+     */
+    public void saveProfile(ClickProfile profile) throws IOException {
+        if (profileStore == null) {
+            throw new IOException("Profile store is unavailable");
+        }
+        profileStore.save(profile);
+        updateProfileSubscription();
+    }
+
+    public boolean removeProfile(String packageName) throws IOException {
+        boolean removed = profileStore != null && profileStore.remove(packageName);
+        if (removed && packageName.equals(activeProfile)) {
+            activeProfile = null;
+        }
+        updateProfileSubscription();
+        return removed;
+    }
+
+    public List<String> getProfiles() {
+        return profileStore == null ? Collections.<String>emptyList() : profileStore.list();
+    }
+
+    // Package of the profile last switched to, or null
+    public String getActiveProfile() {
+        return activeProfile;
+    }
+
+    public long getLastProfileSwitchNanos() {
+        return lastProfileSwitchNanos;
+    }
+
+    // Foreground switches are only watched while there is a profile to switch to
+    private void updateProfileSubscription() {
+        setEventSubscription("profiles", profileStore == null || profileStore.size() == 0 ? 0 :
+                AccessibilityEvent.TYPE_WINDOW_STATE_CHANGED);
+    }
+
+    // Lookup cost of node targeting, for the stats surface
+    public String getNodeIndexStats() {
+        ClickRun run = clickRun;
+        return nodeIndex.getStats() + ", " + (run != null ? run.getNodeMisses() : 0) + " misses";
+    }
+
+    public void setCatchUpPolicy(final CatchUpPolicy policy) {
+        state.updateConfig(c -> c.withCatchUpPolicy(policy));
+    }
+
+    public void setHighRateMode(final boolean enabled) {
+        state.updateConfig(c -> c.withHighRate(enabled));
+    }
+
+    public DispatchPipeline getDispatchStats() {
+        return pipeline;
+    }
+
+    public JitterStats getJitterStats() {
+        return scheduler.getJitter();
+    }
+
+    public ClickTelemetry getTelemetry() {
+        return telemetry;
+    }
+
+    public void startClicking() {
+        if (sequenceRunner != null) {
+            startSequence(sequenceRunner);
+            return;
+        }
+        startClicking(0);
+    }
+
+    // Starts a fixed-target run that already has resumeFrom clicks
+    private void startClicking(int resumeFrom) {
+        ClickConfig config = state.getConfig();
+        if (config.nodeTarget == null && !config.hasPosition()) {
+            sendStatusUpdate("Please set a click position first");
+            return;
+        }
+
+        if (state.getRunState() != RunState.IDLE) {
+            return;
+        }
+
+        if (config.triggerEnabled && !screenTrigger.hasTemplate()) {
+            sendStatusUpdate("Please capture a trigger template first");
+            return;
+        }
+
+        if (!state.start()) {
+            return;
+        }
+        currentClickCount = resumeFrom;
+        ClickerEvents.CLICK_COUNT.set(resumeFrom);
+        triggerSkips = 0;
+        beginJournal(config, resumeFrom);
+        pipeline.reset(config.highRate ? HIGH_RATE_MAX_IN_FLIGHT : 1);
+        telemetry.reset();
+        if (config.nodeTarget == null) {
+            // Build the fixed target's gesture now so the first tick is as cheap as the rest
+            tapEmitter.getPool().get(config.x, config.y);
+        }
+        JitterSpec jitter = config.jitter;
+        long seed = System.nanoTime();
+        IntervalJitter intervalJitter = jitter.intervalMode != JitterSpec.IntervalMode.NONE
+                ? new IntervalJitter(jitter.intervalMode, jitter.intervalSpread, seed + 1) : null;
+
+        final ClickRun run = new ClickRun(state, tapSink, new ClickRun.Callbacks() {
+            @Override
+            public void onTick(long deadlineNanos) {
+                onTickDue(deadlineNanos);
+            }
+
+            @Override
+            public void onClick(int count) {
+                currentClickCount = count;
+                ClickerEvents.CLICK_COUNT.set(count);
+                if (journaling) {
+                    journalClick(count);
+                }
+            }
+
+            @Override
+            public void onCompleted(int count) {
+                stopClicking();
+                sendStatusUpdate("Clicking completed: " + count + " clicks ("
+                        + scheduler.getJitter() + "; " + pipeline
+                        + (state.getConfig().triggerEnabled ? "; " + triggerSkips + " skipped by trigger" : "")
+                        + ")");
+            }
+        });
+        run.setNodeIndex(nodeIndex);
+        run.setTrigger(triggerGate);
+        if (jitter.radiusX > 0 || jitter.radiusY > 0) {
+            run.setPositionJitter(new PositionJitter(jitter.radiusX, jitter.radiusY, seed));
+        }
+        run.resumeFrom(resumeFrom);
+        clickRun = run;
+        fixedRunActive = true;
+        if (config.nodeTarget != null) {
+            watchNodes(true);
+        }
+
+        // Ticks fire on the scheduler thread against absolute deadlines
+        scheduler.start(TimeUnit.MILLISECONDS.toNanos(config.intervalMs), config.catchUpPolicy,
+                intervalJitter, run);
+        startPowerWatch();
+        sendStatusUpdate(resumeFrom > 0 ? "Clicking resumed at " + resumeFrom + " clicks"
+                : "Clicking started");
+    }
+
+    private void startSequence(final SequenceRunner runner) {
+        if (!state.start()) {
+            return;
+        }
+
+        ClickConfig config = state.getConfig();
+        currentClickCount = 0;
+        ClickerEvents.CLICK_COUNT.set(0);
+        finishAfterCycle = false;
+        // Batches of one cycle must not overlap, so only one may be in flight
+        pipeline.reset(1);
+        telemetry.reset();
+
+        long period = runner.getCompiled().cycleDurationMs + config.intervalMs;
+        scheduler.start(TimeUnit.MILLISECONDS.toNanos(period), config.catchUpPolicy,
+                new ClickScheduler.Listener() {
+                    @Override
+                    public boolean onTick(long deadlineNanos) {
+                        RunState run = state.getRunState();
+                        if (run != RunState.RUNNING) {
+                            return run == RunState.PAUSED;
+                        }
+                        onTickDue(deadlineNanos);
+                        if (!runner.startCycle()) {
+                            return true;
+                        }
+                        currentClickCount++;
+                        ClickerEvents.CLICK_COUNT.set(currentClickCount);
+
+                        int repeatCount = state.getConfig().repeatCount;
+                        if (repeatCount == 0 || currentClickCount < repeatCount) {
+                            return true;
+                        }
+                        // Let the last cycle play out before reporting completion
+                        finishAfterCycle = true;
+                        return false;
+                    }
+                });
+        startPowerWatch();
+        sendStatusUpdate("Sequence started: " + runner.getCompiled().stepCount + " steps in "
+                + runner.getCompiled().getBatchCount() + " gestures");
+    }
+
+    /**
+     * Adds an independent click loop. Jobs run side by side on a shared timer wheel; start
+     * them with {@link #startJob(ClickJob)}.
+     */
+    public ClickJob addJob(int x, int y, long intervalMs, int repeatCount, int priority) {
+        return jobEngine.add(x, y, TimeUnit.MILLISECONDS.toNanos(intervalMs), repeatCount, priority);
+    }
+
+    public boolean startJob(ClickJob job) {
+        if (state.start()) {
+            jobMode = true;
+            currentClickCount = 0;
+            ClickerEvents.CLICK_COUNT.set(0);
+            pipeline.reset(HIGH_RATE_MAX_IN_FLIGHT);
+            telemetry.reset();
+            jobEngine.start(job);
+            scheduler.start(jobEngine, jobListener);
+            sendStatusUpdate("Jobs started");
+            return true;
+        }
+        if (!jobMode || !state.isActive()) {
+            sendStatusUpdate("Stop the current run before starting jobs");
+            return false;
+        }
+        jobEngine.start(job);
+        scheduler.wake();
+        return true;
+    }
+
+    public void stopJob(ClickJob job) {
+        jobEngine.stop(job);
+        // The loop finishes the run by itself once no job is left
+        scheduler.wake();
+    }
+
+    public void removeJob(ClickJob job) {
+        jobEngine.remove(job);
+        scheduler.wake();
+    }
+
+    public List<ClickJob> getJobs() {
+        return jobEngine.getJobs();
+    }
+
+    public JobEngine getJobEngine() {
+        return jobEngine;
     }
 
     public void stopClicking() {
-        if (clickRunnable != null) {
-            handler.removeCallbacks(clickRunnable);
+        stopClicking(false);
+    }
+
+    // An interrupted run keeps its journal checkpoint for resumeInterruptedRun()
+    private void stopClicking(boolean interrupted) {
+        // Only the caller that wins the stop tears the run down; a late one would hit the next run
+        if (!state.beginStop()) {
+            return;
+        }
+        fixedRunActive = false;
+        if (watchingNodes) {
+            watchNodes(false);
+        }
+        if (jobMode) {
+            jobEngine.stopAll();
+            jobMode = false;
         }
-        isClicking = false;
+        scheduler.stop();
+        SequenceRunner runner = sequenceRunner;
+        if (runner != null) {
+            runner.cancel();
+        }
+        closeMacro();
+        callbackHandler.removeCallbacks(powerCheck);
+        pausedForPower = false;
+        finishJournal(interrupted);
+        state.finishStop();
         sendStatusUpdate("Clicking stopped");
     }
 
+    // Keeps the schedule running without clicking until resumeClicking()
+    public void pauseClicking() {
+        if (state.pause()) {
+            sendStatusUpdate("Clicking paused");
+        }
+    }
+
+    public void resumeClicking() {
+        pausedForPower = false;
+        if (state.resume()) {
+            sendStatusUpdate("Clicking resumed");
+        }
+    }
+
+    /**
+     * Clicks the configured target once. A paused fixed-target run counts it as its next
+     * click; with nothing running it is a one-off tap. Refused while a run is clicking.
+     */
+    public boolean stepClicking() {
+        RunState run = state.getRunState();
+        if (run == RunState.PAUSED && fixedRunActive) {
+            clickRun.step();
+            return true;
+        }
+        if (run != RunState.IDLE) {
+            sendStatusUpdate("Pause the run before stepping");
+            return false;
+        }
+        ClickConfig config = state.getConfig();
+        if (!config.hasPosition()) {
+            sendStatusUpdate("Please set a click position first");
+            return false;
+        }
+        return tapEmitter.emit(config.x, config.y);
+    }
+
+    // Running or paused
     public boolean isClicking() {
-        return isClicking;
+        return state.isActive();
     }
 
-    private void performClick(int x, int y) {
-        Path clickPath = new Path();
-        clickPath.moveTo(x, y);
+    // Clicks, events or actions so far in the current or last run
+    public int getClickCount() {
+        return currentClickCount;
+    }
 
-        GestureDescription.Builder gestureBuilder = new GestureDescription.Builder();
-        gestureBuilder.addStroke(new GestureDescription.StrokeDescription(clickPath, 0, 1));
+    private final GestureSink tapSink = new GestureSink() {
+        @Override
+        public boolean tap(int x, int y) {
+            return tapEmitter.emit(x, y);
+        }
+    };
+
+    private final ClickRun.Gate triggerGate = new ClickRun.Gate() {
+        @Override
+        public boolean allowsClick() {
+            return triggerAllowsClick();
+        }
+    };
+
+    private boolean triggerAllowsClick() {
+        screenTrigger.requestFrame();
+        if (screenTrigger.isMatched(SystemClock.uptimeMillis())) {
+            return true;
+        }
+        triggerSkips++;
+        return false;
+    }
+
+    private final ClickScheduler.Listener jobListener = new ClickScheduler.Listener() {
+        @Override
+        public boolean onTick(long deadlineNanos) {
+            RunState run = state.getRunState();
+            if (run != RunState.RUNNING) {
+                // Paused jobs still consume their slots so they resume on their grid
+                jobEngine.discardBatch();
+                return run == RunState.PAUSED;
+            }
+            onTickDue(deadlineNanos);
+            if (!pipeline.tryAcquire()) {
+                jobEngine.commitBatch(false);
+                return true;
+            }
+            int count = jobEngine.getBatchSize();
+            for (int i = 0; i < count; i++) {
+                jobBatchX[i] = jobEngine.getBatchX(i);
+                jobBatchY[i] = jobEngine.getBatchY(i);
+            }
+            boolean dispatched = dispatchTracked(jobGesturePool.get(jobBatchX, jobBatchY, count));
+            jobEngine.commitBatch(dispatched);
+            if (!dispatched) {
+                pipeline.onRejected();
+                return true;
+            }
+            currentClickCount++;
+            ClickerEvents.CLICK_COUNT.set(currentClickCount);
+            return true;
+        }
+
+        @Override
+        public void onFinished() {
+            // A job started while the loop was finishing would otherwise be stranded
+            if (jobMode && jobEngine.hasRunningJobs()) {
+                scheduler.start(jobEngine, this);
+                return;
+            }
+            stopClicking();
+            sendStatusUpdate("All jobs finished");
+        }
+    };
+
+    private static RunJournal openJournal(File file) {
+        long syncNanos = TimeUnit.MILLISECONDS.toNanos(JOURNAL_SYNC_INTERVAL_MS);
+        try {
+            return RunJournal.open(file, SystemClock::uptimeNanos, syncNanos, JOURNAL_SYNC_CLICKS);
+        } catch (JournalFormatException e) {
+            // Not ours or from a future version; a fresh journal only costs one checkpoint
+            Log.w(TAG, "Discarding unreadable run journal", e);
+            file.delete();
+        } catch (IOException e) {
+            Log.w(TAG, "Could not open run journal", e);
+            return null;
+        }
+        try {
+            return RunJournal.open(file, SystemClock::uptimeNanos, syncNanos, JOURNAL_SYNC_CLICKS);
+        } catch (IOException e) {
+            Log.w(TAG, "Could not open run journal", e);
+            return null;
+        }
+    }
 
-        dispatchGesture(gestureBuilder.build(), new GestureResultCallback() {
+    // Picks up a fixed-target run the system killed, from its last durable click count
+    private void resumeInterruptedRun() {
+        final RunJournal journal = runJournal;
+        RunCheckpoint checkpoint = journal != null ? journal.getCheckpoint() : null;
+        if (checkpoint == null || state.getRunState() != RunState.IDLE) {
+            return;
+        }
+        if (checkpoint.isComplete()) {
+            journalHandler.post(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        journal.clearCheckpoint();
+                    } catch (IOException e) {
+                        Log.w(TAG, "Could not clear run journal", e);
+                    }
+                }
+            });
+            return;
+        }
+        Log.i(TAG, "Resuming interrupted run: " + checkpoint);
+        state.updateConfig(c -> checkpoint.applyTo(c));
+        startClicking(checkpoint.clicks);
+    }
+
+    // Every journal write goes through journalHandler, in order, so an end never overtakes its begin
+    private void beginJournal(final ClickConfig config, final int startClicks) {
+        final RunJournal journal = runJournal;
+        // Node targets and trigger templates do not survive a restart, so only plain runs resume
+        journaling = journal != null && config.nodeTarget == null && !config.triggerEnabled;
+        if (!journaling) {
+            return;
+        }
+        journalHandler.post(new Runnable() {
             @Override
-            public void onCompleted(GestureDescription gestureDescription) {
-                super.onCompleted(gestureDescription);
+            public void run() {
+                try {
+                    journal.begin(config, startClicks);
+                } catch (IOException e) {
+                    Log.w(TAG, "Could not start run journal", e);
+                    journaling = false;
+                }
             }
+        });
+    }
+
+    // On the scheduler thread: only counts, and hands the sync it asks for to the journal thread
+    private void journalClick(int count) {
+        if (runJournal.onClick(count)) {
+            journalHandler.post(journalSync);
+        }
+    }
 
+    private final Runnable journalSync = new Runnable() {
+        @Override
+        public void run() {
+            if (!journaling) {
+                return;
+            }
+            try {
+                runJournal.sync();
+            } catch (IOException e) {
+                Log.w(TAG, "Run journal failed; run continues without checkpoints", e);
+                journaling = false;
+            }
+        }
+    };
+
+    private void finishJournal(final boolean interrupted) {
+        if (!journaling) {
+            return;
+        }
+        journaling = false;
+        final int count = currentClickCount;
+        journalHandler.post(new Runnable() {
             @Override
-            public void onCancelled(GestureDescription gestureDescription) {
-                super.onCancelled(gestureDescription);
+            public void run() {
+                try {
+                    if (interrupted) {
+                        runJournal.sync();
+                    } else {
+                        runJournal.end(count);
+                    }
+                } catch (IOException e) {
+                    Log.w(TAG, "Could not write run journal", e);
+                }
+            }
+        });
+    }
+
+    private void closeJournal() {
+        if (runJournal == null) {
+            return;
+        }
+        journalHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    runJournal.close();
+                } catch (IOException e) {
+                    Log.w(TAG, "Could not close run journal", e);
+                }
+            }
+        });
+    }
+
+    // Retimes the running loop to the configured interval, stretched by the power controller
+    private void applyInterval() {
+        long interval = (long) (state.getConfig().intervalMs * powerController.getIntervalMultiplier());
+        SequenceRunner runner = sequenceRunner;
+        long period = runner != null ? runner.getCompiled().cycleDurationMs + interval : interval;
+        scheduler.setInterval(TimeUnit.MILLISECONDS.toNanos(period));
+    }
+
+    private final Runnable powerCheck = new Runnable() {
+        @Override
+        public void run() {
+            if (!state.isActive()) {
+                return;
+            }
+            PowerManager powerManager = getSystemService(PowerManager.class);
+            BatteryManager batteryManager = getSystemService(BatteryManager.class);
+            if (powerController.update(SystemClock.uptimeMillis(),
+                    powerManager.getCurrentThermalStatus(),
+                    batteryManager.getIntProperty(BatteryManager.BATTERY_PROPERTY_CAPACITY),
+                    batteryManager.isCharging())) {
+                applyPowerLevel();
+            }
+            callbackHandler.postDelayed(this, POWER_CHECK_INTERVAL_MS);
+        }
+    };
+
+    // Only for fixed-interval and sequence runs: macros, scripts and jobs keep their own
+    // timing, which applyInterval cannot stretch
+    private void startPowerWatch() {
+        powerController.reset();
+        pausedForPower = false;
+        callbackHandler.removeCallbacks(powerCheck);
+        if (state.getConfig().adaptivePower) {
+            callbackHandler.post(powerCheck);
+        }
+    }
+
+    private void applyPowerLevel() {
+        List<String> decisions = powerController.getDecisions();
+        String decision = decisions.get(decisions.size() - 1);
+        Log.i(TAG, "Power: " + decision);
+        if (powerController.getLevel() == AdaptiveRateController.Level.PAUSED) {
+            if (state.pause()) {
+                pausedForPower = true;
+                sendStatusUpdate("Paused to cool down: " + decision);
+            }
+            return;
+        }
+        // Never resume a run the user paused themselves
+        if (pausedForPower && state.resume()) {
+            pausedForPower = false;
+            sendStatusUpdate("Resumed: " + decision);
+        }
+        applyInterval();
+    }
+
+    public List<String> getPowerDecisions() {
+        return powerController.getDecisions();
+    }
+
+    private void onTickDue(long deadlineNanos) {
+        tickDeadline = deadlineNanos;
+        telemetry.onTick(deadlineNanos, SystemClock.uptimeNanos());
+    }
+
+    private boolean dispatchTracked(GestureDescription gesture) {
+        // Recorded before dispatching so a fast callback always finds its entry
+        telemetry.onDispatched(tickDeadline, SystemClock.uptimeNanos());
+        if (dispatchGesture(gesture, gestureCallback, callbackHandler)) {
+            return true;
+        }
+        telemetry.onRejected();
+        return false;
+    }
+
+    private void closeMacro() {
+        MacroPlayback playback = macroPlayback;
+        macroPlayback = null;
+        if (playback != null) {
+            try {
+                playback.getFile().close();
+            } catch (IOException e) {
+                Log.w(TAG, "Closing macro failed", e);
             }
-        }, null);
+        }
+    }
+
+    // Each of these returns false if the gesture was not dispatched
+    private boolean dispatchSwipe(MacroCursor event) {
+        if (!pipeline.tryAcquire()) {
+            return false;
+        }
+        Path path = new Path();
+        path.moveTo(event.getX(0), event.getY(0));
+        for (int i = 1; i < event.getPointCount(); i++) {
+            path.lineTo(event.getX(i), event.getY(i));
+        }
+        return dispatchStroke(path, event.getDurationMs());
+    }
+
+    private boolean dispatchSwipe(int fromX, int fromY, int toX, int toY, long durationMs) {
+        if (!pipeline.tryAcquire()) {
+            return false;
+        }
+        Path path = new Path();
+        path.moveTo(Math.max(0, fromX), Math.max(0, fromY));
+        path.lineTo(Math.max(0, toX), Math.max(0, toY));
+        return dispatchStroke(path, durationMs);
+    }
+
+    private boolean dispatchStroke(Path path, long durationMs) {
+        long duration = Math.min(durationMs, GestureDescription.getMaxGestureDuration());
+
+        GestureDescription.Builder gestureBuilder = new GestureDescription.Builder();
+        gestureBuilder.addStroke(new GestureDescription.StrokeDescription(path, 0, duration));
+        if (!dispatchTracked(gestureBuilder.build())) {
+            pipeline.onRejected();
+            return false;
+        }
+        return true;
+    }
+
+    private void applyEventMask() {
+        AccessibilityServiceInfo info = getServiceInfo();
+        if (info == null) {
+            return;
+        }
+        int mask = eventSubscriptions.getMask();
+        Log.i(TAG, "Event mask 0x" + Integer.toHexString(info.eventTypes) + " -> 0x"
+                + Integer.toHexString(mask) + ", " + getEventsPerMinute() + " events in the last minute");
+        info.eventTypes = mask;
+        setServiceInfo(info);
+    }
+
+    private void onGestureFinished(GestureDescription gesture) {
+        SequenceRunner runner = sequenceRunner;
+        if (runner != null && state.isActive()) {
+            runner.onGestureFinished(gesture);
+        }
+    }
+
+    private static GestureDescription buildTap(int x, int y) {
+        Path clickPath = new Path();
+        clickPath.moveTo(x, y);
+
+        GestureDescription.Builder gestureBuilder = new GestureDescription.Builder();
+        gestureBuilder.addStroke(new GestureDescription.StrokeDescription(clickPath, 0, 1));
+        return gestureBuilder.build();
     }
 
     private void sendStatusUpdate(String message) {
-        Intent intent = new Intent("AutoClickerStatus");
-        intent.putExtra("message", message);
-        sendBroadcast(intent);
+        ClickerEvents.STATUS.publish(message);
     }
 }
\ No newline at end of file
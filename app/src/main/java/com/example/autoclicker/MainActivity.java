@@ -1,15 +1,22 @@
 package com.example.autoclicker;
 
-import android.content.BroadcastReceiver;
-import android.content.Context;
 import android.content.Intent;
-import android.content.IntentFilter;
+import android.graphics.Point;
 import android.net.Uri;
 import android.os.Build;
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+import android.os.SystemClock;
+import android.os.Trace;
 import android.provider.Settings;
+import android.util.Log;
+import android.view.Choreographer;
 import android.view.View;
 import android.widget.Button;
+import android.widget.CheckBox;
+import android.widget.CompoundButton;
 import android.widget.EditText;
 import android.widget.TextView;
 import android.widget.Toast;
@@ -19,41 +26,156 @@ import androidx.core.graphics.Insets;
 import androidx.core.view.ViewCompat;
 import androidx.core.view.WindowInsetsCompat;
 
+import com.example.autoclicker.bus.ChoreographerPoster;
+import com.example.autoclicker.bus.ClickerEvents;
+import com.example.autoclicker.bus.FrameCoalescer;
+import com.example.autoclicker.bus.Topic;
+import com.example.autoclicker.jitter.JitterSpec;
+import com.example.autoclicker.jobs.ClickJob;
+import com.example.autoclicker.nodes.NodeTarget;
+import com.example.autoclicker.profiles.ClickProfile;
+import com.example.autoclicker.sequence.ClickSequence;
+import com.example.autoclicker.sequence.ClickStep;
+import com.example.autoclicker.startup.PermissionCache;
+import com.example.autoclicker.telemetry.ClickTelemetry;
+import com.example.autoclicker.telemetry.OverlayFrameStats;
+import com.example.autoclicker.telemetry.StartupMetrics;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
 public class MainActivity extends AppCompatActivity {
 
+    private static final String TAG = "MainActivity";
+    private static final long STATS_REFRESH_MS = 500;
+    private static final String TRACE_FIRST_FRAME = "AutoClicker.timeToFirstFrame";
+    private static final String TRACE_INTERACTIVE = "AutoClicker.timeToInteractive";
+
+    // Process-wide, so they outlive the activity being recreated
+    private static final StartupMetrics startupMetrics = new StartupMetrics();
+    private static final PermissionCache permissions = new PermissionCache();
+
     private Button btnEnableAccessibility;
     private Button btnEnableOverlay;
     private Button btnSetPosition;
+    private Button btnAddToSequence;
+    private Button btnClearSequence;
+    private Button btnAddJob;
+    private Button btnRecordMacro;
+    private Button btnPlayMacro;
+    private Button btnRunScript;
+    private Button btnCaptureTrigger;
     private Button btnStartStop;
+    private Button btnExportStats;
+    private Button btnSaveProfile;
     private EditText etInterval;
     private EditText etRepeatCount;
+    private EditText etNodeTarget;
+    private EditText etProfilePackage;
+    private EditText etScript;
+    private CheckBox cbHighRate;
+    private CheckBox cbTrigger;
+    private CheckBox cbShowMarkers;
+    private CheckBox cbHumanize;
+    private CheckBox cbAdaptivePower;
     private TextView tvPosition;
+    private TextView tvSequence;
+    private TextView tvStats;
+    private TextView tvJobs;
+    private TextView tvProfiles;
 
     private int clickX = -1;
     private int clickY = -1;
+    private final List<Point> sequencePoints = new ArrayList<>();
+
+    private final Handler statsHandler = new Handler(Looper.getMainLooper());
+    private long lastCompleted;
+    private long lastStatsTime;
 
-    private BroadcastReceiver statusReceiver = new BroadcastReceiver() {
+    // Refreshes the stats panel only while the activity is in the foreground
+    private final Runnable statsUpdater = new Runnable() {
         @Override
-        public void onReceive(Context context, Intent intent) {
-            String message = intent.getStringExtra("message");
-            if (message != null) {
-                Toast.makeText(MainActivity.this, message, Toast.LENGTH_SHORT).show();
-                updateStartStopButton();
-            }
+        public void run() {
+            updateStats();
+            statsHandler.postDelayed(this, STATS_REFRESH_MS);
         }
     };
 
-    private BroadcastReceiver positionReceiver = new BroadcastReceiver() {
+    // Service events wake the UI at most once per frame, however fast they arrive
+    private final FrameCoalescer uiFrame = new FrameCoalescer(new ChoreographerPoster(),
+            new Runnable() {
+                @Override
+                public void run() {
+                    drainEvents();
+                }
+            });
+    private final Runnable wakeUp = new Runnable() {
         @Override
-        public void onReceive(Context context, Intent intent) {
-            clickX = intent.getIntExtra("x", -1);
-            clickY = intent.getIntExtra("y", -1);
-            updatePositionText();
+        public void run() {
+            uiFrame.request();
+        }
+    };
+    private Topic.Subscription<String> statusSubscription;
+    private long seenPositionVersion;
+
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private boolean deferredStartupPending;
+
+    // Runs once the frame after onResume has been drawn
+    private final Choreographer.FrameCallback firstFrame = new Choreographer.FrameCallback() {
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            // The frame's traversal runs after this callback; a message posted now runs after it
+            mainHandler.post(deferredStartup);
+        }
+    };
+
+    private final Runnable deferredStartup = new Runnable() {
+        @Override
+        public void run() {
+            deferredStartupPending = false;
+            long ttff = startupMetrics.onFirstFrame(SystemClock.uptimeNanos());
+            if (ttff >= 0) {
+                Trace.endAsyncSection(TRACE_FIRST_FRAME, 0);
+            }
+            permissions.refresh(MainActivity.this, new PermissionCache.Listener() {
+                @Override
+                public void onPermissions(boolean accessibility, boolean overlay, boolean changed) {
+                    if (changed) {
+                        applyPermissions(accessibility, overlay);
+                    }
+                    if (overlay) {
+                        showFloatingButton();
+                    }
+                    long tti = startupMetrics.onInteractive(SystemClock.uptimeNanos());
+                    if (tti >= 0) {
+                        Trace.endAsyncSection(TRACE_INTERACTIVE, 0);
+                        Log.i(TAG, startupMetrics.summary());
+                    }
+                }
+            });
         }
     };
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
+        Trace.beginSection("MainActivity.onCreate");
+        if (!startupMetrics.hasStarted()) {
+            // A cold start is timed from process start, not from the activity
+            long start = TimeUnit.MILLISECONDS.toNanos(Process.getStartUptimeMillis());
+            startupMetrics.begin(StartupMetrics.Kind.COLD, start);
+            Trace.beginAsyncSection(TRACE_FIRST_FRAME, 0);
+            Trace.beginAsyncSection(TRACE_INTERACTIVE, 0);
+        }
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_main);
 
@@ -65,37 +187,86 @@ public class MainActivity extends AppCompatActivity {
 
         initViews();
         setupListeners();
-        checkPermissions();
+        if (permissions.isKnown()) {
+            applyPermissions(permissions.hasAccessibility(), permissions.hasOverlay());
+        }
+        Trace.endSection();
     }
 
     @Override
     protected void onResume() {
+        Trace.beginSection("MainActivity.onResume");
+        if (startupMetrics.begin(StartupMetrics.Kind.RESUME, SystemClock.uptimeNanos())) {
+            Trace.beginAsyncSection(TRACE_FIRST_FRAME, 0);
+            Trace.beginAsyncSection(TRACE_INTERACTIVE, 0);
+        }
         super.onResume();
-        IntentFilter statusFilter = new IntentFilter("AutoClickerStatus");
-        registerReceiver(statusReceiver, statusFilter, Context.RECEIVER_NOT_EXPORTED);
-
-        IntentFilter positionFilter = new IntentFilter("PositionSelected");
-        registerReceiver(positionReceiver, positionFilter, Context.RECEIVER_NOT_EXPORTED);
+        statusSubscription = ClickerEvents.STATUS.subscribe(wakeUp);
+        ClickerEvents.POSITION.addObserver(wakeUp);
+        ClickerEvents.CLICK_COUNT.addObserver(wakeUp);
+        // Picks up a position chosen while this screen was in the background
+        uiFrame.request();
 
         updateStartStopButton();
-        checkPermissions();
+        updateProfilesText();
+        statsHandler.post(statsUpdater);
+        // Permission checks and the overlay wait until this screen has been drawn
+        if (!deferredStartupPending) {
+            deferredStartupPending = true;
+            Choreographer.getInstance().postFrameCallback(firstFrame);
+        }
+        Trace.endSection();
     }
 
     @Override
     protected void onPause() {
         super.onPause();
-        unregisterReceiver(statusReceiver);
-        unregisterReceiver(positionReceiver);
+        statusSubscription.close();
+        statusSubscription = null;
+        ClickerEvents.POSITION.removeObserver(wakeUp);
+        ClickerEvents.CLICK_COUNT.removeObserver(wakeUp);
+        statsHandler.removeCallbacks(statsUpdater);
+        if (deferredStartupPending) {
+            Choreographer.getInstance().removeFrameCallback(firstFrame);
+            mainHandler.removeCallbacks(deferredStartup);
+            deferredStartupPending = false;
+        }
+        // Left before it became interactive; that launch is not counted
+        if (startupMetrics.cancel()) {
+            Trace.endAsyncSection(TRACE_FIRST_FRAME, 0);
+            Trace.endAsyncSection(TRACE_INTERACTIVE, 0);
+        }
     }
 
     private void initViews() {
         btnEnableAccessibility = findViewById(R.id.btnEnableAccessibility);
         btnEnableOverlay = findViewById(R.id.btnEnableOverlay);
         btnSetPosition = findViewById(R.id.btnSetPosition);
+        btnAddToSequence = findViewById(R.id.btnAddToSequence);
+        btnClearSequence = findViewById(R.id.btnClearSequence);
+        btnAddJob = findViewById(R.id.btnAddJob);
+        btnRecordMacro = findViewById(R.id.btnRecordMacro);
+        btnPlayMacro = findViewById(R.id.btnPlayMacro);
+        etScript = findViewById(R.id.etScript);
+        btnRunScript = findViewById(R.id.btnRunScript);
+        btnCaptureTrigger = findViewById(R.id.btnCaptureTrigger);
         btnStartStop = findViewById(R.id.btnStartStop);
+        btnExportStats = findViewById(R.id.btnExportStats);
         etInterval = findViewById(R.id.etInterval);
         etRepeatCount = findViewById(R.id.etRepeatCount);
+        etNodeTarget = findViewById(R.id.etNodeTarget);
+        etProfilePackage = findViewById(R.id.etProfilePackage);
+        btnSaveProfile = findViewById(R.id.btnSaveProfile);
+        tvProfiles = findViewById(R.id.tvProfiles);
+        cbHighRate = findViewById(R.id.cbHighRate);
+        cbTrigger = findViewById(R.id.cbTrigger);
+        cbShowMarkers = findViewById(R.id.cbShowMarkers);
+        cbHumanize = findViewById(R.id.cbHumanize);
+        cbAdaptivePower = findViewById(R.id.cbAdaptivePower);
         tvPosition = findViewById(R.id.tvPosition);
+        tvSequence = findViewById(R.id.tvSequence);
+        tvStats = findViewById(R.id.tvStats);
+        tvJobs = findViewById(R.id.tvJobs);
     }
 
     private void setupListeners() {
@@ -150,7 +321,158 @@ public class MainActivity extends AppCompatActivity {
             }
         });
 
-        btnStartStop.setOnClickListener(new View.OnClickListener() {
+        btnSaveProfile.setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View v) {
+                AutoClickerService service = AutoClickerService.getInstance();
+                if (service == null) {
+                    Toast.makeText(MainActivity.this,
+                            "Please enable Accessibility Service first",
+                            Toast.LENGTH_SHORT).show();
+                    return;
+                }
+                String packageName = etProfilePackage.getText().toString().trim();
+                try {
+                    long interval = Long.parseLong(etInterval.getText().toString());
+                    int repeatCount = Integer.parseInt(etRepeatCount.getText().toString());
+                    service.saveProfile(new ClickProfile(packageName, clickX, clickY, interval,
+                            repeatCount, service.getConfig().catchUpPolicy, cbHighRate.isChecked()));
+                    Toast.makeText(MainActivity.this,
+                            "Profile saved for " + packageName,
+                            Toast.LENGTH_SHORT).show();
+                    updateProfilesText();
+                } catch (IllegalArgumentException e) {
+                    Toast.makeText(MainActivity.this,
+                            "Please enter a package name and valid numbers",
+                            Toast.LENGTH_SHORT).show();
+                } catch (IOException e) {
+                    Toast.makeText(MainActivity.this,
+                            "Could not save profile: " + e.getMessage(),
+                            Toast.LENGTH_SHORT).show();
+                }
+            }
+        });
+
+        cbShowMarkers.setOnCheckedChangeListener(new CompoundButton.OnCheckedChangeListener() {
+            @Override
+            public void onCheckedChanged(CompoundButton buttonView, boolean isChecked) {
+                if (isChecked && !checkOverlayPermission()) {
+                    Toast.makeText(MainActivity.this,
+                            "Please enable overlay permission first",
+                            Toast.LENGTH_SHORT).show();
+                    buttonView.setChecked(false);
+                    return;
+                }
+                sendOverlayAction(isChecked ? "SHOW_MARKERS" : "HIDE_MARKERS");
+            }
+        });
+
+        btnAddToSequence.setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View v) {
+                if (clickX < 0 || clickY < 0) {
+                    Toast.makeText(MainActivity.this,
+                            "Please set a click position first",
+                            Toast.LENGTH_SHORT).show();
+                    return;
+                }
+                sequencePoints.add(new Point(clickX, clickY));
+                updateSequenceText();
+            }
+        });
+
+        btnClearSequence.setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View v) {
+                sequencePoints.clear();
+                updateSequenceText();
+            }
+        });
+
+        btnAddJob.setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View v) {
+                AutoClickerService service = AutoClickerService.getInstance();
+                if (service == null) {
+                    Toast.makeText(MainActivity.this,
+                            "Please enable Accessibility Service first",
+                            Toast.LENGTH_SHORT).show();
+                    return;
+                }
+                if (clickX < 0 || clickY < 0) {
+                    Toast.makeText(MainActivity.this,
+                            "Please set a click position first",
+                            Toast.LENGTH_SHORT).show();
+                    return;
+                }
+                try {
+                    long interval = Long.parseLong(etInterval.getText().toString());
+                    int repeatCount = Integer.parseInt(etRepeatCount.getText().toString());
+                    // Jobs share gestures, so they are held to the high-rate floor only
+                    if (interval < AutoClickerService.MIN_HIGH_RATE_INTERVAL_MS) {
+                        Toast.makeText(MainActivity.this,
+                                "Interval must be at least "
+                                        + AutoClickerService.MIN_HIGH_RATE_INTERVAL_MS + "ms",
+                                Toast.LENGTH_SHORT).show();
+                        return;
+                    }
+                    final boolean adaptivePower = cbAdaptivePower.isChecked();
+                    service.updateConfig(c -> c.withAdaptivePower(adaptivePower));
+                    service.startJob(service.addJob(clickX, clickY, interval, repeatCount, 0));
+                    refreshMarkers();
+                    updateStats();
+                } catch (IllegalArgumentException e) {
+                    Toast.makeText(MainActivity.this,
+                            "Please enter valid numbers",
+                            Toast.LENGTH_SHORT).show();
+                }
+            }
+        });
+
+        btnRecordMacro.setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View v) {
+                if (!checkOverlayPermission()) {
+                    Toast.makeText(MainActivity.this,
+                            "Please enable overlay permission first",
+                            Toast.LENGTH_SHORT).show();
+                    return;
+                }
+
+                Intent intent = new Intent(MainActivity.this, OverlayService.class);
+                intent.setAction("START_RECORDING");
+                startService(intent);
+            }
+        });
+
+        btnPlayMacro.setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View v) {
+                AutoClickerService service = AutoClickerService.getInstance();
+                if (service == null) {
+                    Toast.makeText(MainActivity.this,
+                            "Please enable Accessibility Service first",
+                            Toast.LENGTH_SHORT).show();
+                    return;
+                }
+                if (service.isClicking()) {
+                    service.stopClicking();
+                    return;
+                }
+
+                // Recordings are named by timestamp, so the last one is the newest
+                List<String> macros = service.getMacroStore().list();
+                if (macros.isEmpty()) {
+                    Toast.makeText(MainActivity.this,
+                            "No recorded macros yet",
+                            Toast.LENGTH_SHORT).show();
+                    return;
+                }
+                service.playMacro(macros.get(macros.size() - 1));
+            }
+        });
+
+        btnRunScript.setOnClickListener(new View.OnClickListener() {
             @Override
             public void onClick(View v) {
                 AutoClickerService service = AutoClickerService.getInstance();
@@ -160,13 +482,55 @@ public class MainActivity extends AppCompatActivity {
                             Toast.LENGTH_SHORT).show();
                     return;
                 }
+                if (service.isClicking()) {
+                    service.stopClicking();
+                    return;
+                }
+                service.runScript(etScript.getText().toString());
+            }
+        });
 
+        btnCaptureTrigger.setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View v) {
+                AutoClickerService service = AutoClickerService.getInstance();
+                if (service == null) {
+                    Toast.makeText(MainActivity.this,
+                            "Please enable Accessibility Service first",
+                            Toast.LENGTH_SHORT).show();
+                    return;
+                }
                 if (clickX < 0 || clickY < 0) {
                     Toast.makeText(MainActivity.this,
                             "Please set a click position first",
                             Toast.LENGTH_SHORT).show();
                     return;
                 }
+                // This screen would cover the target, so step aside and let the service
+                // capture once the app underneath is back in front
+                service.captureTriggerTemplateWhenHidden(clickX, clickY);
+                moveTaskToBack(true);
+            }
+        });
+
+        btnStartStop.setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View v) {
+                AutoClickerService service = AutoClickerService.getInstance();
+                if (service == null) {
+                    Toast.makeText(MainActivity.this,
+                            "Please enable Accessibility Service first",
+                            Toast.LENGTH_SHORT).show();
+                    return;
+                }
+
+                NodeTarget nodeTarget = parseNodeTarget(etNodeTarget.getText().toString());
+                if (sequencePoints.isEmpty() && nodeTarget == null && (clickX < 0 || clickY < 0)) {
+                    Toast.makeText(MainActivity.this,
+                            "Please set a click position first",
+                            Toast.LENGTH_SHORT).show();
+                    return;
+                }
 
                 if (service.isClicking()) {
                     service.stopClicking();
@@ -175,18 +539,34 @@ public class MainActivity extends AppCompatActivity {
                         long interval = Long.parseLong(etInterval.getText().toString());
                         int repeatCount = Integer.parseInt(etRepeatCount.getText().toString());
 
-                        if (interval < 100) {
+                        boolean highRate = cbHighRate.isChecked();
+                        long minInterval = highRate ?
+                                AutoClickerService.MIN_HIGH_RATE_INTERVAL_MS :
+                                AutoClickerService.MIN_INTERVAL_MS;
+
+                        if (interval < minInterval) {
                             Toast.makeText(MainActivity.this,
-                                    "Interval must be at least 100ms",
+                                    "Interval must be at least " + minInterval + "ms",
                                     Toast.LENGTH_SHORT).show();
                             return;
                         }
 
-                        service.setClickPosition(clickX, clickY);
-                        service.setClickInterval(interval);
-                        service.setRepeatCount(repeatCount);
+                        final boolean trigger = cbTrigger.isChecked();
+                        final boolean adaptivePower = cbAdaptivePower.isChecked();
+                        final JitterSpec jitter = cbHumanize.isChecked()
+                                ? AutoClickerService.HUMANIZED_JITTER : JitterSpec.NONE;
+                        service.updateConfig(c -> c.withPosition(clickX, clickY)
+                                .withInterval(interval)
+                                .withRepeatCount(repeatCount)
+                                .withHighRate(highRate)
+                                .withTrigger(trigger)
+                                .withAdaptivePower(adaptivePower)
+                                .withJitter(jitter));
+                        service.setClickSequence(buildSequence(interval));
+                        service.setNodeTarget(nodeTarget);
                         service.startClicking();
-                    } catch (NumberFormatException e) {
+                        refreshMarkers();
+                    } catch (IllegalArgumentException e) {
                         Toast.makeText(MainActivity.this,
                                 "Please enter valid numbers",
                                 Toast.LENGTH_SHORT).show();
@@ -194,12 +574,23 @@ public class MainActivity extends AppCompatActivity {
                 }
             }
         });
-    }
 
-    private void checkPermissions() {
-        boolean accessibilityEnabled = AutoClickerService.isServiceEnabled();
-        boolean overlayEnabled = checkOverlayPermission();
+        btnExportStats.setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View v) {
+                AutoClickerService service = AutoClickerService.getInstance();
+                if (service == null) {
+                    Toast.makeText(MainActivity.this,
+                            "Please enable Accessibility Service first",
+                            Toast.LENGTH_SHORT).show();
+                    return;
+                }
+                exportStats(service.getTelemetry());
+            }
+        });
+    }
 
+    private void applyPermissions(boolean accessibilityEnabled, boolean overlayEnabled) {
         btnEnableAccessibility.setEnabled(!accessibilityEnabled);
         btnEnableAccessibility.setText(accessibilityEnabled ?
                 "Accessibility Enabled ✓" : "Enable Accessibility");
@@ -207,11 +598,25 @@ public class MainActivity extends AppCompatActivity {
         btnEnableOverlay.setEnabled(!overlayEnabled);
         btnEnableOverlay.setText(overlayEnabled ?
                 "Overlay Enabled ✓" : "Enable Overlay");
+    }
 
-        if (overlayEnabled) {
-            Intent intent = new Intent(this, OverlayService.class);
-            intent.setAction("SHOW_FLOATING_BUTTON");
-            startService(intent);
+    // Idempotent: the service is only started when the button is not already showing
+    private void showFloatingButton() {
+        if (OverlayService.isFloatingButtonShown()) {
+            return;
+        }
+        sendOverlayAction("SHOW_FLOATING_BUTTON");
+    }
+
+    private void sendOverlayAction(String action) {
+        Intent intent = new Intent(this, OverlayService.class);
+        intent.setAction(action);
+        startService(intent);
+    }
+
+    private void refreshMarkers() {
+        if (cbShowMarkers.isChecked()) {
+            sendOverlayAction("REFRESH_MARKERS");
         }
     }
 
@@ -231,10 +636,145 @@ public class MainActivity extends AppCompatActivity {
         }
     }
 
+    private void updateSequenceText() {
+        if (sequencePoints.isEmpty()) {
+            tvSequence.setText("Sequence: none (single position)");
+        } else {
+            tvSequence.setText("Sequence: " + sequencePoints.size() + " taps");
+        }
+    }
+
+    // Sequence taps are spaced by the click interval; null means single-position mode
+    private ClickSequence buildSequence(long interval) {
+        if (sequencePoints.isEmpty()) {
+            return null;
+        }
+        List<ClickStep> steps = new ArrayList<>();
+        for (int i = 0; i < sequencePoints.size(); i++) {
+            Point point = sequencePoints.get(i);
+            steps.add(ClickStep.tap(point.x, point.y, i == 0 ? 0 : interval));
+        }
+        return new ClickSequence(steps);
+    }
+
+    // "desc:..." targets a content description, "pkg:id/name" a view id, anything else text
+    private NodeTarget parseNodeTarget(String value) {
+        value = value.trim();
+        if (value.isEmpty()) {
+            return null;
+        }
+        if (value.startsWith("desc:")) {
+            return NodeTarget.contentDescription(value.substring(5));
+        }
+        if (value.contains(":id/")) {
+            return NodeTarget.viewId(value);
+        }
+        return NodeTarget.text(value);
+    }
+
+    private void updateStats() {
+        AutoClickerService service = AutoClickerService.getInstance();
+        if (service == null) {
+            return;
+        }
+        updateJobsText(service.getJobs());
+        ClickTelemetry telemetry = service.getTelemetry();
+        long completed = telemetry.getCompleted();
+        long now = SystemClock.uptimeMillis();
+        OverlayFrameStats overlay = OverlayService.getFrameStats();
+        String overlayText = (overlay.getMoves() == 0 && overlay.getMarkerDraw().getCount() == 0
+                ? "" : "\n" + overlay.summary()) + "\n" + startupMetrics.summary();
+        if (completed == 0) {
+            tvStats.setText(getString(R.string.stats_idle) + overlayText);
+        } else {
+            double rate = lastStatsTime == 0 || completed < lastCompleted ? 0 :
+                    (completed - lastCompleted) * 1000.0 / Math.max(1, now - lastStatsTime);
+            tvStats.setText(String.format(Locale.US, "%.1f clicks/s\n", rate)
+                    + telemetry.summary() + "\n" + service.getDispatchStats()
+                    + powerText(service.getPowerDecisions()) + overlayText);
+        }
+        lastCompleted = completed;
+        lastStatsTime = now;
+    }
+
+    private void updateProfilesText() {
+        AutoClickerService service = AutoClickerService.getInstance();
+        List<String> profiles = service == null
+                ? Collections.<String>emptyList() : service.getProfiles();
+        if (profiles.isEmpty()) {
+            tvProfiles.setText(R.string.no_profiles);
+            return;
+        }
+        StringBuilder text = new StringBuilder("Profiles:");
+        String active = service.getActiveProfile();
+        for (String name : profiles) {
+            text.append('\n').append(name);
+            if (name.equals(active)) {
+                text.append(" (active)");
+            }
+        }
+        tvProfiles.setText(text);
+    }
+
+    private void updateJobsText(List<ClickJob> jobs) {
+        if (jobs.isEmpty()) {
+            tvJobs.setText(R.string.no_jobs);
+            return;
+        }
+        StringBuilder text = new StringBuilder("Jobs:");
+        for (ClickJob job : jobs) {
+            text.append('\n').append(job);
+        }
+        tvJobs.setText(text);
+    }
+
+    // Last few power decisions, newest last
+    private static String powerText(List<String> decisions) {
+        StringBuilder text = new StringBuilder();
+        for (int i = Math.max(0, decisions.size() - 3); i < decisions.size(); i++) {
+            text.append("\npower ").append(decisions.get(i));
+        }
+        return text.toString();
+    }
+
+    private void exportStats(ClickTelemetry telemetry) {
+        String stamp = new SimpleDateFormat("yyyyMMdd-HHmmss", Locale.US).format(new Date());
+        File file = new File(getExternalFilesDir(null), "telemetry-" + stamp + ".csv");
+        try (Writer out = new FileWriter(file)) {
+            telemetry.writeCsv(out);
+            Toast.makeText(this, "Saved " + file.getAbsolutePath(), Toast.LENGTH_LONG).show();
+        } catch (IOException e) {
+            Toast.makeText(this, "Export failed: " + e.getMessage(), Toast.LENGTH_SHORT).show();
+        }
+    }
+
+    private void drainEvents() {
+        if (statusSubscription == null) {
+            return;
+        }
+        String message;
+        while ((message = statusSubscription.poll()) != null) {
+            Toast.makeText(this, message, Toast.LENGTH_SHORT).show();
+        }
+
+        long positionVersion = ClickerEvents.POSITION.getVersion();
+        if (positionVersion != seenPositionVersion) {
+            seenPositionVersion = positionVersion;
+            ClickerEvents.Position position = ClickerEvents.POSITION.get();
+            if (position != null) {
+                clickX = position.x;
+                clickY = position.y;
+                updatePositionText();
+            }
+        }
+        updateStartStopButton();
+    }
+
     private void updateStartStopButton() {
         AutoClickerService service = AutoClickerService.getInstance();
         if (service != null && service.isClicking()) {
-            btnStartStop.setText(R.string.stop_clicking);
+            btnStartStop.setText(getString(R.string.stop_clicking,
+                    ClickerEvents.CLICK_COUNT.get()));
         } else {
             btnStartStop.setText(R.string.start_clicking);
         }
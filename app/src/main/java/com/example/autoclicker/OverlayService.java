@@ -9,24 +9,125 @@ import android.content.Intent;
 import android.graphics.PixelFormat;
 import android.graphics.Color;
 import android.os.Build;
+import android.os.Handler;
 import android.os.IBinder;
+import android.os.Looper;
+import android.os.SystemClock;
 import android.view.Gravity;
 import android.view.LayoutInflater;
 import android.view.MotionEvent;
 import android.view.View;
 import android.view.WindowManager;
 import android.widget.FrameLayout;
+import android.widget.LinearLayout;
 import android.widget.TextView;
 import androidx.core.app.NotificationCompat;
 
+import com.example.autoclicker.bus.ChoreographerPoster;
+import com.example.autoclicker.bus.ClickerEvents;
+import com.example.autoclicker.bus.FrameCoalescer;
+import com.example.autoclicker.jobs.ClickJob;
+import com.example.autoclicker.macro.MacroFile;
+import com.example.autoclicker.macro.MacroFormatException;
+import com.example.autoclicker.macro.MacroStore;
+import com.example.autoclicker.macro.MacroWriter;
+import com.example.autoclicker.overlay.ControlPanelModel;
+import com.example.autoclicker.overlay.MarkerGeometry;
+import com.example.autoclicker.overlay.TargetMarkerView;
+import com.example.autoclicker.recorder.TouchRecorder;
+import com.example.autoclicker.sequence.ClickSequence;
+import com.example.autoclicker.state.ClickConfig;
+import com.example.autoclicker.state.EngineState;
+import com.example.autoclicker.state.RunState;
+import com.example.autoclicker.telemetry.OverlayFrameStats;
+
+import java.io.File;
+import java.io.IOException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+
 public class OverlayService extends Service {
 
+    // Outlives service restarts so the stats panel can read it at any time
+    private static final OverlayFrameStats frameStats = new OverlayFrameStats();
+    // Lets the activity skip the service round trip when the button is already up
+    private static volatile boolean floatingButtonShown;
+
     private WindowManager windowManager;
     private View overlayView;
+    private WindowManager.LayoutParams overlayParams;
+    // Latest drag position, applied to the window once per frame
+    private int dragX;
+    private int dragY;
+    private final FrameCoalescer dragFrames = new FrameCoalescer(new ChoreographerPoster(),
+            new Runnable() {
+                @Override
+                public void run() {
+                    applyDrag();
+                }
+            });
+    // Expandable panel under the floating button that drives the engine in-process
+    private View controlPanel;
+    private TextView panelState;
+    private TextView panelCount;
+    private TextView panelRate;
+    private TextView panelStart;
+    private TextView panelPause;
+    private TextView panelStop;
+    private TextView panelStep;
+    private final ControlPanelModel panelModel = new ControlPanelModel();
+    // Engine the panel observes; replaced if the accessibility service restarts
+    private EngineState observedState;
+    // Clicks and state changes redraw the panel at most once per frame
+    private final FrameCoalescer panelFrames = new FrameCoalescer(new ChoreographerPoster(),
+            new Runnable() {
+                @Override
+                public void run() {
+                    refreshPanel();
+                }
+            });
+    private final Runnable panelWake = new Runnable() {
+        @Override
+        public void run() {
+            panelFrames.request();
+        }
+    };
+    private final Handler panelHandler = new Handler(Looper.getMainLooper());
+    private boolean panelTickPending;
+    private boolean panelConnected;
+    private String panelStateLabel;
+    // Keeps the rate current between clicks while a run is going; idle panels get no ticks
+    private final Runnable panelTick = new Runnable() {
+        @Override
+        public void run() {
+            panelTickPending = false;
+            refreshPanel();
+        }
+    };
+    private final View.OnClickListener panelActions = new View.OnClickListener() {
+        @Override
+        public void onClick(View v) {
+            onPanelAction(v);
+        }
+    };
+    private TargetMarkerView markerView;
+    // The geometry not on screen, rebuilt in place on the next refresh
+    private MarkerGeometry spareGeometry = new MarkerGeometry();
+    private byte[] lastRecording;
     private View targetView;
     private boolean isSelectingPosition = false;
+    private View recordingView;
     private static final String CHANNEL_ID = "AutoClickerChannel";
     private static final int NOTIFICATION_ID = 1;
+    private static final long PANEL_RATE_REFRESH_MS = 500;
+    private static final float PANEL_DISABLED_ALPHA = 0.4f;
+
+    // 64k samples is several minutes of continuous touch at 120 Hz
+    private static final int RECORDER_CAPACITY = 1 << 16;
+    private static final double RECORD_TOLERANCE_PX = 3.0;
+    private static final int RECORD_TAP_SLOP_PX = 12;
+    private final TouchRecorder touchRecorder = new TouchRecorder(RECORDER_CAPACITY);
 
     @Override
     public void onCreate() {
@@ -44,10 +145,20 @@ public class OverlayService extends Service {
                 startPositionSelection();
             } else if ("STOP_POSITION_SELECTION".equals(action)) {
                 stopPositionSelection();
+            } else if ("START_RECORDING".equals(action)) {
+                startRecording();
+            } else if ("STOP_RECORDING".equals(action)) {
+                stopRecording();
             } else if ("SHOW_FLOATING_BUTTON".equals(action)) {
                 showFloatingButton();
             } else if ("HIDE_FLOATING_BUTTON".equals(action)) {
                 hideFloatingButton();
+            } else if ("SHOW_MARKERS".equals(action)) {
+                showMarkers();
+            } else if ("HIDE_MARKERS".equals(action)) {
+                hideMarkers();
+            } else if ("REFRESH_MARKERS".equals(action)) {
+                refreshMarkers();
             }
         }
         return START_STICKY;
@@ -58,6 +169,14 @@ public class OverlayService extends Service {
         return null;
     }
 
+    public static boolean isFloatingButtonShown() {
+        return floatingButtonShown;
+    }
+
+    public static OverlayFrameStats getFrameStats() {
+        return frameStats;
+    }
+
     private void createNotificationChannel() {
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
             NotificationChannel channel = new NotificationChannel(
@@ -128,12 +247,10 @@ public class OverlayService extends Service {
                         service.setClickPosition(x, y);
                     }
 
-                    Intent broadcastIntent = new Intent("PositionSelected");
-                    broadcastIntent.putExtra("x", x);
-                    broadcastIntent.putExtra("y", y);
-                    sendBroadcast(broadcastIntent);
+                    ClickerEvents.POSITION.set(new ClickerEvents.Position(x, y));
 
                     stopPositionSelection();
+                    refreshMarkers();
                     return true;
                 }
                 return false;
@@ -153,6 +270,118 @@ public class OverlayService extends Service {
         }
     }
 
+    private void startRecording() {
+        if (recordingView != null) {
+            return;
+        }
+
+        WindowManager.LayoutParams params = new WindowManager.LayoutParams(
+                WindowManager.LayoutParams.MATCH_PARENT,
+                WindowManager.LayoutParams.MATCH_PARENT,
+                Build.VERSION.SDK_INT >= Build.VERSION_CODES.O ?
+                        WindowManager.LayoutParams.TYPE_APPLICATION_OVERLAY :
+                        WindowManager.LayoutParams.TYPE_PHONE,
+                WindowManager.LayoutParams.FLAG_NOT_FOCUSABLE |
+                        WindowManager.LayoutParams.FLAG_LAYOUT_IN_SCREEN,
+                PixelFormat.TRANSLUCENT
+        );
+
+        FrameLayout layout = new FrameLayout(this);
+        layout.setBackgroundColor(Color.argb(48, 255, 0, 0));
+
+        TextView stopButton = new TextView(this);
+        stopButton.setText("■ Stop & Save Recording");
+        stopButton.setTextColor(Color.WHITE);
+        stopButton.setBackgroundColor(Color.parseColor("#FFB00020"));
+        stopButton.setPadding(40, 24, 40, 24);
+        stopButton.setTextSize(16);
+        stopButton.setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View v) {
+                stopRecording();
+            }
+        });
+
+        FrameLayout.LayoutParams buttonParams = new FrameLayout.LayoutParams(
+                FrameLayout.LayoutParams.WRAP_CONTENT,
+                FrameLayout.LayoutParams.WRAP_CONTENT,
+                Gravity.TOP | Gravity.CENTER_HORIZONTAL
+        );
+        buttonParams.topMargin = 120;
+        layout.addView(stopButton, buttonParams);
+
+        layout.setOnTouchListener(new View.OnTouchListener() {
+            @Override
+            public boolean onTouch(View v, MotionEvent event) {
+                recordTouch(event);
+                return true;
+            }
+        });
+
+        touchRecorder.clear();
+        recordingView = layout;
+        windowManager.addView(recordingView, params);
+    }
+
+    // Records every sample including the batched historical ones, without allocating
+    private void recordTouch(MotionEvent event) {
+        float offsetX = event.getRawX() - event.getX();
+        float offsetY = event.getRawY() - event.getY();
+
+        switch (event.getActionMasked()) {
+            case MotionEvent.ACTION_DOWN:
+                touchRecorder.onDown(event.getEventTime(),
+                        (int) event.getRawX(), (int) event.getRawY());
+                break;
+            case MotionEvent.ACTION_MOVE:
+                int history = event.getHistorySize();
+                for (int h = 0; h < history; h++) {
+                    touchRecorder.onMove(event.getHistoricalEventTime(h),
+                            (int) (event.getHistoricalX(h) + offsetX),
+                            (int) (event.getHistoricalY(h) + offsetY));
+                }
+                touchRecorder.onMove(event.getEventTime(),
+                        (int) event.getRawX(), (int) event.getRawY());
+                break;
+            case MotionEvent.ACTION_UP:
+            case MotionEvent.ACTION_CANCEL:
+                touchRecorder.onUp(event.getEventTime(),
+                        (int) event.getRawX(), (int) event.getRawY());
+                break;
+        }
+    }
+
+    private void stopRecording() {
+        if (recordingView == null) {
+            return;
+        }
+        windowManager.removeView(recordingView);
+        recordingView = null;
+
+        MacroWriter writer = new MacroWriter();
+        int events = touchRecorder.export(writer, RECORD_TOLERANCE_PX, RECORD_TAP_SLOP_PX);
+        touchRecorder.clear();
+        if (events == 0) {
+            sendStatus("Nothing recorded");
+            return;
+        }
+
+        lastRecording = writer.toByteArray();
+        refreshMarkers();
+
+        String name = "rec-" + new SimpleDateFormat("yyyyMMdd-HHmmss", Locale.US).format(new Date());
+        try {
+            new MacroStore(new File(getFilesDir(), MacroStore.DIRECTORY)).save(name, writer);
+            sendStatus("Recorded " + events + " events as " + name);
+        } catch (IOException e) {
+            sendStatus("Could not save recording: " + e.getMessage());
+        }
+    }
+
+    private void sendStatus(String message) {
+        ClickerEvents.STATUS.publish(message);
+    }
+
     private void showFloatingButton() {
         if (overlayView != null) {
             return;
@@ -171,8 +400,10 @@ public class OverlayService extends Service {
         params.gravity = Gravity.TOP | Gravity.START;
         params.x = 100;
         params.y = 100;
+        overlayParams = params;
 
-        FrameLayout layout = new FrameLayout(this);
+        LinearLayout layout = new LinearLayout(this);
+        layout.setOrientation(LinearLayout.VERTICAL);
         TextView button = new TextView(this);
         button.setText("AC");
         button.setTextColor(Color.WHITE);
@@ -180,14 +411,15 @@ public class OverlayService extends Service {
         button.setPadding(40, 40, 40, 40);
         button.setTextSize(18);
 
-        layout.addView(button);
+        layout.addView(button, new LinearLayout.LayoutParams(
+                LinearLayout.LayoutParams.WRAP_CONTENT, LinearLayout.LayoutParams.WRAP_CONTENT));
+        controlPanel = createControlPanel();
+        layout.addView(controlPanel);
 
         button.setOnClickListener(new View.OnClickListener() {
             @Override
             public void onClick(View v) {
-                Intent intent = new Intent(OverlayService.this, MainActivity.class);
-                intent.setFlags(Intent.FLAG_ACTIVITY_NEW_TASK);
-                startActivity(intent);
+                togglePanel();
             }
         });
 
@@ -207,9 +439,12 @@ public class OverlayService extends Service {
                         initialTouchY = event.getRawY();
                         return false;
                     case MotionEvent.ACTION_MOVE:
-                        params.x = initialX + (int) (event.getRawX() - initialTouchX);
-                        params.y = initialY + (int) (event.getRawY() - initialTouchY);
-                        windowManager.updateViewLayout(overlayView, params);
+                        // Each relayout is a round trip to the window manager, so only the
+                        // latest position is applied, once per frame
+                        dragX = initialX + (int) (event.getRawX() - initialTouchX);
+                        dragY = initialY + (int) (event.getRawY() - initialTouchY);
+                        frameStats.onMove();
+                        dragFrames.request();
                         return true;
                 }
                 return false;
@@ -218,19 +453,263 @@ public class OverlayService extends Service {
 
         overlayView = layout;
         windowManager.addView(overlayView, params);
+        floatingButtonShown = true;
+    }
+
+    private void applyDrag() {
+        WindowManager.LayoutParams params = overlayParams;
+        if (overlayView == null || (params.x == dragX && params.y == dragY)) {
+            return;
+        }
+        long start = SystemClock.elapsedRealtimeNanos();
+        params.x = dragX;
+        params.y = dragY;
+        windowManager.updateViewLayout(overlayView, params);
+        frameStats.onDragFrame(SystemClock.elapsedRealtimeNanos() - start);
     }
 
     private void hideFloatingButton() {
         if (overlayView != null) {
+            collapsePanel();
             windowManager.removeView(overlayView);
             overlayView = null;
+            controlPanel = null;
+        }
+        floatingButtonShown = false;
+    }
+
+    // Every view that changes while the panel is open has a fixed size, so updating its text
+    // or alpha only invalidates it and never asks the window for another layout pass
+    private View createControlPanel() {
+        LinearLayout panel = new LinearLayout(this);
+        panel.setOrientation(LinearLayout.VERTICAL);
+        panel.setBackgroundColor(Color.parseColor("#E6202020"));
+        panel.setPadding(dp(8), dp(4), dp(8), dp(8));
+        panel.setVisibility(View.GONE);
+
+        LinearLayout readout = new LinearLayout(this);
+        panelState = panelText(readout, 72, Gravity.START);
+        panelCount = panelText(readout, 88, Gravity.END);
+        panelRate = panelText(readout, 72, Gravity.END);
+        panel.addView(readout);
+
+        LinearLayout buttons = new LinearLayout(this);
+        panelStart = panelButton(buttons, "▶");
+        panelPause = panelButton(buttons, "❚❚");
+        panelStop = panelButton(buttons, "■");
+        panelStep = panelButton(buttons, "+1");
+        TextView open = panelButton(buttons, "⋯");
+        open.setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View v) {
+                Intent intent = new Intent(OverlayService.this, MainActivity.class);
+                intent.setFlags(Intent.FLAG_ACTIVITY_NEW_TASK);
+                startActivity(intent);
+            }
+        });
+        panel.addView(buttons);
+        return panel;
+    }
+
+    private TextView panelText(LinearLayout row, int widthDp, int gravity) {
+        TextView text = new TextView(this);
+        text.setTextColor(Color.WHITE);
+        text.setTextSize(14);
+        text.setSingleLine(true);
+        text.setGravity(gravity | Gravity.CENTER_VERTICAL);
+        row.addView(text, new LinearLayout.LayoutParams(dp(widthDp), dp(24)));
+        return text;
+    }
+
+    private TextView panelButton(LinearLayout row, String label) {
+        TextView button = new TextView(this);
+        button.setText(label);
+        button.setTextColor(Color.WHITE);
+        button.setTextSize(16);
+        button.setGravity(Gravity.CENTER);
+        button.setBackgroundColor(Color.parseColor("#FF3700B3"));
+        button.setOnClickListener(panelActions);
+        LinearLayout.LayoutParams params = new LinearLayout.LayoutParams(dp(44), dp(40));
+        params.rightMargin = dp(4);
+        row.addView(button, params);
+        return button;
+    }
+
+    private int dp(int value) {
+        return Math.round(value * getResources().getDisplayMetrics().density);
+    }
+
+    private void togglePanel() {
+        if (controlPanel.getVisibility() == View.VISIBLE) {
+            collapsePanel();
+        } else {
+            controlPanel.setVisibility(View.VISIBLE);
+            ClickerEvents.CLICK_COUNT.addObserver(panelWake);
+            refreshPanel();
+        }
+    }
+
+    private void collapsePanel() {
+        if (controlPanel == null || controlPanel.getVisibility() != View.VISIBLE) {
+            return;
+        }
+        controlPanel.setVisibility(View.GONE);
+        ClickerEvents.CLICK_COUNT.removeObserver(panelWake);
+        observeEngine(null);
+        panelHandler.removeCallbacks(panelTick);
+        panelTickPending = false;
+    }
+
+    private void observeEngine(EngineState engine) {
+        if (engine == observedState) {
+            return;
+        }
+        if (observedState != null) {
+            observedState.removeObserver(panelWake);
+        }
+        observedState = engine;
+        if (engine != null) {
+            engine.addObserver(panelWake);
+        }
+    }
+
+    // Calls straight into the engine and redraws before returning, so the press shows up in
+    // the next frame rather than after the engine's own notification
+    private void onPanelAction(View button) {
+        AutoClickerService service = AutoClickerService.getInstance();
+        if (service == null) {
+            sendStatus("Enable the accessibility service first");
+        } else if (button == panelStart) {
+            if (service.getState().getRunState() == RunState.PAUSED) {
+                service.resumeClicking();
+            } else {
+                service.startClicking();
+            }
+        } else if (button == panelPause) {
+            service.pauseClicking();
+        } else if (button == panelStop) {
+            service.stopClicking();
+        } else if (button == panelStep) {
+            service.stepClicking();
+        }
+        refreshPanel();
+    }
+
+    private void refreshPanel() {
+        if (controlPanel == null || controlPanel.getVisibility() != View.VISIBLE) {
+            return;
+        }
+        AutoClickerService service = AutoClickerService.getInstance();
+        observeEngine(service != null ? service.getState() : null);
+        RunState run = observedState != null ? observedState.getRunState() : RunState.IDLE;
+        int changed = panelModel.update(run, ClickerEvents.CLICK_COUNT.get(),
+                SystemClock.uptimeNanos());
+        if ((changed & ControlPanelModel.CHANGED_COUNT) != 0) {
+            panelCount.setText(panelModel.getCountChars(), 0, panelModel.getCountLength());
+        }
+        if ((changed & ControlPanelModel.CHANGED_RATE) != 0) {
+            panelRate.setText(panelModel.getRateChars(), 0, panelModel.getRateLength());
+        }
+        boolean connected = service != null;
+        if ((changed & ControlPanelModel.CHANGED_STATE) != 0 || connected != panelConnected) {
+            panelConnected = connected;
+            applyPanelState(run, connected);
+        }
+        if (panelModel.needsRefresh() && !panelTickPending) {
+            panelTickPending = true;
+            panelHandler.postDelayed(panelTick, PANEL_RATE_REFRESH_MS);
+        }
+    }
+
+    private void applyPanelState(RunState run, boolean connected) {
+        String label = !connected ? "Off"
+                : run == RunState.RUNNING ? "Running"
+                : run == RunState.PAUSED ? "Paused"
+                : run == RunState.STOPPING ? "Stopping"
+                : "Idle";
+        if (label != panelStateLabel) {
+            panelStateLabel = label;
+            panelState.setText(label);
+        }
+        setPanelEnabled(panelStart, connected && (run == RunState.IDLE || run == RunState.PAUSED));
+        setPanelEnabled(panelPause, connected && run == RunState.RUNNING);
+        setPanelEnabled(panelStop, connected && (run == RunState.RUNNING || run == RunState.PAUSED));
+        setPanelEnabled(panelStep, connected && (run == RunState.IDLE || run == RunState.PAUSED));
+    }
+
+    private static void setPanelEnabled(View button, boolean enabled) {
+        if (button.isEnabled() != enabled) {
+            button.setEnabled(enabled);
+            button.setAlpha(enabled ? 1f : PANEL_DISABLED_ALPHA);
+        }
+    }
+
+    private void showMarkers() {
+        if (markerView != null) {
+            return;
+        }
+
+        WindowManager.LayoutParams params = new WindowManager.LayoutParams(
+                WindowManager.LayoutParams.MATCH_PARENT,
+                WindowManager.LayoutParams.MATCH_PARENT,
+                Build.VERSION.SDK_INT >= Build.VERSION_CODES.O ?
+                        WindowManager.LayoutParams.TYPE_APPLICATION_OVERLAY :
+                        WindowManager.LayoutParams.TYPE_PHONE,
+                WindowManager.LayoutParams.FLAG_NOT_FOCUSABLE |
+                        WindowManager.LayoutParams.FLAG_NOT_TOUCHABLE |
+                        WindowManager.LayoutParams.FLAG_LAYOUT_IN_SCREEN,
+                PixelFormat.TRANSLUCENT
+        );
+
+        markerView = new TargetMarkerView(this, frameStats);
+        windowManager.addView(markerView, params);
+        refreshMarkers();
+    }
+
+    private void hideMarkers() {
+        if (markerView != null) {
+            windowManager.removeView(markerView);
+            markerView = null;
+        }
+    }
+
+    // Rebuilds every marker from the current targets; one invalidate however many there are
+    private void refreshMarkers() {
+        if (markerView == null) {
+            return;
+        }
+        MarkerGeometry geometry = spareGeometry;
+        geometry.clear();
+        AutoClickerService service = AutoClickerService.getInstance();
+        if (service != null) {
+            ClickConfig config = service.getConfig();
+            if (config.hasPosition()) {
+                geometry.addTarget(config.x, config.y);
+            }
+            ClickSequence sequence = service.getClickSequence();
+            if (sequence != null) {
+                geometry.addSequence(sequence);
+            }
+            for (ClickJob job : service.getJobs()) {
+                geometry.addTarget(job.x, job.y);
+            }
+        }
+        if (lastRecording != null) {
+            try {
+                geometry.addMacro(MacroFile.wrap(lastRecording).cursor());
+            } catch (MacroFormatException e) {
+                lastRecording = null;
+            }
         }
+        spareGeometry = markerView.setGeometry(geometry);
     }
 
     @Override
     public void onDestroy() {
         super.onDestroy();
         stopPositionSelection();
+        stopRecording();
         hideFloatingButton();
+        hideMarkers();
     }
 }
\ No newline at end of file
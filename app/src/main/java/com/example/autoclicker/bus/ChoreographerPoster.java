@@ -0,0 +1,37 @@
+package com.example.autoclicker.bus;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.view.Choreographer;
+
+/**
+ * Runs coalesced UI work in the main thread's next Choreographer frame.
+ */
+public final class ChoreographerPoster implements FrameCoalescer.Poster {
+
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    @Override
+    public void post(final Runnable frame) {
+        if (Looper.myLooper() == Looper.getMainLooper()) {
+            postFrame(frame);
+            return;
+        }
+        // Choreographer is per-looper, so hop to the main thread before asking for a frame
+        mainHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                postFrame(frame);
+            }
+        });
+    }
+
+    private static void postFrame(final Runnable frame) {
+        Choreographer.getInstance().postFrameCallback(new Choreographer.FrameCallback() {
+            @Override
+            public void doFrame(long frameTimeNanos) {
+                frame.run();
+            }
+        });
+    }
+}
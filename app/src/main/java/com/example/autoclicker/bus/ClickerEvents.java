@@ -0,0 +1,28 @@
+package com.example.autoclicker.bus;
+
+/**
+ * In-process channels between the services and the UI. Everything runs in one process,
+ * so there is no need to route status and position updates through system broadcasts.
+ */
+public final class ClickerEvents {
+
+    public static final class Position {
+        public final int x;
+        public final int y;
+
+        public Position(int x, int y) {
+            this.x = x;
+            this.y = y;
+        }
+    }
+
+    // Toast-style status messages
+    public static final Topic<String> STATUS = new Topic<>(16);
+    // Last position picked on the overlay, or null
+    public static final StateCell<Position> POSITION = new StateCell<>(null);
+    // Clicks (or cycles/events) of the current run, updated on every click
+    public static final CounterCell CLICK_COUNT = new CounterCell();
+
+    private ClickerEvents() {
+    }
+}
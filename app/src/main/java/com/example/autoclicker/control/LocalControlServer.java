@@ -0,0 +1,257 @@
+package com.example.autoclicker.control;
+
+import android.net.LocalServerSocket;
+import android.net.LocalSocket;
+import android.os.Process;
+import android.os.SystemClock;
+import android.system.ErrnoException;
+import android.system.Os;
+import android.system.OsConstants;
+import android.system.StructPollfd;
+import android.util.Log;
+
+import java.io.FileDescriptor;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Serves the control protocol on the abstract-namespace socket
+ * {@link ControlProtocol#SOCKET_NAME}. LocalSocket is not an NIO channel, so one thread
+ * polls the raw non-blocking descriptors with poll(2) instead of a Selector; every
+ * connection shares that thread and nothing runs on the main thread. Only this app, the
+ * adb shell and root may connect.
+ */
+public final class LocalControlServer {
+
+    private static final String TAG = "LocalControlServer";
+    private static final int ROOT_UID = 0;
+
+    private static final class Connection {
+        final LocalSocket socket;
+        final FileDescriptor fd;
+        final ControlSession session;
+
+        Connection(LocalSocket socket, ControlHandler handler) throws ErrnoException {
+            this.socket = socket;
+            this.fd = socket.getFileDescriptor();
+            Os.fcntlInt(fd, OsConstants.F_SETFL, Os.fcntlVoid(fd, OsConstants.F_GETFL) | OsConstants.O_NONBLOCK);
+            this.session = new ControlSession(handler, new ControlSession.Transport() {
+                @Override
+                public int read(ByteBuffer dst) throws IOException {
+                    try {
+                        int n = Os.read(fd, dst);
+                        // A stream socket reads 0 only once the peer has shut down
+                        return n == 0 && dst.hasRemaining() ? -1 : n;
+                    } catch (ErrnoException e) {
+                        if (e.errno == OsConstants.EAGAIN) {
+                            return 0;
+                        }
+                        throw e.rethrowAsIOException();
+                    }
+                }
+
+                @Override
+                public int write(ByteBuffer src) throws IOException {
+                    try {
+                        return Os.write(fd, src);
+                    } catch (ErrnoException e) {
+                        if (e.errno == OsConstants.EAGAIN) {
+                            return 0;
+                        }
+                        throw e.rethrowAsIOException();
+                    }
+                }
+            });
+        }
+    }
+
+    private final ControlHandler handler;
+    private final List<Connection> connections = new ArrayList<>();
+    private LocalServerSocket server;
+    // Written by stop() to break the loop out of poll()
+    private FileDescriptor wakeRead;
+    private FileDescriptor wakeWrite;
+    private Thread thread;
+    private volatile boolean closed;
+
+    public LocalControlServer(ControlHandler handler) {
+        this.handler = handler;
+    }
+
+    public synchronized void start() throws IOException {
+        if (thread != null) {
+            return;
+        }
+        server = new LocalServerSocket(ControlProtocol.SOCKET_NAME);
+        try {
+            FileDescriptor[] pipe = Os.pipe();
+            wakeRead = pipe[0];
+            wakeWrite = pipe[1];
+        } catch (ErrnoException e) {
+            server.close();
+            throw e.rethrowAsIOException();
+        }
+        closed = false;
+        thread = new Thread(this::runLoop, "LocalControlServer");
+        thread.start();
+    }
+
+    public synchronized void stop() {
+        Thread t = thread;
+        if (t == null) {
+            return;
+        }
+        thread = null;
+        closed = true;
+        try {
+            Os.write(wakeWrite, new byte[] {1}, 0, 1);
+            t.join();
+        } catch (ErrnoException | InterruptedIOException e) {
+            Log.w(TAG, "Could not wake the control loop", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void runLoop() {
+        long nextStatsNanos = Long.MAX_VALUE;
+        try {
+            while (!closed) {
+                int watched = connections.size();
+                StructPollfd[] fds = new StructPollfd[2 + watched];
+                fds[0] = pollFd(server.getFileDescriptor(), OsConstants.POLLIN);
+                fds[1] = pollFd(wakeRead, OsConstants.POLLIN);
+                for (int i = 0; i < watched; i++) {
+                    ControlSession session = connections.get(i).session;
+                    fds[2 + i] = pollFd(connections.get(i).fd,
+                            (session.wantsRead() ? OsConstants.POLLIN : 0)
+                                    | (session.wantsWrite() ? OsConstants.POLLOUT : 0));
+                }
+                long now = SystemClock.uptimeNanos();
+                int timeoutMs = nextStatsNanos == Long.MAX_VALUE ? -1
+                        : (int) Math.min(Integer.MAX_VALUE, Math.max(1, (nextStatsNanos - now) / 1_000_000L));
+                try {
+                    Os.poll(fds, timeoutMs);
+                } catch (ErrnoException e) {
+                    if (e.errno == OsConstants.EINTR) {
+                        continue;
+                    }
+                    throw e;
+                }
+                if (closed) {
+                    break;
+                }
+
+                now = SystemClock.uptimeNanos();
+                List<Connection> finished = new ArrayList<>();
+                for (int i = 0; i < watched; i++) {
+                    if (!serve(connections.get(i), fds[2 + i].revents, now)) {
+                        finished.add(connections.get(i));
+                    }
+                }
+                for (Connection connection : finished) {
+                    close(connection);
+                }
+                if ((fds[0].revents & OsConstants.POLLIN) != 0) {
+                    accept();
+                }
+                nextStatsNanos = pollStats(now);
+            }
+        } catch (ErrnoException | IOException e) {
+            Log.e(TAG, "Control loop failed", e);
+        } finally {
+            for (Connection connection : new ArrayList<>(connections)) {
+                close(connection);
+            }
+            try {
+                server.close();
+                Os.close(wakeRead);
+                Os.close(wakeWrite);
+            } catch (IOException | ErrnoException ignored) {
+            }
+        }
+    }
+
+    private void accept() throws IOException, ErrnoException {
+        LocalSocket socket = server.accept();
+        int uid = socket.getPeerCredentials().getUid();
+        if (uid != Process.myUid() && uid != Process.SHELL_UID && uid != ROOT_UID) {
+            Log.w(TAG, "Refused control connection from uid " + uid);
+            socket.close();
+            return;
+        }
+        try {
+            connections.add(new Connection(socket, handler));
+        } catch (ErrnoException e) {
+            socket.close();
+            throw e;
+        }
+    }
+
+    // Returns false once the connection should be closed
+    private static boolean serve(Connection connection, int revents, long now) {
+        ControlSession session = connection.session;
+        try {
+            if ((revents & OsConstants.POLLIN) != 0) {
+                if (!session.onReadable(now)) {
+                    return false;
+                }
+            } else if ((revents & (OsConstants.POLLHUP | OsConstants.POLLERR | OsConstants.POLLNVAL)) != 0) {
+                return false;
+            }
+            if (session.wantsWrite()) {
+                session.onWritable();
+            }
+            return true;
+        } catch (IOException e) {
+            // Includes protocol errors: the stream cannot be resynchronised
+            Log.w(TAG, "Closing control connection: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private long pollStats(long now) {
+        long next = Long.MAX_VALUE;
+        List<Connection> failed = null;
+        for (Connection connection : connections) {
+            long due = now + connection.session.pollStats(now);
+            if (due > now) {
+                next = Math.min(next, due);
+            }
+            if (connection.session.wantsWrite()) {
+                try {
+                    connection.session.onWritable();
+                } catch (IOException e) {
+                    if (failed == null) {
+                        failed = new ArrayList<>();
+                    }
+                    failed.add(connection);
+                }
+            }
+        }
+        if (failed != null) {
+            for (Connection connection : failed) {
+                close(connection);
+            }
+        }
+        return next;
+    }
+
+    private void close(Connection connection) {
+        connections.remove(connection);
+        try {
+            connection.socket.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    private static StructPollfd pollFd(FileDescriptor fd, int events) {
+        StructPollfd pollFd = new StructPollfd();
+        pollFd.fd = fd;
+        pollFd.events = (short) events;
+        return pollFd;
+    }
+}
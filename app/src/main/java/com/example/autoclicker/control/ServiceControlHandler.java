@@ -0,0 +1,169 @@
+package com.example.autoclicker.control;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+
+import com.example.autoclicker.AutoClickerService;
+import com.example.autoclicker.gesture.DispatchPipeline;
+import com.example.autoclicker.script.ScriptCompiler;
+import com.example.autoclicker.script.ScriptException;
+import com.example.autoclicker.script.ScriptProgram;
+import com.example.autoclicker.state.RunState;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Carries out control-socket commands on the accessibility service, with the same checks
+ * the main screen applies before it calls the service. Commands run on the main thread, like
+ * the buttons they stand in for, while the socket's poll thread waits for the answer; only
+ * {@link #readStats} is served from the poll thread.
+ */
+public final class ServiceControlHandler implements ControlHandler {
+
+    private static final long COMMAND_TIMEOUT_MS = 5000;
+
+    private final AutoClickerService service;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    public ServiceControlHandler(AutoClickerService service) {
+        this.service = service;
+    }
+
+    @Override
+    public String configure(final int x, final int y, final int intervalMs, final int repeatCount,
+                            final boolean highRate) {
+        long minInterval = highRate ? AutoClickerService.MIN_HIGH_RATE_INTERVAL_MS
+                : AutoClickerService.MIN_INTERVAL_MS;
+        if (intervalMs < minInterval) {
+            return "Interval must be at least " + minInterval + "ms";
+        }
+        if (x < 0 || y < 0) {
+            return "Position must be on screen";
+        }
+        if (repeatCount < 0) {
+            return "Repeat count must not be negative";
+        }
+        return onMainThread(() -> {
+            service.updateConfig(c -> c.withPosition(x, y).withInterval(intervalMs)
+                    .withRepeatCount(repeatCount).withHighRate(highRate));
+            return null;
+        });
+    }
+
+    @Override
+    public String start() {
+        return onMainThread(() -> {
+            if (service.isClicking()) {
+                return "Already running";
+            }
+            service.startClicking();
+            return service.isClicking() ? null : "Not started; set a position or capture the trigger first";
+        });
+    }
+
+    @Override
+    public String stop() {
+        return onMainThread(() -> {
+            if (!service.isClicking()) {
+                return "Not running";
+            }
+            service.stopClicking();
+            return null;
+        });
+    }
+
+    @Override
+    public String pause() {
+        return onMainThread(() -> {
+            if (service.getState().getRunState() != RunState.RUNNING) {
+                return "Not running";
+            }
+            service.pauseClicking();
+            return null;
+        });
+    }
+
+    @Override
+    public String resume() {
+        return onMainThread(() -> {
+            if (service.getState().getRunState() != RunState.PAUSED) {
+                return "Not paused";
+            }
+            service.resumeClicking();
+            return null;
+        });
+    }
+
+    @Override
+    public String playMacro(String name) {
+        return onMainThread(() -> {
+            if (service.isClicking()) {
+                return "Already running";
+            }
+            if (!service.getMacroStore().list().contains(name)) {
+                return "No macro named " + name;
+            }
+            service.playMacro(name);
+            return service.isClicking() ? null : "Macro could not be opened";
+        });
+    }
+
+    @Override
+    public String runScript(String source) {
+        // Compiling touches no service state, so it stays off the main thread
+        final ScriptProgram program;
+        try {
+            program = ScriptCompiler.compile(source);
+        } catch (ScriptException e) {
+            return e.getMessage();
+        }
+        return onMainThread(() -> {
+            if (service.isClicking()) {
+                return "Already running";
+            }
+            service.runScript(program);
+            return null;
+        });
+    }
+
+    @Override
+    public void readStats(ControlStats out) {
+        DispatchPipeline pipeline = service.getDispatchStats();
+        out.runState = service.getState().getRunState();
+        out.clicks = service.getClickCount();
+        out.dispatched = pipeline.getDispatched();
+        out.completed = pipeline.getCompleted();
+        out.cancelled = pipeline.getCancelled();
+        out.throttled = pipeline.getThrottled();
+        out.timeNanos = SystemClock.uptimeNanos();
+    }
+
+    // Runs command on the main thread and returns its refusal, or null once it was carried out
+    private String onMainThread(Callable<String> command) {
+        FutureTask<String> task = new FutureTask<>(command);
+        if (!mainHandler.post(task)) {
+            return "Service is shutting down";
+        }
+        try {
+            return task.get(COMMAND_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            task.cancel(false);
+            return "Main thread did not respond within " + COMMAND_TIMEOUT_MS + "ms";
+        } catch (InterruptedException e) {
+            task.cancel(false);
+            Thread.currentThread().interrupt();
+            return "Interrupted";
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.autoclicker.nodes;
+
+import android.accessibilityservice.AccessibilityService;
+import android.graphics.Rect;
+import android.view.accessibility.AccessibilityNodeInfo;
+
+/**
+ * {@link NodeAdapter} over the live accessibility node tree of the active window.
+ * AccessibilityNodeInfo equality is by window and node id, so a node taken from an event
+ * matches the one in the index.
+ */
+public final class AccessibilityNodeAdapter implements NodeAdapter<AccessibilityNodeInfo> {
+
+    private final AccessibilityService service;
+    // Only used under the index's lock
+    private final Rect rect = new Rect();
+
+    public AccessibilityNodeAdapter(AccessibilityService service) {
+        this.service = service;
+    }
+
+    @Override
+    public AccessibilityNodeInfo root() {
+        return service.getRootInActiveWindow();
+    }
+
+    @Override
+    public int childCount(AccessibilityNodeInfo node) {
+        return node.getChildCount();
+    }
+
+    @Override
+    public AccessibilityNodeInfo child(AccessibilityNodeInfo node, int index) {
+        return node.getChild(index);
+    }
+
+    @Override
+    public CharSequence viewId(AccessibilityNodeInfo node) {
+        return node.getViewIdResourceName();
+    }
+
+    @Override
+    public CharSequence text(AccessibilityNodeInfo node) {
+        return node.getText();
+    }
+
+    @Override
+    public CharSequence contentDescription(AccessibilityNodeInfo node) {
+        return node.getContentDescription();
+    }
+
+    @Override
+    public void bounds(AccessibilityNodeInfo node, int[] out) {
+        node.getBoundsInScreen(rect);
+        out[0] = rect.left;
+        out[1] = rect.top;
+        out[2] = rect.right;
+        out[3] = rect.bottom;
+    }
+}
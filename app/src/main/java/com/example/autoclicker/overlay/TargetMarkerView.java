@@ -0,0 +1,69 @@
+package com.example.autoclicker.overlay;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.os.SystemClock;
+import android.view.View;
+
+import com.example.autoclicker.telemetry.OverlayFrameStats;
+
+/**
+ * Draws all target markers and recorded paths in one view with a fixed number of draw
+ * calls. The view renders into a hardware layer, so frames where the markers did not
+ * change only composite the cached texture instead of re-running onDraw.
+ */
+public final class TargetMarkerView extends View {
+
+    private static final float RING_WIDTH_PX = 44;
+    private static final float DOT_WIDTH_PX = 14;
+    private static final float PATH_WIDTH_PX = 6;
+
+    private final Paint ringPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint dotPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint pathPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final OverlayFrameStats stats;
+    private MarkerGeometry geometry = new MarkerGeometry();
+
+    public TargetMarkerView(Context context, OverlayFrameStats stats) {
+        super(context);
+        this.stats = stats;
+        ringPaint.setColor(Color.argb(96, 98, 0, 238));
+        ringPaint.setStrokeWidth(RING_WIDTH_PX);
+        ringPaint.setStrokeCap(Paint.Cap.ROUND);
+        dotPaint.setColor(Color.argb(230, 255, 255, 255));
+        dotPaint.setStrokeWidth(DOT_WIDTH_PX);
+        dotPaint.setStrokeCap(Paint.Cap.ROUND);
+        pathPaint.setColor(Color.argb(160, 3, 218, 197));
+        pathPaint.setStrokeWidth(PATH_WIDTH_PX);
+        pathPaint.setStrokeCap(Paint.Cap.ROUND);
+        setLayerType(LAYER_TYPE_HARDWARE, null);
+        setWillNotDraw(false);
+    }
+
+    /**
+     * Swaps in new markers and returns the previous geometry so the caller can rebuild it
+     * next time without allocating.
+     */
+    public MarkerGeometry setGeometry(MarkerGeometry next) {
+        MarkerGeometry previous = geometry;
+        geometry = next;
+        invalidate();
+        return previous;
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        long start = SystemClock.elapsedRealtimeNanos();
+        MarkerGeometry g = geometry;
+        if (g.getLineFloats() > 0) {
+            canvas.drawLines(g.getLines(), 0, g.getLineFloats(), pathPaint);
+        }
+        if (g.getPointFloats() > 0) {
+            canvas.drawPoints(g.getPoints(), 0, g.getPointFloats(), ringPaint);
+            canvas.drawPoints(g.getPoints(), 0, g.getPointFloats(), dotPaint);
+        }
+        stats.onMarkerDraw(SystemClock.elapsedRealtimeNanos() - start);
+    }
+}
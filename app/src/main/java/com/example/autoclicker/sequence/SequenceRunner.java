@@ -0,0 +1,101 @@
+package com.example.autoclicker.sequence;
+
+import android.accessibilityservice.GestureDescription;
+import android.graphics.Path;
+import android.os.Handler;
+import android.os.SystemClock;
+
+import com.example.autoclicker.gesture.DispatchPipeline;
+
+/**
+ * Plays a {@link CompiledSequence} as GestureDescriptions through a {@link CyclePlayer},
+ * with later batches posted on {@code handler}.
+ */
+public final class SequenceRunner {
+
+    public interface Dispatcher {
+        boolean dispatch(GestureDescription gesture);
+    }
+
+    public interface Listener {
+        // complete is false when a later batch could not be dispatched
+        void onCycleFinished(boolean complete);
+    }
+
+    private final CyclePlayer<GestureDescription> player;
+
+    public SequenceRunner(CompiledSequence compiled, final Handler handler, DispatchPipeline pipeline,
+                          final Dispatcher dispatcher, final Listener listener) {
+        player = new CyclePlayer<>(compiled,
+                new CyclePlayer.Factory<GestureDescription>() {
+                    @Override
+                    public GestureDescription build(GestureBatch batch) {
+                        return SequenceRunner.build(batch);
+                    }
+                },
+                new CyclePlayer.Timer() {
+                    @Override
+                    public long uptimeMillis() {
+                        return SystemClock.uptimeMillis();
+                    }
+
+                    @Override
+                    public void postAtTime(Runnable task, long uptimeMs) {
+                        handler.postAtTime(task, uptimeMs);
+                    }
+
+                    @Override
+                    public void cancel(Runnable task) {
+                        handler.removeCallbacks(task);
+                    }
+                },
+                pipeline,
+                new CyclePlayer.Dispatcher<GestureDescription>() {
+                    @Override
+                    public boolean dispatch(GestureDescription gesture) {
+                        return dispatcher.dispatch(gesture);
+                    }
+                },
+                new CyclePlayer.Listener() {
+                    @Override
+                    public void onCycleFinished(boolean complete) {
+                        listener.onCycleFinished(complete);
+                    }
+                });
+    }
+
+    public static GestureDescription build(GestureBatch batch) {
+        GestureDescription.Builder builder = new GestureDescription.Builder();
+        for (StrokeSpec stroke : batch.getStrokes()) {
+            Path path = new Path();
+            path.moveTo(stroke.x, stroke.y);
+            if (stroke.isMove()) {
+                path.lineTo(stroke.endX, stroke.endY);
+            }
+            builder.addStroke(new GestureDescription.StrokeDescription(
+                    path, stroke.startMs, stroke.durationMs));
+        }
+        return builder.build();
+    }
+
+    public CompiledSequence getCompiled() {
+        return player.getCompiled();
+    }
+
+    /**
+     * Starts a new cycle by dispatching the first batch. Returns false if the previous
+     * cycle is still playing.
+     */
+    public boolean startCycle() {
+        return player.startCycle();
+    }
+
+    // Called from the gesture callback, on the handler's thread
+    public void onGestureFinished(GestureDescription gesture) {
+        player.onGestureFinished(gesture);
+    }
+
+    public void cancel() {
+        player.cancel();
+    }
+}
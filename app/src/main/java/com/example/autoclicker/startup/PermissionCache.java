@@ -0,0 +1,68 @@
+package com.example.autoclicker.startup;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Trace;
+import android.provider.Settings;
+
+import com.example.autoclicker.AutoClickerService;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+/**
+ * Last known accessibility and overlay permission state. Reads never block; refreshes run
+ * the permission checks (an app-ops binder call for the overlay) on a background thread
+ * and report back on the main thread.
+ */
+public final class PermissionCache {
+
+    public interface Listener {
+        // Main thread; changed is false when the refresh confirmed the cached state
+        void onPermissions(boolean accessibility, boolean overlay, boolean changed);
+    }
+
+    private static final Executor checker = Executors.newSingleThreadExecutor();
+
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private volatile boolean accessibility;
+    private volatile boolean overlay;
+    private volatile boolean known;
+
+    public boolean isKnown() {
+        return known;
+    }
+
+    public boolean hasAccessibility() {
+        return accessibility;
+    }
+
+    public boolean hasOverlay() {
+        return overlay;
+    }
+
+    public void refresh(Context context, final Listener listener) {
+        final Context appContext = context.getApplicationContext();
+        checker.execute(new Runnable() {
+            @Override
+            public void run() {
+                Trace.beginSection("PermissionCache.refresh");
+                final boolean nowAccessibility = AutoClickerService.isServiceEnabled();
+                final boolean nowOverlay = Settings.canDrawOverlays(appContext);
+                Trace.endSection();
+                final boolean changed = !known || nowAccessibility != accessibility
+                        || nowOverlay != overlay;
+                accessibility = nowAccessibility;
+                overlay = nowOverlay;
+                known = true;
+                mainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        listener.onPermissions(nowAccessibility, nowOverlay, changed);
+                    }
+                });
+            }
+        });
+    }
+}
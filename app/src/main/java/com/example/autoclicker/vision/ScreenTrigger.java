@@ -0,0 +1,269 @@
+package com.example.autoclicker.vision;
+
+import android.accessibilityservice.AccessibilityService;
+import android.graphics.Bitmap;
+import android.graphics.HardwareRenderer;
+import android.graphics.PixelFormat;
+import android.graphics.RecordingCanvas;
+import android.graphics.Rect;
+import android.graphics.RenderNode;
+import android.hardware.HardwareBuffer;
+import android.media.Image;
+import android.media.ImageReader;
+import android.os.Handler;
+import android.os.SystemClock;
+import android.view.Display;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.Executor;
+
+/**
+ * Gates clicks on what is on screen. Screenshots are taken through
+ * AccessibilityService.takeScreenshot at most once per {@code intervalMs}. The screenshot
+ * stays on the GPU: only the search region is drawn into a reused region-sized buffer and
+ * read back, then converted to grayscale, downscaled and matched against the template
+ * captured earlier from the same place.
+ */
+public final class ScreenTrigger {
+
+    public interface CaptureCallback {
+        void onCaptured(boolean success, String message);
+    }
+
+    private static final int DOWNSCALE = 4;
+    private static final int MATCH_THRESHOLD = 12;
+    // A template clipped by the screen edge below this size (px) is too small to match on
+    private static final int MIN_TEMPLATE_PX = 8 * DOWNSCALE;
+
+    private final AccessibilityService service;
+    private final Executor executor;
+    private final RateLimiter limiter;
+
+    private final Rect searchRegion = new Rect();
+    private final Rect templateRegion = new Rect();
+    // searchRegion clipped to the screen, i.e. what the last frame actually covers
+    private final Rect frameRegion = new Rect();
+    private final GrayImage frame = new GrayImage();
+    private int[] argb = new int[0];
+    // Region-sized readback target, rebuilt only when the region's size changes
+    private final RenderNode regionNode = new RenderNode("ScreenTrigger");
+    private HardwareRenderer renderer;
+    private ImageReader reader;
+    private volatile TemplateMatcher matcher;
+
+    private volatile boolean requestInFlight;
+    private volatile boolean matched;
+    private volatile long lastFrameMs;
+    private volatile long framesChecked;
+
+    public ScreenTrigger(AccessibilityService service, final Handler handler, long intervalMs) {
+        this.service = service;
+        this.executor = new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                handler.post(command);
+            }
+        };
+        this.limiter = new RateLimiter(intervalMs);
+    }
+
+    public boolean hasTemplate() {
+        return matcher != null;
+    }
+
+    /**
+     * Stores what is currently inside {@code template} as the trigger image; later frames
+     * are searched for it anywhere inside {@code search}.
+     */
+    public void captureTemplate(Rect template, Rect search, final CaptureCallback callback) {
+        synchronized (this) {
+            templateRegion.set(template);
+            searchRegion.set(search);
+            matcher = null;
+        }
+        takeScreenshot(new FrameHandler() {
+            @Override
+            public void onFrame(GrayImage image) {
+                Rect template = new Rect();
+                synchronized (ScreenTrigger.this) {
+                    template.set(templateRegion);
+                }
+                // Near a screen edge the frame is smaller than the search region asked for
+                boolean clipped = !frameRegion.contains(template);
+                if (!template.intersect(frameRegion) || template.width() < MIN_TEMPLATE_PX
+                        || template.height() < MIN_TEMPLATE_PX) {
+                    callback.onCaptured(false, "Trigger target is too close to the screen edge");
+                    return;
+                }
+                int left = (template.left - frameRegion.left) / DOWNSCALE;
+                int top = (template.top - frameRegion.top) / DOWNSCALE;
+                int width = template.width() / DOWNSCALE;
+                int height = template.height() / DOWNSCALE;
+                matcher = new TemplateMatcher(image.crop(left, top, width, height), MATCH_THRESHOLD);
+                callback.onCaptured(true, clipped ? "Trigger template captured (clipped to screen)"
+                        : "Trigger template captured");
+            }
+
+            @Override
+            public void onError(String message) {
+                callback.onCaptured(false, message);
+            }
+        });
+    }
+
+    // Asks for a fresh frame if the rate limit allows it and none is pending
+    public void requestFrame() {
+        if (matcher == null || requestInFlight || !limiter.tryAcquire(SystemClock.uptimeMillis())) {
+            return;
+        }
+        takeScreenshot(new FrameHandler() {
+            @Override
+            public void onFrame(GrayImage image) {
+                TemplateMatcher current = matcher;
+                if (current != null) {
+                    matched = current.match(image);
+                    lastFrameMs = SystemClock.uptimeMillis();
+                    framesChecked++;
+                }
+            }
+
+            @Override
+            public void onError(String message) {
+                matched = false;
+            }
+        });
+    }
+
+    // Whether the latest frame matched and is recent enough to act on
+    public boolean isMatched(long nowMs) {
+        return matched && nowMs - lastFrameMs <= limiter.getIntervalMs() * 2;
+    }
+
+    public long getFramesChecked() {
+        return framesChecked;
+    }
+
+    // Frees the readback buffer once pending frames are handled
+    public void release() {
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                releaseReadback();
+            }
+        });
+    }
+
+    private interface FrameHandler {
+        void onFrame(GrayImage image);
+
+        void onError(String message);
+    }
+
+    private void takeScreenshot(final FrameHandler handler) {
+        requestInFlight = true;
+        service.takeScreenshot(Display.DEFAULT_DISPLAY, executor,
+                new AccessibilityService.TakeScreenshotCallback() {
+                    @Override
+                    public void onSuccess(AccessibilityService.ScreenshotResult result) {
+                        try {
+                            if (readSearchRegion(result)) {
+                                handler.onFrame(frame);
+                            } else {
+                                handler.onError("Search region is off screen");
+                            }
+                        } finally {
+                            requestInFlight = false;
+                        }
+                    }
+
+                    @Override
+                    public void onFailure(int errorCode) {
+                        requestInFlight = false;
+                        handler.onError("Screenshot failed (" + errorCode + ")");
+                    }
+                });
+    }
+
+    // Runs on the handler thread; frame, frameRegion, argb and the readback are only touched there
+    private boolean readSearchRegion(AccessibilityService.ScreenshotResult result) {
+        HardwareBuffer buffer = result.getHardwareBuffer();
+        Bitmap hardware = Bitmap.wrapHardwareBuffer(buffer, result.getColorSpace());
+        buffer.close();
+        if (hardware == null) {
+            return false;
+        }
+
+        Rect region = new Rect();
+        synchronized (this) {
+            region.set(searchRegion);
+        }
+        if (!region.intersect(0, 0, hardware.getWidth(), hardware.getHeight())) {
+            hardware.recycle();
+            return false;
+        }
+        int width = region.width();
+        int height = region.height();
+
+        // A software Canvas cannot draw hardware bitmaps, so the GPU draws just the region
+        ensureReadback(width, height);
+        RecordingCanvas canvas = regionNode.beginRecording(width, height);
+        canvas.drawBitmap(hardware, -region.left, -region.top, null);
+        regionNode.endRecording();
+        renderer.createRenderRequest().setWaitForPresent(true).syncAndDraw();
+        hardware.recycle();
+
+        Image image = reader.acquireNextImage();
+        if (image == null) {
+            return false;
+        }
+        try {
+            Image.Plane plane = image.getPlanes()[0];
+            ByteBuffer pixels = plane.getBuffer();
+            int rowStride = plane.getRowStride();
+            int pixelStride = plane.getPixelStride();
+            int size = width * height;
+            if (argb.length < size) {
+                argb = new int[size];
+            }
+            for (int y = 0; y < height; y++) {
+                int in = y * rowStride;
+                int out = y * width;
+                for (int x = 0; x < width; x++, in += pixelStride) {
+                    // RGBA_8888 bytes to an opaque ARGB int
+                    argb[out + x] = 0xff000000 | (pixels.get(in) & 0xff) << 16
+                            | (pixels.get(in + 1) & 0xff) << 8 | (pixels.get(in + 2) & 0xff);
+                }
+            }
+        } finally {
+            image.close();
+        }
+
+        frameRegion.set(region);
+        frame.downscaleFrom(argb, width, height, DOWNSCALE);
+        return true;
+    }
+
+    private void ensureReadback(int width, int height) {
+        if (reader != null && reader.getWidth() == width && reader.getHeight() == height) {
+            return;
+        }
+        releaseReadback();
+        reader = ImageReader.newInstance(width, height, PixelFormat.RGBA_8888, 1,
+                HardwareBuffer.USAGE_CPU_READ_OFTEN | HardwareBuffer.USAGE_GPU_COLOR_OUTPUT);
+        regionNode.setPosition(0, 0, width, height);
+        renderer = new HardwareRenderer();
+        renderer.setSurface(reader.getSurface());
+        renderer.setContentRoot(regionNode);
+    }
+
+    private void releaseReadback() {
+        if (renderer != null) {
+            renderer.destroy();
+            renderer = null;
+        }
+        if (reader != null) {
+            reader.close();
+            reader = null;
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.autoclicker.benchmark;
+
+import com.example.autoclicker.gesture.DispatchPipeline;
+import com.example.autoclicker.gesture.GesturePool;
+import com.example.autoclicker.gesture.TapEmitter;
+import com.example.autoclicker.sequence.ClickSequence;
+import com.example.autoclicker.sequence.ClickStep;
+import com.example.autoclicker.sequence.CompiledSequence;
+import com.example.autoclicker.sequence.SequenceCompiler;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Gesture building on the click path: pooled lookups per tick and sequence compilation.
+ * Each benchmark only takes the state it uses, so the tap benchmarks run per target count
+ * and compilation per step count rather than over their cross product.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class GestureBenchmark {
+
+    // Stands in for GestureDescription, which cannot be built off-device
+    private static final class Gesture {
+        final long key;
+
+        Gesture(int x, int y) {
+            key = GesturePool.key(x, y);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Taps {
+        @Param({"1", "8", "16"})
+        public int targets;
+
+        private GesturePool<Gesture> pool;
+        private TapEmitter<Gesture> emitter;
+        private DispatchPipeline pipeline;
+        private int tick;
+        private long sink;
+
+        @Setup
+        public void setUp() {
+            pool = new GesturePool<>(16, new GesturePool.Factory<Gesture>() {
+                @Override
+                public Gesture create(int x, int y) {
+                    return new Gesture(x, y);
+                }
+            });
+            pipeline = new DispatchPipeline(2);
+            emitter = new TapEmitter<>(pipeline, pool, new TapEmitter.Sink<Gesture>() {
+                @Override
+                public boolean dispatch(Gesture gesture) {
+                    sink += gesture.key;
+                    pipeline.onCompleted();
+                    return true;
+                }
+            });
+        }
+
+        int nextX() {
+            return 100 + (tick++ % targets) * 40;
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Sequences {
+        @Param({"10", "100"})
+        public int steps;
+
+        private ClickSequence sequence;
+        private SequenceCompiler compiler;
+
+        @Setup
+        public void setUp() {
+            List<ClickStep> list = new ArrayList<>();
+            for (int i = 0; i < steps; i++) {
+                list.add(i % 10 == 9
+                        ? ClickStep.swipe(100, 200, 900, 200, 250, 50)
+                        : ClickStep.tap(100 + i, 300 + i, 50));
+            }
+            sequence = new ClickSequence(list);
+            compiler = new SequenceCompiler(20, 60_000);
+        }
+    }
+
+    @Benchmark
+    public Gesture poolLookup(Taps taps) {
+        return taps.pool.get(taps.nextX(), 500);
+    }
+
+    @Benchmark
+    public boolean emitTap(Taps taps) {
+        return taps.emitter.emit(taps.nextX(), 500);
+    }
+
+    @Benchmark
+    public CompiledSequence compileSequence(Sequences sequences) {
+        return sequences.compiler.compile(sequences.sequence);
+    }
+}
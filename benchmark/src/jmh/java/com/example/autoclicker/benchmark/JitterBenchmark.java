@@ -0,0 +1,77 @@
+package com.example.autoclicker.benchmark;
+
+import com.example.autoclicker.jitter.IntervalJitter;
+import com.example.autoclicker.jitter.JitterSpec;
+import com.example.autoclicker.jitter.PositionJitter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-tick cost of drawing a humanized interval and tap position: precomputed quantile
+ * tables and rejection sampling against the textbook Random/Math versions.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class JitterBenchmark {
+
+    private static final long INTERVAL = 20_000_000L;
+    private static final double SIGMA = 0.2;
+
+    private IntervalJitter gaussianTable;
+    private IntervalJitter logNormalTable;
+    private PositionJitter position;
+    private Random random;
+    private final int[] out = new int[2];
+
+    @Setup
+    public void setUp() {
+        gaussianTable = new IntervalJitter(JitterSpec.IntervalMode.GAUSSIAN, SIGMA, 1);
+        logNormalTable = new IntervalJitter(JitterSpec.IntervalMode.LOG_NORMAL, SIGMA, 1);
+        position = new PositionJitter(6, 6, 1);
+        random = new Random(1);
+    }
+
+    @Benchmark
+    public long gaussianTable() {
+        return gaussianTable.nextIntervalNanos(INTERVAL);
+    }
+
+    @Benchmark
+    public long gaussianRandom() {
+        return (long) (INTERVAL * Math.max(IntervalJitter.MIN_FACTOR,
+                1 + SIGMA * random.nextGaussian()));
+    }
+
+    @Benchmark
+    public long logNormalTable() {
+        return logNormalTable.nextIntervalNanos(INTERVAL);
+    }
+
+    @Benchmark
+    public long logNormalRandom() {
+        return (long) (INTERVAL * Math.exp(SIGMA * random.nextGaussian()));
+    }
+
+    @Benchmark
+    public int positionRejection() {
+        position.apply(500, 300, out);
+        return out[0] + out[1];
+    }
+
+    @Benchmark
+    public int positionPolar() {
+        double r = 6 * Math.sqrt(random.nextDouble());
+        double theta = 2 * Math.PI * random.nextDouble();
+        return 800 + (int) Math.round(r * Math.cos(theta)) + (int) Math.round(r * Math.sin(theta));
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.autoclicker.benchmark;
+
+import com.example.autoclicker.macro.MacroCursor;
+import com.example.autoclicker.macro.MacroFile;
+import com.example.autoclicker.macro.MacroFormatException;
+import com.example.autoclicker.macro.MacroWriter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Macro encode, open (header only) and full decode throughput.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MacroCodecBenchmark {
+
+    @Param({"1000", "100000"})
+    public int events;
+
+    private int[] xs;
+    private int[] ys;
+    private byte[] encoded;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(7);
+        xs = new int[events];
+        ys = new int[events];
+        for (int i = 0; i < events; i++) {
+            xs[i] = random.nextInt(1440);
+            ys[i] = random.nextInt(3120);
+        }
+        encoded = encode().toByteArray();
+    }
+
+    @Benchmark
+    public MacroWriter encode() {
+        MacroWriter writer = new MacroWriter();
+        int[] swipeXs = new int[4];
+        int[] swipeYs = new int[4];
+        for (int i = 0; i < events; i++) {
+            if (i % 8 == 7) {
+                for (int p = 0; p < 4; p++) {
+                    swipeXs[p] = xs[i] + p * 30;
+                    swipeYs[p] = ys[i];
+                }
+                writer.swipe(i * 40L, swipeXs, swipeYs, 4, 200);
+            } else {
+                writer.tap(i * 40L, xs[i], ys[i], 1);
+            }
+        }
+        return writer;
+    }
+
+    @Benchmark
+    public int open() throws MacroFormatException {
+        return MacroFile.wrap(encoded).getEventCount();
+    }
+
+    @Benchmark
+    public long decodeAll() throws MacroFormatException {
+        MacroCursor cursor = MacroFile.wrap(encoded).cursor();
+        long checksum = 0;
+        while (cursor.next()) {
+            checksum += cursor.getX(0) + cursor.getTimeMs();
+        }
+        return checksum;
+    }
+}
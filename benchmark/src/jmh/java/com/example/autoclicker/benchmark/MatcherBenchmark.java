@@ -0,0 +1,65 @@
+package com.example.autoclicker.benchmark;
+
+import com.example.autoclicker.vision.GrayImage;
+import com.example.autoclicker.vision.TemplateMatcher;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One trigger frame with the service's geometry: a 96 px template searched within a 64 px
+ * margin, downscaled 4x.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MatcherBenchmark {
+
+    private static final int REGION = 96 + 2 * 64;
+    private static final int DOWNSCALE = 4;
+
+    private int[] argb;
+    private final GrayImage frame = new GrayImage();
+    private TemplateMatcher present;
+    private TemplateMatcher absent;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(3);
+        argb = new int[REGION * REGION];
+        for (int i = 0; i < argb.length; i++) {
+            argb[i] = 0xFF000000 | random.nextInt(0xFFFFFF);
+        }
+        frame.downscaleFrom(argb, REGION, REGION, DOWNSCALE);
+        int size = 96 / DOWNSCALE;
+        present = new TemplateMatcher(frame.crop(16, 16, size, size), 12);
+
+        byte[] other = new byte[size * size];
+        random.nextBytes(other);
+        absent = new TemplateMatcher(new GrayImage(size, size, other), 12);
+    }
+
+    @Benchmark
+    public GrayImage downscale() {
+        frame.downscaleFrom(argb, REGION, REGION, DOWNSCALE);
+        return frame;
+    }
+
+    @Benchmark
+    public boolean matchPresent() {
+        return present.match(frame);
+    }
+
+    @Benchmark
+    public boolean matchAbsent() {
+        return absent.match(frame);
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.autoclicker.benchmark;
+
+import com.example.autoclicker.profiles.ClickProfile;
+import com.example.autoclicker.profiles.ProfileStore;
+import com.example.autoclicker.scheduler.CatchUpPolicy;
+import com.example.autoclicker.state.ClickConfig;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the profile store on the paths the user waits for: opening it at service start
+ * (index only) and switching profiles when the foreground app changes.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ProfileStoreBenchmark {
+
+    @Param({"10", "100"})
+    public int profiles;
+
+    private File directory;
+    private File file;
+    private ProfileStore store;
+    private int next;
+
+    @Setup
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("profiles").toFile();
+        file = new File(directory, "profiles.bin");
+        ProfileStore writer = ProfileStore.open(file);
+        for (int i = 0; i < profiles; i++) {
+            writer.save(new ClickProfile("com.example.app" + i, i, i, 100 + i, 0,
+                    CatchUpPolicy.SKIP, false));
+        }
+        store = ProfileStore.open(file);
+    }
+
+    @TearDown
+    public void tearDown() {
+        file.delete();
+        directory.delete();
+    }
+
+    @Benchmark
+    public int open() throws IOException {
+        return ProfileStore.open(file).size();
+    }
+
+    @Benchmark
+    public ClickConfig switchProfile() throws IOException {
+        next = (next + 1) % profiles;
+        return store.get("com.example.app" + next).applyTo(ClickConfig.DEFAULT);
+    }
+
+    @Benchmark
+    public ClickConfig firstUse() throws IOException {
+        // A fresh store each time, so the lookup has to decode the body
+        return ProfileStore.open(file).get("com.example.app0").applyTo(ClickConfig.DEFAULT);
+    }
+}
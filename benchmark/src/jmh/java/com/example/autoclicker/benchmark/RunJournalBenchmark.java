@@ -0,0 +1,60 @@
+package com.example.autoclicker.benchmark;
+
+import com.example.autoclicker.journal.RunJournal;
+import com.example.autoclicker.state.ClickConfig;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-click cost of checkpointing a run, averaged over the batches that go to disk.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class RunJournalBenchmark {
+
+    // 1 forces every click to disk, for comparison
+    @Param({"1", "100", "500"})
+    public int syncEveryClicks;
+
+    private File directory;
+    private RunJournal journal;
+    private int clicks;
+
+    @Setup
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("journal").toFile();
+        journal = RunJournal.open(new File(directory, "run.journal"), System::nanoTime,
+                TimeUnit.SECONDS.toNanos(2), syncEveryClicks);
+        journal.begin(ClickConfig.DEFAULT.withPosition(100, 200).withInterval(20), 0);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        journal.close();
+        new File(directory, "run.journal").delete();
+        new File(directory, "run.journal.tmp").delete();
+        directory.delete();
+    }
+
+    @Benchmark
+    public void onClick() throws IOException {
+        // The service syncs on its journal thread; inline here so the cost is counted
+        if (journal.onClick(++clicks)) {
+            journal.sync();
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.autoclicker.benchmark;
+
+import com.example.autoclicker.scheduler.CatchUpPolicy;
+import com.example.autoclicker.scheduler.TickPlanner;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of one scheduler wake-up: computing the wait and polling the deadline plan.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class SchedulerBenchmark {
+
+    private static final long INTERVAL = 20_000_000L;
+
+    @Param({"SKIP", "BURST", "STRETCH"})
+    public CatchUpPolicy policy;
+
+    private TickPlanner planner;
+    private long now;
+
+    @Setup
+    public void setUp() {
+        planner = new TickPlanner(INTERVAL, policy, 5);
+        planner.start(0);
+        now = 0;
+    }
+
+    @Benchmark
+    public int onTimeTick() {
+        now += planner.nanosUntilNextTick(now) + 37_000;
+        return planner.poll(now);
+    }
+
+    @Benchmark
+    public int lateTick() {
+        // Wake up two and a half intervals late every time
+        now = planner.getNextDeadline() + INTERVAL * 5 / 2;
+        return planner.poll(now);
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.autoclicker.benchmark;
+
+import com.example.autoclicker.script.ScriptCompiler;
+import com.example.autoclicker.script.ScriptException;
+import com.example.autoclicker.script.ScriptProgram;
+import com.example.autoclicker.script.ScriptVm;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Script costs: compiling a typical script, one scheduler tick of a script with a loop,
+ * a condition and arithmetic per tap, and a tight loop of 1000 iterations per tap.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ScriptBenchmark {
+
+    private static final String TYPICAL =
+            "# Farm taps, collect every tenth round\n"
+            + "sub collect { if node \"Collect\" { tap node \"Collect\" }\nwait 200 }\n"
+            + "x = 300\n"
+            + "loop {\n"
+            + "  repeat 10 { tap x 1200\nwait 50\nx = x + 40\nif x > 800 { x = 300 } }\n"
+            + "  call collect\n"
+            + "  if screen { swipe 540 1600 540 600 300 } else if clicks > 10000 { stop }\n"
+            + "}\n";
+
+    private static final ScriptVm.Host HOST = new ScriptVm.Host() {
+        @Override
+        public boolean screenMatches() {
+            return false;
+        }
+
+        @Override
+        public boolean findNode(int stringId, int[] outCenter) {
+            outCenter[0] = 540;
+            outCenter[1] = 300;
+            return true;
+        }
+    };
+
+    private ScriptVm tick;
+    private ScriptVm tightLoop;
+    private long tickNow;
+    private long loopNow;
+
+    @Setup
+    public void setUp() throws ScriptException {
+        tick = new ScriptVm(ScriptCompiler.compile(
+                "loop { i = i + 1\nif i % 3 == 0 { tap i % 1080 (i * 7) % 1920 } else { tap 540 960 } }"),
+                HOST, 0);
+        tick.start(0);
+        tightLoop = new ScriptVm(ScriptCompiler.compile(
+                "loop { s = 0\nrepeat 1000 { s = s + i * 3\ni = i + 1 }\ntap s % 1080 1 }"),
+                HOST, 0);
+        tightLoop.start(0);
+    }
+
+    @Benchmark
+    public ScriptProgram compile() throws ScriptException {
+        return ScriptCompiler.compile(TYPICAL);
+    }
+
+    @Benchmark
+    public int tick() {
+        tickNow += tick.nanosUntilNextTick(tickNow);
+        return tick.poll(tickNow) + tick.getX();
+    }
+
+    // Divide by 1000 for the cost of one loop iteration (four instructions)
+    @Benchmark
+    public int tightLoop1000() {
+        loopNow += tightLoop.nanosUntilNextTick(loopNow);
+        return tightLoop.poll(loopNow) + tightLoop.getX();
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.autoclicker.benchmark;
+
+import com.example.autoclicker.scheduler.TimingWheel;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Queueing a macro-sized timeline of timed steps and running it to the end: the timing
+ * wheel against a binary heap and against a Handler MessageQueue style sorted linked list.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TimingWheelBenchmark {
+
+    private static final long MS = 1_000_000L;
+
+    @Param({"1000", "10000"})
+    public int steps;
+
+    private long[] deadlines;
+    private Integer[] payloads;
+
+    // What MessageQueue.enqueueMessage does: walk the list to the insertion point
+    private static final class Message {
+        final long when;
+        Message next;
+
+        Message(long when) {
+            this.when = when;
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(1);
+        deadlines = new long[steps];
+        payloads = new Integer[steps];
+        for (int i = 0; i < steps; i++) {
+            // A ten minute timeline, out of order as several tracks interleave
+            deadlines[i] = (long) (random.nextDouble() * 600_000) * MS;
+            payloads[i] = i;
+        }
+    }
+
+    @Benchmark
+    public long timingWheel() {
+        TimingWheel<Integer> wheel = new TimingWheel<>(MS, 0);
+        for (int i = 0; i < steps; i++) {
+            wheel.schedule(deadlines[i], payloads[i]);
+        }
+        return drain(wheel);
+    }
+
+    @Benchmark
+    public long timingWheelBatch() {
+        TimingWheel<Integer> wheel = new TimingWheel<>(MS, 0);
+        wheel.scheduleBatch(deadlines, payloads, steps);
+        return drain(wheel);
+    }
+
+    @Benchmark
+    public long priorityQueue() {
+        PriorityQueue<long[]> queue = new PriorityQueue<>(16, (a, b) -> Long.compare(a[0], b[0]));
+        for (int i = 0; i < steps; i++) {
+            queue.add(new long[]{deadlines[i], i});
+        }
+        long sum = 0;
+        long[] next;
+        while ((next = queue.poll()) != null) {
+            sum += next[1];
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long sortedLinkedList() {
+        Message head = null;
+        for (int i = 0; i < steps; i++) {
+            Message message = new Message(deadlines[i]);
+            if (head == null || message.when < head.when) {
+                message.next = head;
+                head = message;
+                continue;
+            }
+            Message prev = head;
+            while (prev.next != null && prev.next.when <= message.when) {
+                prev = prev.next;
+            }
+            message.next = prev.next;
+            prev.next = message;
+        }
+        long sum = 0;
+        for (Message m = head; m != null; m = m.next) {
+            sum += m.when;
+        }
+        return sum;
+    }
+
+    // Wakes only when the wheel says something is due, as the scheduler thread would
+    private static long drain(TimingWheel<Integer> wheel) {
+        long now = 0;
+        long sum = 0;
+        while (true) {
+            long wait = wheel.nanosUntilNext(now);
+            if (wait == Long.MAX_VALUE) {
+                return sum;
+            }
+            now += Math.max(0, wait);
+            wheel.advance(now);
+            TimingWheel.Timer<Integer> timer;
+            while ((timer = wheel.pollExpired()) != null) {
+                sum += timer.getPayload();
+            }
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.autoclicker.bus;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A {@link Signal} carrying a primitive count, the allocation-free counterpart of
+ * {@link StateCell}, so the click path can publish every click without boxing. Pair it with a {@link FrameCoalescer} to redraw at most once per frame.
+ */
+public final class CounterCell extends Signal {
+
+    private final AtomicLong value = new AtomicLong();
+
+    public void set(long count) {
+        value.set(count);
+        notifyObservers();
+    }
+
+    public long get() {
+        return value.get();
+    }
+}
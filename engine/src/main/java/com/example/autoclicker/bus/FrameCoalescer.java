@@ -0,0 +1,51 @@
+package com.example.autoclicker.bus;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Collapses any number of wake-up requests into one run of {@code action} per frame.
+ * {@link #request()} is a single compare-and-set once a frame is already pending, so it is
+ * cheap enough to call on every click.
+ */
+public final class FrameCoalescer implements Runnable {
+
+    public interface Poster {
+        // Runs frame once, on the consumer's thread at its next frame
+        void post(Runnable frame);
+    }
+
+    private final Poster poster;
+    private final Runnable action;
+    private final AtomicBoolean pending = new AtomicBoolean();
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong frames = new AtomicLong();
+
+    public FrameCoalescer(Poster poster, Runnable action) {
+        this.poster = poster;
+        this.action = action;
+    }
+
+    public void request() {
+        requests.incrementAndGet();
+        if (pending.compareAndSet(false, true)) {
+            poster.post(this);
+        }
+    }
+
+    @Override
+    public void run() {
+        // Cleared first so anything published while the action runs gets another frame
+        pending.set(false);
+        frames.incrementAndGet();
+        action.run();
+    }
+
+    public long getRequests() {
+        return requests.get();
+    }
+
+    public long getFrames() {
+        return frames.get();
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.autoclicker.bus;
+
+/**
+ * Something observers can be told about. Observers are kept in a copy-on-write array so
+ * notifying them from a hot path is a plain loop with no locking or allocation.
+ */
+public abstract class Signal {
+
+    private static final Runnable[] NONE = new Runnable[0];
+
+    private volatile Runnable[] observers = NONE;
+
+    public synchronized void addObserver(Runnable observer) {
+        Runnable[] current = observers;
+        Runnable[] next = new Runnable[current.length + 1];
+        System.arraycopy(current, 0, next, 0, current.length);
+        next[current.length] = observer;
+        observers = next;
+    }
+
+    public synchronized void removeObserver(Runnable observer) {
+        Runnable[] current = observers;
+        for (int i = 0; i < current.length; i++) {
+            if (current[i] == observer) {
+                Runnable[] next = new Runnable[current.length - 1];
+                System.arraycopy(current, 0, next, 0, i);
+                System.arraycopy(current, i + 1, next, i, next.length - i);
+                observers = next;
+                return;
+            }
+        }
+    }
+
+    protected final void notifyObservers() {
+        Runnable[] current = observers;
+        for (int i = 0; i < current.length; i++) {
+            current[i].run();
+        }
+    }
+}
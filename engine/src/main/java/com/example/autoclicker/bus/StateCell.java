@@ -0,0 +1,33 @@
+package com.example.autoclicker.bus;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Latest immutable snapshot of some state. Readers compare {@link #getVersion()} with the
+ * version they last saw, so a consumer that was away (e.g. a paused activity) still picks
+ * up the most recent value when it comes back.
+ */
+public final class StateCell<S> extends Signal {
+
+    private final AtomicReference<S> value;
+    private final AtomicLong version = new AtomicLong();
+
+    public StateCell(S initial) {
+        value = new AtomicReference<>(initial);
+    }
+
+    public void set(S snapshot) {
+        value.set(snapshot);
+        version.incrementAndGet();
+        notifyObservers();
+    }
+
+    public S get() {
+        return value.get();
+    }
+
+    public long getVersion() {
+        return version.get();
+    }
+}
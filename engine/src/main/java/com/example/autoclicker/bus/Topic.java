@@ -0,0 +1,98 @@
+package com.example.autoclicker.bus;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Broadcast queue of typed events. Every {@link Subscription} keeps its own cursor into a
+ * shared ring, so each consumer sees every event without copying and without taking a
+ * lock. A consumer that falls capacity - 1 events behind skips ahead and counts what it
+ * missed instead of holding up the producer.
+ *
+ * <p>Publishing is serialized, so it behaves as a single producer even when events come
+ * from several threads.
+ */
+public final class Topic<E> extends Signal {
+
+    private final AtomicReferenceArray<E> ring;
+    private final int mask;
+    private final AtomicLong published = new AtomicLong();
+
+    public Topic(int capacity) {
+        if (capacity < 2 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a power of two of at least 2");
+        }
+        ring = new AtomicReferenceArray<>(capacity);
+        mask = capacity - 1;
+    }
+
+    public void publish(E event) {
+        synchronized (this) {
+            long sequence = published.get();
+            ring.set((int) (sequence & mask), event);
+            published.set(sequence + 1);
+        }
+        notifyObservers();
+    }
+
+    public long getPublished() {
+        return published.get();
+    }
+
+    /**
+     * Subscribes to events published from now on. {@code onPublish} (may be null) runs on
+     * the publishing thread after every event, typically to request a coalesced wake-up.
+     */
+    public Subscription<E> subscribe(Runnable onPublish) {
+        if (onPublish != null) {
+            addObserver(onPublish);
+        }
+        return new Subscription<>(this, onPublish);
+    }
+
+    public static final class Subscription<E> {
+
+        private final Topic<E> topic;
+        private final Runnable onPublish;
+        private long cursor;
+        private long missed;
+
+        private Subscription(Topic<E> topic, Runnable onPublish) {
+            this.topic = topic;
+            this.onPublish = onPublish;
+            this.cursor = topic.published.get();
+        }
+
+        // Next unread event, or null when caught up. Call from one consumer thread only.
+        public E poll() {
+            int capacity = topic.mask + 1;
+            while (true) {
+                long head = topic.published.get();
+                if (cursor >= head) {
+                    return null;
+                }
+                // The slot of head - capacity may be mid-overwrite by the next publish
+                if (head - cursor >= capacity) {
+                    missed += head - cursor - capacity + 1;
+                    cursor = head - capacity + 1;
+                }
+                E event = topic.ring.get((int) (cursor & topic.mask));
+                // The producer may have lapped us while we read; if so the slot is newer
+                if (topic.published.get() - cursor < capacity) {
+                    cursor++;
+                    return event;
+                }
+            }
+        }
+
+        public long getMissed() {
+            return missed;
+        }
+
+        public void close() {
+            if (onPublish != null) {
+                topic.removeObserver(onPublish);
+            }
+        }
+    }
+}
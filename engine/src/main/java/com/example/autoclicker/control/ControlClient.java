@@ -0,0 +1,230 @@
+package com.example.autoclicker.control;
+
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Blocking client for the control protocol, for test harnesses on a plain JVM. Works over
+ * any stream pair; {@link #connect} opens the TCP stand-in served by {@link ControlServer}.
+ * Not thread-safe.
+ */
+public final class ControlClient implements Closeable {
+
+    /**
+     * Commands sent together in one frame, executed in order.
+     */
+    public static final class Batch {
+        private final ByteBuffer buffer = ByteBuffer.allocate(ControlProtocol.MAX_FRAME);
+        private int count;
+
+        public Batch() {
+            buffer.position(4 + 1 + 2);
+        }
+
+        public Batch configure(int x, int y, int intervalMs, int repeatCount, boolean highRate) {
+            add(ControlProtocol.CONFIGURE);
+            buffer.putInt(x).putInt(y).putInt(intervalMs).putInt(repeatCount);
+            buffer.put((byte) (highRate ? ControlProtocol.FLAG_HIGH_RATE : 0));
+            return this;
+        }
+
+        public Batch start() {
+            return add(ControlProtocol.START);
+        }
+
+        public Batch stop() {
+            return add(ControlProtocol.STOP);
+        }
+
+        public Batch pause() {
+            return add(ControlProtocol.PAUSE);
+        }
+
+        public Batch resume() {
+            return add(ControlProtocol.RESUME);
+        }
+
+        public Batch playMacro(String name) {
+            add(ControlProtocol.PLAY_MACRO);
+            ControlProtocol.putString(buffer, name);
+            return this;
+        }
+
+        public Batch runScript(String source) {
+            add(ControlProtocol.RUN_SCRIPT);
+            ControlProtocol.putString(buffer, source);
+            return this;
+        }
+
+        public Batch queryStats() {
+            return add(ControlProtocol.QUERY_STATS);
+        }
+
+        // 0 unsubscribes
+        public Batch subscribeStats(int periodMs) {
+            add(ControlProtocol.SUBSCRIBE_STATS);
+            buffer.putInt(periodMs);
+            return this;
+        }
+
+        public int size() {
+            return count;
+        }
+
+        private Batch add(byte command) {
+            if (count == ControlSession.MAX_BATCH) {
+                throw new IllegalStateException("Batches hold at most " + ControlSession.MAX_BATCH + " commands");
+            }
+            buffer.put(command);
+            count++;
+            return this;
+        }
+
+        byte[] toFrame() {
+            int end = buffer.position();
+            buffer.putInt(0, end - 4);
+            buffer.put(4, ControlProtocol.BATCH);
+            buffer.putShort(5, (short) count);
+            byte[] frame = new byte[end];
+            System.arraycopy(buffer.array(), 0, frame, 0, end);
+            return frame;
+        }
+    }
+
+    /**
+     * Outcome of one command in a batch.
+     */
+    public static final class Result {
+        public final int command;
+        public final boolean ok;
+        // Why the engine refused the command; empty when it succeeded
+        public final String message;
+        // Set for a successful QUERY_STATS
+        public final ControlStats stats;
+
+        Result(int command, boolean ok, String message, ControlStats stats) {
+            this.command = command;
+            this.ok = ok;
+            this.message = message;
+            this.stats = stats;
+        }
+
+        @Override
+        public String toString() {
+            return ControlProtocol.commandName(command) + (ok ? " ok" : " refused: " + message)
+                    + (stats != null ? " [" + stats + "]" : "");
+        }
+    }
+
+    private final Socket socket;
+    private final DataInputStream in;
+    private final OutputStream out;
+    // Stats frames that arrived while waiting for results
+    private final ArrayDeque<ControlStats> pendingStats = new ArrayDeque<>();
+
+    public ControlClient(InputStream in, OutputStream out) {
+        this(null, in, out);
+    }
+
+    private ControlClient(Socket socket, InputStream in, OutputStream out) {
+        this.socket = socket;
+        this.in = new DataInputStream(in);
+        this.out = out;
+    }
+
+    public static ControlClient connect(int port, int timeoutMs) throws IOException {
+        Socket socket = new Socket();
+        try {
+            socket.setTcpNoDelay(true);
+            socket.connect(new InetSocketAddress("127.0.0.1", port), timeoutMs);
+            socket.setSoTimeout(timeoutMs);
+            return new ControlClient(socket, socket.getInputStream(), socket.getOutputStream());
+        } catch (IOException e) {
+            socket.close();
+            throw e;
+        }
+    }
+
+    public Batch batch() {
+        return new Batch();
+    }
+
+    // Sends the batch and waits for its results: one round trip however many commands
+    public List<Result> send(Batch batch) throws IOException {
+        out.write(batch.toFrame());
+        out.flush();
+        while (true) {
+            ByteBuffer frame = readFrame();
+            byte type = frame.get();
+            if (type == ControlProtocol.STATS) {
+                pendingStats.add(ControlStats.read(frame));
+                continue;
+            }
+            if (type != ControlProtocol.RESULTS) {
+                throw new ControlProtocolException("Unexpected frame type " + type);
+            }
+            try {
+                int count = frame.getShort() & 0xffff;
+                List<Result> results = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    int command = frame.get();
+                    boolean ok = frame.get() == ControlProtocol.OK;
+                    String message = ControlProtocol.getString(frame);
+                    ControlStats stats = ok && command == ControlProtocol.QUERY_STATS
+                            ? ControlStats.read(frame) : null;
+                    results.add(new Result(command, ok, message, stats));
+                }
+                return Collections.unmodifiableList(results);
+            } catch (BufferUnderflowException e) {
+                throw new ControlProtocolException("Truncated results");
+            }
+        }
+    }
+
+    // Blocks for the next frame of a stats subscription
+    public ControlStats nextStats() throws IOException {
+        ControlStats queued = pendingStats.poll();
+        if (queued != null) {
+            return queued;
+        }
+        while (true) {
+            ByteBuffer frame = readFrame();
+            byte type = frame.get();
+            if (type == ControlProtocol.STATS) {
+                return ControlStats.read(frame);
+            }
+            throw new ControlProtocolException("Unexpected frame type " + type + " while streaming");
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (socket != null) {
+            socket.close();
+        } else {
+            in.close();
+            out.close();
+        }
+    }
+
+    private ByteBuffer readFrame() throws IOException {
+        int length = in.readInt();
+        if (length < 1 || length > ControlProtocol.MAX_FRAME) {
+            throw new ControlProtocolException("Bad frame length " + length);
+        }
+        byte[] payload = new byte[length];
+        in.readFully(payload);
+        return ByteBuffer.wrap(payload);
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.autoclicker.control;
+
+/**
+ * The engine side of the control socket. Calls arrive on the control loop's thread, never
+ * the main thread. Each command returns null when it was carried out, or why it was not.
+ */
+public interface ControlHandler {
+
+    String configure(int x, int y, int intervalMs, int repeatCount, boolean highRate);
+
+    String start();
+
+    String stop();
+
+    String pause();
+
+    String resume();
+
+    String playMacro(String name);
+
+    String runScript(String source);
+
+    void readStats(ControlStats out);
+}
@@ -0,0 +1,94 @@
+package com.example.autoclicker.control;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Wire format of the control socket. Every frame is a big-endian int length followed by
+ * that many payload bytes; the payload starts with a frame type.
+ *
+ * <pre>
+ * BATCH    u8 type, u16 count, count x (u8 command, arguments)
+ * RESULTS  u8 type, u16 count, count x (u8 command, u8 status, string message,
+ *          stats if the command was QUERY_STATS and succeeded)
+ * STATS    u8 type, stats                       (pushed to subscribers)
+ *
+ * CONFIGURE        i32 x, i32 y, i32 interval ms, i32 repeat count, u8 flags
+ * START, STOP, PAUSE, RESUME, QUERY_STATS       no arguments
+ * PLAY_MACRO       string name
+ * RUN_SCRIPT       string source
+ * SUBSCRIBE_STATS  i32 period ms, 0 to unsubscribe
+ *
+ * string  u16 byte length, UTF-8 bytes
+ * stats   see {@link ControlStats}
+ * </pre>
+ */
+public final class ControlProtocol {
+
+    // Abstract-namespace name of the app's control socket
+    public static final String SOCKET_NAME = "com.example.autoclicker.control";
+
+    public static final int MAX_FRAME = 64 * 1024;
+
+    public static final byte BATCH = 1;
+    public static final byte RESULTS = 2;
+    public static final byte STATS = 3;
+
+    public static final byte CONFIGURE = 1;
+    public static final byte START = 2;
+    public static final byte STOP = 3;
+    public static final byte PAUSE = 4;
+    public static final byte RESUME = 5;
+    public static final byte PLAY_MACRO = 6;
+    public static final byte RUN_SCRIPT = 7;
+    public static final byte QUERY_STATS = 8;
+    public static final byte SUBSCRIBE_STATS = 9;
+
+    public static final int FLAG_HIGH_RATE = 1;
+
+    public static final byte OK = 0;
+    // Valid request the engine declined, e.g. START while a run is active
+    public static final byte REFUSED = 1;
+
+    // Subscriptions faster than this are clamped
+    public static final int MIN_STATS_PERIOD_MS = 16;
+
+    private ControlProtocol() {
+    }
+
+    public static void putString(ByteBuffer buffer, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > 0xffff) {
+            throw new IllegalArgumentException("String longer than 65535 bytes");
+        }
+        buffer.putShort((short) bytes.length);
+        buffer.put(bytes);
+    }
+
+    public static String getString(ByteBuffer buffer) throws ControlProtocolException {
+        try {
+            int length = buffer.getShort() & 0xffff;
+            byte[] bytes = new byte[length];
+            buffer.get(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        } catch (BufferUnderflowException e) {
+            throw new ControlProtocolException("Truncated string");
+        }
+    }
+
+    public static String commandName(int command) {
+        switch (command) {
+            case CONFIGURE: return "CONFIGURE";
+            case START: return "START";
+            case STOP: return "STOP";
+            case PAUSE: return "PAUSE";
+            case RESUME: return "RESUME";
+            case PLAY_MACRO: return "PLAY_MACRO";
+            case RUN_SCRIPT: return "RUN_SCRIPT";
+            case QUERY_STATS: return "QUERY_STATS";
+            case SUBSCRIBE_STATS: return "SUBSCRIBE_STATS";
+            default: return "UNKNOWN(" + command + ")";
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.autoclicker.control;
+
+import java.io.IOException;
+
+/**
+ * Thrown when a peer sends a frame that is oversized, truncated or names an unknown command.
+ * The connection cannot be resynchronised, so it is closed.
+ */
+public class ControlProtocolException extends IOException {
+
+    private static final long serialVersionUID = 1L;
+
+    public ControlProtocolException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,188 @@
+package com.example.autoclicker.control;
+
+import com.example.autoclicker.scheduler.Clock;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+
+/**
+ * Serves the control protocol over TCP from a single NIO selector thread: the JVM stand-in
+ * for the app's local socket, for harnesses that drive the headless engine. Binds to
+ * loopback only.
+ */
+public final class ControlServer implements Closeable {
+
+    private final ControlHandler handler;
+    private final Clock clock;
+    private final Selector selector;
+    private final ServerSocketChannel server;
+    private final Thread thread;
+    private volatile boolean closed;
+    private volatile int sessionCount;
+
+    public ControlServer(ControlHandler handler, Clock clock, int port) throws IOException {
+        this.handler = handler;
+        this.clock = clock;
+        selector = Selector.open();
+        server = ServerSocketChannel.open();
+        try {
+            server.bind(new InetSocketAddress("127.0.0.1", port));
+            server.configureBlocking(false);
+            server.register(selector, SelectionKey.OP_ACCEPT);
+        } catch (IOException e) {
+            server.close();
+            selector.close();
+            throw e;
+        }
+        thread = new Thread(this::runLoop, "ControlServer");
+        thread.start();
+    }
+
+    public int getPort() {
+        return server.socket().getLocalPort();
+    }
+
+    public int getSessionCount() {
+        return sessionCount;
+    }
+
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        selector.wakeup();
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void runLoop() {
+        try {
+            long timeoutNanos = Long.MAX_VALUE;
+            while (!closed) {
+                if (timeoutNanos == Long.MAX_VALUE) {
+                    selector.select();
+                } else {
+                    selector.select(Math.max(1, timeoutNanos / 1_000_000L));
+                }
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    if (key.isAcceptable()) {
+                        accept();
+                    } else {
+                        serve(key);
+                    }
+                }
+                timeoutNanos = pollStats();
+            }
+        } catch (IOException e) {
+            // The selector itself failed; nothing left to serve
+        } finally {
+            for (SelectionKey key : selector.keys()) {
+                closeQuietly(key);
+            }
+            try {
+                server.close();
+                selector.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    private void accept() throws IOException {
+        final SocketChannel channel = server.accept();
+        if (channel == null) {
+            return;
+        }
+        channel.configureBlocking(false);
+        channel.socket().setTcpNoDelay(true);
+        ControlSession session = new ControlSession(handler, new ControlSession.Transport() {
+            @Override
+            public int read(ByteBuffer dst) throws IOException {
+                return channel.read(dst);
+            }
+
+            @Override
+            public int write(ByteBuffer src) throws IOException {
+                return channel.write(src);
+            }
+        });
+        channel.register(selector, SelectionKey.OP_READ, session);
+        sessionCount++;
+    }
+
+    private void serve(SelectionKey key) {
+        ControlSession session = (ControlSession) key.attachment();
+        try {
+            if (key.isReadable() && !session.onReadable(clock.nanoTime())) {
+                closeQuietly(key);
+                return;
+            }
+            // Write straight away; OP_WRITE is only needed when the socket buffer is full
+            if (session.wantsWrite()) {
+                session.onWritable();
+            }
+            updateInterest(key, session);
+        } catch (IOException e) {
+            // Includes protocol errors: the stream cannot be resynchronised
+            closeQuietly(key);
+        }
+    }
+
+    // Returns nanos until the next subscribed stats frame is due
+    private long pollStats() {
+        long now = clock.nanoTime();
+        long next = Long.MAX_VALUE;
+        for (SelectionKey key : selector.keys()) {
+            if (!key.isValid() || !(key.attachment() instanceof ControlSession)) {
+                continue;
+            }
+            ControlSession session = (ControlSession) key.attachment();
+            next = Math.min(next, session.pollStats(now));
+            try {
+                if (session.wantsWrite()) {
+                    session.onWritable();
+                }
+                updateInterest(key, session);
+            } catch (IOException e) {
+                closeQuietly(key);
+            }
+        }
+        return next;
+    }
+
+    private static void updateInterest(SelectionKey key, ControlSession session) {
+        if (!key.isValid()) {
+            return;
+        }
+        int ops = (session.wantsRead() ? SelectionKey.OP_READ : 0)
+                | (session.wantsWrite() ? SelectionKey.OP_WRITE : 0);
+        if (key.interestOps() != ops) {
+            key.interestOps(ops);
+        }
+    }
+
+    private void closeQuietly(SelectionKey key) {
+        key.cancel();
+        if (key.attachment() instanceof ControlSession) {
+            sessionCount--;
+        }
+        try {
+            key.channel().close();
+        } catch (IOException ignored) {
+        }
+    }
+}
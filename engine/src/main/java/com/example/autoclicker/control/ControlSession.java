@@ -0,0 +1,240 @@
+package com.example.autoclicker.control;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * One control connection: reassembles frames from whatever the transport hands over, runs
+ * each batch against the {@link ControlHandler} and queues the results and any subscribed
+ * stats frames. Holds no thread; the event loop calls it when the socket is readable or
+ * writable, so one thread can serve every connection.
+ */
+public final class ControlSession {
+
+    /**
+     * Non-blocking byte transport, shaped like the NIO channel methods.
+     */
+    public interface Transport {
+        // Bytes read, 0 if none are ready, -1 at end of stream
+        int read(ByteBuffer dst) throws IOException;
+
+        // Bytes written, possibly 0
+        int write(ByteBuffer src) throws IOException;
+    }
+
+    static final int MAX_BATCH = 128;
+    // Longer refusal messages are cut, so a full batch of results always fits one frame
+    static final int MAX_MESSAGE = 120;
+    // Requests are not read while this much output waits for a slow reader
+    static final int MAX_PENDING_OUTPUT = 256 * 1024;
+
+    private final ControlHandler handler;
+    private final Transport transport;
+    private final ByteBuffer in = ByteBuffer.allocate(4 + ControlProtocol.MAX_FRAME);
+    private final ByteBuffer results = ByteBuffer.allocate(ControlProtocol.MAX_FRAME);
+    // Write mode; holds everything not yet taken by the transport
+    private ByteBuffer out = ByteBuffer.allocate(4096);
+    private final ControlStats stats = new ControlStats();
+
+    private long statsPeriodNanos;
+    private long nextStatsNanos;
+    private long droppedStats;
+    private long batches;
+
+    public ControlSession(ControlHandler handler, Transport transport) {
+        this.handler = handler;
+        this.transport = transport;
+    }
+
+    /**
+     * Reads what is available and runs every complete batch. Returns false once the peer
+     * has closed its end.
+     */
+    public boolean onReadable(long nowNanos) throws IOException {
+        if (transport.read(in) < 0) {
+            return false;
+        }
+        in.flip();
+        try {
+            while (in.remaining() >= 4) {
+                int start = in.position();
+                int length = in.getInt(start);
+                if (length < 1 || length > ControlProtocol.MAX_FRAME) {
+                    throw new ControlProtocolException("Bad frame length " + length);
+                }
+                if (in.remaining() < 4 + length) {
+                    break;
+                }
+                int limit = in.limit();
+                int end = start + 4 + length;
+                in.position(start + 4);
+                in.limit(end);
+                handleFrame(nowNanos);
+                if (in.hasRemaining()) {
+                    throw new ControlProtocolException((end - in.position()) + " stray bytes in frame");
+                }
+                in.limit(limit);
+                in.position(end);
+            }
+        } finally {
+            in.compact();
+        }
+        return true;
+    }
+
+    public void onWritable() throws IOException {
+        out.flip();
+        try {
+            transport.write(out);
+        } finally {
+            out.compact();
+        }
+    }
+
+    public boolean wantsRead() {
+        return out.position() < MAX_PENDING_OUTPUT;
+    }
+
+    public boolean wantsWrite() {
+        return out.position() > 0;
+    }
+
+    /**
+     * Queues a stats frame if the subscription is due. Returns nanos until the next one, or
+     * Long.MAX_VALUE without a subscription. A frame that falls due while earlier output is
+     * still unsent is dropped rather than queued behind it.
+     */
+    public long pollStats(long nowNanos) {
+        if (statsPeriodNanos == 0) {
+            return Long.MAX_VALUE;
+        }
+        if (nowNanos >= nextStatsNanos) {
+            if (out.position() == 0) {
+                handler.readStats(stats);
+                ensureOutput(4 + 1 + ControlStats.SIZE);
+                out.putInt(1 + ControlStats.SIZE);
+                out.put(ControlProtocol.STATS);
+                stats.write(out);
+            } else {
+                droppedStats++;
+            }
+            nextStatsNanos += statsPeriodNanos;
+            if (nextStatsNanos <= nowNanos) {
+                nextStatsNanos = nowNanos + statsPeriodNanos;
+            }
+        }
+        return nextStatsNanos - nowNanos;
+    }
+
+    public long getDroppedStats() {
+        return droppedStats;
+    }
+
+    public long getBatches() {
+        return batches;
+    }
+
+    private void handleFrame(long nowNanos) throws ControlProtocolException {
+        try {
+            byte type = in.get();
+            if (type != ControlProtocol.BATCH) {
+                throw new ControlProtocolException("Unexpected frame type " + type);
+            }
+            int count = in.getShort() & 0xffff;
+            if (count > MAX_BATCH) {
+                throw new ControlProtocolException("Batch of " + count + " exceeds " + MAX_BATCH);
+            }
+            results.clear();
+            results.put(ControlProtocol.RESULTS);
+            results.putShort((short) count);
+            for (int i = 0; i < count; i++) {
+                execute(in.get(), nowNanos);
+            }
+        } catch (BufferUnderflowException e) {
+            throw new ControlProtocolException("Truncated batch");
+        }
+        results.flip();
+        ensureOutput(4 + results.remaining());
+        out.putInt(results.remaining());
+        out.put(results);
+        batches++;
+    }
+
+    private void execute(byte command, long nowNanos) throws ControlProtocolException {
+        switch (command) {
+            case ControlProtocol.CONFIGURE: {
+                int x = in.getInt();
+                int y = in.getInt();
+                int intervalMs = in.getInt();
+                int repeatCount = in.getInt();
+                int flags = in.get();
+                result(command, handler.configure(x, y, intervalMs, repeatCount,
+                        (flags & ControlProtocol.FLAG_HIGH_RATE) != 0));
+                break;
+            }
+            case ControlProtocol.START:
+                result(command, handler.start());
+                break;
+            case ControlProtocol.STOP:
+                result(command, handler.stop());
+                break;
+            case ControlProtocol.PAUSE:
+                result(command, handler.pause());
+                break;
+            case ControlProtocol.RESUME:
+                result(command, handler.resume());
+                break;
+            case ControlProtocol.PLAY_MACRO:
+                result(command, handler.playMacro(ControlProtocol.getString(in)));
+                break;
+            case ControlProtocol.RUN_SCRIPT:
+                result(command, handler.runScript(ControlProtocol.getString(in)));
+                break;
+            case ControlProtocol.QUERY_STATS:
+                handler.readStats(stats);
+                result(command, null);
+                stats.write(results);
+                break;
+            case ControlProtocol.SUBSCRIBE_STATS: {
+                int periodMs = in.getInt();
+                if (periodMs <= 0) {
+                    statsPeriodNanos = 0;
+                } else {
+                    statsPeriodNanos = Math.max(periodMs, ControlProtocol.MIN_STATS_PERIOD_MS) * 1_000_000L;
+                    nextStatsNanos = nowNanos;
+                }
+                result(command, null);
+                break;
+            }
+            default:
+                throw new ControlProtocolException("Unknown command " + command);
+        }
+    }
+
+    private void result(byte command, String refusal) {
+        results.put(command);
+        if (refusal == null) {
+            results.put(ControlProtocol.OK);
+            results.putShort((short) 0);
+            return;
+        }
+        results.put(ControlProtocol.REFUSED);
+        String message = refusal.length() > MAX_MESSAGE ? refusal.substring(0, MAX_MESSAGE) : refusal;
+        ControlProtocol.putString(results, message);
+    }
+
+    private void ensureOutput(int bytes) {
+        if (out.remaining() >= bytes) {
+            return;
+        }
+        int capacity = out.capacity();
+        while (capacity - out.position() < bytes) {
+            capacity *= 2;
+        }
+        ByteBuffer grown = ByteBuffer.allocate(capacity);
+        out.flip();
+        grown.put(out);
+        out = grown;
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.autoclicker.control;
+
+import com.example.autoclicker.state.RunState;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * Snapshot of a run as sent over the control socket. Encoded as u8 run state, i32 clicks,
+ * then i64 dispatched, completed, cancelled, throttled and the engine's uptime in nanos.
+ */
+public final class ControlStats {
+
+    static final int SIZE = 1 + 4 + 5 * 8;
+
+    public RunState runState = RunState.IDLE;
+    public int clicks;
+    public long dispatched;
+    public long completed;
+    public long cancelled;
+    public long throttled;
+    public long timeNanos;
+
+    void write(ByteBuffer buffer) {
+        buffer.put((byte) runState.ordinal());
+        buffer.putInt(clicks);
+        buffer.putLong(dispatched);
+        buffer.putLong(completed);
+        buffer.putLong(cancelled);
+        buffer.putLong(throttled);
+        buffer.putLong(timeNanos);
+    }
+
+    static ControlStats read(ByteBuffer buffer) throws ControlProtocolException {
+        try {
+            ControlStats stats = new ControlStats();
+            int state = buffer.get();
+            RunState[] states = RunState.values();
+            if (state < 0 || state >= states.length) {
+                throw new ControlProtocolException("Unknown run state " + state);
+            }
+            stats.runState = states[state];
+            stats.clicks = buffer.getInt();
+            stats.dispatched = buffer.getLong();
+            stats.completed = buffer.getLong();
+            stats.cancelled = buffer.getLong();
+            stats.throttled = buffer.getLong();
+            stats.timeNanos = buffer.getLong();
+            return stats;
+        } catch (BufferUnderflowException e) {
+            throw new ControlProtocolException("Truncated stats");
+        }
+    }
+
+    @Override
+    public String toString() {
+        return runState + ", " + clicks + " clicks, dispatched " + dispatched + ", completed "
+                + completed + ", cancelled " + cancelled + ", throttled " + throttled;
+    }
+}
@@ -0,0 +1,147 @@
+package com.example.autoclicker.core;
+
+import com.example.autoclicker.jitter.PositionJitter;
+import com.example.autoclicker.nodes.NodeIndex;
+import com.example.autoclicker.nodes.NodeTarget;
+import com.example.autoclicker.scheduler.ClickScheduler;
+import com.example.autoclicker.state.ClickConfig;
+import com.example.autoclicker.state.EngineState;
+import com.example.autoclicker.state.RunState;
+
+/**
+ * One fixed-target click run: on each tick, resolve the target (the configured position or
+ * a view from the node index), spread it with the position jitter and tap it through the
+ * {@link GestureSink}, until the repeat count is reached. Nothing here touches Android, so
+ * the same run can be driven by the real scheduler or a simulated clock.
+ */
+public final class ClickRun implements ClickScheduler.Listener {
+
+    public interface Callbacks {
+        // A tick is being handled; deadlineNanos is when it was due
+        void onTick(long deadlineNanos);
+
+        void onClick(int count);
+
+        // The repeat count was reached; the run ends after this returns
+        void onCompleted(int count);
+    }
+
+    // Decides whether the screen allows a click right now, e.g. the trigger image matches
+    public interface Gate {
+        boolean allowsClick();
+    }
+
+    private final EngineState state;
+    private final GestureSink sink;
+    private final Callbacks callbacks;
+    private NodeIndex<?> nodeIndex;
+    private Gate trigger;
+    private PositionJitter positionJitter;
+    private final int[] nodeCenter = new int[2];
+    private final int[] jittered = new int[2];
+
+    private volatile int clicks;
+    private volatile long gateSkips;
+    private volatile long nodeMisses;
+    private volatile long dropped;
+
+    public ClickRun(EngineState state, GestureSink sink, Callbacks callbacks) {
+        this.state = state;
+        this.sink = sink;
+        this.callbacks = callbacks;
+    }
+
+    // Needed only for configs with a node target
+    public void setNodeIndex(NodeIndex<?> nodeIndex) {
+        this.nodeIndex = nodeIndex;
+    }
+
+    // Consulted only while the config has the trigger enabled
+    public void setTrigger(Gate trigger) {
+        this.trigger = trigger;
+    }
+
+    public void setPositionJitter(PositionJitter positionJitter) {
+        this.positionJitter = positionJitter;
+    }
+
+    // Continues an interrupted run; call before the first tick
+    public void resumeFrom(int clicks) {
+        this.clicks = clicks;
+    }
+
+    @Override
+    public boolean onTick(long deadlineNanos) {
+        RunState run = state.getRunState();
+        if (run != RunState.RUNNING) {
+            return run == RunState.PAUSED;
+        }
+        callbacks.onTick(deadlineNanos);
+        return click();
+    }
+
+    /**
+     * Clicks once outside the schedule, e.g. a single step while the run is paused. Returns
+     * false once the repeat count has been reached.
+     */
+    public boolean step() {
+        return click();
+    }
+
+    private boolean click() {
+        // One snapshot per tick, so a concurrent update is seen whole or not at all
+        ClickConfig config = state.getConfig();
+        if (config.triggerEnabled && trigger != null && !trigger.allowsClick()) {
+            gateSkips++;
+            return true;
+        }
+        int x = config.x;
+        int y = config.y;
+        NodeTarget target = config.nodeTarget;
+        if (target != null) {
+            if (nodeIndex == null || !nodeIndex.find(target, nodeCenter)) {
+                nodeMisses++;
+                return true;
+            }
+            x = nodeCenter[0];
+            y = nodeCenter[1];
+        }
+        PositionJitter spread = positionJitter;
+        if (spread != null) {
+            spread.apply(x, y, jittered);
+            // Gesture paths must stay on screen
+            x = Math.max(0, jittered[0]);
+            y = Math.max(0, jittered[1]);
+        }
+        if (!sink.tap(x, y)) {
+            // Previous gestures are still running; drop this tick
+            dropped++;
+            return true;
+        }
+        int count = ++clicks;
+        callbacks.onClick(count);
+
+        if (config.repeatCount == 0 || count < config.repeatCount) {
+            return true;
+        }
+        callbacks.onCompleted(count);
+        return false;
+    }
+
+    public int getClicks() {
+        return clicks;
+    }
+
+    public long getGateSkips() {
+        return gateSkips;
+    }
+
+    public long getNodeMisses() {
+        return nodeMisses;
+    }
+
+    // Ticks whose tap the sink refused
+    public long getDropped() {
+        return dropped;
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.autoclicker.core;
+
+/**
+ * Where the engine's taps go. The service adapts it to dispatchGesture; the simulator to a
+ * virtual device with scripted latency and cancellations.
+ */
+public interface GestureSink {
+    // Returns false if the tap was not dispatched, e.g. earlier gestures are still running
+    boolean tap(int x, int y);
+}
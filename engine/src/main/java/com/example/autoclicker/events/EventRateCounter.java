@@ -0,0 +1,41 @@
+package com.example.autoclicker.events;
+
+/**
+ * Counts events over a sliding one-minute window using one bucket per second, so recording
+ * is a couple of array writes.
+ */
+public final class EventRateCounter {
+
+    private static final int BUCKETS = 60;
+    private static final long BUCKET_MS = 1000;
+
+    private final long[] counts = new long[BUCKETS];
+    private final long[] seconds = new long[BUCKETS];
+    private long total;
+
+    public synchronized void record(long nowMs) {
+        long second = nowMs / BUCKET_MS;
+        int bucket = (int) (second % BUCKETS);
+        if (seconds[bucket] != second) {
+            seconds[bucket] = second;
+            counts[bucket] = 0;
+        }
+        counts[bucket]++;
+        total++;
+    }
+
+    public synchronized long getLastMinute(long nowMs) {
+        long second = nowMs / BUCKET_MS;
+        long sum = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            if (second - seconds[i] < BUCKETS && seconds[i] <= second) {
+                sum += counts[i];
+            }
+        }
+        return sum;
+    }
+
+    public synchronized long getTotal() {
+        return total;
+    }
+}
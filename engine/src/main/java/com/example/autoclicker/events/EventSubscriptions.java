@@ -0,0 +1,50 @@
+package com.example.autoclicker.events;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Tracks which accessibility event types each feature needs. The service subscribes to the
+ * union of the active features' masks, which is 0 (no events at all) when nothing needs them.
+ */
+public final class EventSubscriptions {
+
+    private final Map<String, Integer> masks = new HashMap<>();
+    private int mask;
+
+    /**
+     * Sets the event types {@code feature} needs. Returns true if the combined mask changed
+     * and the service info has to be updated.
+     */
+    public synchronized boolean set(String feature, int eventTypes) {
+        if (eventTypes == 0) {
+            masks.remove(feature);
+        } else {
+            masks.put(feature, eventTypes);
+        }
+        return recompute();
+    }
+
+    public synchronized boolean clear(String feature) {
+        masks.remove(feature);
+        return recompute();
+    }
+
+    public synchronized int getMask() {
+        return mask;
+    }
+
+    public synchronized boolean isSubscribed(int eventType) {
+        return (mask & eventType) != 0;
+    }
+
+    private boolean recompute() {
+        int combined = 0;
+        for (int featureMask : masks.values()) {
+            combined |= featureMask;
+        }
+        boolean changed = combined != mask;
+        mask = combined;
+        return changed;
+    }
+}
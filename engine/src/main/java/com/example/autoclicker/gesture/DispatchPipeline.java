@@ -0,0 +1,116 @@
+package com.example.autoclicker.gesture;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounds the number of gestures handed to dispatchGesture that have not yet reported
+ * onCompleted/onCancelled. Ticks that find the pipeline full are dropped and counted as
+ * throttled rather than piling more gestures onto the system, which would cancel them.
+ */
+public final class DispatchPipeline {
+
+    private volatile int maxInFlight;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong dispatched = new AtomicLong();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong cancelled = new AtomicLong();
+    private final AtomicLong throttled = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+
+    public DispatchPipeline(int maxInFlight) {
+        if (maxInFlight < 1) {
+            throw new IllegalArgumentException("Max in-flight must be at least 1");
+        }
+        this.maxInFlight = maxInFlight;
+    }
+
+    /**
+     * Reserves a slot for one gesture. Returns false (and counts a throttled tick) when
+     * {@code maxInFlight} gestures are still outstanding.
+     */
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= maxInFlight) {
+                throttled.incrementAndGet();
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                dispatched.incrementAndGet();
+                return true;
+            }
+        }
+    }
+
+    public void onCompleted() {
+        completed.incrementAndGet();
+        release();
+    }
+
+    public void onCancelled() {
+        cancelled.incrementAndGet();
+        release();
+    }
+
+    // dispatchGesture returned false, so no callback will ever arrive for this slot
+    public void onRejected() {
+        rejected.incrementAndGet();
+        release();
+    }
+
+    /**
+     * Sets up the pipeline for a new run and clears its counters. Gestures of the previous
+     * run that are still outstanding keep their slots, since their callbacks are still to
+     * come; zeroing them would let those callbacks free the new run's slots.
+     */
+    public void reset(int maxInFlight) {
+        if (maxInFlight < 1) {
+            throw new IllegalArgumentException("Max in-flight must be at least 1");
+        }
+        this.maxInFlight = maxInFlight;
+        dispatched.set(0);
+        completed.set(0);
+        cancelled.set(0);
+        throttled.set(0);
+        rejected.set(0);
+    }
+
+    private void release() {
+        inFlight.decrementAndGet();
+    }
+
+    public int getMaxInFlight() {
+        return maxInFlight;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public long getDispatched() {
+        return dispatched.get();
+    }
+
+    public long getCompleted() {
+        return completed.get();
+    }
+
+    public long getCancelled() {
+        return cancelled.get();
+    }
+
+    public long getThrottled() {
+        return throttled.get();
+    }
+
+    public long getRejected() {
+        return rejected.get();
+    }
+
+    @Override
+    public String toString() {
+        return "dispatched " + getDispatched() + ", completed " + getCompleted()
+                + ", cancelled " + getCancelled() + ", throttled " + getThrottled();
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.autoclicker.gesture;
+
+/**
+ * Small fixed-size cache of prebuilt gestures keyed by screen coordinate. Lookups are a
+ * linear scan over a packed long[] so a hit allocates nothing; a miss builds the gesture
+ * through the factory and evicts round-robin.
+ */
+public final class GesturePool<G> {
+
+    public interface Factory<G> {
+        G create(int x, int y);
+    }
+
+    private final Factory<G> factory;
+    private final long[] keys;
+    private final Object[] gestures;
+    private int size;
+    private int nextEvict;
+    private int lastHit;
+    private long misses;
+
+    public GesturePool(int capacity, Factory<G> factory) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be at least 1");
+        }
+        this.factory = factory;
+        this.keys = new long[capacity];
+        this.gestures = new Object[capacity];
+    }
+
+    public static long key(int x, int y) {
+        return ((long) x << 32) | (y & 0xffffffffL);
+    }
+
+    @SuppressWarnings("unchecked")
+    public synchronized G get(int x, int y) {
+        long key = key(x, y);
+
+        // Fixed targets hit the same slot every tick
+        if (lastHit < size && keys[lastHit] == key) {
+            return (G) gestures[lastHit];
+        }
+        for (int i = 0; i < size; i++) {
+            if (keys[i] == key) {
+                lastHit = i;
+                return (G) gestures[i];
+            }
+        }
+
+        misses++;
+        int slot;
+        if (size < keys.length) {
+            slot = size++;
+        } else {
+            slot = nextEvict;
+            nextEvict = (nextEvict + 1) % keys.length;
+        }
+        keys[slot] = key;
+        gestures[slot] = factory.create(x, y);
+        lastHit = slot;
+        return (G) gestures[slot];
+    }
+
+    public synchronized void clear() {
+        for (int i = 0; i < size; i++) {
+            gestures[i] = null;
+        }
+        size = 0;
+        nextEvict = 0;
+        lastHit = 0;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.autoclicker.gesture;
+
+/**
+ * Like {@link GesturePool}, but for multi-stroke gestures keyed by their whole list of tap
+ * coordinates, such as the batches of the job engine. Parallel jobs keep producing the
+ * same few coordinate sets, so a hit compares a hash and a packed long[] and allocates
+ * nothing; a miss builds the gesture through the factory and evicts round-robin.
+ */
+public final class StrokeSetPool<G> {
+
+    public interface Factory<G> {
+        // Builds one stroke per coordinate pair xs[i], ys[i] for i < count
+        G create(int[] xs, int[] ys, int count);
+    }
+
+    private final Factory<G> factory;
+    private final int[] hashes;
+    private final long[][] keys;
+    private final int[] counts;
+    private final Object[] gestures;
+    private int size;
+    private int nextEvict;
+    private long misses;
+
+    public StrokeSetPool(int capacity, Factory<G> factory) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be at least 1");
+        }
+        this.factory = factory;
+        this.hashes = new int[capacity];
+        this.keys = new long[capacity][];
+        this.counts = new int[capacity];
+        this.gestures = new Object[capacity];
+    }
+
+    // Order matters: the same taps in a different order are a different gesture
+    @SuppressWarnings("unchecked")
+    public synchronized G get(int[] xs, int[] ys, int count) {
+        int hash = count;
+        for (int i = 0; i < count; i++) {
+            hash = 31 * hash + Long.hashCode(GesturePool.key(xs[i], ys[i]));
+        }
+        for (int slot = 0; slot < size; slot++) {
+            if (hashes[slot] == hash && counts[slot] == count && matches(keys[slot], xs, ys, count)) {
+                return (G) gestures[slot];
+            }
+        }
+
+        misses++;
+        int slot;
+        if (size < gestures.length) {
+            slot = size++;
+        } else {
+            slot = nextEvict;
+            nextEvict = (nextEvict + 1) % gestures.length;
+        }
+        long[] key = keys[slot];
+        if (key == null || key.length < count) {
+            key = new long[count];
+            keys[slot] = key;
+        }
+        for (int i = 0; i < count; i++) {
+            key[i] = GesturePool.key(xs[i], ys[i]);
+        }
+        hashes[slot] = hash;
+        counts[slot] = count;
+        gestures[slot] = factory.create(xs, ys, count);
+        return (G) gestures[slot];
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    private static boolean matches(long[] key, int[] xs, int[] ys, int count) {
+        for (int i = 0; i < count; i++) {
+            if (key[i] != GesturePool.key(xs[i], ys[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
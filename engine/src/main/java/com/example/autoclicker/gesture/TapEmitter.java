@@ -0,0 +1,42 @@
+package com.example.autoclicker.gesture;
+
+/**
+ * The per-tick click path: reserve a pipeline slot, fetch the prebuilt gesture for the
+ * target and hand it to the sink. Nothing here allocates once the pool is warm.
+ */
+public final class TapEmitter<G> {
+
+    public interface Sink<G> {
+        // Returns false if the gesture could not be dispatched
+        boolean dispatch(G gesture);
+    }
+
+    private final DispatchPipeline pipeline;
+    private final GesturePool<G> pool;
+    private final Sink<G> sink;
+
+    public TapEmitter(DispatchPipeline pipeline, GesturePool<G> pool, Sink<G> sink) {
+        this.pipeline = pipeline;
+        this.pool = pool;
+        this.sink = sink;
+    }
+
+    public boolean emit(int x, int y) {
+        if (!pipeline.tryAcquire()) {
+            return false;
+        }
+        if (!sink.dispatch(pool.get(x, y))) {
+            pipeline.onRejected();
+            return false;
+        }
+        return true;
+    }
+
+    public DispatchPipeline getPipeline() {
+        return pipeline;
+    }
+
+    public GesturePool<G> getPool() {
+        return pool;
+    }
+}
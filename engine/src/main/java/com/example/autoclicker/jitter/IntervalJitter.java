@@ -0,0 +1,89 @@
+package com.example.autoclicker.jitter;
+
+import com.example.autoclicker.scheduler.IntervalSampler;
+
+import java.util.SplittableRandom;
+
+/**
+ * Draws jittered intervals from a table of precomputed quantiles of the distribution, so a
+ * tick costs one SplitMix64 step, a table lookup and a multiply instead of
+ * Random.nextGaussian() plus Math.exp(). Tails are cut at the outermost quantile (about
+ * 3.5 standard deviations) and intervals never drop below {@link #MIN_FACTOR} of the base.
+ */
+public final class IntervalJitter implements IntervalSampler {
+
+    static final int TABLE_BITS = 12;
+    private static final int TABLE_SIZE = 1 << TABLE_BITS;
+    public static final double MIN_FACTOR = 0.2;
+
+    private final double[] factors = new double[TABLE_SIZE + 1];
+    private final SplittableRandom random;
+
+    public IntervalJitter(JitterSpec.IntervalMode mode, double spread, long seed) {
+        random = new SplittableRandom(seed);
+        for (int i = 0; i < TABLE_SIZE; i++) {
+            double z = inverseNormal((i + 0.5) / TABLE_SIZE);
+            double factor;
+            switch (mode) {
+                case GAUSSIAN:
+                    factor = 1 + spread * z;
+                    break;
+                case LOG_NORMAL:
+                    factor = Math.exp(spread * z);
+                    break;
+                case NONE:
+                default:
+                    factor = 1;
+                    break;
+            }
+            factors[i] = Math.max(MIN_FACTOR, factor);
+        }
+        // Interpolation past the last quantile stays on it
+        factors[TABLE_SIZE] = factors[TABLE_SIZE - 1];
+    }
+
+    // Multiplier for the next interval
+    public double nextFactor() {
+        long bits = random.nextLong();
+        int index = (int) (bits >>> (64 - TABLE_BITS));
+        // The next 20 bits place the sample between two quantiles
+        double fraction = ((bits >>> (44 - TABLE_BITS)) & 0xFFFFF) * (1.0 / (1 << 20));
+        double low = factors[index];
+        return low + (factors[index + 1] - low) * fraction;
+    }
+
+    @Override
+    public long nextIntervalNanos(long baseNanos) {
+        return (long) (baseNanos * nextFactor());
+    }
+
+    /**
+     * Acklam's rational approximation of the standard normal quantile (relative error
+     * below 1.2e-9), only used to build the table.
+     */
+    static double inverseNormal(double p) {
+        final double[] a = {-3.969683028665376e+01, 2.209460984245205e+02, -2.759285104469687e+02,
+                1.383577518672690e+02, -3.066479806614716e+01, 2.506628277459239e+00};
+        final double[] b = {-5.447609879822406e+01, 1.615858368580409e+02, -1.556989798598866e+02,
+                6.680131188771972e+01, -1.328068155288572e+01};
+        final double[] c = {-7.784894002430293e-03, -3.223964580411365e-01, -2.400758277161838e+00,
+                -2.549732539343734e+00, 4.374664141464968e+00, 2.938163982698783e+00};
+        final double[] d = {7.784695709041462e-03, 3.224671290700398e-01, 2.445134137142996e+00,
+                3.754408661907416e+00};
+        double low = 0.02425;
+        if (p < low) {
+            double q = Math.sqrt(-2 * Math.log(p));
+            return (((((c[0] * q + c[1]) * q + c[2]) * q + c[3]) * q + c[4]) * q + c[5])
+                    / ((((d[0] * q + d[1]) * q + d[2]) * q + d[3]) * q + 1);
+        }
+        if (p > 1 - low) {
+            double q = Math.sqrt(-2 * Math.log(1 - p));
+            return -(((((c[0] * q + c[1]) * q + c[2]) * q + c[3]) * q + c[4]) * q + c[5])
+                    / ((((d[0] * q + d[1]) * q + d[2]) * q + d[3]) * q + 1);
+        }
+        double q = p - 0.5;
+        double r = q * q;
+        return (((((a[0] * r + a[1]) * r + a[2]) * r + a[3]) * r + a[4]) * r + a[5]) * q
+                / (((((b[0] * r + b[1]) * r + b[2]) * r + b[3]) * r + b[4]) * r + 1);
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.autoclicker.jitter;
+
+/**
+ * Immutable humanization settings: how intervals are spread around the configured one and
+ * how far taps may land from the target.
+ */
+public final class JitterSpec {
+
+    public enum IntervalMode {
+        NONE,
+        // Symmetric spread; spread is the standard deviation relative to the interval
+        GAUSSIAN,
+        // Right-skewed like human reaction times; spread is sigma of the log, median = interval
+        LOG_NORMAL
+    }
+
+    public static final JitterSpec NONE = new JitterSpec(IntervalMode.NONE, 0, 0, 0);
+
+    public final IntervalMode intervalMode;
+    public final double intervalSpread;
+    // Half-axes of the ellipse taps are spread over, in pixels
+    public final int radiusX;
+    public final int radiusY;
+
+    public JitterSpec(IntervalMode intervalMode, double intervalSpread, int radiusX, int radiusY) {
+        if (intervalSpread < 0 || radiusX < 0 || radiusY < 0) {
+            throw new IllegalArgumentException("Jitter must not be negative");
+        }
+        this.intervalMode = intervalMode;
+        this.intervalSpread = intervalSpread;
+        this.radiusX = radiusX;
+        this.radiusY = radiusY;
+    }
+
+    public boolean isEnabled() {
+        return intervalMode != IntervalMode.NONE || radiusX > 0 || radiusY > 0;
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.autoclicker.jitter;
+
+import java.util.SplittableRandom;
+
+/**
+ * Spreads taps uniformly over an ellipse around the target. Points are drawn by rejection
+ * from the bounding square (accepted about 79% of the time), which needs no sqrt, sin or
+ * cos per tap.
+ */
+public final class PositionJitter {
+
+    private final int radiusX;
+    private final int radiusY;
+    private final SplittableRandom random;
+
+    public PositionJitter(int radiusX, int radiusY, long seed) {
+        this.radiusX = radiusX;
+        this.radiusY = radiusY;
+        this.random = new SplittableRandom(seed);
+    }
+
+    // Writes the jittered point for (x, y) into out[0], out[1]
+    public void apply(int x, int y, int[] out) {
+        double u;
+        double v;
+        do {
+            u = random.nextDouble() * 2 - 1;
+            v = random.nextDouble() * 2 - 1;
+        } while (u * u + v * v > 1);
+        out[0] = x + (int) Math.round(u * radiusX);
+        out[1] = y + (int) Math.round(v * radiusY);
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.autoclicker.jobs;
+
+import com.example.autoclicker.scheduler.TimingWheel;
+
+/**
+ * One independent click loop run by a {@link JobEngine}: a point, an interval and a
+ * repeat count. Higher priority jobs get the gesture's strokes first when more jobs are
+ * due in a slot than one gesture can carry.
+ */
+public final class ClickJob {
+
+    public final int id;
+    public final int x;
+    public final int y;
+    public final long intervalNanos;
+    // 0 repeats forever
+    public final int repeatCount;
+    public final int priority;
+
+    // Owned by the engine and guarded by its lock
+    volatile boolean running;
+    long dueNanos;
+    TimingWheel.Timer<ClickJob> timer = new TimingWheel.Timer<>(this);
+
+    private volatile long clicks;
+    private volatile long dropped;
+    private volatile long deferred;
+
+    ClickJob(int id, int x, int y, long intervalNanos, int repeatCount, int priority) {
+        this.id = id;
+        this.x = x;
+        this.y = y;
+        this.intervalNanos = intervalNanos;
+        this.repeatCount = repeatCount;
+        this.priority = priority;
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    // Taps dispatched
+    public long getClicks() {
+        return clicks;
+    }
+
+    // Taps lost because the dispatch pipeline was full
+    public long getDropped() {
+        return dropped;
+    }
+
+    // Times the job was pushed to the next slot by higher priority jobs
+    public long getDeferred() {
+        return deferred;
+    }
+
+    void onClicked() {
+        clicks++;
+    }
+
+    void onDropped() {
+        dropped++;
+    }
+
+    void onDeferred() {
+        deferred++;
+    }
+
+    void resetStats() {
+        clicks = 0;
+        dropped = 0;
+        deferred = 0;
+    }
+
+    @Override
+    public String toString() {
+        return "#" + id + " (" + x + ", " + y + ") every " + intervalNanos / 1_000_000 + " ms: "
+                + clicks + (repeatCount > 0 ? "/" + repeatCount : "") + " clicks, "
+                + dropped + " dropped, " + deferred + " deferred" + (running ? "" : " [stopped]");
+    }
+}
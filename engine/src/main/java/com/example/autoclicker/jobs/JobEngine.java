@@ -0,0 +1,271 @@
+package com.example.autoclicker.jobs;
+
+import com.example.autoclicker.scheduler.TickSource;
+import com.example.autoclicker.scheduler.TimingWheel;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs any number of {@link ClickJob}s on one shared {@link TimingWheel}. Every job due
+ * in the same wheel tick is merged into one batch of strokes, so the number of gestures
+ * dispatched grows with the number of busy ticks rather than with the number of jobs.
+ *
+ * <p>The engine is the scheduler's {@link TickSource}: each tick with work leaves one
+ * batch in {@link #getBatchX(int)}/{@link #getBatchY(int)}, and the caller reports whether
+ * it went out through {@link #commitBatch(boolean)}. Jobs may be added, started and
+ * stopped from other threads at any time; starting and stopping are O(1).
+ */
+public final class JobEngine implements TickSource {
+
+    private final long slotNanos;
+    private final int maxStrokes;
+    private final List<ClickJob> jobs = new ArrayList<>();
+    private int nextId = 1;
+    private int runningCount;
+
+    // Created when the scheduler starts driving the engine, dropped when that run ends
+    private TimingWheel<ClickJob> wheel;
+    private long lastNanos;
+
+    private ClickJob[] due = new ClickJob[8];
+    private ClickJob[] batchJobs = new ClickJob[8];
+    private int batchJobCount;
+    private final int[] batchX;
+    private final int[] batchY;
+    private int batchSize;
+
+    private long batches;
+    private long strokes;
+
+    public JobEngine(long slotNanos, int maxStrokes) {
+        if (slotNanos <= 0) {
+            throw new IllegalArgumentException("Slot must be positive");
+        }
+        if (maxStrokes < 1) {
+            throw new IllegalArgumentException("Max strokes must be at least 1");
+        }
+        this.slotNanos = slotNanos;
+        this.maxStrokes = maxStrokes;
+        batchX = new int[maxStrokes];
+        batchY = new int[maxStrokes];
+    }
+
+    public synchronized ClickJob add(int x, int y, long intervalNanos, int repeatCount, int priority) {
+        if (intervalNanos <= 0) {
+            throw new IllegalArgumentException("Interval must be positive");
+        }
+        ClickJob job = new ClickJob(nextId++, x, y, intervalNanos, repeatCount, priority);
+        jobs.add(job);
+        if (due.length < jobs.size()) {
+            due = new ClickJob[jobs.size() * 2];
+            batchJobs = new ClickJob[jobs.size() * 2];
+        }
+        return job;
+    }
+
+    public synchronized void remove(ClickJob job) {
+        stop(job);
+        jobs.remove(job);
+    }
+
+    // Starts (or restarts) the job as soon as possible, with fresh stats
+    public synchronized void start(ClickJob job) {
+        if (job.running || !jobs.contains(job)) {
+            return;
+        }
+        job.resetStats();
+        job.running = true;
+        runningCount++;
+        job.dueNanos = lastNanos;
+        // Without a wheel, the next start(long) schedules every running job
+        if (wheel != null) {
+            wheel.schedule(job.timer, job.dueNanos);
+        }
+    }
+
+    public synchronized void stop(ClickJob job) {
+        if (!job.running) {
+            return;
+        }
+        if (wheel != null) {
+            wheel.cancel(job.timer);
+        }
+        job.running = false;
+        runningCount--;
+    }
+
+    public synchronized void stopAll() {
+        for (ClickJob job : jobs) {
+            stop(job);
+        }
+    }
+
+    public synchronized List<ClickJob> getJobs() {
+        return new ArrayList<>(jobs);
+    }
+
+    public synchronized boolean hasRunningJobs() {
+        return runningCount > 0;
+    }
+
+    // Gestures emitted and the strokes they carried; strokes / batches is the merge ratio
+    public synchronized long getBatches() {
+        return batches;
+    }
+
+    public synchronized long getStrokes() {
+        return strokes;
+    }
+
+    @Override
+    public synchronized void start(long nowNanos) {
+        // A run stopped from outside leaves its wheel behind, possibly with timers armed
+        dropWheel();
+        lastNanos = nowNanos;
+        wheel = new TimingWheel<>(slotNanos, nowNanos);
+        for (ClickJob job : jobs) {
+            if (job.running) {
+                job.dueNanos = nowNanos;
+                wheel.schedule(job.timer, nowNanos);
+            }
+        }
+    }
+
+    @Override
+    public synchronized long nanosUntilNextTick(long nowNanos) {
+        lastNanos = nowNanos;
+        if (runningCount == 0) {
+            // The run is over; jobs started from now on wait for the next start(long)
+            dropWheel();
+            return Long.MAX_VALUE;
+        }
+        return wheel.nanosUntilNext(nowNanos);
+    }
+
+    /**
+     * Collects every job due by {@code nowNanos} into the batch. Returns 1 when there is a
+     * batch to dispatch, 0 otherwise (e.g. the wheel only had to cascade).
+     */
+    @Override
+    public synchronized int poll(long nowNanos) {
+        lastNanos = nowNanos;
+        wheel.advance(nowNanos);
+        int dueCount = 0;
+        TimingWheel.Timer<ClickJob> timer;
+        while ((timer = wheel.pollExpired()) != null) {
+            due[dueCount++] = timer.getPayload();
+        }
+
+        sortByPriority(dueCount);
+        batchSize = 0;
+        batchJobCount = 0;
+        for (int i = 0; i < dueCount; i++) {
+            ClickJob job = due[i];
+            due[i] = null;
+            int stroke = strokeFor(job.x, job.y);
+            if (stroke < 0) {
+                // No stroke left in this gesture; try again next slot
+                job.onDeferred();
+                wheel.schedule(job.timer, nowNanos + slotNanos);
+                continue;
+            }
+            batchJobs[batchJobCount++] = job;
+            // Stay on the job's own grid, skipping ticks missed while we were late
+            long next = job.dueNanos + job.intervalNanos;
+            if (next <= nowNanos) {
+                next += ((nowNanos - next) / job.intervalNanos + 1) * job.intervalNanos;
+            }
+            job.dueNanos = next;
+            wheel.schedule(job.timer, next);
+        }
+        return batchSize > 0 ? 1 : 0;
+    }
+
+    public synchronized int getBatchSize() {
+        return batchSize;
+    }
+
+    public synchronized int getBatchX(int stroke) {
+        return batchX[stroke];
+    }
+
+    public synchronized int getBatchY(int stroke) {
+        return batchY[stroke];
+    }
+
+    /**
+     * Records the outcome of the last batch. Jobs that reach their repeat count stop.
+     */
+    public synchronized void commitBatch(boolean dispatched) {
+        if (dispatched) {
+            batches++;
+            strokes += batchSize;
+        }
+        for (int i = 0; i < batchJobCount; i++) {
+            ClickJob job = batchJobs[i];
+            batchJobs[i] = null;
+            if (!job.running) {
+                continue;
+            }
+            if (!dispatched) {
+                job.onDropped();
+                continue;
+            }
+            job.onClicked();
+            if (job.repeatCount > 0 && job.getClicks() >= job.repeatCount) {
+                stop(job);
+            }
+        }
+        batchJobCount = 0;
+        batchSize = 0;
+    }
+
+    // Forgets the last batch without counting it, e.g. while the run is paused
+    public synchronized void discardBatch() {
+        for (int i = 0; i < batchJobCount; i++) {
+            batchJobs[i] = null;
+        }
+        batchJobCount = 0;
+        batchSize = 0;
+    }
+
+    // A timer still linked into an old wheel would corrupt the new one it is scheduled on
+    private void dropWheel() {
+        if (wheel == null) {
+            return;
+        }
+        for (ClickJob job : jobs) {
+            wheel.cancel(job.timer);
+        }
+        wheel = null;
+    }
+
+    // Index of the stroke tapping (x, y), adding one if there is room; -1 when full
+    private int strokeFor(int x, int y) {
+        for (int i = 0; i < batchSize; i++) {
+            if (batchX[i] == x && batchY[i] == y) {
+                return i;
+            }
+        }
+        if (batchSize == maxStrokes) {
+            return -1;
+        }
+        batchX[batchSize] = x;
+        batchY[batchSize] = y;
+        return batchSize++;
+    }
+
+    // Stable insertion sort, highest priority first; due lists are short
+    private void sortByPriority(int count) {
+        for (int i = 1; i < count; i++) {
+            ClickJob job = due[i];
+            int j = i - 1;
+            while (j >= 0 && due[j].priority < job.priority) {
+                due[j + 1] = due[j];
+                j--;
+            }
+            due[j + 1] = job;
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.autoclicker.journal;
+
+/**
+ * Layout of the run journal. Records are fixed-size and only ever appended, so a crash can
+ * at worst leave one partial record at the end; each carries a CRC so recovery can tell a
+ * torn or garbled tail from a good record and cut it off.
+ *
+ * <pre>
+ * header (16 bytes, big-endian)
+ *   int   magic 'ACRJ'
+ *   short version
+ *   short record size
+ *   long  reserved (0)
+ * records (RECORD_SIZE bytes each)
+ *   byte  type (BEGIN, PROGRESS or END)
+ *   byte  catch-up policy ordinal (BEGIN only)
+ *   byte  flags (FLAG_HIGH_RATE, BEGIN only)
+ *   byte  reserved (0)
+ *   int   clicks so far
+ *   int   x, int y (BEGIN only)
+ *   long  interval (ms, BEGIN only)
+ *   int   repeat count (BEGIN only)
+ *   int   CRC32 of the 28 bytes before it
+ * </pre>
+ */
+final class JournalFormat {
+
+    static final int MAGIC = 0x4143524A;
+    static final short VERSION = 1;
+    static final int HEADER_SIZE = 16;
+    static final int RECORD_SIZE = 32;
+    static final int CRC_OFFSET = RECORD_SIZE - 4;
+
+    // A run started, with its config and the clicks it starts from
+    static final byte BEGIN = 1;
+    // The run reached this many clicks
+    static final byte PROGRESS = 2;
+    // The run finished or was stopped by the user; nothing to resume
+    static final byte END = 3;
+
+    static final int FLAG_HIGH_RATE = 1;
+
+    private JournalFormat() {
+    }
+}
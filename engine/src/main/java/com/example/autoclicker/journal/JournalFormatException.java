@@ -0,0 +1,16 @@
+package com.example.autoclicker.journal;
+
+import java.io.IOException;
+
+/**
+ * Thrown when the journal header is corrupted or written by an unknown version. A torn or
+ * garbled record is not an error; recovery drops it and everything after it.
+ */
+public class JournalFormatException extends IOException {
+
+    private static final long serialVersionUID = 1L;
+
+    public JournalFormatException(String message) {
+        super(message);
+    }
+}
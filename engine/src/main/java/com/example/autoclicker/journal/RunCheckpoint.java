@@ -0,0 +1,53 @@
+package com.example.autoclicker.journal;
+
+import com.example.autoclicker.scheduler.CatchUpPolicy;
+import com.example.autoclicker.state.ClickConfig;
+
+/**
+ * A run that was interrupted before it ended: the settings it was started with and the
+ * last click count that reached the disk.
+ */
+public final class RunCheckpoint {
+
+    public final int x;
+    public final int y;
+    public final long intervalMs;
+    public final int repeatCount;
+    public final CatchUpPolicy catchUpPolicy;
+    public final boolean highRate;
+    public final int clicks;
+
+    RunCheckpoint(int x, int y, long intervalMs, int repeatCount, CatchUpPolicy catchUpPolicy,
+                  boolean highRate, int clicks) {
+        this.x = x;
+        this.y = y;
+        this.intervalMs = intervalMs;
+        this.repeatCount = repeatCount;
+        this.catchUpPolicy = catchUpPolicy;
+        this.highRate = highRate;
+        this.clicks = clicks;
+    }
+
+    RunCheckpoint withClicks(int clicks) {
+        return new RunCheckpoint(x, y, intervalMs, repeatCount, catchUpPolicy, highRate, clicks);
+    }
+
+    // True when the run had already reached its repeat count
+    public boolean isComplete() {
+        return repeatCount != 0 && clicks >= repeatCount;
+    }
+
+    public ClickConfig applyTo(ClickConfig config) {
+        return config.withPosition(x, y)
+                .withInterval(intervalMs)
+                .withRepeatCount(repeatCount)
+                .withCatchUpPolicy(catchUpPolicy)
+                .withHighRate(highRate);
+    }
+
+    @Override
+    public String toString() {
+        return clicks + (repeatCount == 0 ? "" : "/" + repeatCount) + " clicks at (" + x + ", " + y
+                + ") every " + intervalMs + " ms";
+    }
+}
@@ -0,0 +1,361 @@
+package com.example.autoclicker.journal;
+
+import com.example.autoclicker.scheduler.CatchUpPolicy;
+import com.example.autoclicker.scheduler.Clock;
+import com.example.autoclicker.state.ClickConfig;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only log of the current click run, so a run cut short by the system killing the
+ * service can carry on from the last durable click count instead of from zero.
+ *
+ * <p>Clicks are not written one by one. {@link #onClick(int)} only remembers the count,
+ * without taking the journal's lock or touching the disk, and asks for a {@link #sync()}
+ * once {@code syncEveryClicks} clicks or {@code syncIntervalNanos} have passed since the
+ * last one. The caller runs that sync on a thread of its own, which appends a PROGRESS
+ * record and forces it to disk, so a kill loses at most one batch of progress and the
+ * clicking thread never waits on I/O. Opening the journal
+ * recovers it: records are checked in order, the first torn or garbled one and everything
+ * after it are cut off, and a run that began but never ended becomes the checkpoint.
+ */
+public final class RunJournal {
+
+    // Beyond this many records the log is rewritten as a single BEGIN at the current count
+    static final int MAX_RECORDS = 4096;
+
+    private static final CatchUpPolicy[] POLICIES = CatchUpPolicy.values();
+
+    private final File file;
+    private final Clock clock;
+    private final long syncIntervalNanos;
+    private final int syncEveryClicks;
+    private final byte[] record = new byte[JournalFormat.RECORD_SIZE];
+    private final ByteBuffer recordBuffer = ByteBuffer.wrap(record);
+    private final CRC32 crc = new CRC32();
+    private FileChannel channel;
+
+    // Interrupted run found by recovery, until a new run begins or it is cleared
+    private RunCheckpoint checkpoint;
+    // Run being logged; clicks holds the count it started from
+    private RunCheckpoint run;
+    // Read and written by onClick without the lock, so a sync in progress never holds it up
+    private volatile boolean active;
+    private volatile int clicks;
+    private volatile int syncedClicks;
+    private volatile long lastSyncNanos;
+    private final AtomicBoolean syncRequested = new AtomicBoolean();
+    private int records;
+    private long syncs;
+    private long truncatedBytes;
+
+    private RunJournal(File file, Clock clock, long syncIntervalNanos, int syncEveryClicks) {
+        this.file = file;
+        this.clock = clock;
+        this.syncIntervalNanos = syncIntervalNanos;
+        this.syncEveryClicks = syncEveryClicks;
+    }
+
+    /**
+     * Opens the journal, creating it if missing, and recovers any interrupted run. Throws
+     * {@link JournalFormatException} only for a bad header; the caller may delete the file
+     * and try again.
+     */
+    public static RunJournal open(File file, Clock clock, long syncIntervalNanos,
+                                  int syncEveryClicks) throws IOException {
+        if (syncEveryClicks < 1) {
+            throw new IllegalArgumentException("Sync batch must be at least one click");
+        }
+        RunJournal journal = new RunJournal(file, clock, syncIntervalNanos, syncEveryClicks);
+        journal.load();
+        return journal;
+    }
+
+    // The interrupted run to resume, or null if the last run ended cleanly
+    public synchronized RunCheckpoint getCheckpoint() {
+        return checkpoint;
+    }
+
+    // Forgets the interrupted run, e.g. when it had already reached its repeat count
+    public synchronized void clearCheckpoint() throws IOException {
+        if (checkpoint == null) {
+            return;
+        }
+        reset();
+        channel.force(false);
+        checkpoint = null;
+    }
+
+    /**
+     * Starts logging a new fixed-target run that already has {@code startClicks} clicks,
+     * replacing whatever the journal held. Durable when this returns.
+     */
+    public synchronized void begin(ClickConfig config, int startClicks) throws IOException {
+        reset();
+        run = new RunCheckpoint(config.x, config.y, config.intervalMs, config.repeatCount,
+                config.catchUpPolicy, config.highRate, startClicks);
+        append(JournalFormat.BEGIN, run, startClicks);
+        channel.force(false);
+        checkpoint = null;
+        clicks = startClicks;
+        syncedClicks = startClicks;
+        lastSyncNanos = clock.nanoTime();
+        active = true;
+    }
+
+    /**
+     * Records the run's click count. Never blocks and never touches the disk; returns true
+     * when the batch is full or the sync interval has passed, once until the next
+     * {@link #sync()} completes, and the caller should then run that sync.
+     */
+    public boolean onClick(int count) {
+        if (!active) {
+            return false;
+        }
+        clicks = count;
+        if (count - syncedClicks < syncEveryClicks
+                && clock.nanoTime() - lastSyncNanos < syncIntervalNanos) {
+            return false;
+        }
+        return syncRequested.compareAndSet(false, true);
+    }
+
+    // Makes the latest count durable now, when onClick asked for it or before the service goes away
+    public synchronized void sync() throws IOException {
+        try {
+            if (run != null && clicks != syncedClicks) {
+                writeProgress();
+            }
+        } finally {
+            syncRequested.set(false);
+        }
+    }
+
+    // The run finished or the user stopped it; there is nothing left to resume
+    public synchronized void end(int count) throws IOException {
+        if (run == null) {
+            return;
+        }
+        active = false;
+        append(JournalFormat.END, run, count);
+        channel.force(false);
+        run = null;
+        syncs++;
+    }
+
+    public synchronized boolean isActive() {
+        return run != null;
+    }
+
+    // Times the journal went to disk since it was opened
+    public synchronized long getSyncCount() {
+        return syncs;
+    }
+
+    public synchronized int getRecordCount() {
+        return records;
+    }
+
+    // Bytes of torn or garbled tail that recovery cut off
+    public synchronized long getTruncatedBytes() {
+        return truncatedBytes;
+    }
+
+    public synchronized void close() throws IOException {
+        active = false;
+        run = null;
+        channel.close();
+    }
+
+    private void writeProgress() throws IOException {
+        // Clicks go on arriving while this writes
+        int count = clicks;
+        if (records >= MAX_RECORDS) {
+            compact(count);
+        } else {
+            append(JournalFormat.PROGRESS, run, count);
+            channel.force(false);
+        }
+        syncedClicks = count;
+        lastSyncNanos = clock.nanoTime();
+        syncs++;
+    }
+
+    // Empties the journal back to its header
+    private void reset() throws IOException {
+        channel.truncate(JournalFormat.HEADER_SIZE);
+        channel.position(JournalFormat.HEADER_SIZE);
+        records = 0;
+        active = false;
+        run = null;
+    }
+
+    private void append(byte type, RunCheckpoint config, int count) throws IOException {
+        encode(type, config, count);
+        recordBuffer.clear();
+        while (recordBuffer.hasRemaining()) {
+            channel.write(recordBuffer);
+        }
+        records++;
+    }
+
+    private void encode(byte type, RunCheckpoint config, int count) {
+        ByteBuffer r = recordBuffer;
+        boolean begin = type == JournalFormat.BEGIN;
+        r.clear();
+        r.put(type);
+        r.put(begin ? (byte) config.catchUpPolicy.ordinal() : 0);
+        r.put(begin && config.highRate ? (byte) JournalFormat.FLAG_HIGH_RATE : 0);
+        r.put((byte) 0);
+        r.putInt(count);
+        r.putInt(begin ? config.x : 0);
+        r.putInt(begin ? config.y : 0);
+        r.putLong(begin ? config.intervalMs : 0);
+        r.putInt(begin ? config.repeatCount : 0);
+        crc.reset();
+        crc.update(record, 0, JournalFormat.CRC_OFFSET);
+        r.putInt((int) crc.getValue());
+    }
+
+    // Writes to a temporary file first so a crash leaves either the old log or the new one
+    private void compact(int count) throws IOException {
+        File temp = new File(file.getPath() + ".tmp");
+        try (FileChannel out = FileChannel.open(temp.toPath(), StandardOpenOption.WRITE,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            out.write(header());
+            encode(JournalFormat.BEGIN, run, count);
+            recordBuffer.clear();
+            while (recordBuffer.hasRemaining()) {
+                out.write(recordBuffer);
+            }
+            out.force(false);
+        }
+        channel.close();
+        if (!temp.renameTo(file)) {
+            temp.delete();
+            // Keep appending to the old log rather than losing it
+            channel = FileChannel.open(file.toPath(), StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+            channel.position(channel.size());
+            throw new IOException("Could not replace " + file);
+        }
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+        channel.position(channel.size());
+        run = run.withClicks(count);
+        records = 1;
+    }
+
+    private static ByteBuffer header() {
+        ByteBuffer header = ByteBuffer.allocate(JournalFormat.HEADER_SIZE);
+        header.putInt(JournalFormat.MAGIC);
+        header.putShort(JournalFormat.VERSION);
+        header.putShort((short) JournalFormat.RECORD_SIZE);
+        header.putLong(0);
+        header.flip();
+        return header;
+    }
+
+    private void load() throws IOException {
+        File parent = file.getParentFile();
+        if (parent != null && !parent.isDirectory() && !parent.mkdirs()) {
+            throw new IOException("Could not create " + parent);
+        }
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.CREATE);
+        try {
+            recover();
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private void recover() throws IOException {
+        long size = channel.size();
+        if (size < JournalFormat.HEADER_SIZE) {
+            // New file, or a crash while creating it
+            channel.truncate(0);
+            channel.write(header(), 0);
+            channel.force(true);
+            channel.position(JournalFormat.HEADER_SIZE);
+            truncatedBytes = size;
+            return;
+        }
+        ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        if (buffer.getInt() != JournalFormat.MAGIC) {
+            throw new JournalFormatException("Not a run journal");
+        }
+        int version = buffer.getShort();
+        if (version < 1 || version > JournalFormat.VERSION) {
+            throw new JournalFormatException("Unsupported journal version " + version);
+        }
+        if (buffer.getShort() != JournalFormat.RECORD_SIZE) {
+            throw new JournalFormatException("Unexpected journal record size");
+        }
+
+        RunCheckpoint interrupted = null;
+        long valid = JournalFormat.HEADER_SIZE;
+        scan:
+        for (long offset = valid; offset + JournalFormat.RECORD_SIZE <= size;
+             offset += JournalFormat.RECORD_SIZE) {
+            buffer.position((int) offset);
+            buffer.get(record);
+            crc.reset();
+            crc.update(record, 0, JournalFormat.CRC_OFFSET);
+            if (recordBuffer.getInt(JournalFormat.CRC_OFFSET) != (int) crc.getValue()) {
+                break;
+            }
+            int count = recordBuffer.getInt(4);
+            switch (record[0]) {
+                case JournalFormat.BEGIN:
+                    RunCheckpoint begun = decodeBegin(count);
+                    if (begun == null) {
+                        break scan;
+                    }
+                    interrupted = begun;
+                    break;
+                case JournalFormat.PROGRESS:
+                    if (interrupted == null) {
+                        break scan;
+                    }
+                    interrupted = interrupted.withClicks(Math.max(interrupted.clicks, count));
+                    break;
+                case JournalFormat.END:
+                    interrupted = null;
+                    break;
+                default:
+                    break scan;
+            }
+            valid = offset + JournalFormat.RECORD_SIZE;
+            records++;
+        }
+
+        if (valid < size) {
+            // Drop the torn tail so new records follow the last good one
+            channel.truncate(valid);
+            channel.force(true);
+            truncatedBytes = size - valid;
+        }
+        channel.position(valid);
+        checkpoint = interrupted;
+    }
+
+    private RunCheckpoint decodeBegin(int count) {
+        ByteBuffer r = recordBuffer;
+        int policy = record[1];
+        long intervalMs = r.getLong(16);
+        int repeatCount = r.getInt(24);
+        if (policy < 0 || policy >= POLICIES.length || intervalMs <= 0 || repeatCount < 0
+                || count < 0) {
+            return null;
+        }
+        return new RunCheckpoint(r.getInt(8), r.getInt(12), intervalMs, repeatCount,
+                POLICIES[policy], (record[2] & JournalFormat.FLAG_HIGH_RATE) != 0, count);
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.autoclicker.macro;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Forward-only decoder over a macro body. The current event's fields are held in reused
+ * primitive storage, so iterating allocates nothing unless a swipe has more points than
+ * any seen before.
+ */
+public final class MacroCursor {
+
+    private final ByteBuffer body;
+    private final int eventCount;
+
+    private int index = -1;
+    private byte type;
+    private long timeMs;
+    private long durationMs;
+    private int pointCount;
+    private int[] xs = new int[16];
+    private int[] ys = new int[16];
+
+    MacroCursor(ByteBuffer body, int eventCount) {
+        this.body = body;
+        this.eventCount = eventCount;
+    }
+
+    public boolean next() throws MacroFormatException {
+        if (index + 1 >= eventCount) {
+            index = eventCount;
+            return false;
+        }
+        if (!body.hasRemaining()) {
+            throw new MacroFormatException("Macro ends after " + (index + 1) + " of "
+                    + eventCount + " events");
+        }
+
+        int prevX = pointCount > 0 ? xs[0] : 0;
+        int prevY = pointCount > 0 ? ys[0] : 0;
+
+        type = body.get();
+        timeMs += readVarint();
+        durationMs = readVarint();
+
+        if (type == MacroFormat.TYPE_TAP) {
+            pointCount = 1;
+        } else if (type == MacroFormat.TYPE_SWIPE) {
+            long count = readVarint();
+            if (count < 2 || count > body.remaining()) {
+                throw new MacroFormatException("Bad swipe point count " + count);
+            }
+            pointCount = (int) count;
+            if (pointCount > xs.length) {
+                xs = Arrays.copyOf(xs, pointCount);
+                ys = Arrays.copyOf(ys, pointCount);
+            }
+        } else {
+            throw new MacroFormatException("Unknown event type " + type);
+        }
+
+        xs[0] = prevX + MacroFormat.unzigzag((int) readVarint());
+        ys[0] = prevY + MacroFormat.unzigzag((int) readVarint());
+        for (int i = 1; i < pointCount; i++) {
+            xs[i] = xs[i - 1] + MacroFormat.unzigzag((int) readVarint());
+            ys[i] = ys[i - 1] + MacroFormat.unzigzag((int) readVarint());
+        }
+
+        index++;
+        return true;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public boolean isLast() {
+        return index == eventCount - 1;
+    }
+
+    public boolean isSwipe() {
+        return type == MacroFormat.TYPE_SWIPE;
+    }
+
+    public long getTimeMs() {
+        return timeMs;
+    }
+
+    public long getDurationMs() {
+        return durationMs;
+    }
+
+    public int getPointCount() {
+        return pointCount;
+    }
+
+    public int getX(int point) {
+        return xs[point];
+    }
+
+    public int getY(int point) {
+        return ys[point];
+    }
+
+    private long readVarint() throws MacroFormatException {
+        long result = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            if (!body.hasRemaining()) {
+                throw new MacroFormatException("Truncated event " + (index + 1));
+            }
+            byte b = body.get();
+            result |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return result;
+            }
+        }
+        throw new MacroFormatException("Malformed varint in event " + (index + 1));
+    }
+}
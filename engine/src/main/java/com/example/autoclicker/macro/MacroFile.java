@@ -0,0 +1,90 @@
+package com.example.autoclicker.macro;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * A macro opened for playback. Files are memory-mapped and only the header is read up
+ * front; events are decoded on demand by a {@link MacroCursor}, so opening costs the same
+ * for ten events as for a million.
+ */
+public final class MacroFile implements Closeable {
+
+    private final FileChannel channel;
+    private final ByteBuffer body;
+    private final int version;
+    private final int eventCount;
+    private final int crc;
+
+    private MacroFile(FileChannel channel, ByteBuffer buffer) throws MacroFormatException {
+        this.channel = channel;
+
+        if (buffer.remaining() < MacroFormat.HEADER_SIZE) {
+            throw new MacroFormatException("File too short for a macro header");
+        }
+        if (buffer.getInt() != MacroFormat.MAGIC) {
+            throw new MacroFormatException("Not a macro file");
+        }
+        version = buffer.getShort();
+        if (version < 1 || version > MacroFormat.VERSION) {
+            throw new MacroFormatException("Unsupported macro version " + version);
+        }
+        buffer.getShort();
+        eventCount = buffer.getInt();
+        int bodyLength = buffer.getInt();
+        crc = buffer.getInt();
+        if (eventCount < 0 || bodyLength != buffer.remaining()) {
+            throw new MacroFormatException("Macro body is " + buffer.remaining()
+                    + " bytes, header says " + bodyLength);
+        }
+        body = buffer.slice();
+    }
+
+    public static MacroFile open(File file) throws IOException {
+        FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        try {
+            ByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new MacroFile(channel, mapped);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public static MacroFile wrap(byte[] data) throws MacroFormatException {
+        return new MacroFile(null, ByteBuffer.wrap(data));
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    public int getEventCount() {
+        return eventCount;
+    }
+
+    public MacroCursor cursor() {
+        return new MacroCursor(body.duplicate(), eventCount);
+    }
+
+    // Checks the body CRC; a full pass over the data, so playback does not do it by default
+    public void verify() throws MacroFormatException {
+        CRC32 check = new CRC32();
+        check.update(body.duplicate());
+        if ((int) check.getValue() != crc) {
+            throw new MacroFormatException("Macro checksum mismatch");
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.autoclicker.macro;
+
+/**
+ * Layout of a macro file.
+ *
+ * <pre>
+ * header (20 bytes, big-endian)
+ *   int   magic 'ACMF'
+ *   short version
+ *   short flags (unused, 0)
+ *   int   event count
+ *   int   body length in bytes
+ *   int   CRC32 of the body
+ * body, one record per event
+ *   byte    type (TAP or SWIPE)
+ *   varint  start time, delta from the previous event's start (ms)
+ *   varint  duration (ms)
+ *   TAP:    zigzag varint x, y as deltas from the previous event's first point
+ *   SWIPE:  varint point count, then the first point as for TAP and every following
+ *           point as a zigzag delta from the point before it
+ * </pre>
+ */
+final class MacroFormat {
+
+    static final int MAGIC = 0x41434D46;
+    static final short VERSION = 1;
+    static final int HEADER_SIZE = 20;
+
+    static final byte TYPE_TAP = 1;
+    static final byte TYPE_SWIPE = 2;
+
+    private MacroFormat() {
+    }
+
+    static int zigzag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    static int unzigzag(int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.autoclicker.macro;
+
+import java.io.IOException;
+
+/**
+ * Thrown when a macro file is truncated, corrupted or written by an unknown version.
+ */
+public class MacroFormatException extends IOException {
+
+    private static final long serialVersionUID = 1L;
+
+    public MacroFormatException(String message) {
+        super(message);
+    }
+}
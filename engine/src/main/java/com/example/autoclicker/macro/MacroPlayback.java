@@ -0,0 +1,73 @@
+package com.example.autoclicker.macro;
+
+import com.example.autoclicker.scheduler.TickSource;
+
+/**
+ * Feeds a macro's events to the click scheduler at their recorded times. After each tick
+ * the cursor is positioned on the event that is due.
+ */
+public final class MacroPlayback implements TickSource {
+
+    private final MacroFile file;
+    private MacroCursor cursor;
+    private long startNanos;
+    private boolean consumed;
+    private boolean finished;
+    private MacroFormatException error;
+
+    public MacroPlayback(MacroFile file) {
+        this.file = file;
+    }
+
+    @Override
+    public void start(long nowNanos) {
+        startNanos = nowNanos;
+        cursor = file.cursor();
+        error = null;
+        finished = false;
+        advance();
+    }
+
+    @Override
+    public long nanosUntilNextTick(long nowNanos) {
+        if (consumed) {
+            advance();
+        }
+        if (finished) {
+            return Long.MAX_VALUE;
+        }
+        return startNanos + cursor.getTimeMs() * 1_000_000L - nowNanos;
+    }
+
+    @Override
+    public int poll(long nowNanos) {
+        if (nanosUntilNextTick(nowNanos) > 0) {
+            return 0;
+        }
+        consumed = true;
+        return 1;
+    }
+
+    public MacroCursor getCursor() {
+        return cursor;
+    }
+
+    public MacroFile getFile() {
+        return file;
+    }
+
+    // Set if playback stopped early because the file turned out to be corrupt
+    public MacroFormatException getError() {
+        return error;
+    }
+
+    private void advance() {
+        consumed = false;
+        try {
+            finished = !cursor.next();
+        } catch (MacroFormatException e) {
+            error = e;
+            finished = true;
+        }
+    }
+}
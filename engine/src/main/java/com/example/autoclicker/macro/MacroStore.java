@@ -0,0 +1,61 @@
+package com.example.autoclicker.macro;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Named macros kept as individual files in one directory.
+ */
+public final class MacroStore {
+
+    // Subdirectory of the app's files dir shared by the recorder and the player
+    public static final String DIRECTORY = "macros";
+
+    private static final String EXTENSION = ".acm";
+
+    private final File directory;
+
+    public MacroStore(File directory) {
+        this.directory = directory;
+    }
+
+    public void save(String name, MacroWriter macro) throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Could not create " + directory);
+        }
+        macro.writeTo(fileFor(name));
+    }
+
+    public MacroFile open(String name) throws IOException {
+        return MacroFile.open(fileFor(name));
+    }
+
+    public boolean delete(String name) {
+        return fileFor(name).delete();
+    }
+
+    public List<String> list() {
+        List<String> names = new ArrayList<>();
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                String fileName = file.getName();
+                if (fileName.endsWith(EXTENSION)) {
+                    names.add(fileName.substring(0, fileName.length() - EXTENSION.length()));
+                }
+            }
+        }
+        Collections.sort(names);
+        return names;
+    }
+
+    private File fileFor(String name) {
+        if (name.isEmpty() || name.contains("/") || name.startsWith(".")) {
+            throw new IllegalArgumentException("Invalid macro name: " + name);
+        }
+        return new File(directory, name + EXTENSION);
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.autoclicker.macro;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+/**
+ * Encodes taps and swipes into the macro format. Events must be added in start-time order.
+ */
+public final class MacroWriter {
+
+    private byte[] body = new byte[256];
+    private int length;
+    private int eventCount;
+    private long lastTimeMs;
+    private int lastX;
+    private int lastY;
+
+    public MacroWriter tap(long timeMs, int x, int y, long durationMs) {
+        beginEvent(MacroFormat.TYPE_TAP, timeMs, durationMs);
+        writePoint(x, y);
+        return this;
+    }
+
+    public MacroWriter swipe(long timeMs, int[] xs, int[] ys, int pointCount, long durationMs) {
+        if (pointCount < 2) {
+            throw new IllegalArgumentException("A swipe needs at least two points");
+        }
+        beginEvent(MacroFormat.TYPE_SWIPE, timeMs, durationMs);
+        writeVarint(pointCount);
+        writePoint(xs[0], ys[0]);
+        for (int i = 1; i < pointCount; i++) {
+            writeVarint(MacroFormat.zigzag(xs[i] - xs[i - 1]));
+            writeVarint(MacroFormat.zigzag(ys[i] - ys[i - 1]));
+        }
+        return this;
+    }
+
+    public int getEventCount() {
+        return eventCount;
+    }
+
+    public byte[] toByteArray() {
+        CRC32 crc = new CRC32();
+        crc.update(body, 0, length);
+
+        ByteBuffer out = ByteBuffer.allocate(MacroFormat.HEADER_SIZE + length);
+        out.putInt(MacroFormat.MAGIC);
+        out.putShort(MacroFormat.VERSION);
+        out.putShort((short) 0);
+        out.putInt(eventCount);
+        out.putInt(length);
+        out.putInt((int) crc.getValue());
+        out.put(body, 0, length);
+        return out.array();
+    }
+
+    // Writes to a temporary file first so a crash never leaves a half-written macro behind
+    public void writeTo(File file) throws IOException {
+        File temp = new File(file.getPath() + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(temp)) {
+            out.write(toByteArray());
+            out.getFD().sync();
+        }
+        if (!temp.renameTo(file)) {
+            temp.delete();
+            throw new IOException("Could not replace " + file);
+        }
+    }
+
+    private void beginEvent(byte type, long timeMs, long durationMs) {
+        if (timeMs < lastTimeMs) {
+            throw new IllegalArgumentException("Events must be added in time order");
+        }
+        if (durationMs <= 0) {
+            throw new IllegalArgumentException("Duration must be positive");
+        }
+        ensureCapacity(1);
+        body[length++] = type;
+        writeVarint(timeMs - lastTimeMs);
+        writeVarint(durationMs);
+        lastTimeMs = timeMs;
+        eventCount++;
+    }
+
+    private void writePoint(int x, int y) {
+        writeVarint(MacroFormat.zigzag(x - lastX));
+        writeVarint(MacroFormat.zigzag(y - lastY));
+        lastX = x;
+        lastY = y;
+    }
+
+    private void writeVarint(long value) {
+        ensureCapacity(10);
+        while ((value & ~0x7FL) != 0) {
+            body[length++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        body[length++] = (byte) value;
+    }
+
+    private void writeVarint(int value) {
+        writeVarint(value & 0xFFFFFFFFL);
+    }
+
+    private void ensureCapacity(int extra) {
+        if (length + extra > body.length) {
+            body = Arrays.copyOf(body, Math.max(body.length * 2, length + extra));
+        }
+    }
+}
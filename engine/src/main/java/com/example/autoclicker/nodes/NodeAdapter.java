@@ -0,0 +1,25 @@
+package com.example.autoclicker.nodes;
+
+/**
+ * Read access to a node tree. The service backs it with AccessibilityNodeInfo; tests use
+ * plain objects. Nodes must implement equals/hashCode so a re-fetched node equals the
+ * indexed one.
+ */
+public interface NodeAdapter<N> {
+
+    // Root of the active window, or null if there is none
+    N root();
+
+    int childCount(N node);
+
+    N child(N node, int index);
+
+    CharSequence viewId(N node);
+
+    CharSequence text(N node);
+
+    CharSequence contentDescription(N node);
+
+    // Writes left, top, right, bottom in screen coordinates
+    void bounds(N node, int[] out);
+}
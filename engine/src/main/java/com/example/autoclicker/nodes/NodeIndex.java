@@ -0,0 +1,262 @@
+package com.example.autoclicker.nodes;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Index of the active window's nodes by view id, text and content description, with each
+ * node's bounds cached at index time.
+ *
+ * <p>Content-change events only queue their source node; the next lookup re-walks just
+ * those subtrees. A full walk happens only when the window changes or a changed node was
+ * never indexed. Lookups and walks run on the caller's thread (the scheduler), keeping the
+ * binder traffic of a tree walk off the main thread.
+ */
+public final class NodeIndex<N> {
+
+    private static final class Entry<N> {
+        final N node;
+        final Entry<N> parent;
+        final List<Entry<N>> children = new ArrayList<>();
+        final int[] bounds = new int[4];
+        String viewId;
+        String text;
+        String description;
+
+        Entry(N node, Entry<N> parent) {
+            this.node = node;
+            this.parent = parent;
+        }
+    }
+
+    private final NodeAdapter<N> adapter;
+    private final Map<N, Entry<N>> byNode = new HashMap<>();
+    private final Map<String, List<Entry<N>>> byViewId = new HashMap<>();
+    private final Map<String, List<Entry<N>>> byText = new HashMap<>();
+    private final Map<String, List<Entry<N>>> byDescription = new HashMap<>();
+    private final List<N> pendingChanges = new ArrayList<>();
+    private Entry<N> root;
+    private boolean stale = true;
+
+    private long lookups;
+    private long lookupNanos;
+    private long maxLookupNanos;
+    private long nodesVisited;
+    private long fullRebuilds;
+    private long partialRebuilds;
+
+    public NodeIndex(NodeAdapter<N> adapter) {
+        this.adapter = adapter;
+    }
+
+    // The window changed; rebuild from the root on the next lookup
+    public synchronized void invalidateAll() {
+        stale = true;
+        pendingChanges.clear();
+    }
+
+    // The subtree under source changed; null means the event carried no source
+    public synchronized void invalidate(N source) {
+        if (source == null) {
+            invalidateAll();
+        } else if (!stale) {
+            pendingChanges.add(source);
+        }
+    }
+
+    /**
+     * Finds the first node matching {@code target} and writes the center of its cached
+     * bounds to {@code outCenter}. Returns false if no node matches.
+     */
+    public synchronized boolean find(NodeTarget target, int[] outCenter) {
+        long start = System.nanoTime();
+        try {
+            refresh();
+            List<Entry<N>> matches = mapFor(target.kind).get(target.value);
+            if (matches == null || matches.isEmpty()) {
+                return false;
+            }
+            int[] b = matches.get(0).bounds;
+            outCenter[0] = (b[0] + b[2]) / 2;
+            outCenter[1] = (b[1] + b[3]) / 2;
+            return true;
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            lookups++;
+            lookupNanos += elapsed;
+            if (elapsed > maxLookupNanos) {
+                maxLookupNanos = elapsed;
+            }
+        }
+    }
+
+    public synchronized int size() {
+        return byNode.size();
+    }
+
+    public synchronized long getLookups() {
+        return lookups;
+    }
+
+    public synchronized double getMeanLookupNanos() {
+        return lookups == 0 ? 0 : (double) lookupNanos / lookups;
+    }
+
+    public synchronized long getMaxLookupNanos() {
+        return maxLookupNanos;
+    }
+
+    public synchronized long getNodesVisited() {
+        return nodesVisited;
+    }
+
+    public synchronized long getFullRebuilds() {
+        return fullRebuilds;
+    }
+
+    public synchronized long getPartialRebuilds() {
+        return partialRebuilds;
+    }
+
+    public synchronized String getStats() {
+        return String.format(java.util.Locale.US,
+                "%d lookups, avg %.1f us, max %.1f us, %d nodes visited, %d full / %d partial rebuilds",
+                lookups, getMeanLookupNanos() / 1000.0, maxLookupNanos / 1000.0,
+                nodesVisited, fullRebuilds, partialRebuilds);
+    }
+
+    private void refresh() {
+        if (stale) {
+            rebuildAll();
+            return;
+        }
+        for (int i = 0; i < pendingChanges.size() && !stale; i++) {
+            N source = pendingChanges.get(i);
+            Entry<N> existing = byNode.get(source);
+            if (existing == null) {
+                // A node we have not seen; we do not know where it hangs, so start over
+                stale = true;
+            } else {
+                rebuildSubtree(existing, source);
+            }
+        }
+        pendingChanges.clear();
+        if (stale) {
+            rebuildAll();
+        }
+    }
+
+    private void rebuildAll() {
+        clear();
+        stale = false;
+        fullRebuilds++;
+        N rootNode = adapter.root();
+        if (rootNode != null) {
+            root = walk(rootNode, null);
+        } else {
+            // Try again on the next lookup
+            stale = true;
+        }
+    }
+
+    private void rebuildSubtree(Entry<N> existing, N freshNode) {
+        partialRebuilds++;
+        Entry<N> parent = existing.parent;
+        remove(existing);
+        Entry<N> replacement = walk(freshNode, parent);
+        if (parent == null) {
+            root = replacement;
+        } else {
+            int slot = parent.children.indexOf(existing);
+            if (slot >= 0) {
+                parent.children.set(slot, replacement);
+            } else {
+                parent.children.add(replacement);
+            }
+        }
+    }
+
+    private Entry<N> walk(N node, Entry<N> parent) {
+        nodesVisited++;
+        Entry<N> entry = new Entry<>(node, parent);
+        entry.viewId = toKey(adapter.viewId(node));
+        entry.text = toKey(adapter.text(node));
+        entry.description = toKey(adapter.contentDescription(node));
+        adapter.bounds(node, entry.bounds);
+
+        byNode.put(node, entry);
+        add(byViewId, entry.viewId, entry);
+        add(byText, entry.text, entry);
+        add(byDescription, entry.description, entry);
+
+        int count = adapter.childCount(node);
+        for (int i = 0; i < count; i++) {
+            N child = adapter.child(node, i);
+            if (child != null) {
+                entry.children.add(walk(child, entry));
+            }
+        }
+        return entry;
+    }
+
+    private void remove(Entry<N> entry) {
+        byNode.remove(entry.node);
+        removeFrom(byViewId, entry.viewId, entry);
+        removeFrom(byText, entry.text, entry);
+        removeFrom(byDescription, entry.description, entry);
+        for (Entry<N> child : entry.children) {
+            remove(child);
+        }
+    }
+
+    private void clear() {
+        root = null;
+        byNode.clear();
+        byViewId.clear();
+        byText.clear();
+        byDescription.clear();
+    }
+
+    private Map<String, List<Entry<N>>> mapFor(NodeTarget.Kind kind) {
+        switch (kind) {
+            case TEXT:
+                return byText;
+            case CONTENT_DESCRIPTION:
+                return byDescription;
+            case VIEW_ID:
+            default:
+                return byViewId;
+        }
+    }
+
+    private static String toKey(CharSequence value) {
+        return value == null || value.length() == 0 ? null : value.toString();
+    }
+
+    private static <N> void add(Map<String, List<Entry<N>>> map, String key, Entry<N> entry) {
+        if (key == null) {
+            return;
+        }
+        List<Entry<N>> list = map.get(key);
+        if (list == null) {
+            list = new ArrayList<>(1);
+            map.put(key, list);
+        }
+        list.add(entry);
+    }
+
+    private static <N> void removeFrom(Map<String, List<Entry<N>>> map, String key, Entry<N> entry) {
+        if (key == null) {
+            return;
+        }
+        List<Entry<N>> list = map.get(key);
+        if (list != null) {
+            list.remove(entry);
+            if (list.isEmpty()) {
+                map.remove(key);
+            }
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.autoclicker.nodes;
+
+/**
+ * Identifies a view to click by resource id, text or content description instead of by
+ * screen coordinates.
+ */
+public final class NodeTarget {
+
+    public enum Kind {
+        VIEW_ID,
+        TEXT,
+        CONTENT_DESCRIPTION
+    }
+
+    public final Kind kind;
+    public final String value;
+
+    private NodeTarget(Kind kind, String value) {
+        if (value == null || value.isEmpty()) {
+            throw new IllegalArgumentException("Target value must not be empty");
+        }
+        this.kind = kind;
+        this.value = value;
+    }
+
+    public static NodeTarget viewId(String id) {
+        return new NodeTarget(Kind.VIEW_ID, id);
+    }
+
+    public static NodeTarget text(String text) {
+        return new NodeTarget(Kind.TEXT, text);
+    }
+
+    public static NodeTarget contentDescription(String description) {
+        return new NodeTarget(Kind.CONTENT_DESCRIPTION, description);
+    }
+
+    @Override
+    public String toString() {
+        return kind + " \"" + value + "\"";
+    }
+}
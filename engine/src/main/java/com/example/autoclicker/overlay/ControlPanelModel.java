@@ -0,0 +1,130 @@
+package com.example.autoclicker.overlay;
+
+import com.example.autoclicker.state.RunState;
+
+/**
+ * What the overlay control panel shows: the run state, the click count and the click rate.
+ * Count and rate are formatted into reused char arrays, so a refresh allocates nothing, and
+ * {@link #update} reports which fields changed, so the panel only touches those views and
+ * an idle panel touches none.
+ */
+public final class ControlPanelModel {
+
+    public static final int CHANGED_STATE = 1;
+    public static final int CHANGED_COUNT = 2;
+    public static final int CHANGED_RATE = 4;
+
+    // The rate shown is the average over the last full window
+    static final long RATE_WINDOW_NANOS = 1_000_000_000L;
+
+    private final char[] countChars = new char[20];
+    private int countLength;
+    private final char[] rateChars = new char[24];
+    private int rateLength;
+
+    // Null until the first update
+    private RunState state;
+    private long count = -1;
+    private long rateTenths = -1;
+    private long windowStartNanos;
+    private long windowStartCount;
+
+    /**
+     * Takes the latest values and returns the CHANGED_* bits of the fields that now read
+     * differently, or 0 if nothing on the panel needs redrawing.
+     */
+    public int update(RunState runState, long clicks, long nowNanos) {
+        int changed = 0;
+        if (runState != state || clicks < count) {
+            // A run starting, pausing or stopping, or a new run's count, restarts the window
+            windowStartNanos = nowNanos;
+            windowStartCount = clicks;
+        }
+        if (runState != state) {
+            state = runState;
+            changed |= CHANGED_STATE;
+        }
+        if (clicks != count) {
+            count = clicks;
+            countLength = formatCount(clicks, countChars);
+            changed |= CHANGED_COUNT;
+        }
+
+        long tenths = rateTenths;
+        if (runState != RunState.RUNNING) {
+            tenths = 0;
+        } else {
+            long elapsed = nowNanos - windowStartNanos;
+            if (elapsed >= RATE_WINDOW_NANOS) {
+                tenths = (clicks - windowStartCount) * 10 * RATE_WINDOW_NANOS / elapsed;
+                windowStartNanos = nowNanos;
+                windowStartCount = clicks;
+            } else if (tenths < 0) {
+                tenths = 0;
+            }
+        }
+        if (tenths != rateTenths) {
+            rateTenths = tenths;
+            rateLength = formatRate(tenths, rateChars);
+            changed |= CHANGED_RATE;
+        }
+        return changed;
+    }
+
+    // Only a running run has a rate that can still change without a click
+    public boolean needsRefresh() {
+        return state == RunState.RUNNING;
+    }
+
+    public RunState getState() {
+        return state;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    // Clicks per second, times ten
+    public long getRateTenths() {
+        return rateTenths;
+    }
+
+    public char[] getCountChars() {
+        return countChars;
+    }
+
+    public int getCountLength() {
+        return countLength;
+    }
+
+    public char[] getRateChars() {
+        return rateChars;
+    }
+
+    public int getRateLength() {
+        return rateLength;
+    }
+
+    // Writes the digits of value to the start of out and returns how many there are
+    static int formatCount(long value, char[] out) {
+        int end = out.length;
+        int i = end;
+        do {
+            out[--i] = (char) ('0' + value % 10);
+            value /= 10;
+        } while (value > 0);
+        int length = end - i;
+        System.arraycopy(out, i, out, 0, length);
+        return length;
+    }
+
+    // "12.5/s"
+    static int formatRate(long tenths, char[] out) {
+        int length = formatCount(tenths / 10, out);
+        out[length++] = '.';
+        out[length++] = (char) ('0' + tenths % 10);
+        out[length++] = '/';
+        out[length++] = 's';
+        return length;
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.autoclicker.overlay;
+
+import com.example.autoclicker.macro.MacroCursor;
+import com.example.autoclicker.macro.MacroFormatException;
+import com.example.autoclicker.sequence.ClickSequence;
+import com.example.autoclicker.sequence.ClickStep;
+
+import java.util.Arrays;
+
+/**
+ * Every target and recorded path of the overlay, flattened into the {@code x, y} point
+ * and {@code x0, y0, x1, y1} segment arrays that Canvas.drawPoints and drawLines take, so
+ * any number of markers costs a fixed number of draw calls. Arrays are kept across
+ * {@link #clear()}, so rebuilding allocates only when the markers outgrow them.
+ */
+public final class MarkerGeometry {
+
+    private float[] points = new float[16];
+    private int pointFloats;
+    private float[] lines = new float[32];
+    private int lineFloats;
+
+    public void clear() {
+        pointFloats = 0;
+        lineFloats = 0;
+    }
+
+    public void addTarget(int x, int y) {
+        if (pointFloats + 2 > points.length) {
+            points = Arrays.copyOf(points, points.length * 2);
+        }
+        points[pointFloats++] = x;
+        points[pointFloats++] = y;
+    }
+
+    public void addSegment(int x0, int y0, int x1, int y1) {
+        if (lineFloats + 4 > lines.length) {
+            lines = Arrays.copyOf(lines, lines.length * 2);
+        }
+        lines[lineFloats++] = x0;
+        lines[lineFloats++] = y0;
+        lines[lineFloats++] = x1;
+        lines[lineFloats++] = y1;
+    }
+
+    // Each step's start becomes a target; swipes also get their stroke
+    public void addSequence(ClickSequence sequence) {
+        for (ClickStep step : sequence.getSteps()) {
+            addTarget(step.x, step.y);
+            if (step.type == ClickStep.Type.SWIPE) {
+                addSegment(step.x, step.y, step.endX, step.endY);
+            }
+        }
+    }
+
+    // Taps become targets and swipes polylines through their recorded points
+    public void addMacro(MacroCursor cursor) throws MacroFormatException {
+        while (cursor.next()) {
+            int count = cursor.getPointCount();
+            if (!cursor.isSwipe() || count < 2) {
+                addTarget(cursor.getX(0), cursor.getY(0));
+                continue;
+            }
+            for (int i = 1; i < count; i++) {
+                addSegment(cursor.getX(i - 1), cursor.getY(i - 1), cursor.getX(i), cursor.getY(i));
+            }
+        }
+    }
+
+    public float[] getPoints() {
+        return points;
+    }
+
+    // Floats of getPoints() in use, two per target
+    public int getPointFloats() {
+        return pointFloats;
+    }
+
+    public float[] getLines() {
+        return lines;
+    }
+
+    // Floats of getLines() in use, four per segment
+    public int getLineFloats() {
+        return lineFloats;
+    }
+
+    public int getTargetCount() {
+        return pointFloats / 2;
+    }
+
+    public int getSegmentCount() {
+        return lineFloats / 4;
+    }
+
+    public boolean isEmpty() {
+        return pointFloats == 0 && lineFloats == 0;
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.autoclicker.power;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Decides from thermal status and battery level whether a long run should click at full
+ * rate, slowed down or not at all. Worse conditions take effect at once; better ones must
+ * hold for the policy's recovery time first, so the rate does not flap around a threshold.
+ * Readings are passed in, which keeps this free of Android code.
+ */
+public final class AdaptiveRateController {
+
+    public enum Level {
+        NORMAL,
+        SLOWED,
+        PAUSED
+    }
+
+    private static final int MAX_DECISIONS = 16;
+
+    private final PowerPolicy policy;
+    private final ArrayDeque<String> decisions = new ArrayDeque<>();
+    private Level level = Level.NORMAL;
+    // When conditions first allowed a better level, or -1
+    private long betterSinceMs = -1;
+    private long firstUpdateMs = -1;
+
+    public AdaptiveRateController(PowerPolicy policy) {
+        this.policy = policy;
+    }
+
+    /**
+     * Feeds one reading. Returns true when the level changed.
+     */
+    public synchronized boolean update(long nowMs, int thermalStatus, int batteryPercent,
+                                       boolean charging) {
+        if (firstUpdateMs < 0) {
+            firstUpdateMs = nowMs;
+        }
+        Level wanted = Level.NORMAL;
+        String reason = "conditions normal";
+        if (thermalStatus >= policy.pauseThermalStatus) {
+            wanted = Level.PAUSED;
+            reason = "thermal status " + thermalStatus;
+        } else if (!charging && batteryPercent <= policy.pauseBatteryPercent) {
+            wanted = Level.PAUSED;
+            reason = "battery " + batteryPercent + "%";
+        } else if (thermalStatus >= policy.slowThermalStatus) {
+            wanted = Level.SLOWED;
+            reason = "thermal status " + thermalStatus;
+        } else if (!charging && batteryPercent <= policy.slowBatteryPercent) {
+            wanted = Level.SLOWED;
+            reason = "battery " + batteryPercent + "%";
+        }
+
+        if (wanted.compareTo(level) > 0) {
+            change(nowMs, wanted, reason);
+            return true;
+        }
+        if (wanted == level) {
+            betterSinceMs = -1;
+            return false;
+        }
+        if (betterSinceMs < 0) {
+            betterSinceMs = nowMs;
+        }
+        if (nowMs - betterSinceMs < policy.recoveryHoldMs) {
+            return false;
+        }
+        change(nowMs, wanted, reason);
+        return true;
+    }
+
+    public synchronized Level getLevel() {
+        return level;
+    }
+
+    // Factor to stretch the configured interval by (1 unless slowed)
+    public synchronized double getIntervalMultiplier() {
+        return level == Level.SLOWED ? policy.slowMultiplier : 1;
+    }
+
+    // Most recent decisions, oldest first
+    public synchronized List<String> getDecisions() {
+        return new ArrayList<>(decisions);
+    }
+
+    public synchronized void reset() {
+        level = Level.NORMAL;
+        betterSinceMs = -1;
+        firstUpdateMs = -1;
+        decisions.clear();
+    }
+
+    private void change(long nowMs, Level next, String reason) {
+        level = next;
+        betterSinceMs = -1;
+        long seconds = (nowMs - firstUpdateMs) / 1000;
+        String entry = String.format(Locale.US, "+%d:%02d %s (%s)", seconds / 60, seconds % 60,
+                next == Level.SLOWED ? "slowed x" + policy.slowMultiplier : next.name().toLowerCase(Locale.US),
+                reason);
+        if (decisions.size() == MAX_DECISIONS) {
+            decisions.removeFirst();
+        }
+        decisions.addLast(entry);
+    }
+}
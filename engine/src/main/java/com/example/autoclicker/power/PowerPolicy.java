@@ -0,0 +1,40 @@
+package com.example.autoclicker.power;
+
+/**
+ * When an {@link AdaptiveRateController} slows or pauses clicking. Thermal levels use the
+ * values of PowerManager's THERMAL_STATUS_* constants (0 none to 6 shutdown). Battery
+ * rules are ignored while charging.
+ */
+public final class PowerPolicy {
+
+    public static final int THERMAL_MODERATE = 2;
+    public static final int THERMAL_SEVERE = 3;
+
+    public static final PowerPolicy DEFAULT =
+            new PowerPolicy(THERMAL_MODERATE, THERMAL_SEVERE, 30, 10, 2.0, 60_000);
+
+    public final int slowThermalStatus;
+    public final int pauseThermalStatus;
+    public final int slowBatteryPercent;
+    public final int pauseBatteryPercent;
+    // Interval multiplier while slowed
+    public final double slowMultiplier;
+    // How long conditions must stay better before stepping back up
+    public final long recoveryHoldMs;
+
+    public PowerPolicy(int slowThermalStatus, int pauseThermalStatus, int slowBatteryPercent,
+                       int pauseBatteryPercent, double slowMultiplier, long recoveryHoldMs) {
+        if (pauseThermalStatus < slowThermalStatus || pauseBatteryPercent > slowBatteryPercent) {
+            throw new IllegalArgumentException("Pause thresholds must be past slow thresholds");
+        }
+        if (slowMultiplier < 1) {
+            throw new IllegalArgumentException("Slow multiplier must be at least 1");
+        }
+        this.slowThermalStatus = slowThermalStatus;
+        this.pauseThermalStatus = pauseThermalStatus;
+        this.slowBatteryPercent = slowBatteryPercent;
+        this.pauseBatteryPercent = pauseBatteryPercent;
+        this.slowMultiplier = slowMultiplier;
+        this.recoveryHoldMs = recoveryHoldMs;
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.autoclicker.profiles;
+
+import com.example.autoclicker.scheduler.CatchUpPolicy;
+import com.example.autoclicker.state.ClickConfig;
+
+/**
+ * The click settings saved for one target app.
+ */
+public final class ClickProfile {
+
+    public final String packageName;
+    public final int x;
+    public final int y;
+    public final long intervalMs;
+    public final int repeatCount;
+    public final CatchUpPolicy catchUpPolicy;
+    public final boolean highRate;
+
+    public ClickProfile(String packageName, int x, int y, long intervalMs, int repeatCount,
+                        CatchUpPolicy catchUpPolicy, boolean highRate) {
+        if (packageName.isEmpty()) {
+            throw new IllegalArgumentException("Package name must not be empty");
+        }
+        if (intervalMs <= 0) {
+            throw new IllegalArgumentException("Interval must be positive");
+        }
+        if (repeatCount < 0) {
+            throw new IllegalArgumentException("Repeat count must not be negative");
+        }
+        this.packageName = packageName;
+        this.x = x;
+        this.y = y;
+        this.intervalMs = intervalMs;
+        this.repeatCount = repeatCount;
+        this.catchUpPolicy = catchUpPolicy;
+        this.highRate = highRate;
+    }
+
+    public static ClickProfile of(String packageName, ClickConfig config) {
+        return new ClickProfile(packageName, config.x, config.y, config.intervalMs,
+                config.repeatCount, config.catchUpPolicy, config.highRate);
+    }
+
+    // A profile saved without a position keeps the one already configured
+    public ClickConfig applyTo(ClickConfig config) {
+        ClickConfig updated = config.withInterval(intervalMs)
+                .withRepeatCount(repeatCount)
+                .withCatchUpPolicy(catchUpPolicy)
+                .withHighRate(highRate);
+        return x >= 0 && y >= 0 ? updated.withPosition(x, y) : updated;
+    }
+}
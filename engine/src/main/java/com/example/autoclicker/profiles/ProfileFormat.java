@@ -0,0 +1,36 @@
+package com.example.autoclicker.profiles;
+
+/**
+ * Layout of the profile file. The index comes first so opening the store reads only it;
+ * bodies are fixed-size records decoded the first time their package is looked up.
+ *
+ * <pre>
+ * header (16 bytes, big-endian)
+ *   int   magic 'ACPS'
+ *   short version
+ *   short flags (unused, 0)
+ *   int   profile count
+ *   int   index length in bytes
+ * index, one entry per profile
+ *   short package name length, then the name as UTF-8
+ *   int   body offset from the start of the file
+ * bodies (BODY_SIZE bytes each)
+ *   int   x, int y (-1 when the profile has no position)
+ *   long  interval (ms)
+ *   int   repeat count
+ *   byte  catch-up policy ordinal
+ *   byte  flags (FLAG_HIGH_RATE)
+ * </pre>
+ */
+final class ProfileFormat {
+
+    static final int MAGIC = 0x41435053;
+    static final short VERSION = 1;
+    static final int HEADER_SIZE = 16;
+    static final int BODY_SIZE = 22;
+
+    static final int FLAG_HIGH_RATE = 1;
+
+    private ProfileFormat() {
+    }
+}
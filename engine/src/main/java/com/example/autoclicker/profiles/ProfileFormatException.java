@@ -0,0 +1,15 @@
+package com.example.autoclicker.profiles;
+
+import java.io.IOException;
+
+/**
+ * Thrown when the profile file is truncated, corrupted or written by an unknown version.
+ */
+public class ProfileFormatException extends IOException {
+
+    private static final long serialVersionUID = 1L;
+
+    public ProfileFormatException(String message) {
+        super(message);
+    }
+}
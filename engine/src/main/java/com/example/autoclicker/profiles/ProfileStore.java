@@ -0,0 +1,241 @@
+package com.example.autoclicker.profiles;
+
+import com.example.autoclicker.scheduler.CatchUpPolicy;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Click profiles keyed by package name, kept in one memory-mapped file. Opening reads only
+ * the index (package name to body offset); a body is decoded on the first lookup of its
+ * package and cached, so a foreground-app switch costs a hash lookup and at most one
+ * 22-byte decode.
+ */
+public final class ProfileStore {
+
+    private static final class Entry {
+        final int offset;
+        ClickProfile profile;
+
+        Entry(int offset) {
+            this.offset = offset;
+        }
+    }
+
+    private static final CatchUpPolicy[] POLICIES = CatchUpPolicy.values();
+
+    private final File file;
+    private final Map<String, Entry> index = new HashMap<>();
+    // Null while the file does not exist yet
+    private ByteBuffer data;
+    private int decoded;
+
+    private ProfileStore(File file) {
+        this.file = file;
+    }
+
+    // A missing file opens as an empty store
+    public static ProfileStore open(File file) throws IOException {
+        ProfileStore store = new ProfileStore(file);
+        if (file.exists()) {
+            store.load();
+        }
+        return store;
+    }
+
+    /**
+     * Returns the profile for {@code packageName}, or null if there is none. Decodes the
+     * body on first use.
+     */
+    public synchronized ClickProfile get(String packageName) throws ProfileFormatException {
+        Entry entry = index.get(packageName);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.profile == null) {
+            entry.profile = decode(packageName, entry.offset);
+            decoded++;
+        }
+        return entry.profile;
+    }
+
+    public synchronized boolean contains(String packageName) {
+        return index.containsKey(packageName);
+    }
+
+    public synchronized List<String> list() {
+        List<String> names = new ArrayList<>(index.keySet());
+        Collections.sort(names);
+        return names;
+    }
+
+    public synchronized int size() {
+        return index.size();
+    }
+
+    // Bodies decoded since the store was opened
+    public synchronized int getDecodedCount() {
+        return decoded;
+    }
+
+    public synchronized void save(ClickProfile profile) throws IOException {
+        Map<String, ClickProfile> profiles = decodeAll();
+        profiles.put(profile.packageName, profile);
+        rewrite(profiles);
+    }
+
+    public synchronized boolean remove(String packageName) throws IOException {
+        if (!index.containsKey(packageName)) {
+            return false;
+        }
+        Map<String, ClickProfile> profiles = decodeAll();
+        profiles.remove(packageName);
+        rewrite(profiles);
+        return true;
+    }
+
+    private Map<String, ClickProfile> decodeAll() throws ProfileFormatException {
+        Map<String, ClickProfile> profiles = new HashMap<>();
+        for (Map.Entry<String, Entry> e : index.entrySet()) {
+            Entry entry = e.getValue();
+            profiles.put(e.getKey(), entry.profile != null
+                    ? entry.profile : decode(e.getKey(), entry.offset));
+        }
+        return profiles;
+    }
+
+    // Writes to a temporary file first so a crash never leaves a half-written store behind
+    private void rewrite(Map<String, ClickProfile> profiles) throws IOException {
+        List<String> names = new ArrayList<>(profiles.keySet());
+        Collections.sort(names);
+
+        ByteArrayOutputStream indexBytes = new ByteArrayOutputStream();
+        DataOutputStream indexOut = new DataOutputStream(indexBytes);
+        int indexLength = 0;
+        for (String name : names) {
+            indexLength += 2 + name.getBytes(StandardCharsets.UTF_8).length + 4;
+        }
+        int offset = ProfileFormat.HEADER_SIZE + indexLength;
+        for (String name : names) {
+            byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+            indexOut.writeShort(nameBytes.length);
+            indexOut.write(nameBytes);
+            indexOut.writeInt(offset);
+            offset += ProfileFormat.BODY_SIZE;
+        }
+
+        ByteBuffer out = ByteBuffer.allocate(offset);
+        out.putInt(ProfileFormat.MAGIC);
+        out.putShort(ProfileFormat.VERSION);
+        out.putShort((short) 0);
+        out.putInt(names.size());
+        out.putInt(indexLength);
+        out.put(indexBytes.toByteArray());
+        for (String name : names) {
+            ClickProfile profile = profiles.get(name);
+            out.putInt(profile.x);
+            out.putInt(profile.y);
+            out.putLong(profile.intervalMs);
+            out.putInt(profile.repeatCount);
+            out.put((byte) profile.catchUpPolicy.ordinal());
+            out.put((byte) (profile.highRate ? ProfileFormat.FLAG_HIGH_RATE : 0));
+        }
+
+        File parent = file.getParentFile();
+        if (parent != null && !parent.isDirectory() && !parent.mkdirs()) {
+            throw new IOException("Could not create " + parent);
+        }
+        File temp = new File(file.getPath() + ".tmp");
+        try (FileOutputStream stream = new FileOutputStream(temp)) {
+            stream.write(out.array());
+            stream.getFD().sync();
+        }
+        if (!temp.renameTo(file)) {
+            temp.delete();
+            throw new IOException("Could not replace " + file);
+        }
+
+        // Profiles already decoded stay cached; the rest are read from the new file lazily
+        Map<String, Entry> previous = new HashMap<>(index);
+        load();
+        for (Map.Entry<String, Entry> e : index.entrySet()) {
+            Entry old = previous.get(e.getKey());
+            if (old != null && old.profile != null && old.profile == profiles.get(e.getKey())) {
+                e.getValue().profile = old.profile;
+            }
+        }
+    }
+
+    private void load() throws IOException {
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            // The mapping stays valid after the channel is closed
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (buffer.remaining() < ProfileFormat.HEADER_SIZE) {
+            throw new ProfileFormatException("File too short for a profile header");
+        }
+        if (buffer.getInt() != ProfileFormat.MAGIC) {
+            throw new ProfileFormatException("Not a profile file");
+        }
+        int version = buffer.getShort();
+        if (version < 1 || version > ProfileFormat.VERSION) {
+            throw new ProfileFormatException("Unsupported profile version " + version);
+        }
+        buffer.getShort();
+        int count = buffer.getInt();
+        int indexLength = buffer.getInt();
+        if (count < 0 || indexLength < 0 || indexLength > buffer.remaining()) {
+            throw new ProfileFormatException("Profile index is truncated");
+        }
+
+        Map<String, Entry> entries = new HashMap<>();
+        int indexEnd = ProfileFormat.HEADER_SIZE + indexLength;
+        for (int i = 0; i < count; i++) {
+            if (buffer.position() + 2 > indexEnd) {
+                throw new ProfileFormatException("Profile index is truncated");
+            }
+            int nameLength = buffer.getShort() & 0xFFFF;
+            if (buffer.position() + nameLength + 4 > indexEnd) {
+                throw new ProfileFormatException("Profile index is truncated");
+            }
+            byte[] name = new byte[nameLength];
+            buffer.get(name);
+            int offset = buffer.getInt();
+            if (offset < indexEnd || offset > buffer.limit() - ProfileFormat.BODY_SIZE) {
+                throw new ProfileFormatException("Profile body offset " + offset + " out of range");
+            }
+            entries.put(new String(name, StandardCharsets.UTF_8), new Entry(offset));
+        }
+        index.clear();
+        index.putAll(entries);
+        data = buffer;
+    }
+
+    private ClickProfile decode(String packageName, int offset) throws ProfileFormatException {
+        ByteBuffer d = data;
+        int policy = d.get(offset + 20);
+        if (policy < 0 || policy >= POLICIES.length) {
+            throw new ProfileFormatException("Bad catch-up policy " + policy + " for " + packageName);
+        }
+        try {
+            return new ClickProfile(packageName, d.getInt(offset), d.getInt(offset + 4),
+                    d.getLong(offset + 8), d.getInt(offset + 16), POLICIES[policy],
+                    (d.get(offset + 21) & ProfileFormat.FLAG_HIGH_RATE) != 0);
+        } catch (IllegalArgumentException e) {
+            throw new ProfileFormatException("Bad profile for " + packageName + ": " + e.getMessage());
+        }
+    }
+}
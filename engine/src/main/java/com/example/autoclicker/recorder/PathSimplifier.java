@@ -0,0 +1,94 @@
+package com.example.autoclicker.recorder;
+
+import java.util.Arrays;
+
+/**
+ * Ramer–Douglas–Peucker polyline simplification. Keeps the fewest points such that no
+ * dropped point is further than the tolerance from the simplified path. Iterative, with
+ * scratch arrays reused between calls.
+ */
+public final class PathSimplifier {
+
+    private int[] stack = new int[64];
+    private boolean[] keep = new boolean[64];
+    private int[] kept = new int[64];
+
+    /**
+     * Simplifies points {@code [0, count)} of xs/ys and returns how many were kept; their
+     * indices, in order, are available through {@link #getKept()}.
+     */
+    public int simplify(int[] xs, int[] ys, int count, double tolerance) {
+        if (count <= 2) {
+            ensureCapacity(count);
+            for (int i = 0; i < count; i++) {
+                kept[i] = i;
+            }
+            return count;
+        }
+        ensureCapacity(count);
+        Arrays.fill(keep, 0, count, false);
+        keep[0] = true;
+        keep[count - 1] = true;
+
+        double toleranceSq = tolerance * tolerance;
+        int top = 0;
+        stack[top++] = 0;
+        stack[top++] = count - 1;
+
+        while (top > 0) {
+            int last = stack[--top];
+            int first = stack[--top];
+
+            int farthest = -1;
+            double farthestSq = toleranceSq;
+            for (int i = first + 1; i < last; i++) {
+                double d = segmentDistanceSq(xs[i], ys[i], xs[first], ys[first], xs[last], ys[last]);
+                if (d > farthestSq) {
+                    farthestSq = d;
+                    farthest = i;
+                }
+            }
+            if (farthest >= 0) {
+                keep[farthest] = true;
+                stack[top++] = first;
+                stack[top++] = farthest;
+                stack[top++] = farthest;
+                stack[top++] = last;
+            }
+        }
+
+        int n = 0;
+        for (int i = 0; i < count; i++) {
+            if (keep[i]) {
+                kept[n++] = i;
+            }
+        }
+        return n;
+    }
+
+    public int[] getKept() {
+        return kept;
+    }
+
+    private void ensureCapacity(int count) {
+        if (keep.length < count) {
+            keep = new boolean[count];
+            kept = new int[count];
+        }
+        // Pending ranges are disjoint, so there are fewer than count of them, two ints each
+        if (stack.length < count * 2) {
+            stack = new int[count * 2];
+        }
+    }
+
+    static double segmentDistanceSq(int px, int py, int ax, int ay, int bx, int by) {
+        double dx = bx - ax;
+        double dy = by - ay;
+        double lengthSq = dx * dx + dy * dy;
+        double t = lengthSq == 0 ? 0 : ((px - ax) * dx + (py - ay) * dy) / lengthSq;
+        t = Math.max(0, Math.min(1, t));
+        double ex = px - (ax + t * dx);
+        double ey = py - (ay + t * dy);
+        return ex * ex + ey * ey;
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.autoclicker.recorder;
+
+import com.example.autoclicker.macro.MacroWriter;
+
+import java.util.Arrays;
+
+/**
+ * Captures single-pointer touch streams into a {@link TouchRingBuffer} and turns them into
+ * a macro: strokes that stay within the tap slop become taps, everything else becomes a
+ * swipe simplified with {@link PathSimplifier}.
+ */
+public final class TouchRecorder {
+
+    private final TouchRingBuffer buffer;
+    private final PathSimplifier simplifier = new PathSimplifier();
+    private int[] strokeXs = new int[256];
+    private int[] strokeYs = new int[256];
+    private boolean down;
+
+    public TouchRecorder(int capacityPowerOfTwo) {
+        buffer = new TouchRingBuffer(capacityPowerOfTwo);
+    }
+
+    public void onDown(long timeMs, int x, int y) {
+        down = true;
+        buffer.append(TouchRingBuffer.DOWN, timeMs, x, y);
+    }
+
+    public void onMove(long timeMs, int x, int y) {
+        if (down) {
+            buffer.append(TouchRingBuffer.MOVE, timeMs, x, y);
+        }
+    }
+
+    public void onUp(long timeMs, int x, int y) {
+        if (down) {
+            buffer.append(TouchRingBuffer.UP, timeMs, x, y);
+            down = false;
+        }
+    }
+
+    public void clear() {
+        buffer.clear();
+        down = false;
+    }
+
+    public TouchRingBuffer getBuffer() {
+        return buffer;
+    }
+
+    /**
+     * Converts every complete stroke in the buffer into macro events, with times relative to
+     * the first stroke. Returns the number of events written.
+     */
+    public int export(MacroWriter writer, double tolerancePx, int tapSlopPx) {
+        int size = buffer.size();
+        int events = 0;
+        long origin = -1;
+        int points = 0;
+        long strokeStart = 0;
+        boolean inStroke = false;
+
+        for (int i = 0; i < size; i++) {
+            byte action = buffer.getAction(i);
+            if (action == TouchRingBuffer.DOWN) {
+                inStroke = true;
+                points = 0;
+                strokeStart = buffer.getTime(i);
+            } else if (!inStroke) {
+                // The stroke's DOWN was overwritten when the ring wrapped
+                continue;
+            }
+
+            addPoint(points++, buffer.getX(i), buffer.getY(i));
+
+            if (action == TouchRingBuffer.UP) {
+                inStroke = false;
+                if (origin < 0) {
+                    origin = strokeStart;
+                }
+                long duration = Math.max(1, buffer.getTime(i) - strokeStart);
+                writeStroke(writer, strokeStart - origin, duration, points, tolerancePx, tapSlopPx);
+                events++;
+            }
+        }
+        return events;
+    }
+
+    private void writeStroke(MacroWriter writer, long startMs, long durationMs, int points,
+                             double tolerancePx, int tapSlopPx) {
+        int x0 = strokeXs[0];
+        int y0 = strokeYs[0];
+        boolean tap = true;
+        long slopSq = (long) tapSlopPx * tapSlopPx;
+        for (int p = 1; p < points && tap; p++) {
+            long dx = strokeXs[p] - x0;
+            long dy = strokeYs[p] - y0;
+            tap = dx * dx + dy * dy <= slopSq;
+        }
+        if (tap) {
+            writer.tap(startMs, x0, y0, durationMs);
+            return;
+        }
+
+        int kept = simplifier.simplify(strokeXs, strokeYs, points, tolerancePx);
+        int[] indices = simplifier.getKept();
+        // Compact the kept points in place; indices are increasing so nothing is overwritten early
+        for (int k = 0; k < kept; k++) {
+            strokeXs[k] = strokeXs[indices[k]];
+            strokeYs[k] = strokeYs[indices[k]];
+        }
+        writer.swipe(startMs, strokeXs, strokeYs, kept, durationMs);
+    }
+
+    private void addPoint(int index, int x, int y) {
+        if (index >= strokeXs.length) {
+            strokeXs = Arrays.copyOf(strokeXs, strokeXs.length * 2);
+            strokeYs = Arrays.copyOf(strokeYs, strokeYs.length * 2);
+        }
+        strokeXs[index] = x;
+        strokeYs[index] = y;
+    }
+}
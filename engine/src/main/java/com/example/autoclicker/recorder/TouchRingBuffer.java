@@ -0,0 +1,83 @@
+package com.example.autoclicker.recorder;
+
+/**
+ * Fixed-capacity ring of touch samples stored column-wise in primitive arrays. Appending
+ * never allocates; once full, the oldest samples are overwritten and counted as dropped.
+ */
+public final class TouchRingBuffer {
+
+    public static final byte DOWN = 0;
+    public static final byte MOVE = 1;
+    public static final byte UP = 2;
+
+    private final byte[] actions;
+    private final long[] times;
+    private final int[] xs;
+    private final int[] ys;
+    private final int mask;
+
+    private long head;
+    private long tail;
+
+    public TouchRingBuffer(int capacityPowerOfTwo) {
+        if (capacityPowerOfTwo < 2 || Integer.bitCount(capacityPowerOfTwo) != 1) {
+            throw new IllegalArgumentException("Capacity must be a power of two");
+        }
+        actions = new byte[capacityPowerOfTwo];
+        times = new long[capacityPowerOfTwo];
+        xs = new int[capacityPowerOfTwo];
+        ys = new int[capacityPowerOfTwo];
+        mask = capacityPowerOfTwo - 1;
+    }
+
+    public void append(byte action, long timeMs, int x, int y) {
+        int slot = (int) (head & mask);
+        actions[slot] = action;
+        times[slot] = timeMs;
+        xs[slot] = x;
+        ys[slot] = y;
+        head++;
+        if (head - tail > actions.length) {
+            tail++;
+        }
+    }
+
+    public void clear() {
+        head = 0;
+        tail = 0;
+    }
+
+    public int size() {
+        return (int) (head - tail);
+    }
+
+    public int capacity() {
+        return actions.length;
+    }
+
+    // Samples lost because the buffer wrapped
+    public long getDropped() {
+        return tail;
+    }
+
+    // Accessors take an index from 0 (oldest) to size() - 1 (newest)
+    public byte getAction(int index) {
+        return actions[slot(index)];
+    }
+
+    public long getTime(int index) {
+        return times[slot(index)];
+    }
+
+    public int getX(int index) {
+        return xs[slot(index)];
+    }
+
+    public int getY(int index) {
+        return ys[slot(index)];
+    }
+
+    private int slot(int index) {
+        return (int) ((tail + index) & mask);
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.autoclicker.scheduler;
+
+/**
+ * What the scheduler does when it wakes up after one or more deadlines have already passed.
+ */
+public enum CatchUpPolicy {
+    // Fire once and drop the missed ticks, staying on the original grid
+    SKIP,
+    // Fire every missed tick back-to-back (up to a cap), staying on the original grid
+    BURST,
+    // Fire once and restart the grid from now
+    STRETCH
+}
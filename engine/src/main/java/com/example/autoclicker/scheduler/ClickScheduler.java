@@ -0,0 +1,160 @@
+package com.example.autoclicker.scheduler;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Runs a {@link TickSource} (a fixed-interval {@link TickPlanner} or a macro timeline) on
+ * its own thread, parking until each absolute deadline instead of re-posting to the main
+ * looper after every click. The clock and the park are pluggable, so a simulation can run
+ * the same loop in virtual time.
+ */
+public final class ClickScheduler {
+
+    public interface Listener {
+        // Returns false to end the run; deadlineNanos is when the tick was due
+        boolean onTick(long deadlineNanos);
+
+        // Called on the scheduler thread when the tick source runs out
+        default void onFinished() {
+        }
+    }
+
+    // Blocks the loop until about nanos from now, or until stop() or wake() unparks it
+    public interface Parker {
+        void park(Object blocker, long nanos);
+    }
+
+    private static final int MAX_BURST = 5;
+
+    private final Clock clock;
+    private final Parker parker;
+    // The service raises the run thread's priority; plain threads everywhere else
+    private final ThreadFactory threadFactory;
+    // The current run's thread; a loop keeps going only while it is still the current one
+    private volatile Thread thread;
+    private volatile TickSource source;
+
+    public ClickScheduler(Clock clock) {
+        this(clock, r -> new Thread(r, "ClickScheduler"));
+    }
+
+    public ClickScheduler(Clock clock, ThreadFactory threadFactory) {
+        this(clock, threadFactory, LockSupport::parkNanos);
+    }
+
+    public ClickScheduler(Clock clock, ThreadFactory threadFactory, Parker parker) {
+        this.clock = clock;
+        this.threadFactory = threadFactory;
+        this.parker = parker;
+    }
+
+    public void start(long intervalNanos, CatchUpPolicy policy, Listener listener) {
+        start(intervalNanos, policy, null, listener);
+    }
+
+    public void start(long intervalNanos, CatchUpPolicy policy, IntervalSampler sampler,
+                      Listener listener) {
+        TickPlanner planner = new TickPlanner(intervalNanos, policy, MAX_BURST);
+        planner.setIntervalSampler(sampler);
+        start(planner, listener);
+    }
+
+    public synchronized void start(TickSource tickSource, Listener listener) {
+        if (thread != null) {
+            return;
+        }
+        source = tickSource;
+        thread = threadFactory.newThread(() -> runLoop(tickSource, listener));
+        thread.start();
+    }
+
+    /**
+     * Runs the loop on the calling thread instead of a new one, returning once the source
+     * runs out or the listener or stop() ends the run.
+     */
+    public void run(TickSource tickSource, Listener listener) {
+        synchronized (this) {
+            if (thread != null) {
+                return;
+            }
+            source = tickSource;
+            thread = Thread.currentThread();
+        }
+        runLoop(tickSource, listener);
+        finish(Thread.currentThread());
+    }
+
+    public synchronized void stop() {
+        Thread t = thread;
+        thread = null;
+        if (t != null && t != Thread.currentThread()) {
+            LockSupport.unpark(t);
+        }
+    }
+
+    // Makes the loop re-read the tick source, e.g. after work was added to it
+    public void wake() {
+        Thread t = thread;
+        if (t != null) {
+            LockSupport.unpark(t);
+        }
+    }
+
+    public boolean isRunning() {
+        return thread != null;
+    }
+
+    // Retimes a fixed-interval run in place, from its last tick; macro timelines ignore it
+    public void setInterval(long intervalNanos) {
+        TickSource s = source;
+        if (s instanceof TickPlanner) {
+            ((TickPlanner) s).setIntervalNanos(intervalNanos);
+            // The loop may be parked until the deadline planned with the old interval
+            wake();
+        }
+    }
+
+    public JitterStats getJitter() {
+        TickSource s = source;
+        return s instanceof TickPlanner ? ((TickPlanner) s).getJitter() : null;
+    }
+
+    public long getSkippedTicks() {
+        TickSource s = source;
+        return s instanceof TickPlanner ? ((TickPlanner) s).getSkippedTicks() : 0;
+    }
+
+    private void runLoop(TickSource source, Listener listener) {
+        source.start(clock.nanoTime());
+        Thread self = Thread.currentThread();
+
+        while (thread == self) {
+            long now = clock.nanoTime();
+            long wait = source.nanosUntilNextTick(now);
+            if (wait == Long.MAX_VALUE) {
+                finish(self);
+                listener.onFinished();
+                break;
+            }
+            if (wait > 0) {
+                parker.park(this, wait);
+                continue;
+            }
+
+            long deadline = now + wait;
+            int due = source.poll(now);
+            for (int i = 0; i < due && thread == self; i++) {
+                if (!listener.onTick(deadline)) {
+                    finish(self);
+                }
+            }
+        }
+    }
+
+    private synchronized void finish(Thread self) {
+        if (thread == self) {
+            thread = null;
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.autoclicker.scheduler;
+
+/**
+ * Monotonic time source in nanoseconds. The service uses {@code SystemClock::uptimeNanos};
+ * tests drive a fake clock by hand.
+ */
+public interface Clock {
+    long nanoTime();
+}
@@ -0,0 +1,10 @@
+package com.example.autoclicker.scheduler;
+
+/**
+ * Varies the gap between ticks of a {@link TickPlanner}, e.g. to humanize click timing.
+ * Called on the scheduler thread once per tick, so implementations should not allocate.
+ */
+public interface IntervalSampler {
+
+    long nextIntervalNanos(long baseNanos);
+}
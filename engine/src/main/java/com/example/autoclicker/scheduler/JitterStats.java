@@ -0,0 +1,52 @@
+package com.example.autoclicker.scheduler;
+
+/**
+ * Running lateness statistics (how far after its deadline each tick actually fired).
+ * Uses Welford's method so recording never allocates.
+ */
+public final class JitterStats {
+
+    private long count;
+    private long maxNanos;
+    private double meanNanos;
+    private double m2;
+
+    public synchronized void record(long latenessNanos) {
+        count++;
+        if (latenessNanos > maxNanos) {
+            maxNanos = latenessNanos;
+        }
+        double delta = latenessNanos - meanNanos;
+        meanNanos += delta / count;
+        m2 += delta * (latenessNanos - meanNanos);
+    }
+
+    public synchronized void reset() {
+        count = 0;
+        maxNanos = 0;
+        meanNanos = 0;
+        m2 = 0;
+    }
+
+    public synchronized long getCount() {
+        return count;
+    }
+
+    public synchronized long getMaxNanos() {
+        return maxNanos;
+    }
+
+    public synchronized double getMeanNanos() {
+        return meanNanos;
+    }
+
+    public synchronized double getStdDevNanos() {
+        return count > 1 ? Math.sqrt(m2 / (count - 1)) : 0;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format(java.util.Locale.US, "jitter avg %.2f ms, max %.2f ms",
+                meanNanos / 1_000_000.0, maxNanos / 1_000_000.0);
+    }
+}
@@ -0,0 +1,145 @@
+package com.example.autoclicker.scheduler;
+
+/**
+ * Timing core of the click scheduler. Deadlines are planned on an absolute grid
+ * ({@code start + n * interval}) so the time spent dispatching a click never pushes
+ * later clicks back. Contains no threading or Android code; the caller passes in "now".
+ */
+public final class TickPlanner implements TickSource {
+
+    // May be changed from another thread mid-run
+    private volatile long intervalNanos;
+    private final CatchUpPolicy policy;
+    private final int maxBurst;
+    private final JitterStats jitter = new JitterStats();
+    // Null keeps the grid exact
+    private IntervalSampler sampler;
+
+    private long nextDeadline;
+    // Grid deadline of the last tick fired, or -1 before the first
+    private long lastDeadline;
+    // The interval nextDeadline was planned with; differs from intervalNanos after a change
+    private long plannedIntervalNanos;
+    private long skippedTicks;
+
+    public TickPlanner(long intervalNanos, CatchUpPolicy policy, int maxBurst) {
+        if (intervalNanos <= 0) {
+            throw new IllegalArgumentException("Interval must be positive");
+        }
+        if (maxBurst < 1) {
+            throw new IllegalArgumentException("Max burst must be at least 1");
+        }
+        this.intervalNanos = intervalNanos;
+        this.plannedIntervalNanos = intervalNanos;
+        this.policy = policy;
+        this.maxBurst = maxBurst;
+    }
+
+    @Override
+    public void start(long nowNanos) {
+        nextDeadline = nowNanos;
+        lastDeadline = -1;
+        plannedIntervalNanos = intervalNanos;
+        skippedTicks = 0;
+        jitter.reset();
+    }
+
+    @Override
+    public long nanosUntilNextTick(long nowNanos) {
+        replanIfChanged(nowNanos);
+        return nextDeadline - nowNanos;
+    }
+
+    /**
+     * Returns how many ticks should fire at {@code nowNanos} (0 if the next deadline has
+     * not been reached yet) and advances the plan past them.
+     */
+    @Override
+    public int poll(long nowNanos) {
+        replanIfChanged(nowNanos);
+        long intervalNanos = plannedIntervalNanos;
+        long late = nowNanos - nextDeadline;
+        if (late < 0) {
+            return 0;
+        }
+        jitter.record(late);
+
+        long missed = late / intervalNanos;
+        // The gap after the last tick fired now; the ones skipped over keep the base interval
+        long step = nextStep(intervalNanos);
+        int fire;
+        switch (policy) {
+            case BURST: {
+                long due = missed + 1;
+                fire = (int) Math.min(due, maxBurst);
+                skippedTicks += due - fire;
+                nextDeadline += (due - 1) * intervalNanos + step;
+                break;
+            }
+            case STRETCH:
+                fire = 1;
+                nextDeadline = nowNanos + step;
+                break;
+            case SKIP:
+            default:
+                fire = 1;
+                skippedTicks += missed;
+                nextDeadline += missed * intervalNanos + step;
+                break;
+        }
+        lastDeadline = nextDeadline - step;
+        return fire;
+    }
+
+    public long getNextDeadline() {
+        return nextDeadline;
+    }
+
+    public long getIntervalNanos() {
+        return intervalNanos;
+    }
+
+    /**
+     * Changes the interval of a running plan. The polling thread replans the pending
+     * deadline from the last tick on its next call, or fires right away if that is already
+     * past, so the caller should wake it rather than let it sleep out the old interval.
+     */
+    public void setIntervalNanos(long intervalNanos) {
+        if (intervalNanos <= 0) {
+            throw new IllegalArgumentException("Interval must be positive");
+        }
+        this.intervalNanos = intervalNanos;
+    }
+
+    /**
+     * Varies each gap between ticks around the interval. Set before {@link #start}; the
+     * sampler is then only called from the polling thread.
+     */
+    public void setIntervalSampler(IntervalSampler sampler) {
+        this.sampler = sampler;
+    }
+
+    // Called on the polling thread, which owns the plan
+    private void replanIfChanged(long nowNanos) {
+        long interval = intervalNanos;
+        if (interval == plannedIntervalNanos) {
+            return;
+        }
+        plannedIntervalNanos = interval;
+        if (lastDeadline >= 0) {
+            nextDeadline = Math.max(nowNanos, lastDeadline + nextStep(interval));
+        }
+    }
+
+    private long nextStep(long intervalNanos) {
+        return sampler == null ? intervalNanos : sampler.nextIntervalNanos(intervalNanos);
+    }
+
+    public long getSkippedTicks() {
+        return skippedTicks;
+    }
+
+    public JitterStats getJitter() {
+        return jitter;
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.autoclicker.scheduler;
+
+/**
+ * A plan of deadlines the {@link ClickScheduler} thread sleeps towards.
+ */
+public interface TickSource {
+
+    void start(long nowNanos);
+
+    // Long.MAX_VALUE once there are no more ticks
+    long nanosUntilNextTick(long nowNanos);
+
+    // Number of ticks to fire at nowNanos; advances the plan past them
+    int poll(long nowNanos);
+}
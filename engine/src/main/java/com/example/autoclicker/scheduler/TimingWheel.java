@@ -0,0 +1,368 @@
+package com.example.autoclicker.scheduler;
+
+/**
+ * Hierarchical hashed timing wheel: four levels of 64 slots, each level 64 times coarser
+ * than the one below. Scheduling and cancelling are O(1) (an intrusive list insert or
+ * unlink plus a bitmap update), unlike a Handler's MessageQueue, which walks its linked
+ * list to find each message's place. Timers on the coarse levels cascade down as their
+ * slot comes up.
+ *
+ * <p>The wheel never sleeps itself. A single thread asks {@link #nanosUntilNext(long)} how
+ * long it may park (found with one bit scan per level), calls {@link #advance(long)} when
+ * it wakes, and drains {@link #pollExpired()}. Deadlines further out than the top level
+ * (2^24 ticks) are parked in its last slot and re-placed each time that slot cascades.
+ */
+public final class TimingWheel<T> {
+
+    /**
+     * A schedulable entry. Re-arming the same timer with
+     * {@link TimingWheel#schedule(Timer, long)} avoids allocating one per deadline.
+     */
+    public static final class Timer<T> {
+
+        private final T payload;
+        private long deadlineTick;
+        // LEVEL_EXPIRED when waiting in the expired list, LEVEL_NONE when not scheduled
+        private int level = LEVEL_NONE;
+        private int slot;
+        private Timer<T> prev;
+        private Timer<T> next;
+
+        public Timer(T payload) {
+            this.payload = payload;
+        }
+
+        public T getPayload() {
+            return payload;
+        }
+
+        public boolean isPending() {
+            return level != LEVEL_NONE;
+        }
+
+        long getDeadlineTick() {
+            return deadlineTick;
+        }
+    }
+
+    private static final int LEVEL_NONE = -1;
+    private static final int LEVEL_EXPIRED = -2;
+    private static final int LEVELS = 4;
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+    private static final long MAX_DELTA = 1L << (SLOT_BITS * LEVELS);
+
+    private final long tickNanos;
+    private final long startNanos;
+    @SuppressWarnings("unchecked")
+    private final Timer<T>[][] slots = (Timer<T>[][]) new Timer<?>[LEVELS][SLOTS];
+    private final long[] occupied = new long[LEVELS];
+    // Every tick before this one has been processed
+    private long currentTick;
+    private int pending;
+
+    private Timer<T> expiredHead;
+    private Timer<T> expiredTail;
+    private int expiredCount;
+
+    // Earliest tick the driving thread has been told to wake at
+    private long plannedWakeTick = Long.MAX_VALUE;
+    private Runnable wakeUp;
+
+    public TimingWheel(long tickNanos, long startNanos) {
+        if (tickNanos <= 0) {
+            throw new IllegalArgumentException("Tick must be positive");
+        }
+        this.tickNanos = tickNanos;
+        this.startNanos = startNanos;
+    }
+
+    /**
+     * Called, outside the wheel's lock, when a timer is scheduled earlier than the time
+     * the driving thread last planned to wake at.
+     */
+    public synchronized void setWakeUp(Runnable wakeUp) {
+        this.wakeUp = wakeUp;
+    }
+
+    public Timer<T> schedule(long deadlineNanos, T payload) {
+        Timer<T> timer = new Timer<>(payload);
+        schedule(timer, deadlineNanos);
+        return timer;
+    }
+
+    // Arms timer for deadlineNanos, moving it if it is already pending
+    public void schedule(Timer<T> timer, long deadlineNanos) {
+        boolean wake;
+        synchronized (this) {
+            if (timer.level != LEVEL_NONE) {
+                unlink(timer);
+            }
+            timer.deadlineTick = toTick(deadlineNanos);
+            place(timer);
+            wake = timer.deadlineTick < plannedWakeTick;
+            if (wake) {
+                plannedWakeTick = timer.deadlineTick;
+            }
+        }
+        if (wake) {
+            notifyWakeUp();
+        }
+    }
+
+    /**
+     * Schedules {@code count} timers under one lock with at most one wake-up, e.g. a whole
+     * macro timeline. Returns the timers in input order.
+     */
+    @SuppressWarnings("unchecked")
+    public Timer<T>[] scheduleBatch(long[] deadlinesNanos, T[] payloads, int count) {
+        Timer<T>[] timers = (Timer<T>[]) new Timer<?>[count];
+        long earliest = Long.MAX_VALUE;
+        boolean wake;
+        synchronized (this) {
+            for (int i = 0; i < count; i++) {
+                Timer<T> timer = new Timer<>(payloads[i]);
+                timer.deadlineTick = toTick(deadlinesNanos[i]);
+                place(timer);
+                timers[i] = timer;
+                earliest = Math.min(earliest, timer.deadlineTick);
+            }
+            wake = earliest < plannedWakeTick;
+            if (wake) {
+                plannedWakeTick = earliest;
+            }
+        }
+        if (wake) {
+            notifyWakeUp();
+        }
+        return timers;
+    }
+
+    public synchronized boolean cancel(Timer<T> timer) {
+        if (timer.level == LEVEL_NONE) {
+            return false;
+        }
+        unlink(timer);
+        return true;
+    }
+
+    public synchronized int size() {
+        return pending;
+    }
+
+    /**
+     * Nanos until the earliest slot that holds a timer or needs to cascade (0 when expired
+     * timers are waiting, Long.MAX_VALUE when the wheel is empty).
+     */
+    public synchronized long nanosUntilNext(long nowNanos) {
+        if (expiredHead != null) {
+            plannedWakeTick = currentTick;
+            return 0;
+        }
+        long tick = nextEventTick();
+        plannedWakeTick = tick;
+        if (tick == Long.MAX_VALUE) {
+            return Long.MAX_VALUE;
+        }
+        return tickStart(tick) - nowNanos;
+    }
+
+    /**
+     * Processes every tick up to {@code nowNanos}, moving due timers to the expired list.
+     * Empty stretches are skipped, so the cost depends on timers, not on elapsed time.
+     * Returns the number of timers waiting in {@link #pollExpired()}.
+     */
+    public synchronized int advance(long nowNanos) {
+        long target = (nowNanos - startNanos) / tickNanos;
+        while (currentTick <= target) {
+            long next = nextEventTick();
+            if (next > target) {
+                // Nothing due or cascading up to target; jump straight past it
+                currentTick = target + 1;
+                break;
+            }
+            if (next > currentTick) {
+                currentTick = next;
+            }
+            processTick(currentTick);
+            currentTick++;
+        }
+        return expiredCount;
+    }
+
+    // Next expired timer in deadline order, or null
+    public synchronized Timer<T> pollExpired() {
+        Timer<T> timer = expiredHead;
+        if (timer == null) {
+            return null;
+        }
+        expiredHead = timer.next;
+        if (expiredHead == null) {
+            expiredTail = null;
+        } else {
+            expiredHead.prev = null;
+        }
+        timer.next = null;
+        timer.level = LEVEL_NONE;
+        pending--;
+        expiredCount--;
+        return timer;
+    }
+
+    public long getTickNanos() {
+        return tickNanos;
+    }
+
+    public long tickStart(long tick) {
+        return startNanos + tick * tickNanos;
+    }
+
+    private long toTick(long deadlineNanos) {
+        long delta = deadlineNanos - startNanos;
+        if (delta <= 0) {
+            return 0;
+        }
+        // Round up so a timer never fires before its deadline
+        return (delta + tickNanos - 1) / tickNanos;
+    }
+
+    private void processTick(long tick) {
+        // Cascade coarser levels whose slot starts at this tick, lowest level first
+        for (int level = 1; level < LEVELS; level++) {
+            if ((tick & ((1L << (SLOT_BITS * level)) - 1)) != 0) {
+                break;
+            }
+            int index = (int) ((tick >>> (SLOT_BITS * level)) & SLOT_MASK);
+            Timer<T> timer = slots[level][index];
+            slots[level][index] = null;
+            occupied[level] &= ~(1L << index);
+            while (timer != null) {
+                Timer<T> next = timer.next;
+                timer.prev = null;
+                timer.next = null;
+                pending--;
+                place(timer);
+                timer = next;
+            }
+        }
+
+        int index = (int) (tick & SLOT_MASK);
+        Timer<T> timer = slots[0][index];
+        slots[0][index] = null;
+        occupied[0] &= ~(1L << index);
+        while (timer != null) {
+            Timer<T> next = timer.next;
+            timer.prev = null;
+            timer.next = null;
+            timer.level = LEVEL_EXPIRED;
+            appendExpired(timer);
+            timer = next;
+        }
+    }
+
+    private void place(Timer<T> timer) {
+        pending++;
+        long delta = timer.deadlineTick - currentTick;
+        if (delta < 0) {
+            timer.level = LEVEL_EXPIRED;
+            appendExpired(timer);
+            return;
+        }
+        long tick = timer.deadlineTick;
+        if (delta >= MAX_DELTA) {
+            tick = currentTick + MAX_DELTA - 1;
+            delta = MAX_DELTA - 1;
+        }
+        int level = 0;
+        while (delta >= (1L << (SLOT_BITS * (level + 1)))) {
+            level++;
+        }
+        int index = (int) ((tick >>> (SLOT_BITS * level)) & SLOT_MASK);
+        timer.level = level;
+        timer.slot = index;
+        timer.prev = null;
+        timer.next = slots[level][index];
+        if (timer.next != null) {
+            timer.next.prev = timer;
+        }
+        slots[level][index] = timer;
+        occupied[level] |= 1L << index;
+    }
+
+    private void unlink(Timer<T> timer) {
+        if (timer.level == LEVEL_EXPIRED) {
+            if (timer.prev == null) {
+                expiredHead = timer.next;
+            } else {
+                timer.prev.next = timer.next;
+            }
+            if (timer.next == null) {
+                expiredTail = timer.prev;
+            } else {
+                timer.next.prev = timer.prev;
+            }
+            expiredCount--;
+        } else {
+            if (timer.prev == null) {
+                slots[timer.level][timer.slot] = timer.next;
+                if (timer.next == null) {
+                    occupied[timer.level] &= ~(1L << timer.slot);
+                }
+            } else {
+                timer.prev.next = timer.next;
+            }
+            if (timer.next != null) {
+                timer.next.prev = timer.prev;
+            }
+        }
+        timer.prev = null;
+        timer.next = null;
+        timer.level = LEVEL_NONE;
+        pending--;
+    }
+
+    private void appendExpired(Timer<T> timer) {
+        timer.next = null;
+        timer.prev = expiredTail;
+        if (expiredTail == null) {
+            expiredHead = timer;
+        } else {
+            expiredTail.next = timer;
+        }
+        expiredTail = timer;
+        expiredCount++;
+    }
+
+    // Earliest tick at which a level-0 slot fires or a coarser slot cascades
+    private long nextEventTick() {
+        long best = Long.MAX_VALUE;
+        for (int level = 0; level < LEVELS; level++) {
+            long bits = occupied[level];
+            if (bits == 0) {
+                continue;
+            }
+            int shift = SLOT_BITS * level;
+            long block = currentTick >>> shift;
+            int distance = Long.numberOfTrailingZeros(Long.rotateRight(bits, (int) (block & SLOT_MASK)));
+            // The current block's coarse slot was cascaded already unless we stand at its start
+            if (distance == 0 && level > 0 && (currentTick & ((1L << shift) - 1)) != 0) {
+                distance = Long.numberOfTrailingZeros(
+                        Long.rotateRight(bits, (int) ((block + 1) & SLOT_MASK))) + 1;
+            }
+            long tick = level == 0 ? currentTick + distance : (block + distance) << shift;
+            best = Math.min(best, tick);
+        }
+        return best;
+    }
+
+    private void notifyWakeUp() {
+        Runnable r;
+        synchronized (this) {
+            r = wakeUp;
+        }
+        if (r != null) {
+            r.run();
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.autoclicker.script;
+
+/**
+ * Instruction set of the script VM. Every instruction is {@link #WIDTH} ints: the opcode
+ * and up to three operands. {@code r}, {@code s} and {@code t} are register numbers,
+ * {@code imm} an immediate value and {@code target} an index into the code array.
+ */
+final class Op {
+
+    static final int WIDTH = 4;
+
+    static final int HALT = 0;
+    // r = imm
+    static final int LOADI = 1;
+    // r = s
+    static final int MOV = 2;
+    // r = s (op) t
+    static final int ADD = 3;
+    static final int SUB = 4;
+    static final int MUL = 5;
+    static final int DIV = 6;
+    static final int MOD = 7;
+    // r = s + imm
+    static final int ADDI = 8;
+    // r = s (compare) t ? 1 : 0
+    static final int EQ = 9;
+    static final int NE = 10;
+    static final int LT = 11;
+    static final int LE = 12;
+    static final int GT = 13;
+    static final int GE = 14;
+    // r = (s != 0 && t != 0) ? 1 : 0, and likewise for OR
+    static final int AND = 15;
+    static final int OR = 16;
+    // r = s == 0 ? 1 : 0
+    static final int NOT = 17;
+    // r = -s
+    static final int NEG = 18;
+    static final int JMP = 19;
+    // Jump to target if r is zero / non-zero / not above zero
+    static final int JZ = 20;
+    static final int JNZ = 21;
+    static final int JLEZ = 22;
+    // Tap at registers (r, s) / at immediates (imm, imm)
+    static final int TAP = 23;
+    static final int TAPI = 24;
+    // Swipe from registers r..r+4: x1, y1, x2, y2, duration ms
+    static final int SWIPE = 25;
+    // Tap the center of the node named by string imm, if it is on screen
+    static final int TAPNODE = 26;
+    // Pause for register r / imm milliseconds
+    static final int WAIT = 27;
+    static final int WAITI = 28;
+    // r = screen trigger matches ? 1 : 0
+    static final int SCREEN = 29;
+    // r = node named by string imm is on screen ? 1 : 0
+    static final int NODE = 30;
+    // r = actions fired so far
+    static final int CLICKS = 31;
+    static final int CALL = 32;
+    static final int RET = 33;
+
+    static final String[] NAMES = {
+            "HALT", "LOADI", "MOV", "ADD", "SUB", "MUL", "DIV", "MOD", "ADDI",
+            "EQ", "NE", "LT", "LE", "GT", "GE", "AND", "OR", "NOT", "NEG",
+            "JMP", "JZ", "JNZ", "JLEZ", "TAP", "TAPI", "SWIPE", "TAPNODE", "WAIT", "WAITI",
+            "SCREEN", "NODE", "CLICKS", "CALL", "RET"
+    };
+
+    private Op() {
+    }
+}
@@ -0,0 +1,605 @@
+package com.example.autoclicker.script;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Single-pass compiler from script source to {@link ScriptProgram} bytecode. A recursive
+ * descent parser emits instructions as it goes, so no syntax tree is built. Constant
+ * sub-expressions are folded, so {@code tap 540 1200} is one TAPI instruction.
+ *
+ * <pre>
+ * statement := "tap" expr expr | "tap" "node" STRING
+ *            | "swipe" expr expr expr expr expr        (x1 y1 x2 y2 ms)
+ *            | "wait" expr                             (ms)
+ *            | NAME "=" expr
+ *            | "repeat" expr block | "loop" block | "while" expr block
+ *            | "if" expr block ("else" (block | if-statement))?
+ *            | "sub" NAME block | "call" NAME | "return" | "stop"
+ * block     := "{" statement* "}"
+ * expr      := or-expression over: "or", "and", "not", == != &lt; &lt;= &gt; &gt;=, + -, * / %,
+ *              unary -, NUMBER, NAME, "(" expr ")", "screen", "node" STRING, "clicks"
+ * </pre>
+ *
+ * Arguments are separated by whitespace alone, so a negative argument after the first needs
+ * parentheses: {@code tap 10 (-5)}, since {@code tap 10 -5} reads as {@code 10 - 5}.
+ * Variables are integers, global and zero before they are first assigned. Sub-routines
+ * share them, and loop counters are per loop rather than per call, so recursion inside a
+ * counted loop does not get a fresh counter.
+ */
+public final class ScriptCompiler {
+
+    // Marks an expression result that is a compile-time constant held in constantValue
+    private static final int CONSTANT = -1;
+    private static final String[] KEYWORDS = {
+            "tap", "swipe", "wait", "repeat", "loop", "while", "if", "else", "sub", "call",
+            "return", "stop", "screen", "node", "clicks", "and", "or", "not"
+    };
+
+    private final List<ScriptLexer.Token> tokens;
+    private int pos;
+
+    private int[] code = new int[64];
+    private int[] lines = new int[16];
+    private int size;
+    private int line;
+
+    private final Map<String, Integer> variables = new HashMap<>();
+    private final List<String> variableNames = new ArrayList<>();
+    // Temporaries live above the variables and only for the statement being compiled
+    private int tempBase;
+    private int tempTop;
+    private int maxRegister;
+    private int nextCounter;
+    private int constantValue;
+
+    private final List<String> strings = new ArrayList<>();
+    private final Map<String, Integer> stringIds = new HashMap<>();
+    private final Map<String, Integer> subs = new HashMap<>();
+    private final Map<String, List<Integer>> pendingCalls = new HashMap<>();
+    private final Map<String, Integer> pendingCallLines = new HashMap<>();
+
+    private ScriptCompiler(List<ScriptLexer.Token> tokens) {
+        this.tokens = tokens;
+    }
+
+    public static ScriptProgram compile(String source) throws ScriptException {
+        return new ScriptCompiler(ScriptLexer.tokenize(source)).compileProgram();
+    }
+
+    private ScriptProgram compileProgram() throws ScriptException {
+        declareRegisters();
+        while (peek().type != ScriptLexer.EOF) {
+            statement();
+        }
+        line = peek().line;
+        emit(Op.HALT, 0, 0, 0);
+        if (!pendingCalls.isEmpty()) {
+            String name = pendingCalls.keySet().iterator().next();
+            throw new ScriptException(pendingCallLines.get(name), "Unknown sub '" + name + "'");
+        }
+        return new ScriptProgram(Arrays.copyOf(code, size), Arrays.copyOf(lines, size / Op.WIDTH),
+                strings, variableNames, Math.max(maxRegister, tempBase));
+    }
+
+    /**
+     * Gives every assigned variable and every counted loop a fixed register up front, so
+     * temporaries can start right above them.
+     */
+    private void declareRegisters() throws ScriptException {
+        for (int i = 0; i + 1 < tokens.size(); i++) {
+            ScriptLexer.Token token = tokens.get(i);
+            if (token.type == ScriptLexer.IDENT && tokens.get(i + 1).is("=")
+                    && !variables.containsKey(token.text)) {
+                if (isKeyword(token.text)) {
+                    throw new ScriptException(token.line, "'" + token.text + "' is a keyword");
+                }
+                variables.put(token.text, variableNames.size());
+                variableNames.add(token.text);
+            }
+        }
+        int registers = variableNames.size();
+        for (ScriptLexer.Token token : tokens) {
+            if (token.is("repeat") && token.type == ScriptLexer.IDENT) {
+                registers++;
+            }
+        }
+        tempBase = registers;
+        tempTop = tempBase;
+        // Loop counters are handed out from just above the variables as loops are compiled
+        nextCounter = variableNames.size();
+    }
+
+    // ---- statements ----
+
+    private void statement() throws ScriptException {
+        ScriptLexer.Token token = next();
+        line = token.line;
+        tempTop = tempBase;
+        if (token.type != ScriptLexer.IDENT) {
+            throw error(token, "Expected a statement but found " + token);
+        }
+        switch (token.text) {
+            case "tap":
+                tapStatement();
+                break;
+            case "swipe":
+                swipeStatement();
+                break;
+            case "wait": {
+                int ms = expression();
+                if (ms == CONSTANT) {
+                    emit(Op.WAITI, constantValue, 0, 0);
+                } else {
+                    emit(Op.WAIT, ms, 0, 0);
+                }
+                break;
+            }
+            case "repeat":
+                repeatStatement();
+                break;
+            case "loop": {
+                int top = size;
+                block();
+                emit(Op.JMP, top, 0, 0);
+                break;
+            }
+            case "while": {
+                int top = size;
+                int condition = toRegister(expression());
+                int exit = emitJump(Op.JZ, condition);
+                block();
+                emit(Op.JMP, top, 0, 0);
+                patch(exit, size);
+                break;
+            }
+            case "if":
+                ifStatement();
+                break;
+            case "sub":
+                subStatement();
+                break;
+            case "call":
+                callStatement();
+                break;
+            case "return":
+                emit(Op.RET, 0, 0, 0);
+                break;
+            case "stop":
+                emit(Op.HALT, 0, 0, 0);
+                break;
+            default:
+                assignment(token);
+                break;
+        }
+    }
+
+    private void tapStatement() throws ScriptException {
+        if (peek().is("node")) {
+            next();
+            emit(Op.TAPNODE, stringConstant(), 0, 0);
+            return;
+        }
+        int x = expression();
+        int xValue = constantValue;
+        int y = expression();
+        int yValue = constantValue;
+        if (x == CONSTANT && y == CONSTANT) {
+            emit(Op.TAPI, xValue, yValue, 0);
+            return;
+        }
+        int rx = x == CONSTANT ? load(xValue) : x;
+        int ry = y == CONSTANT ? load(yValue) : y;
+        emit(Op.TAP, rx, ry, 0);
+    }
+
+    private void swipeStatement() throws ScriptException {
+        // The VM reads the five operands from consecutive registers
+        int base = tempTop;
+        tempTop += 5;
+        trackRegister(tempTop);
+        for (int i = 0; i < 5; i++) {
+            int value = expression();
+            if (value == CONSTANT) {
+                emit(Op.LOADI, base + i, constantValue, 0);
+            } else {
+                emit(Op.MOV, base + i, value, 0);
+            }
+        }
+        emit(Op.SWIPE, base, 0, 0);
+    }
+
+    private void repeatStatement() throws ScriptException {
+        int counter = nextCounter++;
+        int count = expression();
+        if (count == CONSTANT) {
+            emit(Op.LOADI, counter, constantValue, 0);
+        } else {
+            emit(Op.MOV, counter, count, 0);
+        }
+        int top = size;
+        int exit = emitJump(Op.JLEZ, counter);
+        block();
+        emit(Op.ADDI, counter, counter, -1);
+        emit(Op.JMP, top, 0, 0);
+        patch(exit, size);
+    }
+
+    private void ifStatement() throws ScriptException {
+        int condition = toRegister(expression());
+        int skip = emitJump(Op.JZ, condition);
+        block();
+        if (!peek().is("else")) {
+            patch(skip, size);
+            return;
+        }
+        next();
+        int end = emitJump(Op.JMP, 0);
+        patch(skip, size);
+        if (peek().is("if")) {
+            line = next().line;
+            tempTop = tempBase;
+            ifStatement();
+        } else {
+            block();
+        }
+        patch(end, size);
+    }
+
+    private void subStatement() throws ScriptException {
+        ScriptLexer.Token name = next();
+        if (name.type != ScriptLexer.IDENT || isKeyword(name.text)) {
+            throw error(name, "Expected a sub name but found " + name);
+        }
+        if (subs.containsKey(name.text)) {
+            throw error(name, "Sub '" + name.text + "' is already defined");
+        }
+        // Subs are compiled in place and jumped over
+        int skip = emitJump(Op.JMP, 0);
+        int address = size;
+        subs.put(name.text, address);
+        List<Integer> calls = pendingCalls.remove(name.text);
+        if (calls != null) {
+            for (int site : calls) {
+                code[site + 1] = address;
+            }
+        }
+        block();
+        emit(Op.RET, 0, 0, 0);
+        patch(skip, size);
+    }
+
+    private void callStatement() throws ScriptException {
+        ScriptLexer.Token name = next();
+        if (name.type != ScriptLexer.IDENT || isKeyword(name.text)) {
+            throw error(name, "Expected a sub name but found " + name);
+        }
+        Integer address = subs.get(name.text);
+        if (address != null) {
+            emit(Op.CALL, address, 0, 0);
+            return;
+        }
+        // Defined further down; patched when the sub is compiled
+        List<Integer> calls = pendingCalls.get(name.text);
+        if (calls == null) {
+            calls = new ArrayList<>();
+            pendingCalls.put(name.text, calls);
+            pendingCallLines.put(name.text, name.line);
+        }
+        calls.add(size);
+        emit(Op.CALL, 0, 0, 0);
+    }
+
+    private void assignment(ScriptLexer.Token name) throws ScriptException {
+        if (isKeyword(name.text) || !next().is("=")) {
+            throw error(name, "Unknown statement '" + name.text + "'");
+        }
+        int target = variables.get(name.text);
+        int value = expression();
+        if (value == CONSTANT) {
+            emit(Op.LOADI, target, constantValue, 0);
+        } else if (value >= tempBase && size > 0 && code[size - Op.WIDTH + 1] == value
+                && writesRegister(code[size - Op.WIDTH])) {
+            // Retarget the instruction that produced the temporary: i = i + 1 is one ADDI
+            code[size - Op.WIDTH + 1] = target;
+        } else if (value != target) {
+            emit(Op.MOV, target, value, 0);
+        }
+    }
+
+    private void block() throws ScriptException {
+        expect("{");
+        while (!peek().is("}")) {
+            if (peek().type == ScriptLexer.EOF) {
+                throw error(peek(), "Missing '}'");
+            }
+            statement();
+        }
+        next();
+    }
+
+    // ---- expressions: each returns a register, or CONSTANT with constantValue set ----
+
+    private int expression() throws ScriptException {
+        int left = andExpression();
+        while (peek().is("or")) {
+            next();
+            left = binary(Op.OR, left, constantValue, andExpression());
+        }
+        return left;
+    }
+
+    private int andExpression() throws ScriptException {
+        int left = notExpression();
+        while (peek().is("and")) {
+            next();
+            left = binary(Op.AND, left, constantValue, notExpression());
+        }
+        return left;
+    }
+
+    private int notExpression() throws ScriptException {
+        if (!peek().is("not")) {
+            return comparison();
+        }
+        next();
+        int value = notExpression();
+        if (value == CONSTANT) {
+            constantValue = constantValue == 0 ? 1 : 0;
+            return CONSTANT;
+        }
+        int result = allocateTemp();
+        emit(Op.NOT, result, value, 0);
+        return result;
+    }
+
+    private int comparison() throws ScriptException {
+        int left = additive();
+        ScriptLexer.Token op = peek();
+        int opcode;
+        switch (op.type == ScriptLexer.SYMBOL ? op.text : "") {
+            case "==": opcode = Op.EQ; break;
+            case "!=": opcode = Op.NE; break;
+            case "<": opcode = Op.LT; break;
+            case "<=": opcode = Op.LE; break;
+            case ">": opcode = Op.GT; break;
+            case ">=": opcode = Op.GE; break;
+            default: return left;
+        }
+        next();
+        return binary(opcode, left, constantValue, additive());
+    }
+
+    private int additive() throws ScriptException {
+        int left = multiplicative();
+        while (peek().is("+") || peek().is("-")) {
+            int opcode = next().is("+") ? Op.ADD : Op.SUB;
+            left = binary(opcode, left, constantValue, multiplicative());
+        }
+        return left;
+    }
+
+    private int multiplicative() throws ScriptException {
+        int left = unary();
+        while (peek().is("*") || peek().is("/") || peek().is("%")) {
+            ScriptLexer.Token op = next();
+            int opcode = op.is("*") ? Op.MUL : op.is("/") ? Op.DIV : Op.MOD;
+            left = binary(opcode, left, constantValue, unary());
+        }
+        return left;
+    }
+
+    private int unary() throws ScriptException {
+        if (!peek().is("-")) {
+            return primary();
+        }
+        next();
+        int value = unary();
+        if (value == CONSTANT) {
+            constantValue = -constantValue;
+            return CONSTANT;
+        }
+        int result = allocateTemp();
+        emit(Op.NEG, result, value, 0);
+        return result;
+    }
+
+    private int primary() throws ScriptException {
+        ScriptLexer.Token token = next();
+        switch (token.type) {
+            case ScriptLexer.NUMBER:
+                constantValue = token.value;
+                return CONSTANT;
+            case ScriptLexer.SYMBOL:
+                if (token.is("(")) {
+                    int value = expression();
+                    int saved = constantValue;
+                    expect(")");
+                    constantValue = saved;
+                    return value;
+                }
+                break;
+            case ScriptLexer.IDENT: {
+                int opcode;
+                switch (token.text) {
+                    case "screen": opcode = Op.SCREEN; break;
+                    case "clicks": opcode = Op.CLICKS; break;
+                    case "node": {
+                        int result = allocateTemp();
+                        emit(Op.NODE, result, stringConstant(), 0);
+                        return result;
+                    }
+                    default: {
+                        if (isKeyword(token.text)) {
+                            throw error(token, "Unexpected " + token);
+                        }
+                        Integer register = variables.get(token.text);
+                        if (register == null) {
+                            throw error(token, "Unknown variable '" + token.text + "'");
+                        }
+                        return register;
+                    }
+                }
+                int result = allocateTemp();
+                emit(opcode, result, 0, 0);
+                return result;
+            }
+        }
+        throw error(token, "Expected a value but found " + token);
+    }
+
+    private int binary(int opcode, int left, int leftValue, int right) throws ScriptException {
+        int rightValue = constantValue;
+        if (left == CONSTANT && right == CONSTANT) {
+            constantValue = fold(opcode, leftValue, rightValue);
+            return CONSTANT;
+        }
+        int result = allocateTemp();
+        if (opcode == Op.ADD && right == CONSTANT) {
+            emit(Op.ADDI, result, left, rightValue);
+        } else if (opcode == Op.ADD && left == CONSTANT) {
+            emit(Op.ADDI, result, right, leftValue);
+        } else if (opcode == Op.SUB && right == CONSTANT) {
+            emit(Op.ADDI, result, left, -rightValue);
+        } else {
+            int l = left == CONSTANT ? load(leftValue) : left;
+            int r = right == CONSTANT ? load(rightValue) : right;
+            emit(opcode, result, l, r);
+        }
+        return result;
+    }
+
+    private int fold(int opcode, int a, int b) throws ScriptException {
+        switch (opcode) {
+            case Op.ADD: return a + b;
+            case Op.SUB: return a - b;
+            case Op.MUL: return a * b;
+            case Op.DIV:
+            case Op.MOD:
+                if (b == 0) {
+                    throw new ScriptException(line, "Division by zero");
+                }
+                return opcode == Op.DIV ? a / b : a % b;
+            case Op.EQ: return a == b ? 1 : 0;
+            case Op.NE: return a != b ? 1 : 0;
+            case Op.LT: return a < b ? 1 : 0;
+            case Op.LE: return a <= b ? 1 : 0;
+            case Op.GT: return a > b ? 1 : 0;
+            case Op.GE: return a >= b ? 1 : 0;
+            case Op.AND: return a != 0 && b != 0 ? 1 : 0;
+            case Op.OR: return a != 0 || b != 0 ? 1 : 0;
+            default: throw new IllegalStateException("Not foldable: " + Op.NAMES[opcode]);
+        }
+    }
+
+    private int toRegister(int value) {
+        return value == CONSTANT ? load(constantValue) : value;
+    }
+
+    private int load(int value) {
+        int register = allocateTemp();
+        emit(Op.LOADI, register, value, 0);
+        return register;
+    }
+
+    private int allocateTemp() {
+        int register = tempTop++;
+        trackRegister(tempTop);
+        return register;
+    }
+
+    private void trackRegister(int count) {
+        maxRegister = Math.max(maxRegister, count);
+    }
+
+    private int stringConstant() throws ScriptException {
+        ScriptLexer.Token token = next();
+        if (token.type != ScriptLexer.STRING) {
+            throw error(token, "Expected a quoted node text but found " + token);
+        }
+        Integer id = stringIds.get(token.text);
+        if (id == null) {
+            id = strings.size();
+            strings.add(token.text);
+            stringIds.put(token.text, id);
+        }
+        return id;
+    }
+
+    private static boolean writesRegister(int opcode) {
+        return opcode >= Op.LOADI && opcode <= Op.NEG
+                || opcode == Op.SCREEN || opcode == Op.NODE || opcode == Op.CLICKS;
+    }
+
+    private static boolean isKeyword(String word) {
+        for (String keyword : KEYWORDS) {
+            if (keyword.equals(word)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // ---- emission and tokens ----
+
+    private void emit(int opcode, int a, int b, int c) {
+        if (size + Op.WIDTH > code.length) {
+            code = Arrays.copyOf(code, code.length * 2);
+        }
+        int index = size / Op.WIDTH;
+        if (index >= lines.length) {
+            lines = Arrays.copyOf(lines, lines.length * 2);
+        }
+        lines[index] = line;
+        code[size] = opcode;
+        code[size + 1] = a;
+        code[size + 2] = b;
+        code[size + 3] = c;
+        size += Op.WIDTH;
+    }
+
+    // Emits a jump whose target is patched later; returns its position
+    private int emitJump(int opcode, int register) {
+        int at = size;
+        if (opcode == Op.JMP) {
+            emit(Op.JMP, 0, 0, 0);
+        } else {
+            emit(opcode, register, 0, 0);
+        }
+        return at;
+    }
+
+    private void patch(int jumpAt, int target) {
+        if (code[jumpAt] == Op.JMP) {
+            code[jumpAt + 1] = target;
+        } else {
+            code[jumpAt + 2] = target;
+        }
+    }
+
+    private ScriptLexer.Token peek() {
+        return tokens.get(pos);
+    }
+
+    private ScriptLexer.Token next() {
+        ScriptLexer.Token token = tokens.get(pos);
+        if (token.type != ScriptLexer.EOF) {
+            pos++;
+        }
+        return token;
+    }
+
+    private void expect(String symbol) throws ScriptException {
+        ScriptLexer.Token token = next();
+        if (!token.is(symbol)) {
+            throw error(token, "Expected '" + symbol + "' but found " + token);
+        }
+    }
+
+    private static ScriptException error(ScriptLexer.Token token, String message) {
+        return new ScriptException(token.line, message);
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.autoclicker.script;
+
+/**
+ * A script that does not compile or failed while running, with the line the problem was
+ * found on.
+ */
+public class ScriptException extends Exception {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int line;
+
+    public ScriptException(int line, String message) {
+        super("Line " + line + ": " + message);
+        this.line = line;
+    }
+
+    public int getLine() {
+        return line;
+    }
+}
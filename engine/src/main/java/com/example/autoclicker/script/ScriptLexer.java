@@ -0,0 +1,104 @@
+package com.example.autoclicker.script;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits script source into tokens. Newlines are plain whitespace and {@code #} starts a
+ * comment that runs to the end of the line.
+ */
+final class ScriptLexer {
+
+    static final int NUMBER = 0;
+    static final int IDENT = 1;
+    static final int STRING = 2;
+    static final int SYMBOL = 3;
+    static final int EOF = 4;
+
+    static final class Token {
+        final int type;
+        final String text;
+        final int value;
+        final int line;
+
+        Token(int type, String text, int value, int line) {
+            this.type = type;
+            this.text = text;
+            this.value = value;
+            this.line = line;
+        }
+
+        boolean is(String symbolOrWord) {
+            return (type == SYMBOL || type == IDENT) && text.equals(symbolOrWord);
+        }
+
+        @Override
+        public String toString() {
+            return type == EOF ? "end of script" : type == STRING ? "\"" + text + "\"" : "'" + text + "'";
+        }
+    }
+
+    private static final String TWO_CHAR_SYMBOLS = "== != <= >=";
+    private static final String SYMBOLS = "{}()=<>+-*/%";
+
+    private ScriptLexer() {
+    }
+
+    static List<Token> tokenize(String source) throws ScriptException {
+        List<Token> tokens = new ArrayList<>();
+        int line = 1;
+        int i = 0;
+        int length = source.length();
+        while (i < length) {
+            char c = source.charAt(i);
+            if (c == '\n') {
+                line++;
+                i++;
+            } else if (Character.isWhitespace(c) || c == ';') {
+                i++;
+            } else if (c == '#') {
+                while (i < length && source.charAt(i) != '\n') {
+                    i++;
+                }
+            } else if (c >= '0' && c <= '9') {
+                int start = i;
+                long value = 0;
+                while (i < length && source.charAt(i) >= '0' && source.charAt(i) <= '9') {
+                    value = value * 10 + (source.charAt(i) - '0');
+                    if (value > Integer.MAX_VALUE) {
+                        throw new ScriptException(line, "Number too large: " + source.substring(start, i + 1));
+                    }
+                    i++;
+                }
+                tokens.add(new Token(NUMBER, source.substring(start, i), (int) value, line));
+            } else if (Character.isLetter(c) || c == '_') {
+                int start = i;
+                while (i < length && (Character.isLetterOrDigit(source.charAt(i)) || source.charAt(i) == '_')) {
+                    i++;
+                }
+                tokens.add(new Token(IDENT, source.substring(start, i), 0, line));
+            } else if (c == '"') {
+                int start = ++i;
+                while (i < length && source.charAt(i) != '"' && source.charAt(i) != '\n') {
+                    i++;
+                }
+                if (i >= length || source.charAt(i) != '"') {
+                    throw new ScriptException(line, "Unterminated string");
+                }
+                tokens.add(new Token(STRING, source.substring(start, i), 0, line));
+                i++;
+            } else if (i + 1 < length && TWO_CHAR_SYMBOLS.contains(source.substring(i, i + 2))
+                    && source.charAt(i + 1) == '=') {
+                tokens.add(new Token(SYMBOL, source.substring(i, i + 2), 0, line));
+                i += 2;
+            } else if (SYMBOLS.indexOf(c) >= 0) {
+                tokens.add(new Token(SYMBOL, String.valueOf(c), 0, line));
+                i++;
+            } else {
+                throw new ScriptException(line, "Unexpected character '" + c + "'");
+            }
+        }
+        tokens.add(new Token(EOF, "", 0, line));
+        return tokens;
+    }
+}
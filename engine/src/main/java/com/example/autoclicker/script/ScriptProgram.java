@@ -0,0 +1,73 @@
+package com.example.autoclicker.script;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A compiled script: flat bytecode, the string constants it refers to, and the number of
+ * registers the VM needs. Immutable, so one program can back any number of VMs.
+ */
+public final class ScriptProgram {
+
+    final int[] code;
+    // Source line of each instruction, for runtime error messages
+    private final int[] lines;
+    private final List<String> strings;
+    private final List<String> variables;
+    final int registerCount;
+
+    ScriptProgram(int[] code, int[] lines, List<String> strings, List<String> variables,
+                  int registerCount) {
+        this.code = code;
+        this.lines = lines;
+        this.strings = Collections.unmodifiableList(strings);
+        this.variables = Collections.unmodifiableList(variables);
+        this.registerCount = registerCount;
+    }
+
+    // Number of instructions
+    public int size() {
+        return code.length / Op.WIDTH;
+    }
+
+    public int getRegisterCount() {
+        return registerCount;
+    }
+
+    // String constants (node texts), indexed as the VM host sees them
+    public List<String> getStrings() {
+        return strings;
+    }
+
+    // User variables, in register order
+    public List<String> getVariables() {
+        return variables;
+    }
+
+    int lineAt(int pc) {
+        return lines[pc / Op.WIDTH];
+    }
+
+    public String disassemble() {
+        StringBuilder out = new StringBuilder();
+        for (int pc = 0; pc < code.length; pc += Op.WIDTH) {
+            out.append(pc / Op.WIDTH).append(": ").append(Op.NAMES[code[pc]]);
+            int operands = Op.WIDTH - 1;
+            while (operands > 0 && code[pc + operands] == 0) {
+                operands--;
+            }
+            for (int i = 1; i <= operands; i++) {
+                out.append(' ').append(code[pc + i]);
+            }
+            out.append('\n');
+        }
+        return out.toString();
+    }
+
+    @Override
+    public String toString() {
+        return size() + " instructions, " + registerCount + " registers, strings "
+                + Arrays.toString(strings.toArray());
+    }
+}
@@ -0,0 +1,308 @@
+package com.example.autoclicker.script;
+
+import com.example.autoclicker.scheduler.TickSource;
+
+import java.util.Arrays;
+
+/**
+ * Runs a {@link ScriptProgram} as a tick source for the click scheduler. Instructions run on
+ * the scheduler thread between ticks until the next tap or swipe, which becomes the next
+ * tick; {@code wait} moves that tick's deadline instead of blocking. After each tick the
+ * action is readable through {@link #getAction()} and the coordinate getters.
+ */
+public final class ScriptVm implements TickSource {
+
+    /**
+     * What the script can ask about the screen. Called on the scheduler thread.
+     */
+    public interface Host {
+        boolean screenMatches();
+
+        // Fills outCenter with the center of the node named by the program string, if shown
+        boolean findNode(int stringId, int[] outCenter);
+    }
+
+    public static final int ACTION_NONE = 0;
+    public static final int ACTION_TAP = 1;
+    public static final int ACTION_SWIPE = 2;
+
+    // Instructions run per slice before yielding, so a busy loop cannot hog the thread
+    static final int MAX_STEPS = 10_000;
+    static final long YIELD_NANOS = 1_000_000L;
+    // Further behind than this (the scheduler was paused or starved) and the timeline restarts
+    static final long MAX_LAG_NANOS = 250_000_000L;
+    private static final int MAX_CALL_DEPTH = 64;
+
+    private final ScriptProgram program;
+    private final Host host;
+    private final long minActionGapNanos;
+    private final int[] regs;
+    private final int[] callStack = new int[MAX_CALL_DEPTH];
+    private final int[] nodeCenter = new int[2];
+
+    private int pc;
+    private int depth;
+    private long dueNanos;
+    private long lastActionNanos;
+    private int clicks;
+    private boolean consumed;
+    private boolean finished;
+    private ScriptException error;
+
+    private int action;
+    private int x;
+    private int y;
+    private int endX;
+    private int endY;
+    private int durationMs;
+
+    public ScriptVm(ScriptProgram program, Host host, long minActionGapNanos) {
+        this.program = program;
+        this.host = host;
+        this.minActionGapNanos = minActionGapNanos;
+        this.regs = new int[Math.max(1, program.registerCount)];
+    }
+
+    @Override
+    public void start(long nowNanos) {
+        Arrays.fill(regs, 0);
+        pc = 0;
+        depth = 0;
+        dueNanos = nowNanos;
+        lastActionNanos = Long.MIN_VALUE / 2;
+        clicks = 0;
+        consumed = false;
+        finished = false;
+        error = null;
+        action = ACTION_NONE;
+    }
+
+    @Override
+    public long nanosUntilNextTick(long nowNanos) {
+        if (consumed) {
+            consumed = false;
+            action = ACTION_NONE;
+        }
+        while (action == ACTION_NONE && !finished) {
+            if (dueNanos > nowNanos) {
+                // Waiting, or yielding after a long slice
+                return dueNanos - nowNanos;
+            }
+            run(nowNanos);
+        }
+        if (finished) {
+            return Long.MAX_VALUE;
+        }
+        return dueNanos - nowNanos;
+    }
+
+    @Override
+    public int poll(long nowNanos) {
+        if (nanosUntilNextTick(nowNanos) > 0) {
+            return 0;
+        }
+        consumed = true;
+        clicks++;
+        lastActionNanos = dueNanos;
+        return 1;
+    }
+
+    public int getAction() {
+        return action;
+    }
+
+    public int getX() {
+        return x;
+    }
+
+    public int getY() {
+        return y;
+    }
+
+    public int getEndX() {
+        return endX;
+    }
+
+    public int getEndY() {
+        return endY;
+    }
+
+    public int getDurationMs() {
+        return durationMs;
+    }
+
+    // Actions fired so far
+    public int getClicks() {
+        return clicks;
+    }
+
+    public ScriptProgram getProgram() {
+        return program;
+    }
+
+    // Set if the script stopped on a runtime error such as a division by zero
+    public ScriptException getError() {
+        return error;
+    }
+
+    // Runs until the next action, a wait that is not over yet, the end, or the step budget
+    private void run(long nowNanos) {
+        if (nowNanos - dueNanos > MAX_LAG_NANOS) {
+            dueNanos = nowNanos;
+        }
+        final int[] code = program.code;
+        final int[] r = regs;
+        int pc = this.pc;
+        int steps = 0;
+        try {
+            while (true) {
+                if (++steps > MAX_STEPS) {
+                    dueNanos = Math.max(dueNanos, nowNanos + YIELD_NANOS);
+                    return;
+                }
+                int a = code[pc + 1];
+                int b = code[pc + 2];
+                int c = code[pc + 3];
+                switch (code[pc]) {
+                    case Op.HALT:
+                        finished = true;
+                        return;
+                    case Op.LOADI: r[a] = b; break;
+                    case Op.MOV: r[a] = r[b]; break;
+                    case Op.ADD: r[a] = r[b] + r[c]; break;
+                    case Op.SUB: r[a] = r[b] - r[c]; break;
+                    case Op.MUL: r[a] = r[b] * r[c]; break;
+                    case Op.DIV:
+                    case Op.MOD:
+                        if (r[c] == 0) {
+                            fail(pc, "Division by zero");
+                            return;
+                        }
+                        r[a] = code[pc] == Op.DIV ? r[b] / r[c] : r[b] % r[c];
+                        break;
+                    case Op.ADDI: r[a] = r[b] + c; break;
+                    case Op.EQ: r[a] = r[b] == r[c] ? 1 : 0; break;
+                    case Op.NE: r[a] = r[b] != r[c] ? 1 : 0; break;
+                    case Op.LT: r[a] = r[b] < r[c] ? 1 : 0; break;
+                    case Op.LE: r[a] = r[b] <= r[c] ? 1 : 0; break;
+                    case Op.GT: r[a] = r[b] > r[c] ? 1 : 0; break;
+                    case Op.GE: r[a] = r[b] >= r[c] ? 1 : 0; break;
+                    case Op.AND: r[a] = r[b] != 0 && r[c] != 0 ? 1 : 0; break;
+                    case Op.OR: r[a] = r[b] != 0 || r[c] != 0 ? 1 : 0; break;
+                    case Op.NOT: r[a] = r[b] == 0 ? 1 : 0; break;
+                    case Op.NEG: r[a] = -r[b]; break;
+                    case Op.JMP:
+                        pc = a;
+                        continue;
+                    case Op.JZ:
+                        if (r[a] == 0) {
+                            pc = b;
+                            continue;
+                        }
+                        break;
+                    case Op.JNZ:
+                        if (r[a] != 0) {
+                            pc = b;
+                            continue;
+                        }
+                        break;
+                    case Op.JLEZ:
+                        if (r[a] <= 0) {
+                            pc = b;
+                            continue;
+                        }
+                        break;
+                    case Op.TAP:
+                        pc += Op.WIDTH;
+                        tap(r[a], r[b]);
+                        return;
+                    case Op.TAPI:
+                        pc += Op.WIDTH;
+                        tap(a, b);
+                        return;
+                    case Op.SWIPE:
+                        pc += Op.WIDTH;
+                        swipe(r[a], r[a + 1], r[a + 2], r[a + 3], r[a + 4]);
+                        return;
+                    case Op.TAPNODE:
+                        if (host != null && host.findNode(a, nodeCenter)) {
+                            pc += Op.WIDTH;
+                            tap(nodeCenter[0], nodeCenter[1]);
+                            return;
+                        }
+                        break;
+                    case Op.WAIT:
+                    case Op.WAITI: {
+                        int ms = code[pc] == Op.WAIT ? r[a] : a;
+                        pc += Op.WIDTH;
+                        if (ms > 0) {
+                            dueNanos += ms * 1_000_000L;
+                            if (dueNanos > nowNanos) {
+                                // Conditions after the wait are checked when it is over
+                                return;
+                            }
+                        }
+                        continue;
+                    }
+                    case Op.SCREEN:
+                        r[a] = host != null && host.screenMatches() ? 1 : 0;
+                        break;
+                    case Op.NODE:
+                        r[a] = host != null && host.findNode(b, nodeCenter) ? 1 : 0;
+                        break;
+                    case Op.CLICKS: r[a] = clicks; break;
+                    case Op.CALL:
+                        if (depth == MAX_CALL_DEPTH) {
+                            fail(pc, "Subs nested deeper than " + MAX_CALL_DEPTH);
+                            return;
+                        }
+                        callStack[depth++] = pc + Op.WIDTH;
+                        pc = a;
+                        continue;
+                    case Op.RET:
+                        if (depth == 0) {
+                            // A top-level return ends the script
+                            finished = true;
+                            return;
+                        }
+                        pc = callStack[--depth];
+                        continue;
+                    default:
+                        throw new IllegalStateException("Bad opcode " + code[pc] + " at " + pc);
+                }
+                pc += Op.WIDTH;
+            }
+        } finally {
+            this.pc = pc;
+        }
+    }
+
+    private void tap(int tapX, int tapY) {
+        action = ACTION_TAP;
+        x = tapX;
+        y = tapY;
+        spaceFromLastAction();
+    }
+
+    private void swipe(int fromX, int fromY, int toX, int toY, int ms) {
+        action = ACTION_SWIPE;
+        x = fromX;
+        y = fromY;
+        endX = toX;
+        endY = toY;
+        durationMs = Math.max(1, ms);
+        spaceFromLastAction();
+    }
+
+    private void spaceFromLastAction() {
+        long earliest = lastActionNanos + minActionGapNanos;
+        if (dueNanos < earliest) {
+            dueNanos = earliest;
+        }
+    }
+
+    private void fail(int pc, String message) {
+        error = new ScriptException(program.lineAt(pc), message);
+        finished = true;
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.autoclicker.sequence;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * An ordered list of steps replayed as one cycle.
+ */
+public final class ClickSequence {
+
+    private final List<ClickStep> steps;
+
+    public ClickSequence(List<ClickStep> steps) {
+        if (steps.isEmpty()) {
+            throw new IllegalArgumentException("Sequence needs at least one step");
+        }
+        this.steps = Collections.unmodifiableList(new ArrayList<>(steps));
+    }
+
+    public List<ClickStep> getSteps() {
+        return steps;
+    }
+
+    public int size() {
+        return steps.size();
+    }
+
+    // Time from the first step's start to the last step's end
+    public long getDurationMs() {
+        long t = 0;
+        for (int i = 0; i < steps.size(); i++) {
+            ClickStep step = steps.get(i);
+            if (i > 0) {
+                t += step.delayMs;
+            }
+            t += step.durationMs;
+        }
+        return t;
+    }
+}
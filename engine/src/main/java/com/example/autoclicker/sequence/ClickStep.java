@@ -0,0 +1,52 @@
+package com.example.autoclicker.sequence;
+
+/**
+ * One step of a click sequence. {@code delayMs} is the pause between the end of the
+ * previous step and the start of this one.
+ */
+public final class ClickStep {
+
+    public enum Type {
+        TAP,
+        LONG_PRESS,
+        SWIPE
+    }
+
+    public static final long TAP_DURATION_MS = 1;
+
+    public final Type type;
+    public final int x;
+    public final int y;
+    public final int endX;
+    public final int endY;
+    public final long durationMs;
+    public final long delayMs;
+
+    private ClickStep(Type type, int x, int y, int endX, int endY, long durationMs, long delayMs) {
+        if (durationMs <= 0) {
+            throw new IllegalArgumentException("Duration must be positive");
+        }
+        if (delayMs < 0) {
+            throw new IllegalArgumentException("Delay must not be negative");
+        }
+        this.type = type;
+        this.x = x;
+        this.y = y;
+        this.endX = endX;
+        this.endY = endY;
+        this.durationMs = durationMs;
+        this.delayMs = delayMs;
+    }
+
+    public static ClickStep tap(int x, int y, long delayMs) {
+        return new ClickStep(Type.TAP, x, y, x, y, TAP_DURATION_MS, delayMs);
+    }
+
+    public static ClickStep longPress(int x, int y, long holdMs, long delayMs) {
+        return new ClickStep(Type.LONG_PRESS, x, y, x, y, holdMs, delayMs);
+    }
+
+    public static ClickStep swipe(int x, int y, int endX, int endY, long durationMs, long delayMs) {
+        return new ClickStep(Type.SWIPE, x, y, endX, endY, durationMs, delayMs);
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.autoclicker.sequence;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A sequence packed into as few gesture dispatches as the system limits allow.
+ */
+public final class CompiledSequence {
+
+    private final List<GestureBatch> batches;
+    public final long cycleDurationMs;
+    public final int stepCount;
+
+    CompiledSequence(List<GestureBatch> batches, long cycleDurationMs, int stepCount) {
+        this.batches = Collections.unmodifiableList(batches);
+        this.cycleDurationMs = cycleDurationMs;
+        this.stepCount = stepCount;
+    }
+
+    public List<GestureBatch> getBatches() {
+        return batches;
+    }
+
+    public int getBatchCount() {
+        return batches.size();
+    }
+}
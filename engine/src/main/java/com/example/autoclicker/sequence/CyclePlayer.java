@@ -0,0 +1,136 @@
+package com.example.autoclicker.sequence;
+
+import com.example.autoclicker.gesture.DispatchPipeline;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Plays the cycles of a {@link CompiledSequence}. Each batch is built into a gesture once;
+ * a cycle dispatches the first batch and every later batch is posted at its offset once
+ * the previous one has finished, since a new dispatch would cancel a gesture still
+ * running. {@code G} is the platform gesture type.
+ */
+public final class CyclePlayer<G> {
+
+    public interface Factory<G> {
+        G build(GestureBatch batch);
+    }
+
+    public interface Dispatcher<G> {
+        // Returns false if the gesture could not be dispatched
+        boolean dispatch(G gesture);
+    }
+
+    // Runs later batches on the thread that delivers gesture callbacks
+    public interface Timer {
+        long uptimeMillis();
+
+        void postAtTime(Runnable task, long uptimeMs);
+
+        void cancel(Runnable task);
+    }
+
+    public interface Listener {
+        // complete is false when a later batch could not be dispatched and the cycle was cut short
+        void onCycleFinished(boolean complete);
+    }
+
+    private final CompiledSequence compiled;
+    private final List<G> gestures;
+    private final Runnable[] batchRunnables;
+    private final Timer timer;
+    private final DispatchPipeline pipeline;
+    private final Dispatcher<G> dispatcher;
+    private final Listener listener;
+
+    private volatile long cycleStartMs;
+    private volatile boolean active;
+
+    public CyclePlayer(CompiledSequence compiled, Factory<G> factory, Timer timer,
+                       DispatchPipeline pipeline, Dispatcher<G> dispatcher, Listener listener) {
+        this.compiled = compiled;
+        this.timer = timer;
+        this.pipeline = pipeline;
+        this.dispatcher = dispatcher;
+        this.listener = listener;
+
+        int count = compiled.getBatchCount();
+        gestures = new ArrayList<>(count);
+        batchRunnables = new Runnable[count];
+        for (int i = 0; i < count; i++) {
+            gestures.add(factory.build(compiled.getBatches().get(i)));
+            final int index = i;
+            batchRunnables[i] = new Runnable() {
+                @Override
+                public void run() {
+                    if (!dispatchBatch(index) && active) {
+                        // The listener may be waiting on this cycle to end the run
+                        active = false;
+                        listener.onCycleFinished(false);
+                    }
+                }
+            };
+        }
+    }
+
+    public CompiledSequence getCompiled() {
+        return compiled;
+    }
+
+    /**
+     * Starts a new cycle by dispatching the first batch. Returns false if the previous
+     * cycle is still playing or the first batch could not be dispatched.
+     */
+    public boolean startCycle() {
+        if (active) {
+            return false;
+        }
+        active = true;
+        cycleStartMs = timer.uptimeMillis();
+        if (!dispatchBatch(0)) {
+            active = false;
+            return false;
+        }
+        return true;
+    }
+
+    // Called from the gesture callback, on the timer's thread
+    public void onGestureFinished(G gesture) {
+        int index = gestures.indexOf(gesture);
+        if (index < 0 || !active) {
+            return;
+        }
+        int next = index + 1;
+        if (next < gestures.size()) {
+            timer.postAtTime(batchRunnables[next],
+                    cycleStartMs + compiled.getBatches().get(next).offsetMs);
+        } else {
+            active = false;
+            listener.onCycleFinished(true);
+        }
+    }
+
+    public void cancel() {
+        active = false;
+        for (Runnable runnable : batchRunnables) {
+            timer.cancel(runnable);
+        }
+    }
+
+    public boolean isActive() {
+        return active;
+    }
+
+    // Leaves active set on failure; the caller decides whether that ends the cycle
+    private boolean dispatchBatch(int index) {
+        if (!active || !pipeline.tryAcquire()) {
+            return false;
+        }
+        if (!dispatcher.dispatch(gestures.get(index))) {
+            pipeline.onRejected();
+            return false;
+        }
+        return true;
+    }
+}
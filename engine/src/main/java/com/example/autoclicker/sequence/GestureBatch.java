@@ -0,0 +1,25 @@
+package com.example.autoclicker.sequence;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A group of strokes dispatched as one GestureDescription, starting {@code offsetMs} into
+ * the cycle.
+ */
+public final class GestureBatch {
+
+    public final long offsetMs;
+    public final long durationMs;
+    private final List<StrokeSpec> strokes;
+
+    GestureBatch(long offsetMs, long durationMs, List<StrokeSpec> strokes) {
+        this.offsetMs = offsetMs;
+        this.durationMs = durationMs;
+        this.strokes = Collections.unmodifiableList(strokes);
+    }
+
+    public List<StrokeSpec> getStrokes() {
+        return strokes;
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.autoclicker.sequence;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Lays the steps of a sequence out on a timeline and packs consecutive steps into batches
+ * holding at most {@code maxStrokes} strokes and spanning at most {@code maxDurationMs},
+ * the limits reported by GestureDescription.getMaxStrokeCount() and
+ * getMaxGestureDuration(). Each batch costs one dispatchGesture call instead of one per step.
+ */
+public final class SequenceCompiler {
+
+    private final int maxStrokes;
+    private final long maxDurationMs;
+
+    public SequenceCompiler(int maxStrokes, long maxDurationMs) {
+        if (maxStrokes < 1 || maxDurationMs < 1) {
+            throw new IllegalArgumentException("Gesture limits must be positive");
+        }
+        this.maxStrokes = maxStrokes;
+        this.maxDurationMs = maxDurationMs;
+    }
+
+    public CompiledSequence compile(ClickSequence sequence) {
+        List<GestureBatch> batches = new ArrayList<>();
+        List<ClickStep> steps = sequence.getSteps();
+
+        List<StrokeSpec> strokes = new ArrayList<>();
+        long batchStart = 0;
+        long batchEnd = 0;
+        long t = 0;
+
+        for (int i = 0; i < steps.size(); i++) {
+            ClickStep step = steps.get(i);
+            if (step.durationMs > maxDurationMs) {
+                throw new IllegalArgumentException("Step " + i + " lasts " + step.durationMs
+                        + " ms, longer than the " + maxDurationMs + " ms gesture limit");
+            }
+            if (i > 0) {
+                t += step.delayMs;
+            }
+            long end = t + step.durationMs;
+
+            boolean fits = strokes.size() < maxStrokes && end - batchStart <= maxDurationMs;
+            if (!strokes.isEmpty() && !fits) {
+                batches.add(new GestureBatch(batchStart, batchEnd - batchStart, strokes));
+                strokes = new ArrayList<>();
+            }
+            if (strokes.isEmpty()) {
+                batchStart = t;
+            }
+            strokes.add(new StrokeSpec(step, t - batchStart));
+            batchEnd = end;
+            t = end;
+        }
+        batches.add(new GestureBatch(batchStart, batchEnd - batchStart, strokes));
+
+        return new CompiledSequence(batches, t, steps.size());
+    }
+}
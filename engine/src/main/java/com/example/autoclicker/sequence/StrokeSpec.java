@@ -0,0 +1,28 @@
+package com.example.autoclicker.sequence;
+
+/**
+ * A single stroke inside a batch, timed relative to the batch start. Maps one-to-one onto
+ * GestureDescription.StrokeDescription.
+ */
+public final class StrokeSpec {
+
+    public final int x;
+    public final int y;
+    public final int endX;
+    public final int endY;
+    public final long startMs;
+    public final long durationMs;
+
+    StrokeSpec(ClickStep step, long startMs) {
+        this.x = step.x;
+        this.y = step.y;
+        this.endX = step.endX;
+        this.endY = step.endY;
+        this.startMs = startMs;
+        this.durationMs = step.durationMs;
+    }
+
+    public boolean isMove() {
+        return x != endX || y != endY;
+    }
+}
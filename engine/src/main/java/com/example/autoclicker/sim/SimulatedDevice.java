@@ -0,0 +1,172 @@
+package com.example.autoclicker.sim;
+
+import com.example.autoclicker.core.GestureSink;
+import com.example.autoclicker.gesture.DispatchPipeline;
+import com.example.autoclicker.gesture.GesturePool;
+import com.example.autoclicker.gesture.TapEmitter;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Stands in for dispatchGesture: taps go through the real {@link TapEmitter} and
+ * {@link DispatchPipeline}, then finish after a scripted latency, some of them cancelled or
+ * rejected outright. Randomness comes from a seed, so a run is reproducible.
+ */
+public final class SimulatedDevice implements GestureSink {
+
+    private static final int POOL_SIZE = 8;
+
+    private static final class Gesture {
+        final int x;
+        final int y;
+
+        Gesture(int x, int y) {
+            this.x = x;
+            this.y = y;
+        }
+    }
+
+    private final VirtualClock clock;
+    private final DispatchPipeline pipeline;
+    private final TapEmitter<Gesture> emitter;
+    private final SplittableRandom random;
+
+    private long latencyNanos = 5_000_000L;
+    private long latencySpreadNanos;
+    private double cancelRate;
+    private double rejectRate;
+
+    // Min-heap of pending callbacks: completion time shifted left, low bit set if cancelled
+    private long[] pending = new long[16];
+    private int pendingCount;
+    private int maxPending;
+    private long tapChecksum;
+
+    public SimulatedDevice(VirtualClock clock, DispatchPipeline pipeline, long seed) {
+        this.clock = clock;
+        this.pipeline = pipeline;
+        this.random = new SplittableRandom(seed);
+        GesturePool<Gesture> pool = new GesturePool<>(POOL_SIZE, new GesturePool.Factory<Gesture>() {
+            @Override
+            public Gesture create(int x, int y) {
+                return new Gesture(x, y);
+            }
+        });
+        this.emitter = new TapEmitter<>(pipeline, pool, new TapEmitter.Sink<Gesture>() {
+            @Override
+            public boolean dispatch(Gesture gesture) {
+                return schedule(gesture);
+            }
+        });
+    }
+
+    // Each gesture finishes latencyNanos plus up to spreadNanos after it was dispatched
+    public void setLatency(long latencyNanos, long spreadNanos) {
+        this.latencyNanos = latencyNanos;
+        this.latencySpreadNanos = spreadNanos;
+    }
+
+    // Fraction of dispatched gestures that report onCancelled instead of onCompleted
+    public void setCancelRate(double cancelRate) {
+        this.cancelRate = cancelRate;
+    }
+
+    // Fraction of gestures dispatchGesture refuses outright
+    public void setRejectRate(double rejectRate) {
+        this.rejectRate = rejectRate;
+    }
+
+    @Override
+    public boolean tap(int x, int y) {
+        return emitter.emit(x, y);
+    }
+
+    // Earliest pending callback, or Long.MAX_VALUE if nothing is in flight
+    public long nextCallbackNanos() {
+        return pendingCount == 0 ? Long.MAX_VALUE : pending[0] >>> 1;
+    }
+
+    /**
+     * Delivers every callback due by timeNanos in time order, moving the clock to each one.
+     */
+    public void deliverUntil(long timeNanos) {
+        while (pendingCount > 0 && (pending[0] >>> 1) <= timeNanos) {
+            long entry = pending[0];
+            removeFirst();
+            clock.advanceTo(entry >>> 1);
+            if ((entry & 1) != 0) {
+                pipeline.onCancelled();
+            } else {
+                pipeline.onCompleted();
+            }
+        }
+    }
+
+    public DispatchPipeline getPipeline() {
+        return pipeline;
+    }
+
+    public GesturePool<?> getPool() {
+        return emitter.getPool();
+    }
+
+    // High-water mark of gestures in flight at once
+    public int getMaxPending() {
+        return maxPending;
+    }
+
+    // Checksum of dispatched x coordinates, so a run's taps can be compared across seeds
+    public long getTapChecksum() {
+        return tapChecksum;
+    }
+
+    private boolean schedule(Gesture gesture) {
+        if (rejectRate > 0 && random.nextDouble() < rejectRate) {
+            return false;
+        }
+        long delay = latencyNanos;
+        if (latencySpreadNanos > 0) {
+            delay += random.nextLong(latencySpreadNanos + 1);
+        }
+        boolean cancelled = cancelRate > 0 && random.nextDouble() < cancelRate;
+        add(((clock.nanoTime() + delay) << 1) | (cancelled ? 1 : 0));
+        tapChecksum = tapChecksum * 31 + gesture.x;
+        return true;
+    }
+
+    private void add(long entry) {
+        if (pendingCount == pending.length) {
+            pending = Arrays.copyOf(pending, pendingCount * 2);
+        }
+        int i = pendingCount++;
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (pending[parent] <= entry) {
+                break;
+            }
+            pending[i] = pending[parent];
+            i = parent;
+        }
+        pending[i] = entry;
+        maxPending = Math.max(maxPending, pendingCount);
+    }
+
+    private void removeFirst() {
+        long last = pending[--pendingCount];
+        int i = 0;
+        int half = pendingCount >>> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            if (child + 1 < pendingCount && pending[child + 1] < pending[child]) {
+                child++;
+            }
+            if (last <= pending[child]) {
+                break;
+            }
+            pending[i] = pending[child];
+            i = child;
+        }
+        pending[i] = last;
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.autoclicker.sim;
+
+import java.util.Locale;
+
+/**
+ * Outcome of one {@link Simulator} run, in virtual time.
+ */
+public final class SimulationReport {
+
+    public final long ticks;
+    public final long elapsedNanos;
+    // Deadlines of the first and last tick fired, or -1 if none fired
+    public final long firstDeadlineNanos;
+    public final long lastDeadlineNanos;
+    // How late ticks fired against their deadline
+    public final double meanLatenessNanos;
+    public final long maxLatenessNanos;
+    // The source ran out or the listener ended the run, rather than time running out
+    public final boolean finished;
+
+    SimulationReport(long ticks, long elapsedNanos, long firstDeadlineNanos, long lastDeadlineNanos,
+                     double meanLatenessNanos, long maxLatenessNanos, boolean finished) {
+        this.ticks = ticks;
+        this.elapsedNanos = elapsedNanos;
+        this.firstDeadlineNanos = firstDeadlineNanos;
+        this.lastDeadlineNanos = lastDeadlineNanos;
+        this.meanLatenessNanos = meanLatenessNanos;
+        this.maxLatenessNanos = maxLatenessNanos;
+        this.finished = finished;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.US, "%d ticks in %.1f s virtual, lateness avg %.3f ms, max %.3f ms%s",
+                ticks, elapsedNanos / 1e9, meanLatenessNanos / 1e6, maxLatenessNanos / 1e6,
+                finished ? ", finished" : "");
+    }
+}
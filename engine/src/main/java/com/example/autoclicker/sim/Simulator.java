@@ -0,0 +1,116 @@
+package com.example.autoclicker.sim;
+
+import com.example.autoclicker.scheduler.ClickScheduler;
+import com.example.autoclicker.scheduler.JitterStats;
+import com.example.autoclicker.scheduler.TickSource;
+
+import java.util.SplittableRandom;
+
+/**
+ * Runs a tick source through {@link ClickScheduler}'s own loop, against a {@link VirtualClock}
+ * instead of a parked thread. A park jumps the clock to the deadline plus a random wake-up
+ * delay, and device callbacks are delivered in time order in between, so a 24-hour run
+ * finishes in seconds and repeats exactly for the same seed.
+ */
+public final class Simulator {
+
+    private final VirtualClock clock;
+    private final SplittableRandom random;
+    private long maxWakeLatencyNanos;
+    private long tickCostNanos;
+
+    public Simulator(VirtualClock clock, long seed) {
+        this.clock = clock;
+        this.random = new SplittableRandom(seed);
+    }
+
+    // Parked threads wake up to this much after their deadline
+    public void setMaxWakeLatency(long nanos) {
+        this.maxWakeLatencyNanos = nanos;
+    }
+
+    // Virtual time each tick spends in the listener
+    public void setTickCost(long nanos) {
+        this.tickCostNanos = nanos;
+    }
+
+    public VirtualClock getClock() {
+        return clock;
+    }
+
+    /**
+     * Runs until the source runs out, the listener ends the run or durationNanos of virtual
+     * time have passed. The device may be null when the listener taps nothing.
+     */
+    public SimulationReport run(TickSource source, final ClickScheduler.Listener listener,
+                                final SimulatedDevice device, long durationNanos) {
+        final long start = clock.nanoTime();
+        final long end = start + durationNanos;
+        final Run run = new Run();
+
+        // The real loop, on this thread; parking jumps the clock instead of sleeping
+        final ClickScheduler scheduler = new ClickScheduler(clock, r -> {
+            throw new UnsupportedOperationException("Simulated runs stay on the calling thread");
+        }, new ClickScheduler.Parker() {
+            @Override
+            public void park(Object blocker, long nanos) {
+                long now = clock.nanoTime();
+                long wake = Math.max(now, Math.min(end, now + nanos + wakeLatency()));
+                if (device != null) {
+                    device.deliverUntil(wake);
+                }
+                clock.advanceTo(wake);
+                if (wake >= end) {
+                    // The loop parks with its scheduler as the blocker
+                    ((ClickScheduler) blocker).stop();
+                }
+            }
+        });
+        scheduler.run(source, new ClickScheduler.Listener() {
+            @Override
+            public boolean onTick(long deadlineNanos) {
+                long now = clock.nanoTime();
+                if (device != null) {
+                    device.deliverUntil(now);
+                }
+                if (now >= end) {
+                    scheduler.stop();
+                    return true;
+                }
+                run.lateness.record(now - deadlineNanos);
+                if (run.firstDeadline < 0) {
+                    run.firstDeadline = deadlineNanos;
+                }
+                run.lastDeadline = deadlineNanos;
+                run.ticks++;
+                boolean keepGoing = listener.onTick(deadlineNanos);
+                clock.advance(tickCostNanos);
+                if (!keepGoing) {
+                    run.finished = true;
+                }
+                return keepGoing;
+            }
+
+            @Override
+            public void onFinished() {
+                run.finished = true;
+                listener.onFinished();
+            }
+        });
+        return new SimulationReport(run.ticks, clock.nanoTime() - start, run.firstDeadline,
+                run.lastDeadline, run.lateness.getMeanNanos(), run.lateness.getMaxNanos(), run.finished);
+    }
+
+    // What one run has seen so far
+    private static final class Run {
+        final JitterStats lateness = new JitterStats();
+        long ticks;
+        long firstDeadline = -1;
+        long lastDeadline = -1;
+        boolean finished;
+    }
+
+    private long wakeLatency() {
+        return maxWakeLatencyNanos > 0 ? random.nextLong(maxWakeLatencyNanos + 1) : 0;
+    }
+}
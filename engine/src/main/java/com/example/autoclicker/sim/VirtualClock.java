@@ -0,0 +1,34 @@
+package com.example.autoclicker.sim;
+
+import com.example.autoclicker.scheduler.Clock;
+
+/**
+ * A clock that only moves when the simulation moves it.
+ */
+public final class VirtualClock implements Clock {
+
+    private long nowNanos;
+
+    public VirtualClock(long startNanos) {
+        this.nowNanos = startNanos;
+    }
+
+    @Override
+    public long nanoTime() {
+        return nowNanos;
+    }
+
+    public void advance(long nanos) {
+        if (nanos < 0) {
+            throw new IllegalArgumentException("Time cannot go backwards");
+        }
+        nowNanos += nanos;
+    }
+
+    // No-op if the clock is already past timeNanos
+    public void advanceTo(long timeNanos) {
+        if (timeNanos > nowNanos) {
+            nowNanos = timeNanos;
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.autoclicker.state;
+
+import com.example.autoclicker.jitter.JitterSpec;
+import com.example.autoclicker.nodes.NodeTarget;
+import com.example.autoclicker.scheduler.CatchUpPolicy;
+
+/**
+ * Immutable snapshot of the click parameters. Changes produce a new instance that is
+ * swapped in atomically through {@link EngineState}, so the scheduler thread always sees
+ * a consistent set of values, even when the UI edits them mid-run.
+ */
+public final class ClickConfig {
+
+    public static final ClickConfig DEFAULT =
+            new ClickConfig(-1, -1, 1000, 0, CatchUpPolicy.SKIP, false, false, null, false,
+                    JitterSpec.NONE);
+
+    public final int x;
+    public final int y;
+    public final long intervalMs;
+    // 0 repeats forever
+    public final int repeatCount;
+    public final CatchUpPolicy catchUpPolicy;
+    public final boolean highRate;
+    public final boolean triggerEnabled;
+    // Clicks this view instead of (x, y) when set
+    public final NodeTarget nodeTarget;
+    // Let heat and battery level slow or pause the run
+    public final boolean adaptivePower;
+    // Humanized spread of intervals and tap positions
+    public final JitterSpec jitter;
+
+    private ClickConfig(int x, int y, long intervalMs, int repeatCount, CatchUpPolicy catchUpPolicy,
+                        boolean highRate, boolean triggerEnabled, NodeTarget nodeTarget,
+                        boolean adaptivePower, JitterSpec jitter) {
+        this.x = x;
+        this.y = y;
+        this.intervalMs = intervalMs;
+        this.repeatCount = repeatCount;
+        this.catchUpPolicy = catchUpPolicy;
+        this.highRate = highRate;
+        this.triggerEnabled = triggerEnabled;
+        this.nodeTarget = nodeTarget;
+        this.adaptivePower = adaptivePower;
+        this.jitter = jitter;
+    }
+
+    public boolean hasPosition() {
+        return x >= 0 && y >= 0;
+    }
+
+    public ClickConfig withPosition(int x, int y) {
+        return new ClickConfig(x, y, intervalMs, repeatCount, catchUpPolicy, highRate,
+                triggerEnabled, nodeTarget, adaptivePower, jitter);
+    }
+
+    public ClickConfig withInterval(long intervalMs) {
+        if (intervalMs <= 0) {
+            throw new IllegalArgumentException("Interval must be positive");
+        }
+        return new ClickConfig(x, y, intervalMs, repeatCount, catchUpPolicy, highRate,
+                triggerEnabled, nodeTarget, adaptivePower, jitter);
+    }
+
+    public ClickConfig withRepeatCount(int repeatCount) {
+        if (repeatCount < 0) {
+            throw new IllegalArgumentException("Repeat count must not be negative");
+        }
+        return new ClickConfig(x, y, intervalMs, repeatCount, catchUpPolicy, highRate,
+                triggerEnabled, nodeTarget, adaptivePower, jitter);
+    }
+
+    public ClickConfig withCatchUpPolicy(CatchUpPolicy catchUpPolicy) {
+        return new ClickConfig(x, y, intervalMs, repeatCount, catchUpPolicy, highRate,
+                triggerEnabled, nodeTarget, adaptivePower, jitter);
+    }
+
+    public ClickConfig withHighRate(boolean highRate) {
+        return new ClickConfig(x, y, intervalMs, repeatCount, catchUpPolicy, highRate,
+                triggerEnabled, nodeTarget, adaptivePower, jitter);
+    }
+
+    public ClickConfig withTrigger(boolean triggerEnabled) {
+        return new ClickConfig(x, y, intervalMs, repeatCount, catchUpPolicy, highRate,
+                triggerEnabled, nodeTarget, adaptivePower, jitter);
+    }
+
+    public ClickConfig withNodeTarget(NodeTarget nodeTarget) {
+        return new ClickConfig(x, y, intervalMs, repeatCount, catchUpPolicy, highRate,
+                triggerEnabled, nodeTarget, adaptivePower, jitter);
+    }
+
+    public ClickConfig withAdaptivePower(boolean adaptivePower) {
+        return new ClickConfig(x, y, intervalMs, repeatCount, catchUpPolicy, highRate,
+                triggerEnabled, nodeTarget, adaptivePower, jitter);
+    }
+
+    public ClickConfig withJitter(JitterSpec jitter) {
+        return new ClickConfig(x, y, intervalMs, repeatCount, catchUpPolicy, highRate,
+                triggerEnabled, nodeTarget, adaptivePower, jitter);
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.autoclicker.state;
+
+import com.example.autoclicker.bus.Signal;
+
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.UnaryOperator;
+
+/**
+ * The click engine's shared state: the current {@link ClickConfig} and the run state
+ * machine. Both live in atomic references and change only by compare-and-set, so the UI,
+ * the scheduler thread and the gesture callbacks can all read and update them without
+ * locks. Observers are notified after every run state transition.
+ *
+ * <pre>
+ * IDLE --start--> RUNNING --pause--> PAUSED --resume--> RUNNING
+ * RUNNING/PAUSED --beginStop--> STOPPING --finishStop--> IDLE
+ * </pre>
+ */
+public final class EngineState extends Signal {
+
+    private final AtomicReference<ClickConfig> config = new AtomicReference<>(ClickConfig.DEFAULT);
+    private final AtomicReference<RunState> runState = new AtomicReference<>(RunState.IDLE);
+
+    public ClickConfig getConfig() {
+        return config.get();
+    }
+
+    // Applies update to the latest config, retrying if another thread swapped it meanwhile
+    public ClickConfig updateConfig(UnaryOperator<ClickConfig> update) {
+        while (true) {
+            ClickConfig current = config.get();
+            ClickConfig next = update.apply(current);
+            if (config.compareAndSet(current, next)) {
+                return next;
+            }
+        }
+    }
+
+    public RunState getRunState() {
+        return runState.get();
+    }
+
+    // Running or paused
+    public boolean isActive() {
+        RunState state = runState.get();
+        return state == RunState.RUNNING || state == RunState.PAUSED;
+    }
+
+    public boolean start() {
+        return transition(RunState.IDLE, RunState.RUNNING);
+    }
+
+    public boolean pause() {
+        return transition(RunState.RUNNING, RunState.PAUSED);
+    }
+
+    public boolean resume() {
+        return transition(RunState.PAUSED, RunState.RUNNING);
+    }
+
+    // Returns true for the one caller that moved an active run to STOPPING
+    public boolean beginStop() {
+        while (true) {
+            RunState state = runState.get();
+            if (state != RunState.RUNNING && state != RunState.PAUSED) {
+                return false;
+            }
+            if (transition(state, RunState.STOPPING)) {
+                return true;
+            }
+        }
+    }
+
+    public boolean finishStop() {
+        return transition(RunState.STOPPING, RunState.IDLE);
+    }
+
+    private boolean transition(RunState from, RunState to) {
+        if (!runState.compareAndSet(from, to)) {
+            return false;
+        }
+        notifyObservers();
+        return true;
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.autoclicker.state;
+
+public enum RunState {
+    IDLE,
+    RUNNING,
+    // Ticks keep their schedule but do not click
+    PAUSED,
+    // Tearing down; ticks end the run and start() is refused until IDLE
+    STOPPING
+}
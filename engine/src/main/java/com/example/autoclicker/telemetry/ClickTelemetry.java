@@ -0,0 +1,145 @@
+package com.example.autoclicker.telemetry;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Timing of every click from its scheduled deadline to the gesture callback:
+ * <ul>
+ * <li>tick lateness: actual tick time minus scheduled deadline</li>
+ * <li>dispatch latency: dispatchGesture to onCompleted</li>
+ * <li>end to end: scheduled deadline to onCompleted</li>
+ * </ul>
+ * In-flight dispatches are matched to callbacks in FIFO order through a ring of
+ * primitive timestamps written by the dispatching thread and consumed by the callback
+ * thread, so recording allocates nothing.
+ */
+public final class ClickTelemetry {
+
+    private static final int RING_SIZE = 64;
+    private static final int RING_MASK = RING_SIZE - 1;
+
+    private final LatencyHistogram tickLateness = new LatencyHistogram();
+    private final LatencyHistogram dispatchLatency = new LatencyHistogram();
+    private final LatencyHistogram endToEnd = new LatencyHistogram();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong cancelled = new AtomicLong();
+
+    private final long[] scheduledAt = new long[RING_SIZE];
+    private final long[] dispatchedAt = new long[RING_SIZE];
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong tail = new AtomicLong();
+
+    public void onTick(long deadlineNanos, long nowNanos) {
+        tickLateness.record(nowNanos - deadlineNanos);
+    }
+
+    public void onDispatched(long deadlineNanos, long nowNanos) {
+        long h = head.get();
+        if (h - tail.get() >= RING_SIZE) {
+            // A callback never arrived for the oldest entry; forget it
+            tail.incrementAndGet();
+        }
+        int slot = (int) (h & RING_MASK);
+        scheduledAt[slot] = deadlineNanos;
+        dispatchedAt[slot] = nowNanos;
+        head.set(h + 1);
+    }
+
+    // The system refused the most recent dispatch, so no callback will come for it
+    public void onRejected() {
+        long h = head.get();
+        if (h > tail.get()) {
+            head.compareAndSet(h, h - 1);
+        }
+    }
+
+    public void onCompleted(long nowNanos) {
+        completed.incrementAndGet();
+        long t = tail.get();
+        if (t < head.get() && tail.compareAndSet(t, t + 1)) {
+            int slot = (int) (t & RING_MASK);
+            dispatchLatency.record(nowNanos - dispatchedAt[slot]);
+            endToEnd.record(nowNanos - scheduledAt[slot]);
+        }
+    }
+
+    public void onCancelled(long nowNanos) {
+        cancelled.incrementAndGet();
+        long t = tail.get();
+        if (t < head.get()) {
+            tail.compareAndSet(t, t + 1);
+        }
+    }
+
+    public void reset() {
+        tickLateness.reset();
+        dispatchLatency.reset();
+        endToEnd.reset();
+        completed.set(0);
+        cancelled.set(0);
+        tail.set(head.get());
+    }
+
+    public LatencyHistogram getTickLateness() {
+        return tickLateness;
+    }
+
+    public LatencyHistogram getDispatchLatency() {
+        return dispatchLatency;
+    }
+
+    public LatencyHistogram getEndToEnd() {
+        return endToEnd;
+    }
+
+    public long getCompleted() {
+        return completed.get();
+    }
+
+    public long getCancelled() {
+        return cancelled.get();
+    }
+
+    public String summary() {
+        return "tick late " + describe(tickLateness)
+                + "\ndispatch→done " + describe(dispatchLatency)
+                + "\nscheduled→done " + describe(endToEnd)
+                + "\ncompleted " + getCompleted() + ", cancelled " + getCancelled();
+    }
+
+    /**
+     * Writes every non-empty bucket as {@code metric,lower_ns,upper_ns,count}, followed by
+     * the counters with empty bounds.
+     */
+    public void writeCsv(Writer out) throws IOException {
+        out.write("metric,lower_ns,upper_ns,count\n");
+        writeHistogram(out, "tick_lateness", tickLateness);
+        writeHistogram(out, "dispatch_latency", dispatchLatency);
+        writeHistogram(out, "end_to_end", endToEnd);
+        out.write("completed,,," + getCompleted() + "\n");
+        out.write("cancelled,,," + getCancelled() + "\n");
+        out.flush();
+    }
+
+    private static void writeHistogram(Writer out, String name, LatencyHistogram histogram)
+            throws IOException {
+        for (int i = 0; i < histogram.getBucketCount(); i++) {
+            long count = histogram.getBucketCount(i);
+            if (count > 0) {
+                out.write(name + "," + LatencyHistogram.bucketLowerBound(i) + ","
+                        + LatencyHistogram.bucketUpperBound(i) + "," + count + "\n");
+            }
+        }
+    }
+
+    private static String describe(LatencyHistogram histogram) {
+        return String.format(Locale.US, "p50 %.2f / p99 %.2f / max %.2f ms (n=%d)",
+                histogram.getValueAtPercentile(50) / 1e6,
+                histogram.getValueAtPercentile(99) / 1e6,
+                histogram.getMax() / 1e6,
+                histogram.getCount());
+    }
+}
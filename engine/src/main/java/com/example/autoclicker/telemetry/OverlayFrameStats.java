@@ -0,0 +1,60 @@
+package com.example.autoclicker.telemetry;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Main-thread cost of the overlay: how many drag moves were folded into each frame, how
+ * long the per-frame window relayout took and how long redrawing the marker layer took.
+ */
+public final class OverlayFrameStats {
+
+    private final AtomicLong moves = new AtomicLong();
+    private final LatencyHistogram relayout = new LatencyHistogram();
+    private final LatencyHistogram markerDraw = new LatencyHistogram();
+
+    public void onMove() {
+        moves.incrementAndGet();
+    }
+
+    public void onDragFrame(long costNanos) {
+        relayout.record(costNanos);
+    }
+
+    public void onMarkerDraw(long costNanos) {
+        markerDraw.record(costNanos);
+    }
+
+    public long getMoves() {
+        return moves.get();
+    }
+
+    public long getDragFrames() {
+        return relayout.getCount();
+    }
+
+    public LatencyHistogram getRelayout() {
+        return relayout;
+    }
+
+    public LatencyHistogram getMarkerDraw() {
+        return markerDraw;
+    }
+
+    public void reset() {
+        moves.set(0);
+        relayout.reset();
+        markerDraw.reset();
+    }
+
+    public String summary() {
+        return String.format(Locale.US,
+                "overlay drag %d moves in %d frames, relayout p50 %.2f / p99 %.2f ms"
+                        + "\noverlay markers %d draws, p99 %.2f ms",
+                getMoves(), getDragFrames(),
+                relayout.getValueAtPercentile(50) / 1e6,
+                relayout.getValueAtPercentile(99) / 1e6,
+                markerDraw.getCount(),
+                markerDraw.getValueAtPercentile(99) / 1e6);
+    }
+}
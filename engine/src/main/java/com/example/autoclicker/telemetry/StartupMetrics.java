@@ -0,0 +1,112 @@
+package com.example.autoclicker.telemetry;
+
+import java.util.Locale;
+
+/**
+ * Time to first frame and time to interactive of the main screen. The cold start is kept
+ * on its own; every later return to the screen goes into the resume histograms.
+ */
+public final class StartupMetrics {
+
+    public enum Kind {
+        COLD,
+        RESUME
+    }
+
+    private final LatencyHistogram resumeFirstFrame = new LatencyHistogram();
+    private final LatencyHistogram resumeInteractive = new LatencyHistogram();
+
+    private Kind kind;
+    private long startNanos;
+    private boolean firstFrameSeen;
+    private boolean interactiveSeen;
+    private long coldFirstFrameNanos = -1;
+    private long coldInteractiveNanos = -1;
+
+    public synchronized boolean hasStarted() {
+        return kind != null;
+    }
+
+    /**
+     * Starts timing a launch. Ignored while the previous one has not become interactive
+     * yet, so a resume that interrupts a cold start does not hide it.
+     */
+    public synchronized boolean begin(Kind kind, long nowNanos) {
+        if (this.kind != null && !interactiveSeen) {
+            return false;
+        }
+        this.kind = kind;
+        startNanos = nowNanos;
+        firstFrameSeen = false;
+        interactiveSeen = false;
+        return true;
+    }
+
+    // Returns the time to first frame, or -1 if it was already recorded for this launch
+    public synchronized long onFirstFrame(long nowNanos) {
+        if (kind == null || firstFrameSeen) {
+            return -1;
+        }
+        firstFrameSeen = true;
+        long elapsed = nowNanos - startNanos;
+        if (kind == Kind.COLD) {
+            coldFirstFrameNanos = elapsed;
+        } else {
+            resumeFirstFrame.record(elapsed);
+        }
+        return elapsed;
+    }
+
+    // Returns the time to interactive, or -1 if it was already recorded for this launch
+    public synchronized long onInteractive(long nowNanos) {
+        if (kind == null || interactiveSeen) {
+            return -1;
+        }
+        if (!firstFrameSeen) {
+            onFirstFrame(nowNanos);
+        }
+        interactiveSeen = true;
+        long elapsed = nowNanos - startNanos;
+        if (kind == Kind.COLD) {
+            coldInteractiveNanos = elapsed;
+        } else {
+            resumeInteractive.record(elapsed);
+        }
+        return elapsed;
+    }
+
+    // Drops a launch that was left before it became interactive; false if none was open
+    public synchronized boolean cancel() {
+        if (kind == null || interactiveSeen) {
+            return false;
+        }
+        firstFrameSeen = true;
+        interactiveSeen = true;
+        return true;
+    }
+
+    public synchronized long getColdFirstFrameNanos() {
+        return coldFirstFrameNanos;
+    }
+
+    public synchronized long getColdInteractiveNanos() {
+        return coldInteractiveNanos;
+    }
+
+    public LatencyHistogram getResumeFirstFrame() {
+        return resumeFirstFrame;
+    }
+
+    public LatencyHistogram getResumeInteractive() {
+        return resumeInteractive;
+    }
+
+    public synchronized String summary() {
+        return String.format(Locale.US,
+                "cold start ttff %.1f / tti %.1f ms\nresume ttff p50 %.1f / tti p50 %.1f ms (n=%d)",
+                coldFirstFrameNanos / 1e6, coldInteractiveNanos / 1e6,
+                resumeFirstFrame.getValueAtPercentile(50) / 1e6,
+                resumeInteractive.getValueAtPercentile(50) / 1e6,
+                resumeInteractive.getCount());
+    }
+}
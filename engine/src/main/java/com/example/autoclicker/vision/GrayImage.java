@@ -0,0 +1,86 @@
+package com.example.autoclicker.vision;
+
+/**
+ * 8-bit grayscale image backed by a byte[] that is reused across frames when the size
+ * does not change.
+ */
+public final class GrayImage {
+
+    private byte[] pixels = new byte[0];
+    private int width;
+    private int height;
+
+    public GrayImage() {
+    }
+
+    public GrayImage(int width, int height, byte[] pixels) {
+        if (pixels.length < width * height) {
+            throw new IllegalArgumentException("Pixel buffer too small");
+        }
+        this.width = width;
+        this.height = height;
+        this.pixels = pixels;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public byte[] getPixels() {
+        return pixels;
+    }
+
+    public int get(int x, int y) {
+        return pixels[y * width + x] & 0xFF;
+    }
+
+    /**
+     * Converts ARGB pixels to luma and box-downscales them by {@code factor} into this image.
+     */
+    public void downscaleFrom(int[] argb, int srcWidth, int srcHeight, int factor) {
+        if (factor < 1) {
+            throw new IllegalArgumentException("Factor must be at least 1");
+        }
+        resize(srcWidth / factor, srcHeight / factor);
+        int area = factor * factor;
+
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int sum = 0;
+                int rowStart = y * factor * srcWidth + x * factor;
+                for (int dy = 0; dy < factor; dy++) {
+                    int index = rowStart + dy * srcWidth;
+                    for (int dx = 0; dx < factor; dx++) {
+                        int c = argb[index + dx];
+                        // BT.601 luma in 8.8 fixed point
+                        sum += (((c >> 16) & 0xFF) * 77 + ((c >> 8) & 0xFF) * 150 + (c & 0xFF) * 29) >> 8;
+                    }
+                }
+                pixels[y * width + x] = (byte) (sum / area);
+            }
+        }
+    }
+
+    public GrayImage crop(int left, int top, int cropWidth, int cropHeight) {
+        if (left < 0 || top < 0 || left + cropWidth > width || top + cropHeight > height) {
+            throw new IllegalArgumentException("Crop outside image");
+        }
+        byte[] out = new byte[cropWidth * cropHeight];
+        for (int y = 0; y < cropHeight; y++) {
+            System.arraycopy(pixels, (top + y) * width + left, out, y * cropWidth, cropWidth);
+        }
+        return new GrayImage(cropWidth, cropHeight, out);
+    }
+
+    private void resize(int newWidth, int newHeight) {
+        width = newWidth;
+        height = newHeight;
+        if (pixels.length < width * height) {
+            pixels = new byte[width * height];
+        }
+    }
+}
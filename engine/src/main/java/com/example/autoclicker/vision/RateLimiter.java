@@ -0,0 +1,26 @@
+package com.example.autoclicker.vision;
+
+/**
+ * Lets an action through at most once per interval.
+ */
+public final class RateLimiter {
+
+    private final long intervalMs;
+    private long lastMs = Long.MIN_VALUE / 2;
+
+    public RateLimiter(long intervalMs) {
+        this.intervalMs = intervalMs;
+    }
+
+    public synchronized boolean tryAcquire(long nowMs) {
+        if (nowMs - lastMs < intervalMs) {
+            return false;
+        }
+        lastMs = nowMs;
+        return true;
+    }
+
+    public long getIntervalMs() {
+        return intervalMs;
+    }
+}
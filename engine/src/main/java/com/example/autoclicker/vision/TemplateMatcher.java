@@ -0,0 +1,99 @@
+package com.example.autoclicker.vision;
+
+/**
+ * Finds a grayscale template in a frame by sum of absolute differences. The search is
+ * limited to a region of interest and each candidate is abandoned as soon as its partial
+ * sum exceeds the best so far. Results are kept in fields so matching allocates nothing.
+ */
+public final class TemplateMatcher {
+
+    private final GrayImage template;
+    // Mean absolute difference per pixel (0-255) at or below which the template matches
+    private final int threshold;
+
+    private int bestX;
+    private int bestY;
+    private double bestScore;
+
+    public TemplateMatcher(GrayImage template, int threshold) {
+        if (template.getWidth() == 0 || template.getHeight() == 0) {
+            throw new IllegalArgumentException("Empty template");
+        }
+        this.template = template;
+        this.threshold = threshold;
+    }
+
+    public boolean match(GrayImage frame) {
+        return match(frame, 0, 0, frame.getWidth(), frame.getHeight());
+    }
+
+    /**
+     * Searches for the template with its top-left corner anywhere inside the region
+     * [left, right) x [top, bottom) of the frame. Returns true if the best position scores
+     * within the threshold.
+     */
+    public boolean match(GrayImage frame, int left, int top, int right, int bottom) {
+        int tw = template.getWidth();
+        int th = template.getHeight();
+        int maxX = Math.min(right, frame.getWidth()) - tw;
+        int maxY = Math.min(bottom, frame.getHeight()) - th;
+        left = Math.max(0, left);
+        top = Math.max(0, top);
+
+        bestX = -1;
+        bestY = -1;
+        bestScore = Double.MAX_VALUE;
+        if (maxX < left || maxY < top) {
+            return false;
+        }
+
+        byte[] f = frame.getPixels();
+        byte[] t = template.getPixels();
+        int fw = frame.getWidth();
+        long best = Long.MAX_VALUE;
+
+        for (int y = top; y <= maxY; y++) {
+            for (int x = left; x <= maxX; x++) {
+                long sad = 0;
+                for (int ty = 0; ty < th && sad < best; ty++) {
+                    int fi = (y + ty) * fw + x;
+                    int ti = ty * tw;
+                    for (int tx = 0; tx < tw; tx++) {
+                        int d = (f[fi + tx] & 0xFF) - (t[ti + tx] & 0xFF);
+                        sad += d < 0 ? -d : d;
+                    }
+                }
+                if (sad < best) {
+                    best = sad;
+                    bestX = x;
+                    bestY = y;
+                    if (sad == 0) {
+                        break;
+                    }
+                }
+            }
+            if (best == 0) {
+                break;
+            }
+        }
+
+        bestScore = (double) best / (tw * th);
+        return bestScore <= threshold;
+    }
+
+    public int getBestX() {
+        return bestX;
+    }
+
+    public int getBestY() {
+        return bestY;
+    }
+
+    public double getBestScore() {
+        return bestScore;
+    }
+
+    public GrayImage getTemplate() {
+        return template;
+    }
+}
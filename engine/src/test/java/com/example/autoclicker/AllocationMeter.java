@@ -0,0 +1,52 @@
+package com.example.autoclicker;
+
+import org.junit.Assume;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Counts the bytes the calling thread allocates between {@link #start} and
+ * {@link #assertNothingPer}, for the steady-state allocation tests. Tests using it are
+ * skipped on JVMs that cannot count per-thread allocations.
+ */
+public final class AllocationMeter {
+
+    private final com.sun.management.ThreadMXBean counter;
+    private final long threadId = Thread.currentThread().getId();
+    private long before;
+
+    private AllocationMeter(com.sun.management.ThreadMXBean counter) {
+        this.counter = counter;
+    }
+
+    public static AllocationMeter forCurrentThread() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean counter = (com.sun.management.ThreadMXBean) bean;
+        Assume.assumeTrue(counter.isThreadAllocatedMemorySupported());
+        counter.setThreadAllocatedMemoryEnabled(true);
+        return new AllocationMeter(counter);
+    }
+
+    // Call after the warm-up, right before the measured operations
+    public void start() {
+        before = counter.getThreadAllocatedBytes(threadId);
+    }
+
+    public long getAllocated() {
+        return counter.getThreadAllocatedBytes(threadId) - before;
+    }
+
+    /**
+     * Fails if anything was allocated per operation since {@link #start}. Any object is at
+     * least 16 bytes, so that would come to at least 16 * operations; staying under one
+     * byte per operation leaves room for one-off allocations such as lazy class init.
+     */
+    public void assertNothingPer(long operations) {
+        long allocated = getAllocated();
+        assertTrue("allocated " + allocated + " bytes over " + operations + " operations",
+                allocated < operations);
+    }
+}
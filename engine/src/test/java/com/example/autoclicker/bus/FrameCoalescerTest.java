@@ -0,0 +1,95 @@
+package com.example.autoclicker.bus;
+
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+
+import static org.junit.Assert.*;
+
+public class FrameCoalescerTest {
+
+    // Stands in for Choreographer: frames run only when the test says so
+    private static final class ManualFrames implements FrameCoalescer.Poster {
+        final ArrayDeque<Runnable> queued = new ArrayDeque<>();
+
+        @Override
+        public void post(Runnable frame) {
+            queued.add(frame);
+        }
+
+        void runFrame() {
+            Runnable frame;
+            int n = queued.size();
+            for (int i = 0; i < n && (frame = queued.poll()) != null; i++) {
+                frame.run();
+            }
+        }
+    }
+
+    @Test
+    public void clickBurst_drawsOncePerFrame() {
+        ManualFrames frames = new ManualFrames();
+        final long[] drawn = new long[2];
+        final CounterCell clicks = new CounterCell();
+        final FrameCoalescer coalescer = new FrameCoalescer(frames, new Runnable() {
+            @Override
+            public void run() {
+                drawn[0]++;
+                drawn[1] = clicks.get();
+            }
+        });
+        clicks.addObserver(new Runnable() {
+            @Override
+            public void run() {
+                coalescer.request();
+            }
+        });
+
+        for (int i = 1; i <= 1000; i++) {
+            clicks.set(i);
+        }
+        assertEquals(1, frames.queued.size());
+        frames.runFrame();
+
+        assertEquals(1, drawn[0]);
+        assertEquals(1000, drawn[1]);
+        assertEquals(1000, coalescer.getRequests());
+        assertEquals(1, coalescer.getFrames());
+
+        frames.runFrame();
+        assertEquals(1, drawn[0]);
+    }
+
+    @Test
+    public void requestDuringFrame_schedulesAnother() {
+        ManualFrames frames = new ManualFrames();
+        final int[] runs = new int[1];
+        final FrameCoalescer[] coalescer = new FrameCoalescer[1];
+        coalescer[0] = new FrameCoalescer(frames, new Runnable() {
+            @Override
+            public void run() {
+                if (++runs[0] == 1) {
+                    coalescer[0].request();
+                }
+            }
+        });
+
+        coalescer[0].request();
+        frames.runFrame();
+        assertEquals(1, runs[0]);
+        frames.runFrame();
+        assertEquals(2, runs[0]);
+    }
+
+    @Test
+    public void stateCell_versionTracksSets() {
+        StateCell<String> cell = new StateCell<>(null);
+        long seen = cell.getVersion();
+
+        cell.set("a");
+        cell.set("b");
+
+        assertNotEquals(seen, cell.getVersion());
+        assertEquals("b", cell.get());
+    }
+}
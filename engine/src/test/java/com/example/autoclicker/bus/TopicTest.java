@@ -0,0 +1,110 @@
+package com.example.autoclicker.bus;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class TopicTest {
+
+    @Test
+    public void everySubscriberSeesEveryEvent() {
+        Topic<String> topic = new Topic<>(8);
+        topic.publish("before");
+        Topic.Subscription<String> first = topic.subscribe(null);
+        Topic.Subscription<String> second = topic.subscribe(null);
+
+        topic.publish("a");
+        topic.publish("b");
+
+        assertEquals("a", first.poll());
+        assertEquals("b", first.poll());
+        assertNull(first.poll());
+        assertEquals("a", second.poll());
+        assertEquals("b", second.poll());
+        assertNull(second.poll());
+    }
+
+    @Test
+    public void slowSubscriber_skipsAheadAndCountsMissed() {
+        Topic<Integer> topic = new Topic<>(4);
+        Topic.Subscription<Integer> subscription = topic.subscribe(null);
+        for (int i = 0; i < 10; i++) {
+            topic.publish(i);
+        }
+
+        assertEquals(Integer.valueOf(7), subscription.poll());
+        assertEquals(7, subscription.getMissed());
+        assertEquals(Integer.valueOf(8), subscription.poll());
+        assertEquals(Integer.valueOf(9), subscription.poll());
+        assertNull(subscription.poll());
+    }
+
+    @Test
+    public void onPublish_runsUntilClosed() {
+        Topic<String> topic = new Topic<>(4);
+        final AtomicInteger wakeUps = new AtomicInteger();
+        Topic.Subscription<String> subscription = topic.subscribe(new Runnable() {
+            @Override
+            public void run() {
+                wakeUps.incrementAndGet();
+            }
+        });
+
+        topic.publish("a");
+        subscription.close();
+        topic.publish("b");
+
+        assertEquals(1, wakeUps.get());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void capacity_mustBePowerOfTwo() {
+        new Topic<String>(6);
+    }
+
+    @Test
+    public void concurrentConsumers_seeEventsInOrder() throws Exception {
+        final Topic<Integer> topic = new Topic<>(1024);
+        final int events = 100_000;
+        final int consumers = 3;
+        final List<Topic.Subscription<Integer>> subscriptions = new ArrayList<>();
+        for (int i = 0; i < consumers; i++) {
+            subscriptions.add(topic.subscribe(null));
+        }
+        final CountDownLatch done = new CountDownLatch(consumers);
+        final AtomicInteger outOfOrder = new AtomicInteger();
+        for (int i = 0; i < consumers; i++) {
+            final Topic.Subscription<Integer> subscription = subscriptions.get(i);
+            new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    int last = -1;
+                    while (last < events - 1) {
+                        Integer event = subscription.poll();
+                        if (event == null) {
+                            Thread.yield();
+                            continue;
+                        }
+                        if (event <= last) {
+                            outOfOrder.incrementAndGet();
+                        }
+                        last = event;
+                    }
+                    done.countDown();
+                }
+            }).start();
+        }
+
+        for (int i = 0; i < events; i++) {
+            topic.publish(i);
+        }
+        done.await();
+
+        assertEquals(0, outOfOrder.get());
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.autoclicker.control;
+
+import com.example.autoclicker.state.RunState;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.Socket;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ControlServerTest {
+
+    private FakeHandler handler;
+    private ControlServer server;
+
+    @Before
+    public void setUp() throws Exception {
+        handler = new FakeHandler();
+        server = new ControlServer(handler, System::nanoTime, 0);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.close();
+    }
+
+    @Test
+    public void batch_runsInOrderInOneRoundTrip() throws Exception {
+        try (ControlClient client = ControlClient.connect(server.getPort(), 5000)) {
+            List<ControlClient.Result> results = client.send(client.batch()
+                    .configure(540, 1200, 10, 0, true)
+                    .configure(540, 1200, 50, 100, false)
+                    .start()
+                    .start()
+                    .playMacro("missing")
+                    .runScript("tap 1 1")
+                    .queryStats());
+
+            assertEquals(7, results.size());
+            assertFalse(results.get(0).ok);
+            assertEquals("Interval must be at least 20ms", results.get(0).message);
+            assertTrue(results.get(1).ok);
+            assertTrue(results.get(2).ok);
+            assertEquals("Already running", results.get(3).message);
+            assertEquals("No macro named missing", results.get(4).message);
+            assertTrue(results.get(5).ok);
+            assertEquals(RunState.RUNNING, results.get(6).stats.runState);
+            assertEquals("[configure 540,1200 10ms x0 high, configure 540,1200 50ms x100, start, start, "
+                    + "macro missing, script tap 1 1]", handler.calls().toString());
+
+            results = client.send(client.batch().pause().resume().stop().stop());
+            assertEquals("[PAUSE ok, RESUME ok, STOP ok, STOP refused: Not running]", results.toString());
+        }
+    }
+
+    @Test
+    public void statsSubscription_streamsUntilCancelled() throws Exception {
+        try (ControlClient client = ControlClient.connect(server.getPort(), 5000)) {
+            assertTrue(client.send(client.batch().subscribeStats(20)).get(0).ok);
+            handler.clicks = 7;
+            ControlStats stats = client.nextStats();
+            long first = stats.timeNanos;
+            while (stats.clicks != 7) {
+                stats = client.nextStats();
+            }
+            assertEquals(8, stats.dispatched);
+
+            // Results still arrive in order while stats stream alongside
+            assertEquals(RunState.IDLE, client.send(client.batch().queryStats()).get(0).stats.runState);
+            assertTrue(client.send(client.batch().subscribeStats(0)).get(0).ok);
+            assertTrue(first >= 0);
+        }
+    }
+
+    @Test
+    public void manyClients_areServedByOneLoop() throws Exception {
+        ControlClient[] clients = new ControlClient[8];
+        for (int i = 0; i < clients.length; i++) {
+            clients[i] = ControlClient.connect(server.getPort(), 5000);
+        }
+        for (int round = 0; round < 50; round++) {
+            for (ControlClient client : clients) {
+                assertTrue(client.send(client.batch().queryStats()).get(0).ok);
+            }
+        }
+        assertEquals(clients.length, server.getSessionCount());
+        for (ControlClient client : clients) {
+            client.close();
+        }
+    }
+
+    @Test
+    public void protocolError_closesOnlyThatConnection() throws Exception {
+        try (Socket socket = new Socket("127.0.0.1", server.getPort());
+             ControlClient good = ControlClient.connect(server.getPort(), 5000)) {
+            socket.setSoTimeout(5000);
+            DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+            out.writeInt(1 << 30);
+            out.flush();
+            try {
+                assertEquals(-1, socket.getInputStream().read());
+            } catch (IOException closed) {
+                // Reset instead of a clean close, depending on the platform
+            }
+            assertTrue(good.send(good.batch().queryStats()).get(0).ok);
+        }
+    }
+
+    @Test(expected = EOFException.class)
+    public void closedServer_endsClientStreams() throws Exception {
+        ControlClient client = ControlClient.connect(server.getPort(), 5000);
+        client.send(client.batch().queryStats());
+        server.close();
+        client.nextStats();
+    }
+}
@@ -0,0 +1,172 @@
+package com.example.autoclicker.control;
+
+import com.example.autoclicker.state.RunState;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.*;
+
+public class ControlSessionTest {
+
+    // Hands over scripted input a chunk at a time and collects everything written
+    private static final class ScriptedTransport implements ControlSession.Transport {
+        ByteBuffer input = ByteBuffer.allocate(0);
+        int chunk = Integer.MAX_VALUE;
+        int writeLimit = Integer.MAX_VALUE;
+        final ByteBuffer written = ByteBuffer.allocate(1 << 20);
+        boolean eof;
+
+        @Override
+        public int read(ByteBuffer dst) {
+            if (!input.hasRemaining()) {
+                return eof ? -1 : 0;
+            }
+            int n = Math.min(Math.min(chunk, input.remaining()), dst.remaining());
+            ByteBuffer slice = input.duplicate();
+            slice.limit(slice.position() + n);
+            dst.put(slice);
+            input.position(input.position() + n);
+            return n;
+        }
+
+        @Override
+        public int write(ByteBuffer src) {
+            int n = Math.min(writeLimit, src.remaining());
+            ByteBuffer slice = src.duplicate();
+            slice.limit(slice.position() + n);
+            written.put(slice);
+            src.position(src.position() + n);
+            return n;
+        }
+
+        ByteBuffer output() {
+            ByteBuffer view = written.duplicate();
+            view.flip();
+            return view;
+        }
+    }
+
+    private static byte[] frames(ControlClient.Batch... batches) {
+        ByteBuffer all = ByteBuffer.allocate(1 << 16);
+        for (ControlClient.Batch batch : batches) {
+            all.put(batch.toFrame());
+        }
+        byte[] bytes = new byte[all.position()];
+        all.flip();
+        all.get(bytes);
+        return bytes;
+    }
+
+    @Test
+    public void byteAtATimeInput_runsEachBatchOnce() throws Exception {
+        FakeHandler handler = new FakeHandler();
+        ScriptedTransport transport = new ScriptedTransport();
+        ControlSession session = new ControlSession(handler, transport);
+        transport.input = ByteBuffer.wrap(frames(
+                new ControlClient.Batch().configure(10, 20, 100, 5, true).start(),
+                new ControlClient.Batch().queryStats().stop()));
+        transport.chunk = 1;
+
+        while (transport.input.hasRemaining()) {
+            assertTrue(session.onReadable(0));
+        }
+        session.onWritable();
+
+        assertEquals(2, session.getBatches());
+        assertEquals("[configure 10,20 100ms x5 high, start, stop]", handler.calls().toString());
+        ByteBuffer out = transport.output();
+        int first = out.getInt();
+        out.position(out.position() + first);
+        int second = out.getInt();
+        assertEquals(ControlProtocol.RESULTS, out.get());
+        assertEquals(2, out.getShort());
+        assertEquals(ControlProtocol.QUERY_STATS, out.get());
+        assertEquals(ControlProtocol.OK, out.get());
+        assertEquals(0, out.getShort());
+        assertEquals(RunState.RUNNING, ControlStats.read(out).runState);
+        assertEquals(ControlProtocol.STOP, out.get());
+        assertEquals(ControlProtocol.OK, out.get());
+        assertEquals(0, out.getShort());
+        assertFalse(out.hasRemaining());
+        assertEquals(3 + 4 + ControlStats.SIZE + 4, second);
+    }
+
+    @Test
+    public void endOfStream_endsSession() throws Exception {
+        ScriptedTransport transport = new ScriptedTransport();
+        transport.eof = true;
+        assertFalse(new ControlSession(new FakeHandler(), transport).onReadable(0));
+    }
+
+    @Test
+    public void malformedFrames_areProtocolErrors() {
+        byte[][] bad = {
+                {0, 0, 0, 0},
+                {0x7f, 0, 0, 0},
+                {0, 0, 0, 3, ControlProtocol.RESULTS, 0, 0},
+                {0, 0, 0, 4, ControlProtocol.BATCH, 0, 1, 99},
+                {0, 0, 0, 5, ControlProtocol.BATCH, 0, 1, ControlProtocol.CONFIGURE, 0},
+                {0, 0, 0, 5, ControlProtocol.BATCH, 0, 1, ControlProtocol.START, 0},
+        };
+        for (byte[] frame : bad) {
+            ScriptedTransport transport = new ScriptedTransport();
+            transport.input = ByteBuffer.wrap(frame);
+            try {
+                new ControlSession(new FakeHandler(), transport).onReadable(0);
+                fail("Accepted " + java.util.Arrays.toString(frame));
+            } catch (ControlProtocolException expected) {
+            } catch (IOException e) {
+                fail(e.toString());
+            }
+        }
+    }
+
+    @Test
+    public void statsSubscription_streamsAndDropsBehindBacklog() throws Exception {
+        FakeHandler handler = new FakeHandler();
+        ScriptedTransport transport = new ScriptedTransport();
+        ControlSession session = new ControlSession(handler, transport);
+        assertEquals(Long.MAX_VALUE, session.pollStats(0));
+
+        transport.input = ByteBuffer.wrap(frames(new ControlClient.Batch().subscribeStats(1)));
+        session.onReadable(0);
+        session.onWritable();
+        // Clamped to the minimum period, first frame due at once
+        assertEquals(ControlProtocol.MIN_STATS_PERIOD_MS * 1_000_000L, session.pollStats(0));
+        assertTrue(session.wantsWrite());
+
+        // The peer is not reading: the next frame is dropped, not queued
+        transport.writeLimit = 0;
+        session.onWritable();
+        session.pollStats(ControlProtocol.MIN_STATS_PERIOD_MS * 1_000_000L);
+        assertEquals(1, session.getDroppedStats());
+
+        transport.writeLimit = Integer.MAX_VALUE;
+        session.onWritable();
+        assertFalse(session.wantsWrite());
+        transport.input = ByteBuffer.wrap(frames(new ControlClient.Batch().subscribeStats(0)));
+        session.onReadable(0);
+        assertEquals(Long.MAX_VALUE, session.pollStats(Long.MAX_VALUE / 2));
+    }
+
+    @Test
+    public void slowReader_stopsRequestReading() throws Exception {
+        ScriptedTransport transport = new ScriptedTransport();
+        ControlSession session = new ControlSession(new FakeHandler(), transport);
+        ControlClient.Batch batch = new ControlClient.Batch();
+        for (int i = 0; i < ControlSession.MAX_BATCH; i++) {
+            batch.queryStats();
+        }
+        byte[] frame = batch.toFrame();
+        while (session.wantsRead()) {
+            transport.input = ByteBuffer.wrap(frame);
+            session.onReadable(0);
+        }
+        assertTrue(session.wantsWrite());
+        session.onWritable();
+        assertTrue(session.wantsRead());
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.autoclicker.control;
+
+import com.example.autoclicker.state.RunState;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Records commands and keeps a minimal run state, like the service does
+final class FakeHandler implements ControlHandler {
+
+    final List<String> calls = new ArrayList<>();
+    volatile RunState state = RunState.IDLE;
+    volatile int clicks;
+
+    @Override
+    public synchronized String configure(int x, int y, int intervalMs, int repeatCount, boolean highRate) {
+        calls.add("configure " + x + "," + y + " " + intervalMs + "ms x" + repeatCount + (highRate ? " high" : ""));
+        return intervalMs < 20 ? "Interval must be at least 20ms" : null;
+    }
+
+    @Override
+    public synchronized String start() {
+        calls.add("start");
+        if (state != RunState.IDLE) {
+            return "Already running";
+        }
+        state = RunState.RUNNING;
+        return null;
+    }
+
+    @Override
+    public synchronized String stop() {
+        calls.add("stop");
+        if (state == RunState.IDLE) {
+            return "Not running";
+        }
+        state = RunState.IDLE;
+        return null;
+    }
+
+    @Override
+    public synchronized String pause() {
+        calls.add("pause");
+        state = RunState.PAUSED;
+        return null;
+    }
+
+    @Override
+    public synchronized String resume() {
+        calls.add("resume");
+        state = RunState.RUNNING;
+        return null;
+    }
+
+    @Override
+    public synchronized String playMacro(String name) {
+        calls.add("macro " + name);
+        return "No macro named " + name;
+    }
+
+    @Override
+    public synchronized String runScript(String source) {
+        calls.add("script " + source);
+        return null;
+    }
+
+    @Override
+    public void readStats(ControlStats out) {
+        out.runState = state;
+        out.clicks = clicks;
+        out.dispatched = clicks + 1;
+        out.completed = clicks;
+    }
+
+    synchronized List<String> calls() {
+        return new ArrayList<>(calls);
+    }
+}
@@ -0,0 +1,191 @@
+package com.example.autoclicker.core;
+
+import com.example.autoclicker.jitter.PositionJitter;
+import com.example.autoclicker.nodes.NodeTarget;
+import com.example.autoclicker.state.EngineState;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ClickRunTest {
+
+    private static final class RecordingSink implements GestureSink {
+        final List<String> taps = new ArrayList<>();
+        boolean accept = true;
+
+        @Override
+        public boolean tap(int x, int y) {
+            if (accept) {
+                taps.add(x + "," + y);
+            }
+            return accept;
+        }
+    }
+
+    private static final class RecordingCallbacks implements ClickRun.Callbacks {
+        int ticks;
+        int lastCount;
+        int completedAt = -1;
+
+        @Override
+        public void onTick(long deadlineNanos) {
+            ticks++;
+        }
+
+        @Override
+        public void onClick(int count) {
+            lastCount = count;
+        }
+
+        @Override
+        public void onCompleted(int count) {
+            completedAt = count;
+        }
+    }
+
+    private static EngineState running(final int repeatCount) {
+        EngineState state = new EngineState();
+        state.updateConfig(c -> c.withPosition(100, 200).withRepeatCount(repeatCount));
+        assertTrue(state.start());
+        return state;
+    }
+
+    @Test
+    public void tapsUntilRepeatCount() {
+        RecordingSink sink = new RecordingSink();
+        RecordingCallbacks callbacks = new RecordingCallbacks();
+        ClickRun run = new ClickRun(running(3), sink, callbacks);
+
+        assertTrue(run.onTick(0));
+        assertTrue(run.onTick(1));
+        assertFalse(run.onTick(2));
+        assertEquals("[100,200, 100,200, 100,200]", sink.taps.toString());
+        assertEquals(3, callbacks.ticks);
+        assertEquals(3, callbacks.lastCount);
+        assertEquals(3, callbacks.completedAt);
+        assertEquals(3, run.getClicks());
+    }
+
+    @Test
+    public void resumedRun_countsOnFromCheckpoint() {
+        RecordingSink sink = new RecordingSink();
+        RecordingCallbacks callbacks = new RecordingCallbacks();
+        ClickRun run = new ClickRun(running(10), sink, callbacks);
+        run.resumeFrom(8);
+
+        assertTrue(run.onTick(0));
+        assertEquals(9, callbacks.lastCount);
+        assertFalse(run.onTick(1));
+        assertEquals(10, callbacks.completedAt);
+        assertEquals(2, sink.taps.size());
+    }
+
+    @Test
+    public void step_clicksWhilePaused() {
+        RecordingSink sink = new RecordingSink();
+        RecordingCallbacks callbacks = new RecordingCallbacks();
+        EngineState state = running(2);
+        ClickRun run = new ClickRun(state, sink, callbacks);
+        assertTrue(state.pause());
+
+        assertTrue(run.onTick(0));
+        assertTrue(sink.taps.isEmpty());
+        assertTrue(run.step());
+        assertEquals(1, callbacks.lastCount);
+        assertEquals(0, callbacks.ticks);
+        assertFalse(run.step());
+        assertEquals(2, callbacks.completedAt);
+        assertEquals(2, sink.taps.size());
+    }
+
+    @Test
+    public void refusedTaps_areDroppedAndNotCounted() {
+        RecordingSink sink = new RecordingSink();
+        RecordingCallbacks callbacks = new RecordingCallbacks();
+        ClickRun run = new ClickRun(running(2), sink, callbacks);
+
+        sink.accept = false;
+        assertTrue(run.onTick(0));
+        assertTrue(run.onTick(1));
+        sink.accept = true;
+        assertTrue(run.onTick(2));
+        assertFalse(run.onTick(3));
+        assertEquals(2, run.getDropped());
+        assertEquals(2, run.getClicks());
+        assertEquals(4, callbacks.ticks);
+    }
+
+    @Test
+    public void trigger_gatesOnlyWhenEnabled() {
+        EngineState state = running(0);
+        RecordingSink sink = new RecordingSink();
+        ClickRun run = new ClickRun(state, sink, new RecordingCallbacks());
+        run.setTrigger(new ClickRun.Gate() {
+            @Override
+            public boolean allowsClick() {
+                return false;
+            }
+        });
+
+        assertTrue(run.onTick(0));
+        assertEquals(1, sink.taps.size());
+        state.updateConfig(c -> c.withTrigger(true));
+        assertTrue(run.onTick(1));
+        assertEquals(1, sink.taps.size());
+        assertEquals(1, run.getGateSkips());
+    }
+
+    @Test
+    public void nodeTargetWithoutIndex_countsMiss() {
+        EngineState state = running(0);
+        state.updateConfig(c -> c.withNodeTarget(NodeTarget.text("OK")));
+        RecordingSink sink = new RecordingSink();
+        ClickRun run = new ClickRun(state, sink, new RecordingCallbacks());
+
+        assertTrue(run.onTick(0));
+        assertTrue(sink.taps.isEmpty());
+        assertEquals(1, run.getNodeMisses());
+    }
+
+    @Test
+    public void pausedRun_keepsSchedulingWithoutTapping() {
+        EngineState state = running(0);
+        RecordingSink sink = new RecordingSink();
+        RecordingCallbacks callbacks = new RecordingCallbacks();
+        ClickRun run = new ClickRun(state, sink, callbacks);
+
+        assertTrue(state.pause());
+        assertTrue(run.onTick(0));
+        assertEquals(0, callbacks.ticks);
+        assertTrue(state.beginStop());
+        assertFalse(run.onTick(1));
+        assertTrue(sink.taps.isEmpty());
+    }
+
+    @Test
+    public void positionJitter_staysOnScreen() {
+        EngineState state = new EngineState();
+        state.updateConfig(c -> c.withPosition(0, 0));
+        assertTrue(state.start());
+        final int[] min = {Integer.MAX_VALUE, Integer.MAX_VALUE};
+        ClickRun run = new ClickRun(state, new GestureSink() {
+            @Override
+            public boolean tap(int x, int y) {
+                min[0] = Math.min(min[0], x);
+                min[1] = Math.min(min[1], y);
+                return true;
+            }
+        }, new RecordingCallbacks());
+        run.setPositionJitter(new PositionJitter(10, 10, 7));
+
+        for (int i = 0; i < 1000; i++) {
+            run.onTick(i);
+        }
+        assertEquals(0, min[0]);
+        assertEquals(0, min[1]);
+    }
+}
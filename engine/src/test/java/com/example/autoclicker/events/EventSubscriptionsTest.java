@@ -0,0 +1,52 @@
+package com.example.autoclicker.events;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class EventSubscriptionsTest {
+
+    private static final int WINDOW_STATE = 0x20;
+    private static final int CONTENT_CHANGED = 0x800;
+
+    @Test
+    public void noFeatures_subscribesToNothing() {
+        assertEquals(0, new EventSubscriptions().getMask());
+    }
+
+    @Test
+    public void mask_isUnionOfActiveFeatures() {
+        EventSubscriptions subscriptions = new EventSubscriptions();
+
+        assertTrue(subscriptions.set("profiles", WINDOW_STATE));
+        assertTrue(subscriptions.set("nodes", WINDOW_STATE | CONTENT_CHANGED));
+        assertEquals(WINDOW_STATE | CONTENT_CHANGED, subscriptions.getMask());
+
+        assertTrue(subscriptions.clear("nodes"));
+        assertEquals(WINDOW_STATE, subscriptions.getMask());
+        assertFalse(subscriptions.isSubscribed(CONTENT_CHANGED));
+    }
+
+    @Test
+    public void unchangedMask_reportsNoChange() {
+        EventSubscriptions subscriptions = new EventSubscriptions();
+        subscriptions.set("a", WINDOW_STATE);
+        assertFalse(subscriptions.set("b", WINDOW_STATE));
+        assertFalse(subscriptions.clear("b"));
+        assertFalse(subscriptions.clear("missing"));
+    }
+
+    @Test
+    public void rateCounter_countsSlidingMinute() {
+        EventRateCounter counter = new EventRateCounter();
+        for (int i = 0; i < 120; i++) {
+            counter.record(i * 1000L);
+            counter.record(i * 1000L + 500);
+        }
+
+        assertEquals(240, counter.getTotal());
+        // Seconds 60..119 are inside the window ending at 119.9 s
+        assertEquals(120, counter.getLastMinute(119_900));
+        assertEquals(0, counter.getLastMinute(300_000));
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.autoclicker.gesture;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class DispatchPipelineTest {
+
+    @Test
+    public void fullPipeline_throttlesUntilCallback() {
+        DispatchPipeline pipeline = new DispatchPipeline(2);
+
+        assertTrue(pipeline.tryAcquire());
+        assertTrue(pipeline.tryAcquire());
+        assertFalse(pipeline.tryAcquire());
+        assertEquals(1, pipeline.getThrottled());
+
+        pipeline.onCompleted();
+        assertTrue(pipeline.tryAcquire());
+        assertEquals(2, pipeline.getInFlight());
+        assertEquals(3, pipeline.getDispatched());
+    }
+
+    @Test
+    public void cancelledAndRejected_releaseSlots() {
+        DispatchPipeline pipeline = new DispatchPipeline(1);
+
+        assertTrue(pipeline.tryAcquire());
+        pipeline.onCancelled();
+        assertTrue(pipeline.tryAcquire());
+        pipeline.onRejected();
+
+        assertEquals(0, pipeline.getInFlight());
+        assertEquals(1, pipeline.getCancelled());
+        assertEquals(1, pipeline.getRejected());
+    }
+
+    @Test
+    public void resetWithGesturesOutstanding_neverExceedsMaxInFlight() {
+        DispatchPipeline pipeline = new DispatchPipeline(2);
+        assertTrue(pipeline.tryAcquire());
+        assertTrue(pipeline.tryAcquire());
+        pipeline.reset(2);
+
+        // The previous run's two gestures still hold both slots
+        assertFalse(pipeline.tryAcquire());
+        pipeline.onCompleted();
+        assertTrue(pipeline.tryAcquire());
+        assertFalse(pipeline.tryAcquire());
+        assertEquals(2, pipeline.getInFlight());
+    }
+
+    @Test
+    public void lateCallbackAfterReset_doesNotGoNegative() {
+        DispatchPipeline pipeline = new DispatchPipeline(1);
+        pipeline.tryAcquire();
+        pipeline.reset(1);
+        pipeline.onCompleted();
+
+        assertEquals(0, pipeline.getInFlight());
+        assertTrue(pipeline.tryAcquire());
+        assertFalse(pipeline.tryAcquire());
+    }
+}
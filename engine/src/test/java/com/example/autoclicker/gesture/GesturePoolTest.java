@@ -0,0 +1,44 @@
+package com.example.autoclicker.gesture;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class GesturePoolTest {
+
+    private final GesturePool.Factory<String> factory = new GesturePool.Factory<String>() {
+        @Override
+        public String create(int x, int y) {
+            return x + "," + y;
+        }
+    };
+
+    @Test
+    public void sameCoordinate_returnsSameInstance() {
+        GesturePool<String> pool = new GesturePool<>(4, factory);
+        String first = pool.get(10, 20);
+        assertSame(first, pool.get(10, 20));
+        assertEquals(1, pool.getMisses());
+    }
+
+    @Test
+    public void full_evictsRoundRobin() {
+        GesturePool<String> pool = new GesturePool<>(2, factory);
+        pool.get(1, 1);
+        pool.get(2, 2);
+        pool.get(3, 3);
+
+        assertEquals(2, pool.size());
+        assertEquals(3, pool.getMisses());
+        pool.get(2, 2);
+        assertEquals(3, pool.getMisses());
+        pool.get(1, 1);
+        assertEquals(4, pool.getMisses());
+    }
+
+    @Test
+    public void key_distinguishesNegativeCoordinates() {
+        assertNotEquals(GesturePool.key(-1, 0), GesturePool.key(0, -1));
+        assertNotEquals(GesturePool.key(0, -1), GesturePool.key(-1, -1));
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.autoclicker.gesture;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class StrokeSetPoolTest {
+
+    private final StrokeSetPool.Factory<String> factory = new StrokeSetPool.Factory<String>() {
+        @Override
+        public String create(int[] xs, int[] ys, int count) {
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < count; i++) {
+                sb.append(xs[i]).append(',').append(ys[i]).append(';');
+            }
+            return sb.toString();
+        }
+    };
+
+    @Test
+    public void sameCoordinateSet_returnsSameInstance() {
+        StrokeSetPool<String> pool = new StrokeSetPool<>(4, factory);
+        int[] xs = {10, 30, 50};
+        int[] ys = {20, 40, 60};
+        String first = pool.get(xs, ys, 3);
+        assertSame(first, pool.get(new int[]{10, 30, 50}, new int[]{20, 40, 60}, 3));
+        assertEquals(1, pool.getMisses());
+    }
+
+    @Test
+    public void countAndOrder_areTheKey() {
+        StrokeSetPool<String> pool = new StrokeSetPool<>(4, factory);
+        int[] xs = {1, 2, 3};
+        int[] ys = {1, 2, 3};
+        assertEquals("1,1;2,2;", pool.get(xs, ys, 2));
+        assertEquals("1,1;2,2;3,3;", pool.get(xs, ys, 3));
+        assertEquals("2,2;1,1;", pool.get(new int[]{2, 1}, new int[]{2, 1}, 2));
+        assertEquals(3, pool.getMisses());
+    }
+
+    @Test
+    public void full_evictsRoundRobinAndReusesKeys() {
+        StrokeSetPool<String> pool = new StrokeSetPool<>(2, factory);
+        pool.get(new int[]{1, 1}, new int[]{1, 1}, 2);
+        pool.get(new int[]{2}, new int[]{2}, 1);
+        assertEquals("3,3;", pool.get(new int[]{3}, new int[]{3}, 1));
+
+        assertEquals(2, pool.size());
+        assertEquals(3, pool.getMisses());
+        pool.get(new int[]{2}, new int[]{2}, 1);
+        assertEquals(3, pool.getMisses());
+        assertEquals("1,1;1,1;", pool.get(new int[]{1, 1}, new int[]{1, 1}, 2));
+        assertEquals(4, pool.getMisses());
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.autoclicker.gesture;
+
+import com.example.autoclicker.AllocationMeter;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TapEmitterAllocationTest {
+
+    private static final int WARMUP_TICKS = 50_000;
+    private static final int MEASURED_TICKS = 200_000;
+
+    private static final class Gesture {
+        final int x;
+        final int y;
+
+        Gesture(int x, int y) {
+            this.x = x;
+            this.y = y;
+        }
+    }
+
+    @Test
+    public void steadyStateTick_allocatesNothing() {
+        AllocationMeter meter = AllocationMeter.forCurrentThread();
+
+        final DispatchPipeline pipeline = new DispatchPipeline(2);
+        GesturePool<Gesture> pool = new GesturePool<>(4, new GesturePool.Factory<Gesture>() {
+            @Override
+            public Gesture create(int x, int y) {
+                return new Gesture(x, y);
+            }
+        });
+        final long[] dispatched = new long[1];
+        TapEmitter<Gesture> emitter = new TapEmitter<>(pipeline, pool, new TapEmitter.Sink<Gesture>() {
+            @Override
+            public boolean dispatch(Gesture gesture) {
+                dispatched[0] += gesture.x;
+                // Complete immediately, as the gesture callback would
+                pipeline.onCompleted();
+                return true;
+            }
+        });
+
+        // Alternate between two targets so the pool's scan path is exercised too
+        for (int i = 0; i < WARMUP_TICKS; i++) {
+            emitter.emit(100 + (i & 1), 200);
+        }
+
+        meter.start();
+        for (int i = 0; i < MEASURED_TICKS; i++) {
+            emitter.emit(100 + (i & 1), 200);
+        }
+        meter.assertNothingPer(MEASURED_TICKS);
+
+        assertEquals(2, pool.getMisses());
+        assertEquals((WARMUP_TICKS + MEASURED_TICKS) / 2 * 201L, dispatched[0]);
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.autoclicker.jitter;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class JitterTest {
+
+    private static final int SAMPLES = 200_000;
+
+    @Test
+    public void inverseNormal_matchesKnownQuantiles() {
+        assertEquals(0.0, IntervalJitter.inverseNormal(0.5), 1e-9);
+        assertEquals(1.959964, IntervalJitter.inverseNormal(0.975), 1e-5);
+        assertEquals(-2.326348, IntervalJitter.inverseNormal(0.01), 1e-5);
+        assertEquals(3.090232, IntervalJitter.inverseNormal(0.999), 1e-5);
+    }
+
+    @Test
+    public void gaussian_hasRequestedMeanAndSpread() {
+        IntervalJitter jitter = new IntervalJitter(JitterSpec.IntervalMode.GAUSSIAN, 0.1, 42);
+        double sum = 0;
+        double sumSquares = 0;
+        for (int i = 0; i < SAMPLES; i++) {
+            double f = jitter.nextFactor();
+            sum += f;
+            sumSquares += f * f;
+        }
+        double mean = sum / SAMPLES;
+        double stdDev = Math.sqrt(sumSquares / SAMPLES - mean * mean);
+        assertEquals(1.0, mean, 0.002);
+        assertEquals(0.1, stdDev, 0.002);
+    }
+
+    @Test
+    public void logNormal_hasUnitMedianAndRequestedLogSpread() {
+        IntervalJitter jitter = new IntervalJitter(JitterSpec.IntervalMode.LOG_NORMAL, 0.3, 7);
+        double[] samples = new double[SAMPLES];
+        double logSum = 0;
+        double logSquares = 0;
+        for (int i = 0; i < SAMPLES; i++) {
+            samples[i] = jitter.nextFactor();
+            double l = Math.log(samples[i]);
+            logSum += l;
+            logSquares += l * l;
+        }
+        Arrays.sort(samples);
+        double logMean = logSum / SAMPLES;
+        assertEquals(1.0, samples[SAMPLES / 2], 0.01);
+        assertEquals(0.0, logMean, 0.005);
+        assertEquals(0.3, Math.sqrt(logSquares / SAMPLES - logMean * logMean), 0.005);
+        // Skewed right: the mean sits above the median
+        double mean = 0;
+        for (double s : samples) {
+            mean += s / SAMPLES;
+        }
+        assertEquals(Math.exp(0.045), mean, 0.005);
+    }
+
+    @Test
+    public void wideSpread_neverDropsBelowFloor() {
+        IntervalJitter jitter = new IntervalJitter(JitterSpec.IntervalMode.GAUSSIAN, 1.0, 3);
+        for (int i = 0; i < SAMPLES; i++) {
+            assertTrue(jitter.nextIntervalNanos(1_000_000) >= 1_000_000 * IntervalJitter.MIN_FACTOR - 1);
+        }
+    }
+
+    @Test
+    public void sameSeed_repeatsSequence() {
+        IntervalJitter a = new IntervalJitter(JitterSpec.IntervalMode.LOG_NORMAL, 0.2, 99);
+        IntervalJitter b = new IntervalJitter(JitterSpec.IntervalMode.LOG_NORMAL, 0.2, 99);
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(a.nextIntervalNanos(50_000_000), b.nextIntervalNanos(50_000_000));
+        }
+    }
+
+    @Test
+    public void position_staysInEllipseAndCoversItUniformly() {
+        PositionJitter jitter = new PositionJitter(40, 10, 5);
+        int[] out = new int[2];
+        int inner = 0;
+        int left = 0;
+        int right = 0;
+        for (int i = 0; i < SAMPLES; i++) {
+            jitter.apply(500, 300, out);
+            int dx = out[0] - 500;
+            int dy = out[1] - 300;
+            assertTrue(dx + ", " + dy, Math.abs(dx) <= 40 && Math.abs(dy) <= 10);
+            double u = dx / 40.0;
+            double v = dy / 10.0;
+            if (u * u + v * v <= 0.25) {
+                inner++;
+            }
+            if (dx < 0) {
+                left++;
+            } else if (dx > 0) {
+                right++;
+            }
+        }
+        // A uniform disc puts a quarter of its points within half the radius
+        assertEquals(0.25, inner / (double) SAMPLES, 0.02);
+        assertEquals(1.0, left / (double) right, 0.03);
+    }
+
+    @Test
+    public void disabledSpec_reportsDisabled() {
+        assertFalse(JitterSpec.NONE.isEnabled());
+        assertTrue(new JitterSpec(JitterSpec.IntervalMode.NONE, 0, 3, 0).isEnabled());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void negativeRadius_isRejected() {
+        new JitterSpec(JitterSpec.IntervalMode.NONE, 0, -1, 0);
+    }
+}
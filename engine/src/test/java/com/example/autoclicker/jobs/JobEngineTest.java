@@ -0,0 +1,205 @@
+package com.example.autoclicker.jobs;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class JobEngineTest {
+
+    private static final long MS = 1_000_000L;
+
+    // Drives the engine like ClickScheduler would, with every batch dispatched
+    private static long run(JobEngine engine, long fromNanos, long untilNanos) {
+        long now = fromNanos;
+        while (true) {
+            long wait = engine.nanosUntilNextTick(now);
+            if (wait == Long.MAX_VALUE || now + wait > untilNanos) {
+                return now;
+            }
+            now += Math.max(0, wait);
+            if (engine.poll(now) == 1) {
+                engine.commitBatch(true);
+            }
+        }
+    }
+
+    @Test
+    public void independentJobs_keepTheirOwnIntervals() {
+        JobEngine engine = new JobEngine(10 * MS, 10);
+        ClickJob fast = engine.add(100, 100, 150 * MS, 0, 0);
+        ClickJob slow = engine.add(500, 500, 2000 * MS, 0, 0);
+        engine.start(0);
+        engine.start(fast);
+        engine.start(slow);
+
+        run(engine, 0, 5999 * MS);
+
+        assertEquals(40, fast.getClicks());
+        assertEquals(3, slow.getClicks());
+        // Only t=0 has both jobs due, so it is the only merged gesture
+        assertEquals(42, engine.getBatches());
+        assertEquals(43, engine.getStrokes());
+    }
+
+    @Test
+    public void jobsDueTogether_shareOneGesture() {
+        JobEngine engine = new JobEngine(10 * MS, 10);
+        engine.start(0);
+        for (int i = 0; i < 5; i++) {
+            engine.start(engine.add(i * 10, 0, 100 * MS, 0, 0));
+        }
+
+        assertEquals(1, engine.poll(0));
+        assertEquals(5, engine.getBatchSize());
+        engine.commitBatch(true);
+
+        run(engine, 0, 999 * MS);
+        assertEquals(10, engine.getBatches());
+        assertEquals(50, engine.getStrokes());
+    }
+
+    @Test
+    public void samePoint_usesOneStroke() {
+        JobEngine engine = new JobEngine(10 * MS, 10);
+        engine.start(0);
+        ClickJob a = engine.add(7, 7, 100 * MS, 0, 0);
+        ClickJob b = engine.add(7, 7, 100 * MS, 0, 0);
+        engine.start(a);
+        engine.start(b);
+
+        assertEquals(1, engine.poll(0));
+        assertEquals(1, engine.getBatchSize());
+        engine.commitBatch(true);
+        assertEquals(1, a.getClicks());
+        assertEquals(1, b.getClicks());
+    }
+
+    @Test
+    public void fullGesture_defersLowestPriority() {
+        JobEngine engine = new JobEngine(10 * MS, 2);
+        engine.start(0);
+        ClickJob low = engine.add(1, 1, 100 * MS, 0, 0);
+        ClickJob high = engine.add(2, 2, 100 * MS, 0, 5);
+        ClickJob mid = engine.add(3, 3, 100 * MS, 0, 1);
+        engine.start(low);
+        engine.start(high);
+        engine.start(mid);
+
+        assertEquals(1, engine.poll(0));
+        assertEquals(2, engine.getBatchX(0));
+        assertEquals(3, engine.getBatchX(1));
+        engine.commitBatch(true);
+        assertEquals(1, low.getDeferred());
+        assertEquals(0, low.getClicks());
+
+        assertEquals(10 * MS, engine.nanosUntilNextTick(0));
+        assertEquals(1, engine.poll(10 * MS));
+        assertEquals(1, engine.getBatchSize());
+        assertEquals(1, engine.getBatchX(0));
+    }
+
+    @Test
+    public void repeatCount_stopsJobAndEndsRun() {
+        JobEngine engine = new JobEngine(10 * MS, 10);
+        engine.start(0);
+        ClickJob job = engine.add(1, 1, 50 * MS, 3, 0);
+        engine.start(job);
+
+        run(engine, 0, 10_000 * MS);
+
+        assertEquals(3, job.getClicks());
+        assertFalse(job.isRunning());
+        assertFalse(engine.hasRunningJobs());
+        assertEquals(Long.MAX_VALUE, engine.nanosUntilNextTick(0));
+    }
+
+    @Test
+    public void droppedBatch_countsAgainstJobsNotClicks() {
+        JobEngine engine = new JobEngine(10 * MS, 10);
+        engine.start(0);
+        ClickJob job = engine.add(1, 1, 50 * MS, 0, 0);
+        engine.start(job);
+
+        engine.poll(0);
+        engine.commitBatch(false);
+
+        assertEquals(0, job.getClicks());
+        assertEquals(1, job.getDropped());
+        assertEquals(0, engine.getBatches());
+    }
+
+    @Test
+    public void lateTick_skipsMissedSlotsOnGrid() {
+        JobEngine engine = new JobEngine(10 * MS, 10);
+        engine.start(0);
+        ClickJob job = engine.add(1, 1, 100 * MS, 0, 0);
+        engine.start(job);
+        engine.poll(0);
+        engine.commitBatch(true);
+
+        // Stalled for 350 ms: one catch-up click, then back on the 100 ms grid
+        assertEquals(1, engine.poll(350 * MS));
+        engine.commitBatch(true);
+        assertEquals(50 * MS, engine.nanosUntilNextTick(350 * MS));
+    }
+
+    @Test
+    public void stoppedJob_leavesWheel() {
+        JobEngine engine = new JobEngine(10 * MS, 10);
+        engine.start(0);
+        ClickJob a = engine.add(1, 1, 100 * MS, 0, 0);
+        ClickJob b = engine.add(2, 2, 30 * MS, 0, 0);
+        engine.start(a);
+        engine.start(b);
+        engine.poll(0);
+        engine.commitBatch(true);
+
+        engine.stop(b);
+        assertEquals(100 * MS, engine.nanosUntilNextTick(0));
+        engine.remove(a);
+        assertEquals(Long.MAX_VALUE, engine.nanosUntilNextTick(0));
+        assertEquals(1, engine.getJobs().size());
+    }
+
+    @Test
+    public void longInterval_beyondOneLapStillFires() {
+        JobEngine engine = new JobEngine(MS, 10);
+        engine.start(0);
+        ClickJob job = engine.add(1, 1, 1000 * MS, 2, 0);
+        engine.start(job);
+        engine.poll(0);
+        engine.commitBatch(true);
+
+        // The wheel may wake once early to cascade the timer down to its exact slot
+        long wake = engine.nanosUntilNextTick(0);
+        assertTrue(wake <= 1000 * MS);
+        assertEquals(0, engine.poll(wake));
+        assertEquals(1000 * MS, wake + engine.nanosUntilNextTick(wake));
+        assertEquals(1, engine.poll(1000 * MS));
+        engine.commitBatch(true);
+        assertEquals(2, job.getClicks());
+    }
+
+    @Test
+    public void restartAfterStop_firesOldAndNewJobs() {
+        JobEngine engine = new JobEngine(10 * MS, 10);
+        ClickJob a = engine.add(1, 1, 100 * MS, 0, 0);
+        engine.start(0);
+        engine.start(a);
+        run(engine, 0, 250 * MS);
+        assertEquals(3, a.getClicks());
+        // Idle until the old wheel's current slot lines up with the new wheel's first one
+        engine.nanosUntilNextTick(640 * MS);
+
+        // Stopped from outside, then restarted with a second job started before the loop
+        engine.stopAll();
+        ClickJob b = engine.add(2, 2, 100 * MS, 0, 0);
+        engine.start(a);
+        engine.start(b);
+        engine.start(1000 * MS);
+
+        run(engine, 1000 * MS, 1450 * MS);
+        assertEquals(5, a.getClicks());
+        assertEquals(5, b.getClicks());
+    }
+}
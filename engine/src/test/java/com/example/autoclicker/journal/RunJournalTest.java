@@ -0,0 +1,285 @@
+package com.example.autoclicker.journal;
+
+import com.example.autoclicker.scheduler.CatchUpPolicy;
+import com.example.autoclicker.sim.VirtualClock;
+import com.example.autoclicker.state.ClickConfig;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.RandomAccessFile;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class RunJournalTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final VirtualClock clock = new VirtualClock(0);
+
+    private static ClickConfig config() {
+        return ClickConfig.DEFAULT.withPosition(120, 340)
+                .withInterval(25)
+                .withRepeatCount(50_000)
+                .withCatchUpPolicy(CatchUpPolicy.BURST)
+                .withHighRate(true);
+    }
+
+    private File file() {
+        return new File(folder.getRoot(), "run.journal");
+    }
+
+    private RunJournal open() throws Exception {
+        return RunJournal.open(file(), clock, SECOND, 100);
+    }
+
+    // Records one click and runs the sync it asks for, as the service's journal thread would
+    private static void click(RunJournal journal, int count) throws Exception {
+        if (journal.onClick(count)) {
+            journal.sync();
+        }
+    }
+
+    // Runs clicks 1..to, forcing the last count out as a kill-safe checkpoint
+    private static void clickTo(RunJournal journal, int from, int to) throws Exception {
+        for (int i = from + 1; i <= to; i++) {
+            click(journal, i);
+        }
+        journal.sync();
+    }
+
+    @Test
+    public void newFile_hasNoCheckpoint() throws Exception {
+        RunJournal journal = open();
+        assertNull(journal.getCheckpoint());
+        assertFalse(journal.isActive());
+        assertEquals(JournalFormat.HEADER_SIZE, file().length());
+        journal.close();
+    }
+
+    @Test
+    public void unendedRun_recoversConfigAndLastSyncedCount() throws Exception {
+        RunJournal journal = open();
+        journal.begin(config(), 0);
+        clickTo(journal, 0, 12_345);
+        // Process dies without end()
+        journal.close();
+
+        RunCheckpoint checkpoint = open().getCheckpoint();
+        assertNotNull(checkpoint);
+        assertEquals(12_345, checkpoint.clicks);
+        assertEquals(120, checkpoint.x);
+        assertEquals(340, checkpoint.y);
+        assertEquals(25, checkpoint.intervalMs);
+        assertEquals(50_000, checkpoint.repeatCount);
+        assertEquals(CatchUpPolicy.BURST, checkpoint.catchUpPolicy);
+        assertTrue(checkpoint.highRate);
+        assertFalse(checkpoint.isComplete());
+
+        ClickConfig restored = checkpoint.applyTo(ClickConfig.DEFAULT);
+        assertEquals(120, restored.x);
+        assertEquals(25, restored.intervalMs);
+        assertTrue(restored.highRate);
+    }
+
+    @Test
+    public void endedRun_leavesNoCheckpoint() throws Exception {
+        RunJournal journal = open();
+        journal.begin(config(), 0);
+        clickTo(journal, 0, 500);
+        journal.end(500);
+        journal.close();
+
+        assertNull(open().getCheckpoint());
+    }
+
+    @Test
+    public void unsyncedClicks_areLostButBatchIsBounded() throws Exception {
+        RunJournal journal = open();
+        journal.begin(config(), 0);
+        for (int i = 1; i <= 250; i++) {
+            click(journal, i);
+        }
+        // Killed before sync(): the last full batch of 100 survives
+        journal.close();
+
+        assertEquals(200, open().getCheckpoint().clicks);
+    }
+
+    @Test
+    public void clicks_areSyncedInBatches() throws Exception {
+        RunJournal journal = open();
+        journal.begin(config(), 0);
+        long before = journal.getSyncCount();
+        for (int i = 1; i <= 10_000; i++) {
+            click(journal, i);
+        }
+        assertEquals(100, journal.getSyncCount() - before);
+        assertEquals(101, journal.getRecordCount());
+        journal.close();
+    }
+
+    @Test
+    public void onClick_asksOnceAndLeavesTheDiskToSync() throws Exception {
+        RunJournal journal = open();
+        journal.begin(config(), 0);
+        int requests = 0;
+        for (int i = 1; i <= 250; i++) {
+            if (journal.onClick(i)) {
+                requests++;
+            }
+        }
+        assertEquals(1, requests);
+        assertEquals(0, journal.getSyncCount());
+
+        journal.sync();
+        assertEquals(1, journal.getSyncCount());
+        assertFalse(journal.onClick(251));
+        journal.close();
+
+        assertEquals(250, open().getCheckpoint().clicks);
+    }
+
+    @Test
+    public void slowClicks_areSyncedByTime() throws Exception {
+        RunJournal journal = open();
+        journal.begin(config(), 0);
+        click(journal, 1);
+        click(journal, 2);
+        assertEquals(0, journal.getSyncCount());
+        clock.advance(SECOND);
+        click(journal, 3);
+        assertEquals(1, journal.getSyncCount());
+        journal.close();
+
+        assertEquals(3, open().getCheckpoint().clicks);
+    }
+
+    @Test
+    public void tornTailRecord_isCutOffAndAppendsContinue() throws Exception {
+        RunJournal journal = open();
+        journal.begin(config(), 0);
+        clickTo(journal, 0, 300);
+        clickTo(journal, 300, 400);
+        journal.close();
+
+        // Crash halfway through writing the last PROGRESS record
+        long length = file().length();
+        try (RandomAccessFile raf = new RandomAccessFile(file(), "rw")) {
+            raf.setLength(length - JournalFormat.RECORD_SIZE / 2);
+        }
+
+        RunJournal recovered = open();
+        assertEquals(JournalFormat.RECORD_SIZE / 2, recovered.getTruncatedBytes());
+        assertEquals(length - JournalFormat.RECORD_SIZE, file().length());
+        RunCheckpoint checkpoint = recovered.getCheckpoint();
+        assertEquals(300, checkpoint.clicks);
+
+        // Resumed run appends after the last good record
+        recovered.begin(checkpoint.applyTo(ClickConfig.DEFAULT), checkpoint.clicks);
+        clickTo(recovered, 300, 450);
+        recovered.close();
+
+        RunJournal again = open();
+        assertEquals(0, again.getTruncatedBytes());
+        assertEquals(450, again.getCheckpoint().clicks);
+    }
+
+    @Test
+    public void garbledTailRecord_failsChecksumAndIsCutOff() throws Exception {
+        RunJournal journal = open();
+        journal.begin(config(), 0);
+        clickTo(journal, 0, 300);
+        clickTo(journal, 300, 400);
+        journal.close();
+
+        // Flip a byte of the click count in the last record
+        long last = file().length() - JournalFormat.RECORD_SIZE;
+        try (RandomAccessFile raf = new RandomAccessFile(file(), "rw")) {
+            raf.seek(last + 6);
+            int b = raf.read();
+            raf.seek(last + 6);
+            raf.write(b ^ 0x40);
+        }
+
+        RunJournal recovered = open();
+        assertEquals(JournalFormat.RECORD_SIZE, recovered.getTruncatedBytes());
+        assertEquals(300, recovered.getCheckpoint().clicks);
+        recovered.close();
+    }
+
+    @Test
+    public void garbageAfterRecords_isCutOff() throws Exception {
+        RunJournal journal = open();
+        journal.begin(config(), 0);
+        clickTo(journal, 0, 100);
+        journal.close();
+
+        try (FileOutputStream out = new FileOutputStream(file(), true)) {
+            out.write(new byte[JournalFormat.RECORD_SIZE * 2 + 5]);
+        }
+
+        RunJournal recovered = open();
+        assertEquals(JournalFormat.RECORD_SIZE * 2 + 5, recovered.getTruncatedBytes());
+        assertEquals(100, recovered.getCheckpoint().clicks);
+        recovered.close();
+    }
+
+    @Test
+    public void tornHeader_startsEmpty() throws Exception {
+        try (FileOutputStream out = new FileOutputStream(file())) {
+            out.write(new byte[]{0x41, 0x43, 0x52});
+        }
+        RunJournal journal = open();
+        assertNull(journal.getCheckpoint());
+        assertEquals(JournalFormat.HEADER_SIZE, file().length());
+        journal.close();
+    }
+
+    @Test(expected = JournalFormatException.class)
+    public void foreignFile_isRejected() throws Exception {
+        try (FileOutputStream out = new FileOutputStream(file())) {
+            out.write(new byte[64]);
+        }
+        open();
+    }
+
+    @Test
+    public void longRun_compactsToOneRecord() throws Exception {
+        RunJournal journal = open();
+        journal.begin(config(), 0);
+        int clicks = (RunJournal.MAX_RECORDS + 10) * 100;
+        for (int i = 1; i <= clicks; i++) {
+            click(journal, i);
+        }
+        assertTrue(journal.getRecordCount() < RunJournal.MAX_RECORDS);
+        assertTrue(file().length() < (long) RunJournal.MAX_RECORDS * JournalFormat.RECORD_SIZE);
+        journal.close();
+
+        RunCheckpoint checkpoint = open().getCheckpoint();
+        assertEquals(clicks, checkpoint.clicks);
+        assertEquals(120, checkpoint.x);
+    }
+
+    @Test
+    public void completedCheckpoint_canBeCleared() throws Exception {
+        RunJournal journal = open();
+        journal.begin(config().withRepeatCount(100), 0);
+        clickTo(journal, 0, 100);
+        journal.close();
+
+        RunJournal recovered = open();
+        assertTrue(recovered.getCheckpoint().isComplete());
+        recovered.clearCheckpoint();
+        assertNull(recovered.getCheckpoint());
+        recovered.close();
+        assertNull(open().getCheckpoint());
+    }
+}
@@ -0,0 +1,187 @@
+package com.example.autoclicker.macro;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class MacroFileTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static MacroWriter sample() {
+        return new MacroWriter()
+                .tap(0, 540, 1200, 1)
+                .tap(250, 100, 50, 40)
+                .swipe(900, new int[]{100, 400, 700}, new int[]{2000, 1990, 2010}, 3, 300)
+                .tap(900, -5, 0, 1);
+    }
+
+    @Test
+    public void roundTrip_preservesEvents() throws Exception {
+        MacroFile file = MacroFile.wrap(sample().toByteArray());
+        file.verify();
+        assertEquals(4, file.getEventCount());
+
+        MacroCursor cursor = file.cursor();
+        assertTrue(cursor.next());
+        assertFalse(cursor.isSwipe());
+        assertEquals(0, cursor.getTimeMs());
+        assertEquals(540, cursor.getX(0));
+        assertEquals(1200, cursor.getY(0));
+
+        assertTrue(cursor.next());
+        assertEquals(250, cursor.getTimeMs());
+        assertEquals(40, cursor.getDurationMs());
+        assertEquals(100, cursor.getX(0));
+
+        assertTrue(cursor.next());
+        assertTrue(cursor.isSwipe());
+        assertEquals(900, cursor.getTimeMs());
+        assertEquals(3, cursor.getPointCount());
+        assertEquals(700, cursor.getX(2));
+        assertEquals(2010, cursor.getY(2));
+        assertEquals(300, cursor.getDurationMs());
+
+        assertTrue(cursor.next());
+        assertTrue(cursor.isLast());
+        assertEquals(-5, cursor.getX(0));
+        assertFalse(cursor.next());
+    }
+
+    @Test
+    public void largeMacro_mappedFromDisk() throws Exception {
+        Random random = new Random(42);
+        int count = 150_000;
+        int[] xs = new int[count];
+        int[] ys = new int[count];
+        MacroWriter writer = new MacroWriter();
+        for (int i = 0; i < count; i++) {
+            xs[i] = random.nextInt(1440);
+            ys[i] = random.nextInt(3120);
+            writer.tap(i * 20L, xs[i], ys[i], 1);
+        }
+        File target = folder.newFile("big.acm");
+        writer.writeTo(target);
+
+        // Varint deltas keep a tap around 6-7 bytes
+        assertTrue(target.length() < count * 8L);
+
+        try (MacroFile file = MacroFile.open(target)) {
+            file.verify();
+            MacroCursor cursor = file.cursor();
+            int i = 0;
+            while (cursor.next()) {
+                assertEquals(i * 20L, cursor.getTimeMs());
+                assertEquals(xs[i], cursor.getX(0));
+                assertEquals(ys[i], cursor.getY(0));
+                i++;
+            }
+            assertEquals(count, i);
+        }
+    }
+
+    @Test(expected = MacroFormatException.class)
+    public void badMagic_rejected() throws Exception {
+        byte[] data = sample().toByteArray();
+        data[0] = 'X';
+        MacroFile.wrap(data);
+    }
+
+    @Test(expected = MacroFormatException.class)
+    public void newerVersion_rejected() throws Exception {
+        byte[] data = sample().toByteArray();
+        data[5] = 99;
+        MacroFile.wrap(data);
+    }
+
+    @Test(expected = MacroFormatException.class)
+    public void truncatedFile_rejected() throws Exception {
+        byte[] data = sample().toByteArray();
+        MacroFile.wrap(Arrays.copyOf(data, data.length - 3));
+    }
+
+    @Test(expected = MacroFormatException.class)
+    public void flippedByte_failsChecksum() throws Exception {
+        byte[] data = sample().toByteArray();
+        data[data.length - 2] ^= 0x10;
+        MacroFile.wrap(data).verify();
+    }
+
+    @Test
+    public void corruptBody_throwsWhileIterating() throws Exception {
+        byte[] data = sample().toByteArray();
+        // First event's type byte
+        data[MacroFormat.HEADER_SIZE] = 77;
+
+        MacroCursor cursor = MacroFile.wrap(data).cursor();
+        try {
+            cursor.next();
+            fail("Expected MacroFormatException");
+        } catch (MacroFormatException expected) {
+            assertTrue(expected.getMessage().contains("Unknown event type"));
+        }
+    }
+
+    @Test
+    public void eventCountBeyondBody_throwsWhileIterating() throws Exception {
+        byte[] data = sample().toByteArray();
+        // Claim one more event than the body holds
+        data[11] = 5;
+
+        MacroCursor cursor = MacroFile.wrap(data).cursor();
+        for (int i = 0; i < 4; i++) {
+            assertTrue(cursor.next());
+        }
+        try {
+            cursor.next();
+            fail("Expected MacroFormatException");
+        } catch (MacroFormatException expected) {
+            // Truncated
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void outOfOrderEvents_rejected() {
+        new MacroWriter().tap(100, 0, 0, 1).tap(50, 0, 0, 1);
+    }
+
+    @Test
+    public void store_savesListsAndDeletes() throws Exception {
+        MacroStore store = new MacroStore(new File(folder.getRoot(), "macros"));
+        store.save("login", sample());
+        store.save("farm", new MacroWriter().tap(0, 1, 1, 1));
+
+        assertEquals(Arrays.asList("farm", "login"), store.list());
+        try (MacroFile file = store.open("login")) {
+            assertEquals(4, file.getEventCount());
+        }
+        assertTrue(store.delete("farm"));
+        assertEquals(Arrays.asList("login"), store.list());
+    }
+
+    @Test
+    public void playback_firesEventsAtRecordedTimes() throws Exception {
+        MacroPlayback playback = new MacroPlayback(MacroFile.wrap(sample().toByteArray()));
+        long ms = 1_000_000L;
+        long base = 5_000 * ms;
+        playback.start(base);
+
+        assertEquals(1, playback.poll(base));
+        assertEquals(540, playback.getCursor().getX(0));
+        assertEquals(250 * ms, playback.nanosUntilNextTick(base));
+        assertEquals(0, playback.poll(base + 249 * ms));
+        assertEquals(1, playback.poll(base + 250 * ms));
+        assertEquals(1, playback.poll(base + 900 * ms));
+        assertTrue(playback.getCursor().isSwipe());
+        assertEquals(1, playback.poll(base + 900 * ms));
+        assertEquals(Long.MAX_VALUE, playback.nanosUntilNextTick(base + 901 * ms));
+        assertNull(playback.getError());
+    }
+}
@@ -0,0 +1,161 @@
+package com.example.autoclicker.nodes;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class NodeIndexTest {
+
+    private static final class FakeNode {
+        final String viewId;
+        String text;
+        final int[] bounds;
+        final List<FakeNode> children = new ArrayList<>();
+
+        FakeNode(String viewId, String text, int left, int top, int right, int bottom) {
+            this.viewId = viewId;
+            this.text = text;
+            this.bounds = new int[]{left, top, right, bottom};
+        }
+
+        FakeNode add(FakeNode child) {
+            children.add(child);
+            return this;
+        }
+    }
+
+    private static final class FakeAdapter implements NodeAdapter<FakeNode> {
+        FakeNode root;
+        int childCalls;
+
+        @Override
+        public FakeNode root() {
+            return root;
+        }
+
+        @Override
+        public int childCount(FakeNode node) {
+            return node.children.size();
+        }
+
+        @Override
+        public FakeNode child(FakeNode node, int index) {
+            childCalls++;
+            return node.children.get(index);
+        }
+
+        @Override
+        public CharSequence viewId(FakeNode node) {
+            return node.viewId;
+        }
+
+        @Override
+        public CharSequence text(FakeNode node) {
+            return node.text;
+        }
+
+        @Override
+        public CharSequence contentDescription(FakeNode node) {
+            return null;
+        }
+
+        @Override
+        public void bounds(FakeNode node, int[] out) {
+            System.arraycopy(node.bounds, 0, out, 0, 4);
+        }
+    }
+
+    private FakeAdapter adapter;
+    private NodeIndex<FakeNode> index;
+    private FakeNode list;
+    private FakeNode okButton;
+    private final int[] center = new int[2];
+
+    @Before
+    public void setUp() {
+        adapter = new FakeAdapter();
+        okButton = new FakeNode("app:id/ok", "OK", 100, 1000, 300, 1100);
+        list = new FakeNode("app:id/list", null, 0, 200, 1080, 900);
+        for (int i = 0; i < 50; i++) {
+            list.add(new FakeNode(null, "Item " + i, 0, 200 + i * 14, 1080, 214 + i * 14));
+        }
+        adapter.root = new FakeNode(null, null, 0, 0, 1080, 2400)
+                .add(list)
+                .add(new FakeNode("app:id/footer", null, 0, 950, 1080, 1200).add(okButton));
+        index = new NodeIndex<>(adapter);
+    }
+
+    @Test
+    public void findsByViewIdAndText() {
+        assertTrue(index.find(NodeTarget.viewId("app:id/ok"), center));
+        assertEquals(200, center[0]);
+        assertEquals(1050, center[1]);
+
+        assertTrue(index.find(NodeTarget.text("Item 3"), center));
+        assertEquals(249, center[1]);
+        assertFalse(index.find(NodeTarget.text("Missing"), center));
+        assertEquals(1, index.getFullRebuilds());
+    }
+
+    @Test
+    public void repeatedLookups_doNotWalkTree() {
+        index.find(NodeTarget.viewId("app:id/ok"), center);
+        int calls = adapter.childCalls;
+        for (int i = 0; i < 100; i++) {
+            index.find(NodeTarget.viewId("app:id/ok"), center);
+        }
+        assertEquals(calls, adapter.childCalls);
+        assertEquals(101, index.getLookups());
+    }
+
+    @Test
+    public void contentChange_rewalksOnlyChangedSubtree() {
+        index.find(NodeTarget.viewId("app:id/ok"), center);
+        long visited = index.getNodesVisited();
+
+        okButton.text = "Continue";
+        index.invalidate(okButton);
+
+        assertTrue(index.find(NodeTarget.text("Continue"), center));
+        assertFalse(index.find(NodeTarget.text("OK"), center));
+        assertEquals(1, index.getFullRebuilds());
+        assertEquals(1, index.getPartialRebuilds());
+        assertEquals(visited + 1, index.getNodesVisited());
+    }
+
+    @Test
+    public void subtreeChange_dropsRemovedChildren() {
+        index.find(NodeTarget.text("Item 0"), center);
+
+        list.children.remove(0);
+        index.invalidate(list);
+
+        assertFalse(index.find(NodeTarget.text("Item 0"), center));
+        assertTrue(index.find(NodeTarget.text("Item 1"), center));
+        assertEquals(53, index.size());
+    }
+
+    @Test
+    public void unknownSource_fallsBackToFullRebuild() {
+        index.find(NodeTarget.viewId("app:id/ok"), center);
+        index.invalidate(new FakeNode("app:id/new", null, 0, 0, 1, 1));
+
+        index.find(NodeTarget.viewId("app:id/ok"), center);
+        assertEquals(2, index.getFullRebuilds());
+    }
+
+    @Test
+    public void windowChange_rebuildsEverything() {
+        index.find(NodeTarget.viewId("app:id/ok"), center);
+        adapter.root = new FakeNode("other:id/root", null, 0, 0, 10, 10);
+        index.invalidateAll();
+
+        assertFalse(index.find(NodeTarget.viewId("app:id/ok"), center));
+        assertTrue(index.find(NodeTarget.viewId("other:id/root"), center));
+        assertEquals(1, index.size());
+    }
+}
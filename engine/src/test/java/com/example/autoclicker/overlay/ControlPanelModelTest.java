@@ -0,0 +1,106 @@
+package com.example.autoclicker.overlay;
+
+import com.example.autoclicker.state.RunState;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ControlPanelModelTest {
+
+    private static final long MS = 1_000_000L;
+
+    private static String count(ControlPanelModel model) {
+        return new String(model.getCountChars(), 0, model.getCountLength());
+    }
+
+    private static String rate(ControlPanelModel model) {
+        return new String(model.getRateChars(), 0, model.getRateLength());
+    }
+
+    @Test
+    public void firstUpdate_reportsEverything() {
+        ControlPanelModel model = new ControlPanelModel();
+        int changed = model.update(RunState.IDLE, 0, 0);
+        assertEquals(ControlPanelModel.CHANGED_STATE | ControlPanelModel.CHANGED_COUNT
+                | ControlPanelModel.CHANGED_RATE, changed);
+        assertEquals("0", count(model));
+        assertEquals("0.0/s", rate(model));
+        assertFalse(model.needsRefresh());
+    }
+
+    @Test
+    public void idlePanel_reportsNoChanges() {
+        ControlPanelModel model = new ControlPanelModel();
+        model.update(RunState.IDLE, 42, 0);
+        for (int i = 1; i <= 100; i++) {
+            assertEquals(0, model.update(RunState.IDLE, 42, i * 100 * MS));
+        }
+    }
+
+    @Test
+    public void clicks_changeOnlyTheCount() {
+        ControlPanelModel model = new ControlPanelModel();
+        model.update(RunState.RUNNING, 0, 0);
+        assertEquals(ControlPanelModel.CHANGED_COUNT, model.update(RunState.RUNNING, 7, 100 * MS));
+        assertEquals("7", count(model));
+        assertEquals(ControlPanelModel.CHANGED_COUNT,
+                model.update(RunState.RUNNING, 1_234_567, 200 * MS));
+        assertEquals("1234567", count(model));
+        assertTrue(model.needsRefresh());
+    }
+
+    @Test
+    public void rate_isAveragedOverAFullWindow() {
+        ControlPanelModel model = new ControlPanelModel();
+        model.update(RunState.RUNNING, 0, 0);
+        model.update(RunState.RUNNING, 20, 500 * MS);
+        assertEquals(0, model.getRateTenths());
+
+        int changed = model.update(RunState.RUNNING, 25, 1000 * MS);
+        assertEquals(ControlPanelModel.CHANGED_COUNT | ControlPanelModel.CHANGED_RATE, changed);
+        assertEquals("25.0/s", rate(model));
+
+        // 50 ms interval
+        model.update(RunState.RUNNING, 45, 2000 * MS);
+        assertEquals("20.0/s", rate(model));
+        model.update(RunState.RUNNING, 48, 3500 * MS);
+        assertEquals("2.0/s", rate(model));
+    }
+
+    @Test
+    public void pauseAndStop_zeroTheRate() {
+        ControlPanelModel model = new ControlPanelModel();
+        model.update(RunState.RUNNING, 0, 0);
+        model.update(RunState.RUNNING, 10, 1000 * MS);
+        assertEquals(100, model.getRateTenths());
+
+        int changed = model.update(RunState.PAUSED, 10, 1100 * MS);
+        assertEquals(ControlPanelModel.CHANGED_STATE | ControlPanelModel.CHANGED_RATE, changed);
+        assertEquals("0.0/s", rate(model));
+        assertFalse(model.needsRefresh());
+
+        // Resuming starts a fresh window rather than averaging in the pause
+        model.update(RunState.RUNNING, 10, 5000 * MS);
+        model.update(RunState.RUNNING, 15, 6000 * MS);
+        assertEquals("5.0/s", rate(model));
+    }
+
+    @Test
+    public void newRun_restartsTheWindow() {
+        ControlPanelModel model = new ControlPanelModel();
+        model.update(RunState.RUNNING, 0, 0);
+        model.update(RunState.RUNNING, 500, 900 * MS);
+        // Count went back to zero without the panel seeing the stop
+        model.update(RunState.RUNNING, 0, 950 * MS);
+        model.update(RunState.RUNNING, 4, 1950 * MS);
+        assertEquals("4.0/s", rate(model));
+    }
+
+    @Test
+    public void formatRate_writesTenths() {
+        char[] out = new char[24];
+        assertEquals("0.5/s", new String(out, 0, ControlPanelModel.formatRate(5, out)));
+        assertEquals("123.4/s", new String(out, 0, ControlPanelModel.formatRate(1234, out)));
+    }
+}
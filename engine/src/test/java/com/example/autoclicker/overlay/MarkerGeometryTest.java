@@ -0,0 +1,59 @@
+package com.example.autoclicker.overlay;
+
+import com.example.autoclicker.macro.MacroFile;
+import com.example.autoclicker.macro.MacroWriter;
+import com.example.autoclicker.sequence.ClickSequence;
+import com.example.autoclicker.sequence.ClickStep;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class MarkerGeometryTest {
+
+    @Test
+    public void sequence_flattensTargetsAndSwipeStrokes() {
+        MarkerGeometry geometry = new MarkerGeometry();
+        geometry.addSequence(new ClickSequence(Arrays.asList(
+                ClickStep.tap(10, 20, 0),
+                ClickStep.swipe(30, 40, 130, 140, 200, 50),
+                ClickStep.longPress(50, 60, 500, 50))));
+
+        assertEquals(3, geometry.getTargetCount());
+        assertEquals(1, geometry.getSegmentCount());
+        assertArrayEquals(new float[]{10, 20, 30, 40, 50, 60},
+                Arrays.copyOf(geometry.getPoints(), geometry.getPointFloats()), 0);
+        assertArrayEquals(new float[]{30, 40, 130, 140},
+                Arrays.copyOf(geometry.getLines(), geometry.getLineFloats()), 0);
+    }
+
+    @Test
+    public void macro_drawsSwipesAsPolylines() throws Exception {
+        MacroWriter writer = new MacroWriter()
+                .tap(0, 5, 6, 1)
+                .swipe(100, new int[]{0, 10, 20}, new int[]{0, 5, 0}, 3, 80);
+        MarkerGeometry geometry = new MarkerGeometry();
+        geometry.addMacro(MacroFile.wrap(writer.toByteArray()).cursor());
+
+        assertEquals(1, geometry.getTargetCount());
+        assertEquals(2, geometry.getSegmentCount());
+        assertArrayEquals(new float[]{0, 0, 10, 5, 10, 5, 20, 0},
+                Arrays.copyOf(geometry.getLines(), geometry.getLineFloats()), 0);
+    }
+
+    @Test
+    public void clear_keepsArraysForReuse() {
+        MarkerGeometry geometry = new MarkerGeometry();
+        for (int i = 0; i < 100; i++) {
+            geometry.addTarget(i, i);
+        }
+        float[] grown = geometry.getPoints();
+        geometry.clear();
+        assertTrue(geometry.isEmpty());
+        geometry.addTarget(1, 2);
+        assertSame(grown, geometry.getPoints());
+        assertEquals(1, geometry.getTargetCount());
+    }
+}
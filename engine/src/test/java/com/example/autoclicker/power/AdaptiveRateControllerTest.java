@@ -0,0 +1,90 @@
+package com.example.autoclicker.power;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class AdaptiveRateControllerTest {
+
+    private static final PowerPolicy POLICY = new PowerPolicy(2, 3, 30, 10, 2.0, 60_000);
+
+    @Test
+    public void normalConditions_keepFullRate() {
+        AdaptiveRateController controller = new AdaptiveRateController(POLICY);
+        assertFalse(controller.update(0, 0, 80, false));
+        assertEquals(AdaptiveRateController.Level.NORMAL, controller.getLevel());
+        assertEquals(1.0, controller.getIntervalMultiplier(), 0);
+        assertTrue(controller.getDecisions().isEmpty());
+    }
+
+    @Test
+    public void heat_slowsThenPausesImmediately() {
+        AdaptiveRateController controller = new AdaptiveRateController(POLICY);
+        assertTrue(controller.update(0, 2, 80, false));
+        assertEquals(AdaptiveRateController.Level.SLOWED, controller.getLevel());
+        assertEquals(2.0, controller.getIntervalMultiplier(), 0);
+
+        assertTrue(controller.update(1000, 3, 80, false));
+        assertEquals(AdaptiveRateController.Level.PAUSED, controller.getLevel());
+        assertEquals(2, controller.getDecisions().size());
+        assertEquals("+0:01 paused (thermal status 3)", controller.getDecisions().get(1));
+    }
+
+    @Test
+    public void recovery_waitsForHoldTime() {
+        AdaptiveRateController controller = new AdaptiveRateController(POLICY);
+        controller.update(0, 3, 80, false);
+
+        assertFalse(controller.update(10_000, 0, 80, false));
+        assertFalse(controller.update(69_999, 0, 80, false));
+        assertTrue(controller.update(70_000, 0, 80, false));
+        assertEquals(AdaptiveRateController.Level.NORMAL, controller.getLevel());
+    }
+
+    @Test
+    public void relapse_restartsRecoveryHold() {
+        AdaptiveRateController controller = new AdaptiveRateController(POLICY);
+        controller.update(0, 2, 80, false);
+        controller.update(10_000, 0, 80, false);
+        // Back at the current level: the better stretch is over
+        assertFalse(controller.update(20_000, 2, 80, false));
+        assertFalse(controller.update(30_000, 0, 80, false));
+        assertFalse(controller.update(80_000, 0, 80, false));
+        assertTrue(controller.update(90_000, 0, 80, false));
+    }
+
+    @Test
+    public void recovery_stepsToWhatConditionsAllow() {
+        AdaptiveRateController controller = new AdaptiveRateController(POLICY);
+        controller.update(0, 3, 80, false);
+        controller.update(1000, 2, 80, false);
+        assertTrue(controller.update(61_000, 2, 80, false));
+        assertEquals(AdaptiveRateController.Level.SLOWED, controller.getLevel());
+    }
+
+    @Test
+    public void lowBattery_ignoredWhileCharging() {
+        AdaptiveRateController controller = new AdaptiveRateController(POLICY);
+        assertFalse(controller.update(0, 0, 5, true));
+        assertTrue(controller.update(1000, 0, 25, false));
+        assertEquals(AdaptiveRateController.Level.SLOWED, controller.getLevel());
+        assertTrue(controller.update(2000, 0, 10, false));
+        assertEquals(AdaptiveRateController.Level.PAUSED, controller.getLevel());
+        assertTrue(controller.getDecisions().get(1).contains("battery 10%"));
+    }
+
+    @Test
+    public void decisionLog_isBounded() {
+        AdaptiveRateController controller = new AdaptiveRateController(
+                new PowerPolicy(2, 3, 30, 10, 2.0, 0));
+        for (int i = 0; i < 100; i++) {
+            controller.update(i * 1000L, i % 2 == 0 ? 3 : 0, 80, false);
+        }
+        assertEquals(16, controller.getDecisions().size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void policy_rejectsPauseBeforeSlow() {
+        new PowerPolicy(3, 2, 30, 10, 2.0, 0);
+    }
+}
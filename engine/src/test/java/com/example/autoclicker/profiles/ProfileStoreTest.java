@@ -0,0 +1,113 @@
+package com.example.autoclicker.profiles;
+
+import com.example.autoclicker.scheduler.CatchUpPolicy;
+import com.example.autoclicker.state.ClickConfig;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class ProfileStoreTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static ClickProfile profile(String pkg, int x) {
+        return new ClickProfile(pkg, x, 200, 150, 10, CatchUpPolicy.BURST, true);
+    }
+
+    @Test
+    public void missingFile_opensEmpty() throws Exception {
+        ProfileStore store = ProfileStore.open(new File(folder.getRoot(), "profiles.bin"));
+        assertEquals(0, store.size());
+        assertNull(store.get("com.example.game"));
+    }
+
+    @Test
+    public void reopen_readsIndexOnlyAndDecodesOnFirstUse() throws Exception {
+        File file = new File(folder.getRoot(), "profiles.bin");
+        ProfileStore store = ProfileStore.open(file);
+        for (int i = 0; i < 50; i++) {
+            store.save(profile("com.example.app" + i, i));
+        }
+
+        ProfileStore reopened = ProfileStore.open(file);
+        assertEquals(50, reopened.size());
+        assertEquals(0, reopened.getDecodedCount());
+
+        ClickProfile p = reopened.get("com.example.app7");
+        assertEquals(1, reopened.getDecodedCount());
+        assertEquals(7, p.x);
+        assertEquals(200, p.y);
+        assertEquals(150, p.intervalMs);
+        assertEquals(10, p.repeatCount);
+        assertEquals(CatchUpPolicy.BURST, p.catchUpPolicy);
+        assertTrue(p.highRate);
+
+        // Cached after the first lookup
+        assertSame(p, reopened.get("com.example.app7"));
+        assertEquals(1, reopened.getDecodedCount());
+        assertNull(reopened.get("com.example.other"));
+    }
+
+    @Test
+    public void save_replacesAndKeepsOthers() throws Exception {
+        File file = new File(folder.getRoot(), "profiles.bin");
+        ProfileStore store = ProfileStore.open(file);
+        store.save(profile("a.b", 1));
+        store.save(profile("c.d", 2));
+        store.save(profile("a.b", 3));
+
+        ProfileStore reopened = ProfileStore.open(file);
+        assertEquals(Arrays.asList("a.b", "c.d"), reopened.list());
+        assertEquals(3, reopened.get("a.b").x);
+        assertEquals(2, reopened.get("c.d").x);
+
+        assertTrue(reopened.remove("a.b"));
+        assertFalse(reopened.remove("a.b"));
+        assertEquals(Arrays.asList("c.d"), ProfileStore.open(file).list());
+        assertEquals(2, reopened.get("c.d").x);
+    }
+
+    @Test
+    public void applyTo_keepsPositionWhenProfileHasNone() {
+        ClickConfig base = ClickConfig.DEFAULT.withPosition(10, 20);
+        ClickConfig applied = new ClickProfile("x.y", -1, -1, 40, 3, CatchUpPolicy.STRETCH, false)
+                .applyTo(base);
+        assertEquals(10, applied.x);
+        assertEquals(20, applied.y);
+        assertEquals(40, applied.intervalMs);
+        assertEquals(3, applied.repeatCount);
+        assertEquals(CatchUpPolicy.STRETCH, applied.catchUpPolicy);
+
+        ClickProfile saved = ClickProfile.of("x.y", applied);
+        assertEquals(10, saved.x);
+        assertEquals(40, saved.intervalMs);
+    }
+
+    @Test(expected = ProfileFormatException.class)
+    public void wrongMagic_isRejected() throws Exception {
+        File file = folder.newFile("profiles.bin");
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(new byte[32]);
+        }
+        ProfileStore.open(file);
+    }
+
+    @Test(expected = ProfileFormatException.class)
+    public void truncatedBody_isRejectedOnOpen() throws Exception {
+        File file = new File(folder.getRoot(), "profiles.bin");
+        ProfileStore.open(file).save(profile("a.b", 1));
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(raf.length() - 1);
+        }
+        ProfileStore.open(file);
+    }
+}
@@ -0,0 +1,176 @@
+package com.example.autoclicker.recorder;
+
+import com.example.autoclicker.AllocationMeter;
+import com.example.autoclicker.macro.MacroCursor;
+import com.example.autoclicker.macro.MacroFile;
+import com.example.autoclicker.macro.MacroWriter;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TouchRecorderTest {
+
+    @Test
+    public void ringBuffer_overwritesOldestWhenFull() {
+        TouchRingBuffer buffer = new TouchRingBuffer(4);
+        for (int i = 0; i < 6; i++) {
+            buffer.append(TouchRingBuffer.MOVE, i, i, i);
+        }
+
+        assertEquals(4, buffer.size());
+        assertEquals(2, buffer.getDropped());
+        assertEquals(2, buffer.getX(0));
+        assertEquals(5, buffer.getX(3));
+    }
+
+    @Test
+    public void simplifier_straightLineKeepsEndpoints() {
+        int[] xs = new int[100];
+        int[] ys = new int[100];
+        for (int i = 0; i < 100; i++) {
+            xs[i] = i * 10;
+            ys[i] = 500 + (i % 2);
+        }
+
+        PathSimplifier simplifier = new PathSimplifier();
+        int kept = simplifier.simplify(xs, ys, 100, 2.0);
+
+        assertEquals(2, kept);
+        assertEquals(0, simplifier.getKept()[0]);
+        assertEquals(99, simplifier.getKept()[1]);
+    }
+
+    @Test
+    public void simplifier_keepsCornersWithinTolerance() {
+        // An L shape sampled every pixel
+        int[] xs = new int[201];
+        int[] ys = new int[201];
+        for (int i = 0; i <= 100; i++) {
+            xs[i] = i;
+            ys[i] = 0;
+        }
+        for (int i = 1; i <= 100; i++) {
+            xs[100 + i] = 100;
+            ys[100 + i] = i;
+        }
+
+        PathSimplifier simplifier = new PathSimplifier();
+        int kept = simplifier.simplify(xs, ys, 201, 1.0);
+
+        assertEquals(3, kept);
+        assertEquals(100, simplifier.getKept()[1]);
+    }
+
+    @Test
+    public void simplifiedPath_staysWithinTolerance() {
+        int n = 500;
+        int[] xs = new int[n];
+        int[] ys = new int[n];
+        for (int i = 0; i < n; i++) {
+            double a = i * Math.PI / n;
+            xs[i] = (int) Math.round(500 + 400 * Math.cos(a));
+            ys[i] = (int) Math.round(1000 + 400 * Math.sin(a));
+        }
+        double tolerance = 3.0;
+
+        PathSimplifier simplifier = new PathSimplifier();
+        int kept = simplifier.simplify(xs, ys, n, tolerance);
+        int[] indices = simplifier.getKept();
+        assertTrue(kept < n / 10);
+
+        for (int k = 0; k + 1 < kept; k++) {
+            int a = indices[k];
+            int b = indices[k + 1];
+            for (int i = a + 1; i < b; i++) {
+                double d = PathSimplifier.segmentDistanceSq(xs[i], ys[i], xs[a], ys[a], xs[b], ys[b]);
+                assertTrue(Math.sqrt(d) <= tolerance);
+            }
+        }
+    }
+
+    @Test
+    public void zigZagStroke_keepsEveryCorner() {
+        // Every point is a corner, so every range splits; more ranges pend than the first
+        // scratch allocation holds
+        int n = 40;
+        int[] xs = new int[n];
+        int[] ys = new int[n];
+        for (int i = 0; i < n; i++) {
+            xs[i] = i * 10;
+            ys[i] = i % 2 == 0 ? 0 : 200;
+        }
+
+        PathSimplifier simplifier = new PathSimplifier();
+        assertEquals(n, simplifier.simplify(xs, ys, n, 3.0));
+        for (int i = 0; i < n; i++) {
+            assertEquals(i, simplifier.getKept()[i]);
+        }
+    }
+
+    @Test
+    public void export_writesTapsAndSimplifiedSwipes() throws Exception {
+        TouchRecorder recorder = new TouchRecorder(1024);
+
+        // A tap with a little finger wobble
+        recorder.onDown(1000, 300, 300);
+        recorder.onMove(1010, 302, 301);
+        recorder.onUp(1060, 302, 301);
+
+        // A straight swipe sampled at 1 px steps
+        recorder.onDown(2000, 100, 1500);
+        for (int i = 1; i < 400; i++) {
+            recorder.onMove(2000 + i, 100 + i, 1500);
+        }
+        recorder.onUp(2400, 500, 1500);
+
+        MacroWriter writer = new MacroWriter();
+        assertEquals(2, recorder.export(writer, 3.0, 12));
+
+        MacroCursor cursor = MacroFile.wrap(writer.toByteArray()).cursor();
+        assertTrue(cursor.next());
+        assertFalse(cursor.isSwipe());
+        assertEquals(0, cursor.getTimeMs());
+        assertEquals(60, cursor.getDurationMs());
+        assertEquals(300, cursor.getX(0));
+
+        assertTrue(cursor.next());
+        assertTrue(cursor.isSwipe());
+        assertEquals(1000, cursor.getTimeMs());
+        assertEquals(400, cursor.getDurationMs());
+        assertEquals(2, cursor.getPointCount());
+        assertEquals(500, cursor.getX(1));
+    }
+
+    @Test
+    public void export_skipsStrokeWhoseDownWasOverwritten() {
+        TouchRecorder recorder = new TouchRecorder(8);
+        recorder.onDown(0, 0, 0);
+        for (int i = 1; i < 10; i++) {
+            recorder.onMove(i, i * 50, 0);
+        }
+        recorder.onUp(10, 500, 0);
+        recorder.onDown(20, 7, 7);
+        recorder.onUp(25, 7, 7);
+
+        MacroWriter writer = new MacroWriter();
+        assertEquals(1, recorder.export(writer, 3.0, 12));
+    }
+
+    @Test
+    public void recording_allocatesNothingPerSample() {
+        AllocationMeter meter = AllocationMeter.forCurrentThread();
+
+        TouchRecorder recorder = new TouchRecorder(1 << 12);
+        for (int i = 0; i < 100_000; i++) {
+            recorder.onMove(i, i, i);
+        }
+        recorder.onDown(0, 0, 0);
+
+        meter.start();
+        for (int i = 0; i < 100_000; i++) {
+            recorder.onMove(i, i & 1023, i & 511);
+        }
+        meter.assertNothingPer(100_000);
+    }
+}
@@ -0,0 +1,159 @@
+package com.example.autoclicker.scheduler;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TickPlannerTest {
+
+    private static final long MS = 1_000_000L;
+
+    private static final class FakeClock implements Clock {
+        long now;
+
+        @Override
+        public long nanoTime() {
+            return now;
+        }
+
+        void advance(long nanos) {
+            now += nanos;
+        }
+    }
+
+    @Test
+    public void deadlines_stayOnGridDespiteSlowTicks() {
+        FakeClock clock = new FakeClock();
+        TickPlanner planner = new TickPlanner(100 * MS, CatchUpPolicy.SKIP, 5);
+        planner.start(clock.nanoTime());
+
+        int fired = 0;
+        for (int i = 0; i < 10_000; i++) {
+            clock.advance(planner.nanosUntilNextTick(clock.nanoTime()));
+            fired += planner.poll(clock.nanoTime());
+            // Every tick spends 7 ms dispatching before the loop looks at the clock again
+            clock.advance(7 * MS);
+        }
+
+        assertEquals(10_000, fired);
+        assertEquals(10_000 * 100 * MS, planner.getNextDeadline());
+        assertEquals(0, planner.getJitter().getMaxNanos());
+    }
+
+    @Test
+    public void notDueYet_firesNothing() {
+        TickPlanner planner = new TickPlanner(100 * MS, CatchUpPolicy.SKIP, 5);
+        planner.start(0);
+        assertEquals(1, planner.poll(0));
+        assertEquals(0, planner.poll(99 * MS));
+        assertEquals(MS, planner.nanosUntilNextTick(99 * MS));
+    }
+
+    @Test
+    public void skip_dropsMissedTicksAndKeepsPhase() {
+        TickPlanner planner = new TickPlanner(100 * MS, CatchUpPolicy.SKIP, 5);
+        planner.start(0);
+        planner.poll(0);
+
+        assertEquals(1, planner.poll(350 * MS));
+        assertEquals(2, planner.getSkippedTicks());
+        assertEquals(400 * MS, planner.getNextDeadline());
+    }
+
+    @Test
+    public void burst_firesMissedTicksUpToCap() {
+        TickPlanner planner = new TickPlanner(100 * MS, CatchUpPolicy.BURST, 5);
+        planner.start(0);
+        planner.poll(0);
+
+        assertEquals(3, planner.poll(350 * MS));
+        assertEquals(0, planner.getSkippedTicks());
+        assertEquals(400 * MS, planner.getNextDeadline());
+
+        assertEquals(5, planner.poll(1050 * MS));
+        assertEquals(2, planner.getSkippedTicks());
+        assertEquals(1100 * MS, planner.getNextDeadline());
+    }
+
+    @Test
+    public void stretch_restartsGridFromNow() {
+        TickPlanner planner = new TickPlanner(100 * MS, CatchUpPolicy.STRETCH, 5);
+        planner.start(0);
+        planner.poll(0);
+
+        assertEquals(1, planner.poll(350 * MS));
+        assertEquals(450 * MS, planner.getNextDeadline());
+        assertEquals(0, planner.getSkippedTicks());
+    }
+
+    @Test
+    public void jitter_recordsLateness() {
+        TickPlanner planner = new TickPlanner(100 * MS, CatchUpPolicy.SKIP, 5);
+        planner.start(0);
+        planner.poll(2 * MS);
+        planner.poll(104 * MS);
+
+        JitterStats jitter = planner.getJitter();
+        assertEquals(2, jitter.getCount());
+        assertEquals(4 * MS, jitter.getMaxNanos());
+        assertEquals(3 * MS, jitter.getMeanNanos(), 1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void zeroInterval_rejected() {
+        new TickPlanner(0, CatchUpPolicy.SKIP, 5);
+    }
+
+    @Test
+    public void intervalChange_replansFromLastTick() {
+        TickPlanner planner = new TickPlanner(10_000 * MS, CatchUpPolicy.SKIP, 5);
+        planner.start(0);
+        planner.poll(0);
+
+        planner.setIntervalNanos(100 * MS);
+        assertEquals(90 * MS, planner.nanosUntilNextTick(10 * MS));
+        assertEquals(1, planner.poll(100 * MS));
+        assertEquals(200 * MS, planner.getNextDeadline());
+
+        planner.setIntervalNanos(300 * MS);
+        assertEquals(250 * MS, planner.nanosUntilNextTick(150 * MS));
+        assertEquals(0, planner.getSkippedTicks());
+    }
+
+    @Test
+    public void intervalChange_firesAtOnceWhenReplannedDeadlineHasPassed() {
+        TickPlanner planner = new TickPlanner(10_000 * MS, CatchUpPolicy.SKIP, 5);
+        planner.start(0);
+        planner.poll(0);
+
+        planner.setIntervalNanos(100 * MS);
+        assertEquals(0, planner.nanosUntilNextTick(3000 * MS));
+        assertEquals(1, planner.poll(3000 * MS));
+        assertEquals(0, planner.getSkippedTicks());
+        assertEquals(3100 * MS, planner.getNextDeadline());
+    }
+
+    @Test
+    public void sampler_setsGapAfterFiredTick() {
+        TickPlanner planner = new TickPlanner(100 * MS, CatchUpPolicy.SKIP, 5);
+        final long[] gaps = {150 * MS, 60 * MS, 100 * MS};
+        planner.setIntervalSampler(new IntervalSampler() {
+            int next;
+
+            @Override
+            public long nextIntervalNanos(long baseNanos) {
+                return gaps[next++];
+            }
+        });
+        planner.start(0);
+        planner.poll(0);
+        assertEquals(150 * MS, planner.getNextDeadline());
+        planner.poll(150 * MS);
+        assertEquals(210 * MS, planner.getNextDeadline());
+
+        // Ticks missed while late keep the base interval
+        assertEquals(1, planner.poll(420 * MS));
+        assertEquals(2, planner.getSkippedTicks());
+        assertEquals(510 * MS, planner.getNextDeadline());
+    }
+}
@@ -0,0 +1,194 @@
+package com.example.autoclicker.scheduler;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class TimingWheelTest {
+
+    private static final long MS = 1_000_000L;
+
+    private static List<Integer> drain(TimingWheel<Integer> wheel) {
+        List<Integer> fired = new ArrayList<>();
+        TimingWheel.Timer<Integer> timer;
+        while ((timer = wheel.pollExpired()) != null) {
+            fired.add(timer.getPayload());
+        }
+        return fired;
+    }
+
+    @Test
+    public void timers_fireAtTheirTickInOrder() {
+        TimingWheel<Integer> wheel = new TimingWheel<>(MS, 0);
+        wheel.schedule(30 * MS, 3);
+        wheel.schedule(10 * MS, 1);
+        wheel.schedule(20 * MS, 2);
+
+        assertEquals(0, wheel.advance(9 * MS));
+        assertEquals(1, wheel.advance(10 * MS));
+        // Counts everything waiting to be polled
+        assertEquals(3, wheel.advance(30 * MS));
+        assertEquals(java.util.Arrays.asList(1, 2, 3), drain(wheel));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    public void deadlines_roundUpToNextTick() {
+        TimingWheel<Integer> wheel = new TimingWheel<>(10 * MS, 0);
+        wheel.schedule(15 * MS, 1);
+
+        assertEquals(0, wheel.advance(19 * MS));
+        assertEquals(1, wheel.advance(20 * MS));
+    }
+
+    @Test
+    public void randomDeadlines_fireOnTheFirstAdvancePastThem() {
+        Random random = new Random(42);
+        TimingWheel<Integer> wheel = new TimingWheel<>(1, 0);
+        int count = 20_000;
+        long[] deadlines = new long[count];
+        for (int i = 0; i < count; i++) {
+            // Mostly near, some spanning every level, some past the top level
+            int kind = random.nextInt(10);
+            long range = kind < 5 ? 64 : kind < 8 ? 1 << 18 : kind < 9 ? 1 << 24 : 1L << 27;
+            deadlines[i] = 1 + (long) (random.nextDouble() * range);
+            wheel.schedule(deadlines[i], i);
+        }
+
+        long now = 0;
+        int fired = 0;
+        while (fired < count) {
+            long previous = now;
+            now += 1 + (long) (random.nextDouble() * (random.nextBoolean() ? 50 : 3_000_000));
+            wheel.advance(now);
+            for (int i : drain(wheel)) {
+                assertTrue("fired late: " + deadlines[i] + " <= " + previous, deadlines[i] > previous);
+                assertTrue("fired early: " + deadlines[i] + " > " + now, deadlines[i] <= now);
+                fired++;
+            }
+        }
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    public void followingNanosUntilNext_wakesExactlyAtEachDeadline() {
+        Random random = new Random(7);
+        TimingWheel<Integer> wheel = new TimingWheel<>(1, 0);
+        long[] deadlines = new long[2000];
+        for (int i = 0; i < deadlines.length; i++) {
+            deadlines[i] = 1 + (long) (random.nextDouble() * (1 << 22));
+            wheel.schedule(deadlines[i], i);
+        }
+
+        long now = 0;
+        int wakeUps = 0;
+        int fired = 0;
+        while (true) {
+            long wait = wheel.nanosUntilNext(now);
+            if (wait == Long.MAX_VALUE) {
+                break;
+            }
+            now += Math.max(0, wait);
+            wakeUps++;
+            wheel.advance(now);
+            for (int i : drain(wheel)) {
+                assertEquals(deadlines[i], now);
+                fired++;
+            }
+        }
+        assertEquals(deadlines.length, fired);
+        // Cascades add some wake-ups, but far fewer than one per tick
+        assertTrue("wake-ups: " + wakeUps, wakeUps < deadlines.length * 3);
+    }
+
+    @Test
+    public void cancel_removesFromAnyLevel() {
+        TimingWheel<Integer> wheel = new TimingWheel<>(1, 0);
+        TimingWheel.Timer<Integer> near = wheel.schedule(5, 1);
+        TimingWheel.Timer<Integer> far = wheel.schedule(100_000, 2);
+        TimingWheel.Timer<Integer> kept = wheel.schedule(100_000, 3);
+
+        assertTrue(wheel.cancel(near));
+        assertTrue(wheel.cancel(far));
+        assertFalse(wheel.cancel(far));
+        assertFalse(far.isPending());
+        assertEquals(1, wheel.size());
+
+        wheel.advance(200_000);
+        assertEquals(java.util.Arrays.asList(3), drain(wheel));
+        assertFalse(kept.isPending());
+    }
+
+    @Test
+    public void cancel_removesExpiredButUnpolledTimer() {
+        TimingWheel<Integer> wheel = new TimingWheel<>(1, 0);
+        TimingWheel.Timer<Integer> a = wheel.schedule(1, 1);
+        wheel.schedule(2, 2);
+        wheel.advance(5);
+
+        assertTrue(wheel.cancel(a));
+        assertEquals(java.util.Arrays.asList(2), drain(wheel));
+    }
+
+    @Test
+    public void rearmingTimer_movesIt() {
+        TimingWheel<Integer> wheel = new TimingWheel<>(MS, 0);
+        TimingWheel.Timer<Integer> timer = new TimingWheel.Timer<>(1);
+        wheel.schedule(timer, 50 * MS);
+        wheel.schedule(timer, 10 * MS);
+
+        assertEquals(1, wheel.size());
+        assertEquals(10 * MS, wheel.nanosUntilNext(0));
+        wheel.advance(10 * MS);
+        assertSame(timer, wheel.pollExpired());
+
+        wheel.schedule(timer, 20 * MS);
+        assertEquals(10 * MS, wheel.nanosUntilNext(10 * MS));
+    }
+
+    @Test
+    public void pastDeadline_expiresImmediately() {
+        TimingWheel<Integer> wheel = new TimingWheel<>(MS, 0);
+        wheel.advance(100 * MS);
+        wheel.schedule(5 * MS, 1);
+
+        assertEquals(0, wheel.nanosUntilNext(100 * MS));
+        assertEquals(java.util.Arrays.asList(1), drain(wheel));
+    }
+
+    @Test
+    public void batch_schedulesAllWithOneWakeUp() {
+        TimingWheel<Integer> wheel = new TimingWheel<>(MS, 0);
+        final int[] wakeUps = new int[1];
+        wheel.setWakeUp(new Runnable() {
+            @Override
+            public void run() {
+                wakeUps[0]++;
+            }
+        });
+        assertEquals(Long.MAX_VALUE, wheel.nanosUntilNext(0));
+
+        long[] deadlines = new long[1000];
+        Integer[] payloads = new Integer[1000];
+        for (int i = 0; i < deadlines.length; i++) {
+            deadlines[i] = (1000 - i) * MS;
+            payloads[i] = i;
+        }
+        TimingWheel.Timer<Integer>[] timers = wheel.scheduleBatch(deadlines, payloads, 1000);
+
+        assertEquals(1, wakeUps[0]);
+        assertEquals(1000, wheel.size());
+        assertEquals(Integer.valueOf(999), timers[999].getPayload());
+        assertEquals(MS, wheel.nanosUntilNext(0));
+
+        // Later than the planned wake-up: nobody needs waking
+        wheel.schedule(5000 * MS, -1);
+        assertEquals(1, wakeUps[0]);
+        wheel.schedule(0, -2);
+        assertEquals(2, wakeUps[0]);
+    }
+}
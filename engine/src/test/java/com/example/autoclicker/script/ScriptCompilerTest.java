@@ -0,0 +1,82 @@
+package com.example.autoclicker.script;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class ScriptCompilerTest {
+
+    private static ScriptException compileError(String source) {
+        try {
+            ScriptCompiler.compile(source);
+        } catch (ScriptException e) {
+            return e;
+        }
+        fail("Expected a compile error for: " + source);
+        return null;
+    }
+
+    @Test
+    public void constantTap_isOneInstruction() throws Exception {
+        ScriptProgram program = ScriptCompiler.compile("tap 540 1200");
+        assertEquals(2, program.size());
+        assertEquals(Op.TAPI, program.code[0]);
+        assertEquals(540, program.code[1]);
+        assertEquals(1200, program.code[2]);
+        assertEquals(Op.HALT, program.code[Op.WIDTH]);
+    }
+
+    @Test
+    public void constantExpressions_areFolded() throws Exception {
+        ScriptProgram program = ScriptCompiler.compile("tap (100 + 20) * 2 (-(3 - 5))\nwait 1000 / 4");
+        assertEquals(3, program.size());
+        assertEquals(Op.TAPI, program.code[0]);
+        assertEquals(240, program.code[1]);
+        assertEquals(2, program.code[2]);
+        assertEquals(Op.WAITI, program.code[Op.WIDTH]);
+        assertEquals(250, program.code[Op.WIDTH + 1]);
+    }
+
+    @Test
+    public void increment_compilesToSingleAddi() throws Exception {
+        ScriptProgram program = ScriptCompiler.compile("i = 0\ni = i + 1");
+        assertEquals(3, program.size());
+        assertEquals(Op.ADDI, program.code[Op.WIDTH]);
+        assertEquals(0, program.code[Op.WIDTH + 1]);
+        assertEquals(0, program.code[Op.WIDTH + 2]);
+        assertEquals(1, program.code[Op.WIDTH + 3]);
+        assertEquals(Arrays.asList("i"), program.getVariables());
+    }
+
+    @Test
+    public void nodeTexts_areInternedOnce() throws Exception {
+        ScriptProgram program = ScriptCompiler.compile(
+                "if node \"OK\" { tap node \"OK\" } else { tap node \"Retry\" }");
+        assertEquals(Arrays.asList("OK", "Retry"), program.getStrings());
+    }
+
+    @Test
+    public void errors_reportTheirLine() {
+        assertEquals(2, compileError("tap 1 1\ntap 1").getLine());
+        assertEquals(3, compileError("x = 1\n\ntap y 1").getLine());
+        assertEquals(1, compileError("repeat 3 { tap 1 1").getLine());
+        assertEquals(2, compileError("wait 10\nwait 1 / 0").getLine());
+        assertEquals(1, compileError("call missing").getLine());
+        assertEquals(1, compileError("jump 4").getLine());
+        assertEquals(1, compileError("tap 1 1 }").getLine());
+        assertEquals(1, compileError("loop = 3").getLine());
+        assertEquals(2, compileError("sub a { }\nsub a { }").getLine());
+        assertEquals(1, compileError("tap node OK").getLine());
+        assertEquals(1, compileError("wait 99999999999").getLine());
+    }
+
+    @Test
+    public void disassemble_listsEveryInstruction() throws Exception {
+        ScriptProgram program = ScriptCompiler.compile("repeat 2 { tap 1 2 }");
+        String listing = program.disassemble();
+        assertTrue(listing, listing.startsWith("0: LOADI 0 2\n1: JLEZ 0 20\n2: TAPI 1 2\n"));
+        assertEquals(program.size(), listing.split("\n").length);
+    }
+}
@@ -0,0 +1,190 @@
+package com.example.autoclicker.script;
+
+import com.example.autoclicker.AllocationMeter;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ScriptVmTest {
+
+    private static final long MS = 1_000_000L;
+
+    private static final class FakeHost implements ScriptVm.Host {
+        boolean screen;
+        int nodeX = -1;
+        int nodeY;
+        int nodeQueries;
+
+        @Override
+        public boolean screenMatches() {
+            return screen;
+        }
+
+        @Override
+        public boolean findNode(int stringId, int[] outCenter) {
+            nodeQueries++;
+            if (nodeX < 0) {
+                return false;
+            }
+            outCenter[0] = nodeX;
+            outCenter[1] = nodeY;
+            return true;
+        }
+    }
+
+    // Drives the VM the way the scheduler does, sleeping exactly until each deadline
+    private static List<String> run(ScriptVm vm, int maxActions) {
+        List<String> actions = new ArrayList<>();
+        long now = 0;
+        vm.start(now);
+        while (actions.size() < maxActions) {
+            long wait = vm.nanosUntilNextTick(now);
+            if (wait == Long.MAX_VALUE) {
+                break;
+            }
+            now += Math.max(0, wait);
+            if (vm.poll(now) == 1) {
+                String at = "@" + now / MS;
+                actions.add(vm.getAction() == ScriptVm.ACTION_TAP
+                        ? "tap " + vm.getX() + "," + vm.getY() + at
+                        : "swipe " + vm.getX() + "," + vm.getY() + "->" + vm.getEndX() + ","
+                        + vm.getEndY() + "/" + vm.getDurationMs() + at);
+            }
+        }
+        return actions;
+    }
+
+    private static List<String> run(String source, int maxActions) throws ScriptException {
+        return run(new ScriptVm(ScriptCompiler.compile(source), new FakeHost(), 0), maxActions);
+    }
+
+    @Test
+    public void repeatAndArithmetic() throws Exception {
+        List<String> actions = run("x = 100\nrepeat 3 { tap x x * 2 - 1\nx = x + 10 }", 10);
+        assertEquals("[tap 100,199@0, tap 110,219@0, tap 120,239@0]", actions.toString());
+    }
+
+    @Test
+    public void waits_moveTheNextDeadline() throws Exception {
+        List<String> actions = run("tap 1 1\nwait 100\ntap 2 2\nd = 50\nwait d * 2\nwait d\ntap 3 3", 10);
+        assertEquals("[tap 1,1@0, tap 2,2@100, tap 3,3@250]", actions.toString());
+    }
+
+    @Test
+    public void whileAndIfElse() throws Exception {
+        String source = "i = 0\n"
+                + "while i < 6 {\n"
+                + "  if i % 3 == 0 { tap 0 i } else if i == 4 or i == 5 and not 0 { tap 1 i } else { tap 2 i }\n"
+                + "  i = i + 1\n"
+                + "}";
+        assertEquals("[tap 0,0@0, tap 2,1@0, tap 2,2@0, tap 0,3@0, tap 1,4@0, tap 1,5@0]",
+                run(source, 10).toString());
+    }
+
+    @Test
+    public void subs_callAndReturnIncludingForwardCalls() throws Exception {
+        String source = "call second\n"
+                + "sub first { tap 1 1\nreturn\ntap 9 9 }\n"
+                + "sub second { call first\nswipe 10 20 30 40 250 }\n"
+                + "stop\n"
+                + "tap 8 8";
+        assertEquals("[tap 1,1@0, swipe 10,20->30,40/250@0]", run(source, 10).toString());
+    }
+
+    @Test
+    public void loop_runsUntilStopAndClicksCountsActions() throws Exception {
+        String source = "loop { tap clicks 0\nif clicks >= 3 { stop } }";
+        assertEquals("[tap 0,0@0, tap 1,0@0, tap 2,0@0]", run(source, 10).toString());
+    }
+
+    @Test
+    public void host_answersScreenAndNodeQueries() throws Exception {
+        FakeHost host = new FakeHost();
+        ScriptVm vm = new ScriptVm(ScriptCompiler.compile(
+                "repeat 2 { if screen { tap 5 5 }\nif node \"Go\" { tap node \"Go\" } else { tap 0 0 } }"),
+                host, 0);
+        host.screen = true;
+        host.nodeX = 40;
+        host.nodeY = 60;
+        assertEquals("[tap 5,5@0, tap 40,60@0, tap 5,5@0, tap 40,60@0]", run(vm, 10).toString());
+        host.screen = false;
+        host.nodeX = -1;
+        assertEquals("[tap 0,0@0, tap 0,0@0]", run(vm, 10).toString());
+    }
+
+    @Test
+    public void conditionsAfterWait_areCheckedWhenTheWaitIsOver() throws Exception {
+        final FakeHost host = new FakeHost();
+        ScriptVm vm = new ScriptVm(ScriptCompiler.compile("wait 100\nif screen { tap 1 1 }"), host, 0);
+        vm.start(0);
+        assertEquals(100 * MS, vm.nanosUntilNextTick(0));
+        host.screen = true;
+        assertEquals(0, vm.nanosUntilNextTick(100 * MS));
+        assertEquals(1, vm.poll(100 * MS));
+        assertEquals(ScriptVm.ACTION_TAP, vm.getAction());
+    }
+
+    @Test
+    public void minActionGap_spacesActions() throws Exception {
+        ScriptVm vm = new ScriptVm(ScriptCompiler.compile("repeat 3 { tap 1 1 }\nwait 5\ntap 2 2"),
+                new FakeHost(), 10 * MS);
+        assertEquals("[tap 1,1@0, tap 1,1@10, tap 1,1@20, tap 2,2@30]", run(vm, 10).toString());
+    }
+
+    @Test
+    public void busyLoop_yieldsAfterStepBudget() throws Exception {
+        ScriptVm vm = new ScriptVm(ScriptCompiler.compile("loop { x = x + 1 }\nx = 0"), new FakeHost(), 0);
+        vm.start(0);
+        assertEquals(ScriptVm.YIELD_NANOS, vm.nanosUntilNextTick(0));
+        assertEquals(0, vm.poll(0));
+        assertEquals(ScriptVm.YIELD_NANOS / 2, vm.nanosUntilNextTick(ScriptVm.YIELD_NANOS / 2));
+    }
+
+    @Test
+    public void runtimeErrors_finishWithLine() throws Exception {
+        ScriptVm vm = new ScriptVm(ScriptCompiler.compile("d = 0\ntap 1 1\ntap 1 10 / d"), new FakeHost(), 0);
+        assertEquals(1, run(vm, 10).size());
+        assertEquals(3, vm.getError().getLine());
+
+        vm = new ScriptVm(ScriptCompiler.compile("sub deep { call deep }\ncall deep"), new FakeHost(), 0);
+        assertEquals(0, run(vm, 10).size());
+        assertEquals(1, vm.getError().getLine());
+    }
+
+    @Test
+    public void restart_resetsVariables() throws Exception {
+        ScriptVm vm = new ScriptVm(ScriptCompiler.compile("x = x + 7\ntap x 0"), new FakeHost(), 0);
+        assertEquals("[tap 7,0@0]", run(vm, 10).toString());
+        assertEquals("[tap 7,0@0]", run(vm, 10).toString());
+        assertNull(vm.getError());
+    }
+
+    @Test
+    public void steadyStateTick_allocatesNothing() throws Exception {
+        AllocationMeter meter = AllocationMeter.forCurrentThread();
+
+        FakeHost host = new FakeHost();
+        host.nodeX = 3;
+        ScriptVm vm = new ScriptVm(ScriptCompiler.compile(
+                "loop { i = i + 1\nif i % 2 == 0 { tap i 5 } else { tap node \"A\" }\nwait 1 }"), host, 0);
+        vm.start(0);
+        long now = 0;
+        long sum = 0;
+        for (int i = 0; i < 50_000; i++) {
+            now += vm.nanosUntilNextTick(now);
+            sum += vm.poll(now) * vm.getX();
+        }
+        meter.start();
+        for (int i = 0; i < 200_000; i++) {
+            now += vm.nanosUntilNextTick(now);
+            sum += vm.poll(now) * vm.getX();
+        }
+        meter.assertNothingPer(200_000);
+
+        assertTrue(sum > 0);
+    }
+}
@@ -0,0 +1,147 @@
+package com.example.autoclicker.sequence;
+
+import com.example.autoclicker.gesture.DispatchPipeline;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class CyclePlayerTest {
+
+    private static final class FakeTimer implements CyclePlayer.Timer {
+        final List<Runnable> posted = new ArrayList<>();
+        long now = 1000;
+
+        @Override
+        public long uptimeMillis() {
+            return now;
+        }
+
+        @Override
+        public void postAtTime(Runnable task, long uptimeMs) {
+            posted.add(task);
+        }
+
+        @Override
+        public void cancel(Runnable task) {
+            posted.remove(task);
+        }
+
+        void runNext() {
+            posted.remove(0).run();
+        }
+    }
+
+    private final FakeTimer timer = new FakeTimer();
+    private final DispatchPipeline pipeline = new DispatchPipeline(1);
+    private final List<GestureBatch> dispatched = new ArrayList<>();
+    private final List<Boolean> finished = new ArrayList<>();
+    private boolean accept = true;
+
+    private CyclePlayer<GestureBatch> player(int batches) {
+        List<ClickStep> steps = new ArrayList<>();
+        for (int i = 0; i < batches; i++) {
+            steps.add(ClickStep.tap(i, i, 10));
+        }
+        // One stroke per gesture, so every step is its own batch
+        CompiledSequence compiled = new SequenceCompiler(1, 60_000).compile(new ClickSequence(steps));
+        assertEquals(batches, compiled.getBatchCount());
+        return new CyclePlayer<>(compiled,
+                new CyclePlayer.Factory<GestureBatch>() {
+                    @Override
+                    public GestureBatch build(GestureBatch batch) {
+                        return batch;
+                    }
+                },
+                timer, pipeline,
+                new CyclePlayer.Dispatcher<GestureBatch>() {
+                    @Override
+                    public boolean dispatch(GestureBatch gesture) {
+                        if (accept) {
+                            dispatched.add(gesture);
+                        }
+                        return accept;
+                    }
+                },
+                new CyclePlayer.Listener() {
+                    @Override
+                    public void onCycleFinished(boolean complete) {
+                        finished.add(complete);
+                    }
+                });
+    }
+
+    // The system reports the gesture done; the pipeline frees its slot
+    private void complete(CyclePlayer<GestureBatch> player) {
+        pipeline.onCompleted();
+        player.onGestureFinished(dispatched.get(dispatched.size() - 1));
+    }
+
+    @Test
+    public void cycle_playsBatchesInOrderThenFinishes() {
+        CyclePlayer<GestureBatch> player = player(3);
+        assertTrue(player.startCycle());
+        assertFalse(player.startCycle());
+        for (int i = 1; i < 3; i++) {
+            complete(player);
+            timer.runNext();
+        }
+        complete(player);
+
+        assertEquals(3, dispatched.size());
+        assertEquals(Arrays.asList(true), finished);
+        assertFalse(player.isActive());
+    }
+
+    @Test
+    public void rejectedFirstBatch_failsStartWithoutReporting() {
+        CyclePlayer<GestureBatch> player = player(2);
+        accept = false;
+        assertFalse(player.startCycle());
+        assertTrue(finished.isEmpty());
+        assertEquals(1, pipeline.getRejected());
+        assertFalse(player.isActive());
+    }
+
+    @Test
+    public void rejectedLaterBatch_reportsCycleCutShort() {
+        CyclePlayer<GestureBatch> player = player(3);
+        assertTrue(player.startCycle());
+        complete(player);
+        accept = false;
+        timer.runNext();
+
+        assertEquals(Arrays.asList(false), finished);
+        assertFalse(player.isActive());
+        // The next cycle can start
+        accept = true;
+        assertTrue(player.startCycle());
+    }
+
+    @Test
+    public void fullPipelineOnLaterBatch_reportsCycleCutShort() {
+        CyclePlayer<GestureBatch> player = player(2);
+        assertTrue(player.startCycle());
+        // The first gesture is done but its slot has not been released yet
+        player.onGestureFinished(dispatched.get(0));
+        timer.runNext();
+
+        assertEquals(Arrays.asList(false), finished);
+        assertEquals(1, dispatched.size());
+    }
+
+    @Test
+    public void cancel_dropsPendingBatchesWithoutReporting() {
+        CyclePlayer<GestureBatch> player = player(2);
+        assertTrue(player.startCycle());
+        complete(player);
+        player.cancel();
+
+        assertTrue(timer.posted.isEmpty());
+        assertTrue(finished.isEmpty());
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.autoclicker.sequence;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class SequenceCompilerTest {
+
+    @Test
+    public void shortSequence_compilesToSingleBatch() {
+        ClickSequence sequence = new ClickSequence(Arrays.asList(
+                ClickStep.tap(10, 10, 0),
+                ClickStep.longPress(20, 20, 500, 100),
+                ClickStep.swipe(30, 30, 300, 30, 250, 50)));
+
+        CompiledSequence compiled = new SequenceCompiler(20, 60_000).compile(sequence);
+
+        assertEquals(1, compiled.getBatchCount());
+        List<StrokeSpec> strokes = compiled.getBatches().get(0).getStrokes();
+        assertEquals(3, strokes.size());
+        assertEquals(0, strokes.get(0).startMs);
+        assertEquals(101, strokes.get(1).startMs);
+        assertEquals(651, strokes.get(2).startMs);
+        assertTrue(strokes.get(2).isMove());
+        assertFalse(strokes.get(1).isMove());
+        assertEquals(901, compiled.cycleDurationMs);
+        assertEquals(sequence.getDurationMs(), compiled.cycleDurationMs);
+    }
+
+    @Test
+    public void strokeLimit_splitsIntoBatches() {
+        List<ClickStep> steps = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            steps.add(ClickStep.tap(i, i, 10));
+        }
+
+        CompiledSequence compiled = new SequenceCompiler(10, 60_000).compile(new ClickSequence(steps));
+
+        assertEquals(3, compiled.getBatchCount());
+        assertEquals(10, compiled.getBatches().get(0).getStrokes().size());
+        assertEquals(10, compiled.getBatches().get(1).getStrokes().size());
+        assertEquals(5, compiled.getBatches().get(2).getStrokes().size());
+        // Tap 10 starts after ten 1 ms taps and ten 10 ms gaps
+        assertEquals(110, compiled.getBatches().get(1).offsetMs);
+        assertEquals(0, compiled.getBatches().get(1).getStrokes().get(0).startMs);
+    }
+
+    @Test
+    public void durationLimit_splitsIntoBatches() {
+        CompiledSequence compiled = new SequenceCompiler(20, 1000).compile(new ClickSequence(Arrays.asList(
+                ClickStep.tap(0, 0, 0),
+                ClickStep.tap(1, 1, 600),
+                ClickStep.tap(2, 2, 600))));
+
+        assertEquals(2, compiled.getBatchCount());
+        assertEquals(602, compiled.getBatches().get(0).durationMs);
+        assertEquals(1202, compiled.getBatches().get(1).offsetMs);
+        for (GestureBatch batch : compiled.getBatches()) {
+            assertTrue(batch.durationMs <= 1000);
+        }
+    }
+
+    @Test
+    public void batchesNeverOverlap() {
+        List<ClickStep> steps = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            steps.add(i % 3 == 0 ? ClickStep.swipe(0, 0, 100, 100, 300, 5) : ClickStep.tap(i, i, 5));
+        }
+
+        CompiledSequence compiled = new SequenceCompiler(20, 2000).compile(new ClickSequence(steps));
+
+        long previousEnd = 0;
+        int strokes = 0;
+        for (GestureBatch batch : compiled.getBatches()) {
+            assertTrue(batch.offsetMs >= previousEnd);
+            previousEnd = batch.offsetMs + batch.durationMs;
+            strokes += batch.getStrokes().size();
+        }
+        assertEquals(100, strokes);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void stepLongerThanGestureLimit_rejected() {
+        new SequenceCompiler(20, 1000).compile(new ClickSequence(Arrays.asList(
+                ClickStep.longPress(0, 0, 1500, 0))));
+    }
+}
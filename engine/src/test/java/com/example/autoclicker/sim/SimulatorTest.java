@@ -0,0 +1,132 @@
+package com.example.autoclicker.sim;
+
+import com.example.autoclicker.AllocationMeter;
+import com.example.autoclicker.core.ClickRun;
+import com.example.autoclicker.gesture.DispatchPipeline;
+import com.example.autoclicker.scheduler.CatchUpPolicy;
+import com.example.autoclicker.scheduler.TickPlanner;
+import com.example.autoclicker.state.EngineState;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class SimulatorTest {
+
+    private static final long INTERVAL = TimeUnit.MILLISECONDS.toNanos(20);
+    private static final long DAY = TimeUnit.HOURS.toNanos(24);
+
+    // One soak setup: high-rate clicking on a device with slow, occasionally failing gestures
+    private static final class Soak {
+        final EngineState state = new EngineState();
+        final VirtualClock clock = new VirtualClock(1_000_000_000L);
+        final Simulator simulator = new Simulator(clock, 11);
+        final SimulatedDevice device = new SimulatedDevice(clock, new DispatchPipeline(2), 12);
+        final TickPlanner planner;
+        final ClickRun run;
+        int completedAt = -1;
+
+        Soak(long interval, CatchUpPolicy policy, int repeatCount) {
+            state.updateConfig(c -> c.withPosition(540, 1200).withRepeatCount(repeatCount));
+            assertTrue(state.start());
+            planner = new TickPlanner(interval, policy, 5);
+            simulator.setMaxWakeLatency(TimeUnit.MILLISECONDS.toNanos(2));
+            simulator.setTickCost(TimeUnit.MICROSECONDS.toNanos(50));
+            device.setLatency(TimeUnit.MILLISECONDS.toNanos(15), TimeUnit.MILLISECONDS.toNanos(40));
+            device.setCancelRate(0.01);
+            device.setRejectRate(0.001);
+            run = new ClickRun(state, device, new ClickRun.Callbacks() {
+                @Override
+                public void onTick(long deadlineNanos) {
+                }
+
+                @Override
+                public void onClick(int count) {
+                }
+
+                @Override
+                public void onCompleted(int count) {
+                    completedAt = count;
+                    state.beginStop();
+                    state.finishStop();
+                }
+            });
+        }
+
+        SimulationReport run(long duration) {
+            return simulator.run(planner, run, device, duration);
+        }
+    }
+
+    @Test
+    public void dayLongHighRateRun_keepsGridCountsAndPipelineConsistent() {
+        Soak soak = new Soak(INTERVAL, CatchUpPolicy.SKIP, 0);
+        SimulationReport report = soak.run(DAY);
+
+        long slots = report.ticks + soak.planner.getSkippedTicks();
+        assertEquals(DAY / INTERVAL, slots, 1);
+        assertFalse(report.finished);
+        // Absolute deadlines: no drift however long the run
+        assertEquals(slots * INTERVAL, soak.planner.getNextDeadline() - report.firstDeadlineNanos);
+        assertTrue(report.toString(), report.maxLatenessNanos <= TimeUnit.MILLISECONDS.toNanos(2));
+
+        DispatchPipeline pipeline = soak.device.getPipeline();
+        assertEquals(report.ticks, soak.run.getClicks() + soak.run.getDropped());
+        assertEquals(soak.run.getClicks(), pipeline.getDispatched() - pipeline.getRejected());
+        assertEquals(soak.run.getDropped(), pipeline.getThrottled() + pipeline.getRejected());
+        assertEquals(pipeline.getDispatched(), pipeline.getCompleted() + pipeline.getCancelled()
+                + pipeline.getRejected() + pipeline.getInFlight());
+        assertTrue(pipeline.getCancelled() > 0);
+        assertTrue(pipeline.getThrottled() > 0);
+        assertTrue(soak.device.getMaxPending() <= 2);
+        assertEquals(1, soak.device.getPool().getMisses());
+    }
+
+    @Test
+    public void lateWakeups_skipTicksWithoutDrift() {
+        Soak soak = new Soak(INTERVAL, CatchUpPolicy.SKIP, 0);
+        soak.simulator.setMaxWakeLatency(3 * INTERVAL);
+        SimulationReport report = soak.run(TimeUnit.HOURS.toNanos(1));
+
+        assertTrue(soak.planner.getSkippedTicks() > 0);
+        long slots = report.ticks + soak.planner.getSkippedTicks();
+        assertEquals(slots * INTERVAL, soak.planner.getNextDeadline() - report.firstDeadlineNanos);
+    }
+
+    @Test
+    public void repeatCount_endsTheRunExactly() {
+        Soak soak = new Soak(INTERVAL, CatchUpPolicy.BURST, 100_000);
+        SimulationReport report = soak.run(DAY);
+
+        assertTrue(report.finished);
+        assertEquals(100_000, soak.completedAt);
+        assertEquals(100_000, soak.run.getClicks());
+        assertEquals(soak.device.getPipeline().getDispatched() - soak.device.getPipeline().getRejected(),
+                100_000);
+    }
+
+    @Test
+    public void sameSeed_replaysIdentically() {
+        Soak first = new Soak(INTERVAL, CatchUpPolicy.BURST, 0);
+        Soak second = new Soak(INTERVAL, CatchUpPolicy.BURST, 0);
+        long hour = TimeUnit.HOURS.toNanos(1);
+
+        assertEquals(first.run(hour).toString(), second.run(hour).toString());
+        assertEquals(first.device.getPipeline().toString(), second.device.getPipeline().toString());
+        assertEquals(first.device.getTapChecksum(), second.device.getTapChecksum());
+        assertEquals(first.clock.nanoTime(), second.clock.nanoTime());
+    }
+
+    @Test
+    public void steadyState_allocatesNothingPerTick() {
+        AllocationMeter meter = AllocationMeter.forCurrentThread();
+
+        Soak soak = new Soak(INTERVAL, CatchUpPolicy.SKIP, 0);
+        soak.run(TimeUnit.MINUTES.toNanos(10));
+        meter.start();
+        SimulationReport report = soak.simulator.run(soak.planner, soak.run, soak.device, DAY);
+        meter.assertNothingPer(report.ticks);
+    }
+}
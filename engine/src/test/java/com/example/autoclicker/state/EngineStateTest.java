@@ -0,0 +1,138 @@
+package com.example.autoclicker.state;
+
+import com.example.autoclicker.nodes.NodeTarget;
+import com.example.autoclicker.scheduler.CatchUpPolicy;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class EngineStateTest {
+
+    @Test
+    public void lifecycle_followsStateMachine() {
+        EngineState state = new EngineState();
+        assertEquals(RunState.IDLE, state.getRunState());
+        assertFalse(state.pause());
+        assertFalse(state.finishStop());
+
+        assertTrue(state.start());
+        assertFalse(state.start());
+        assertTrue(state.pause());
+        assertTrue(state.isActive());
+        assertFalse(state.pause());
+        assertTrue(state.resume());
+
+        assertTrue(state.beginStop());
+        assertFalse(state.beginStop());
+        assertFalse(state.isActive());
+        assertFalse(state.start());
+        assertTrue(state.finishStop());
+        assertEquals(RunState.IDLE, state.getRunState());
+    }
+
+    @Test
+    public void pausedRun_canBeStopped() {
+        EngineState state = new EngineState();
+        state.start();
+        state.pause();
+
+        assertTrue(state.beginStop());
+        assertEquals(RunState.STOPPING, state.getRunState());
+    }
+
+    @Test
+    public void transitions_notifyObservers() {
+        EngineState state = new EngineState();
+        final AtomicInteger notified = new AtomicInteger();
+        state.addObserver(new Runnable() {
+            @Override
+            public void run() {
+                notified.incrementAndGet();
+            }
+        });
+
+        state.start();
+        state.start();
+        state.beginStop();
+        state.finishStop();
+
+        assertEquals(3, notified.get());
+    }
+
+    @Test
+    public void config_updatesAreImmutableSnapshots() {
+        EngineState state = new EngineState();
+        ClickConfig before = state.getConfig();
+
+        ClickConfig after = state.updateConfig(c -> c.withPosition(10, 20).withInterval(50)
+                .withCatchUpPolicy(CatchUpPolicy.BURST).withNodeTarget(NodeTarget.text("OK")));
+
+        assertSame(after, state.getConfig());
+        assertFalse(before.hasPosition());
+        assertEquals(1000, before.intervalMs);
+        assertEquals(10, after.x);
+        assertEquals(20, after.y);
+        assertEquals(50, after.intervalMs);
+        assertEquals(CatchUpPolicy.BURST, after.catchUpPolicy);
+        assertNotNull(after.nodeTarget);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void config_rejectsNonPositiveInterval() {
+        ClickConfig.DEFAULT.withInterval(0);
+    }
+
+    @Test
+    public void concurrentUpdates_areNotLost() throws Exception {
+        final EngineState state = new EngineState();
+        final int threads = 4;
+        final int updates = 10_000;
+        final CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < updates; i++) {
+                        state.updateConfig(c -> c.withRepeatCount(c.repeatCount + 1));
+                    }
+                    done.countDown();
+                }
+            }).start();
+        }
+        done.await();
+
+        assertEquals(threads * updates, state.getConfig().repeatCount);
+    }
+
+    @Test
+    public void concurrentStarts_onlyOneWins() throws Exception {
+        final EngineState state = new EngineState();
+        final AtomicInteger winners = new AtomicInteger();
+        final CountDownLatch go = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(8);
+        for (int t = 0; t < 8; t++) {
+            new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        go.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    if (state.start()) {
+                        winners.incrementAndGet();
+                    }
+                    done.countDown();
+                }
+            }).start();
+        }
+        go.countDown();
+        done.await();
+
+        assertEquals(1, winners.get());
+    }
+}
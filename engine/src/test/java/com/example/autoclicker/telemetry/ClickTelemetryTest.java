@@ -0,0 +1,116 @@
+package com.example.autoclicker.telemetry;
+
+import com.example.autoclicker.AllocationMeter;
+
+import org.junit.Test;
+
+import java.io.StringWriter;
+
+import static org.junit.Assert.*;
+
+public class ClickTelemetryTest {
+
+    private static final long MS = 1_000_000L;
+
+    @Test
+    public void callbacks_matchDispatchesInOrder() {
+        ClickTelemetry telemetry = new ClickTelemetry();
+        telemetry.onTick(0, 2 * MS);
+        telemetry.onDispatched(0, 3 * MS);
+        telemetry.onTick(10 * MS, 10 * MS);
+        telemetry.onDispatched(10 * MS, 11 * MS);
+
+        telemetry.onCompleted(53 * MS);
+        telemetry.onCompleted(61 * MS);
+
+        assertEquals(2, telemetry.getCompleted());
+        assertEquals(2 * MS, telemetry.getTickLateness().getMax());
+        assertEquals(50 * MS, telemetry.getDispatchLatency().getMax());
+        assertEquals(2, telemetry.getDispatchLatency().getCount());
+        assertEquals(53 * MS, telemetry.getEndToEnd().getMax());
+    }
+
+    @Test
+    public void cancelled_consumesItsDispatch() {
+        ClickTelemetry telemetry = new ClickTelemetry();
+        telemetry.onDispatched(0, 0);
+        telemetry.onDispatched(10 * MS, 10 * MS);
+
+        telemetry.onCancelled(5 * MS);
+        telemetry.onCompleted(70 * MS);
+
+        assertEquals(1, telemetry.getCancelled());
+        assertEquals(1, telemetry.getDispatchLatency().getCount());
+        assertEquals(60 * MS, telemetry.getDispatchLatency().getMax());
+    }
+
+    @Test
+    public void rejected_isNotMatchedToALaterCallback() {
+        ClickTelemetry telemetry = new ClickTelemetry();
+        telemetry.onDispatched(0, 0);
+        telemetry.onRejected();
+        telemetry.onDispatched(10 * MS, 10 * MS);
+        telemetry.onCompleted(30 * MS);
+
+        assertEquals(20 * MS, telemetry.getDispatchLatency().getMax());
+    }
+
+    @Test
+    public void lostCallbacks_doNotBlockTheRing() {
+        ClickTelemetry telemetry = new ClickTelemetry();
+        for (int i = 0; i < 1000; i++) {
+            telemetry.onDispatched(i * MS, i * MS);
+        }
+        telemetry.onDispatched(5000 * MS, 5000 * MS);
+        telemetry.reset();
+        telemetry.onDispatched(6000 * MS, 6000 * MS);
+        telemetry.onCompleted(6001 * MS);
+
+        assertEquals(MS, telemetry.getDispatchLatency().getMax());
+    }
+
+    @Test
+    public void csv_listsBucketsAndCounters() throws Exception {
+        ClickTelemetry telemetry = new ClickTelemetry();
+        telemetry.onTick(0, 40);
+        telemetry.onDispatched(0, 40);
+        telemetry.onCompleted(100);
+
+        StringWriter out = new StringWriter();
+        telemetry.writeCsv(out);
+        String csv = out.toString();
+
+        assertTrue(csv.startsWith("metric,lower_ns,upper_ns,count\n"));
+        assertTrue(csv.contains("tick_lateness,40,40,1\n"));
+        assertTrue(csv.contains("dispatch_latency,60,60,1\n"));
+        assertTrue(csv.contains("end_to_end,100,101,1\n"));
+        assertTrue(csv.contains("completed,,,1\n"));
+        assertTrue(csv.contains("cancelled,,,0\n"));
+    }
+
+    @Test
+    public void steadyStateRecording_allocatesNothing() {
+        AllocationMeter meter = AllocationMeter.forCurrentThread();
+
+        ClickTelemetry telemetry = new ClickTelemetry();
+        for (int i = 0; i < 50_000; i++) {
+            record(telemetry, i);
+        }
+
+        int measured = 200_000;
+        meter.start();
+        for (int i = 0; i < measured; i++) {
+            record(telemetry, i);
+        }
+        meter.assertNothingPer(measured);
+
+        assertEquals(250_000, telemetry.getCompleted());
+    }
+
+    private static void record(ClickTelemetry telemetry, long i) {
+        long deadline = i * 10 * MS;
+        telemetry.onTick(deadline, deadline + (i % 7) * 100_000);
+        telemetry.onDispatched(deadline, deadline + MS);
+        telemetry.onCompleted(deadline + (i % 50) * MS);
+    }
+}
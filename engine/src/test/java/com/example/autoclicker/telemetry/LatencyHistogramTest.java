@@ -0,0 +1,66 @@
+package com.example.autoclicker.telemetry;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void bucketBounds_containTheirValues() {
+        long[] values = {0, 1, 31, 32, 33, 63, 64, 65, 1000, 999_999, 1_000_000, 123_456_789L};
+        for (long value : values) {
+            int index = LatencyHistogram.bucketIndex(value);
+            assertTrue(value + " below bucket", LatencyHistogram.bucketLowerBound(index) <= value);
+            assertTrue(value + " above bucket", LatencyHistogram.bucketUpperBound(index) >= value);
+        }
+    }
+
+    @Test
+    public void buckets_areContiguousAndWithinThreePercent() {
+        for (int i = 1; i < LatencyHistogram.BUCKET_COUNT - 1; i++) {
+            assertEquals(LatencyHistogram.bucketUpperBound(i - 1) + 1, LatencyHistogram.bucketLowerBound(i));
+            long lower = LatencyHistogram.bucketLowerBound(i);
+            long width = LatencyHistogram.bucketUpperBound(i) - lower + 1;
+            assertTrue("bucket " + i, width == 1 || width * 32 <= lower);
+        }
+    }
+
+    @Test
+    public void hugeValues_goToLastBucket() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(Long.MAX_VALUE);
+        histogram.record(-5);
+
+        assertEquals(1, histogram.getBucketCount(LatencyHistogram.BUCKET_COUNT - 1));
+        assertEquals(1, histogram.getBucketCount(0));
+        assertEquals(Long.MAX_VALUE, histogram.getMax());
+    }
+
+    @Test
+    public void percentiles_followRecordedDistribution() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i * 1_000_000L);
+        }
+
+        assertEquals(1000, histogram.getCount());
+        assertEquals(500_500_000.0, histogram.getMean(), 1);
+        assertEquals(1_000_000_000L, histogram.getMax());
+        assertEquals(500_000_000.0, histogram.getValueAtPercentile(50), 500_000_000.0 / 32);
+        assertEquals(990_000_000.0, histogram.getValueAtPercentile(99), 990_000_000.0 / 32);
+        assertEquals(1_000_000_000L, histogram.getValueAtPercentile(100));
+    }
+
+    @Test
+    public void reset_clearsEverything() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(42);
+        histogram.reset();
+
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMax());
+        assertEquals(0, histogram.getValueAtPercentile(50));
+        assertEquals(0, histogram.getBucketCount(LatencyHistogram.bucketIndex(42)));
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.autoclicker.telemetry;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class OverlayFrameStatsTest {
+
+    @Test
+    public void countsMovesAgainstFrames() {
+        OverlayFrameStats stats = new OverlayFrameStats();
+        for (int i = 0; i < 9; i++) {
+            stats.onMove();
+        }
+        stats.onDragFrame(400_000);
+        stats.onDragFrame(600_000);
+        stats.onMarkerDraw(100_000);
+
+        assertEquals(9, stats.getMoves());
+        assertEquals(2, stats.getDragFrames());
+        assertEquals(1, stats.getMarkerDraw().getCount());
+        assertTrue(stats.summary(), stats.summary().startsWith("overlay drag 9 moves in 2 frames"));
+
+        stats.reset();
+        assertEquals(0, stats.getMoves());
+        assertEquals(0, stats.getDragFrames());
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.autoclicker.telemetry;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class StartupMetricsTest {
+
+    private static final long MS = 1_000_000L;
+
+    @Test
+    public void coldStart_isKeptApartFromResumes() {
+        StartupMetrics metrics = new StartupMetrics();
+        assertFalse(metrics.hasStarted());
+        assertTrue(metrics.begin(StartupMetrics.Kind.COLD, 0));
+        assertEquals(300 * MS, metrics.onFirstFrame(300 * MS));
+        assertEquals(-1, metrics.onFirstFrame(310 * MS));
+        assertEquals(350 * MS, metrics.onInteractive(350 * MS));
+
+        assertTrue(metrics.begin(StartupMetrics.Kind.RESUME, 1000 * MS));
+        metrics.onFirstFrame(1016 * MS);
+        metrics.onInteractive(1020 * MS);
+
+        assertEquals(300 * MS, metrics.getColdFirstFrameNanos());
+        assertEquals(350 * MS, metrics.getColdInteractiveNanos());
+        assertEquals(1, metrics.getResumeFirstFrame().getCount());
+        assertEquals(20 * MS, metrics.getResumeInteractive().getMax(), MS);
+    }
+
+    @Test
+    public void resumeDuringColdStart_doesNotRestartTiming() {
+        StartupMetrics metrics = new StartupMetrics();
+        metrics.begin(StartupMetrics.Kind.COLD, 0);
+        assertFalse(metrics.begin(StartupMetrics.Kind.RESUME, 100 * MS));
+        metrics.onInteractive(400 * MS);
+
+        // Interactive implies the first frame was shown
+        assertEquals(400 * MS, metrics.getColdFirstFrameNanos());
+        assertEquals(400 * MS, metrics.getColdInteractiveNanos());
+        assertEquals(0, metrics.getResumeInteractive().getCount());
+    }
+
+    @Test
+    public void marksBeforeBegin_areIgnored() {
+        StartupMetrics metrics = new StartupMetrics();
+        assertEquals(-1, metrics.onFirstFrame(5));
+        assertEquals(-1, metrics.onInteractive(5));
+    }
+
+    @Test
+    public void cancelledLaunch_isNotCountedAndAllowsTheNext() {
+        StartupMetrics metrics = new StartupMetrics();
+        metrics.begin(StartupMetrics.Kind.COLD, 0);
+        metrics.onInteractive(300 * MS);
+
+        metrics.begin(StartupMetrics.Kind.RESUME, 1000 * MS);
+        assertTrue(metrics.cancel());
+        assertFalse(metrics.cancel());
+        assertEquals(-1, metrics.onInteractive(1500 * MS));
+
+        assertTrue(metrics.begin(StartupMetrics.Kind.RESUME, 2000 * MS));
+        metrics.onInteractive(2010 * MS);
+        assertEquals(1, metrics.getResumeInteractive().getCount());
+        assertEquals(1, metrics.getResumeFirstFrame().getCount());
+    }
+}
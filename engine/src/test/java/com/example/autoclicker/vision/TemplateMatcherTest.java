@@ -0,0 +1,79 @@
+package com.example.autoclicker.vision;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class TemplateMatcherTest {
+
+    private static GrayImage noise(int width, int height, long seed) {
+        byte[] pixels = new byte[width * height];
+        new Random(seed).nextBytes(pixels);
+        return new GrayImage(width, height, pixels);
+    }
+
+    @Test
+    public void findsTemplateAtItsPosition() {
+        GrayImage frame = noise(120, 80, 1);
+        GrayImage template = frame.crop(70, 30, 16, 12);
+
+        TemplateMatcher matcher = new TemplateMatcher(template, 5);
+        assertTrue(matcher.match(frame));
+        assertEquals(70, matcher.getBestX());
+        assertEquals(30, matcher.getBestY());
+        assertEquals(0, matcher.getBestScore(), 0);
+    }
+
+    @Test
+    public void regionOfInterest_limitsSearch() {
+        GrayImage frame = noise(120, 80, 2);
+        GrayImage template = frame.crop(70, 30, 16, 12);
+        TemplateMatcher matcher = new TemplateMatcher(template, 5);
+
+        assertFalse(matcher.match(frame, 0, 0, 60, 80));
+        assertTrue(matcher.match(frame, 60, 20, 100, 50));
+        assertEquals(70, matcher.getBestX());
+    }
+
+    @Test
+    public void differentContent_doesNotMatch() {
+        GrayImage template = noise(16, 16, 3);
+        TemplateMatcher matcher = new TemplateMatcher(template, 12);
+        assertFalse(matcher.match(noise(64, 64, 4)));
+        assertTrue(matcher.getBestScore() > 12);
+    }
+
+    @Test
+    public void regionSmallerThanTemplate_doesNotMatch() {
+        TemplateMatcher matcher = new TemplateMatcher(noise(16, 16, 5), 12);
+        assertFalse(matcher.match(noise(10, 10, 6)));
+        assertEquals(-1, matcher.getBestX());
+    }
+
+    @Test
+    public void downscale_averagesBlocksToLuma() {
+        int[] argb = new int[8 * 4];
+        for (int i = 0; i < argb.length; i++) {
+            // Left half white, right half black
+            argb[i] = (i % 8) < 4 ? 0xFFFFFFFF : 0xFF000000;
+        }
+        GrayImage image = new GrayImage();
+        image.downscaleFrom(argb, 8, 4, 2);
+
+        assertEquals(4, image.getWidth());
+        assertEquals(2, image.getHeight());
+        assertEquals(255, image.get(0, 0));
+        assertEquals(255, image.get(1, 1));
+        assertEquals(0, image.get(2, 0));
+    }
+
+    @Test
+    public void rateLimiter_spacesRequests() {
+        RateLimiter limiter = new RateLimiter(500);
+        assertTrue(limiter.tryAcquire(1000));
+        assertFalse(limiter.tryAcquire(1499));
+        assertTrue(limiter.tryAcquire(1500));
+    }
+}
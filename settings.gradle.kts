@@ -21,3 +21,5 @@ dependencyResolutionManagement {
 
 rootProject.name = "Auto Clicker"
 include(":app")
+include(":engine")
+include(":benchmark")